@@ -0,0 +1,143 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/***
+ * Generates and compiles controllers with a configurable number of endpoints and version range width. The
+ * controllers are compiled at runtime, because the annotations of a controller cannot be changed after compilation.
+ */
+public final class GeneratedControllers {
+
+    public static final String PREFIX = "v";
+
+    private static final String PACKAGE = "io.github.boukenijhuis.dynamicversionurl.generated";
+    private static final String CLASS_NAME = "GeneratedController";
+
+    private GeneratedControllers() {
+    }
+
+    /***
+     * Generates and compiles a controller.
+     * @param mode the routing mode, vanilla mode uses @GetMapping, the other modes use @GetVersionMapping
+     * @param endpoints the number of endpoints
+     * @param rangeWidth the number of versions of every endpoint
+     * @param pathVariable true to give every endpoint a path variable
+     * @return the controller class
+     */
+    public static Class<?> compile(RoutingMode mode, int endpoints, int rangeWidth, boolean pathVariable) {
+        return compile(mode, endpoints, rangeWidth, pathVariable, false);
+    }
+
+    /***
+     * Generates and compiles a controller.
+     * @param mode the routing mode, vanilla mode uses @GetMapping, the other modes use @GetVersionMapping
+     * @param endpoints the number of endpoints
+     * @param rangeWidth the number of versions of every endpoint
+     * @param pathVariable true to give every endpoint a path variable
+     * @param post true to also give every endpoint a POST mapping (@PostMapping or @PostVersionMapping)
+     * @return the controller class
+     */
+    public static Class<?> compile(RoutingMode mode, int endpoints, int rangeWidth, boolean pathVariable, boolean post) {
+        String source = mode.isVanilla()
+                ? vanillaSource(endpoints, rangeWidth, pathVariable, post)
+                : versionedSource(endpoints, rangeWidth, pathVariable, post);
+
+        try {
+            Path directory = Files.createTempDirectory("generated-controllers");
+            Path sourceFile = directory.resolve(CLASS_NAME + ".java");
+            Files.writeString(sourceFile, source);
+
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            int result = compiler.run(null, null, null, "-proc:none", "-parameters",
+                    "-cp", System.getProperty("java.class.path"), "-d", directory.toString(), sourceFile.toString());
+            if (result != 0) {
+                throw new IllegalStateException("Compilation of the generated controller failed.");
+            }
+
+            ClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                    GeneratedControllers.class.getClassLoader());
+            return classLoader.loadClass(PACKAGE + "." + CLASS_NAME);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /***
+     * Returns the request path for an endpoint and version.
+     */
+    public static String requestPath(int endpoint, int version, boolean pathVariable) {
+        return "/api/" + PREFIX + version + "/e" + endpoint + (pathVariable ? "/42" : "");
+    }
+
+    private static String versionedSource(int endpoints, int rangeWidth, boolean pathVariable, boolean post) {
+        StringBuilder methods = new StringBuilder();
+        for (int endpoint = 0; endpoint < endpoints; endpoint++) {
+            String mapping = String.format("(path = \"%s\", versions = {1, %d})", endpointPath(endpoint, pathVariable), rangeWidth);
+            appendMethod(methods, "io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping" + mapping,
+                    "e" + endpoint, pathVariable);
+            if (post) {
+                appendMethod(methods, "io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping" + mapping,
+                        "p" + endpoint, pathVariable);
+            }
+        }
+        return classSource(methods);
+    }
+
+    private static String vanillaSource(int endpoints, int rangeWidth, boolean pathVariable, boolean post) {
+        StringBuilder methods = new StringBuilder();
+        for (int endpoint = 0; endpoint < endpoints; endpoint++) {
+            StringBuilder paths = new StringBuilder();
+            for (int version = 1; version <= rangeWidth; version++) {
+                paths.append(version == 1 ? "" : ", ")
+                        .append('"').append("/").append(PREFIX).append(version).append(endpointPath(endpoint, pathVariable)).append('"');
+            }
+            String mapping = "({" + paths + "})";
+            appendMethod(methods, "org.springframework.web.bind.annotation.GetMapping" + mapping, "e" + endpoint, pathVariable);
+            if (post) {
+                appendMethod(methods, "org.springframework.web.bind.annotation.PostMapping" + mapping, "p" + endpoint, pathVariable);
+            }
+        }
+        return classSource(methods);
+    }
+
+    // the method returns its own name, so a response shows which method has handled the request
+    private static void appendMethod(StringBuilder methods, String annotation, String name, boolean pathVariable) {
+        methods.append(String.format("""
+                    @%s
+                    public String %s(%s) {
+                        return "%s";
+                    }
+
+                """, annotation, name, parameters(pathVariable), name));
+    }
+
+    private static String classSource(StringBuilder methods) {
+        return String.format("""
+                package %s;
+
+                @org.springframework.web.bind.annotation.RestController
+                @org.springframework.web.bind.annotation.RequestMapping("/api")
+                public class %s {
+
+                %s
+                }
+                """, PACKAGE, CLASS_NAME, methods);
+    }
+
+    private static String endpointPath(int endpoint, boolean pathVariable) {
+        return "/e" + endpoint + (pathVariable ? "/{id}" : "");
+    }
+
+    private static String parameters(boolean pathVariable) {
+        return pathVariable ? "@org.springframework.web.bind.annotation.PathVariable(\"id\") String id" : "";
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/***
+ * Creates initialized handler mappings for a generated controller, without starting a Spring Boot application.
+ */
+public final class HandlerMappings {
+
+    private HandlerMappings() {
+    }
+
+    public static RequestMappingHandlerMapping create(RoutingMode mode, Class<?> controllerClass) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("generatedController", controllerClass);
+
+        RequestMappingHandlerMapping handlerMapping = mode.createHandlerMapping();
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+}
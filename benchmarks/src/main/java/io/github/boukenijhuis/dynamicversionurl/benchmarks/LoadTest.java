@@ -0,0 +1,305 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+/***
+ * Starts the load test application on embedded Tomcat with a generated controller and sends requests to it from many
+ * threads with the JDK http client. Every thread sends its next request when the previous response has arrived. The
+ * throughput and the latency percentiles of the selected routing modes are compared with vanilla Spring, which uses
+ * plain @GetMapping and @PostMapping annotations for the same paths. Everything runs on the local machine.
+ * <p>
+ * The options are given as key=value arguments or as system properties with the 'load.' prefix, e.g.
+ * -Dload.modes=EXPANDED,COMPACT_INDEXED -Dload.mix=10:80,9:15,1:5.
+ */
+public final class LoadTest {
+
+    /***
+     * The options of a load test.
+     * @param modes the routing modes that are compared with vanilla Spring
+     * @param endpoints the number of endpoints
+     * @param rangeWidth the number of versions of every endpoint
+     * @param pathVariable true to give every endpoint a path variable
+     * @param threads the number of threads that send requests
+     * @param warmup the time before the measurement starts
+     * @param duration the time that is measured
+     * @param mix the versions that are requested
+     * @param postRatio the fraction of the requests that are POST requests
+     */
+    public record Options(List<RoutingMode> modes, int endpoints, int rangeWidth, boolean pathVariable, int threads,
+                          Duration warmup, Duration duration, VersionMix mix, double postRatio) {
+
+        /***
+         * Reads the options, the missing options get a default value.
+         * @param option returns the value of an option or null when it is not given
+         */
+        public static Options parse(Function<String, String> option) {
+            int rangeWidth = Integer.parseInt(Objects.requireNonNullElse(option.apply("rangeWidth"), "10"));
+            List<RoutingMode> modes = new ArrayList<>();
+            for (String mode : Objects.requireNonNullElse(option.apply("modes"), "EXPANDED").split(",")) {
+                modes.add(RoutingMode.valueOf(mode.trim()));
+            }
+            return new Options(modes,
+                    Integer.parseInt(Objects.requireNonNullElse(option.apply("endpoints"), "100")),
+                    rangeWidth,
+                    Boolean.parseBoolean(option.apply("pathVariable")),
+                    Integer.parseInt(Objects.requireNonNullElse(option.apply("threads"), "16")),
+                    Duration.ofSeconds(Long.parseLong(Objects.requireNonNullElse(option.apply("warmup"), "5"))),
+                    Duration.ofSeconds(Long.parseLong(Objects.requireNonNullElse(option.apply("duration"), "15"))),
+                    VersionMix.parse(Objects.requireNonNullElse(option.apply("mix"), "uniform"), rangeWidth),
+                    Double.parseDouble(Objects.requireNonNullElse(option.apply("post"), "0.1")));
+        }
+    }
+
+    /***
+     * The weights of the requested versions, e.g. 10:80,9:15,1:5 requests version 10 in 80% of the requests.
+     * 'uniform' requests every version of the range equally often.
+     */
+    public static final class VersionMix {
+
+        private final int[] versions;
+        private final int[] cumulativeWeights;
+        private final String description;
+
+        private VersionMix(int[] versions, int[] cumulativeWeights, String description) {
+            this.versions = versions;
+            this.cumulativeWeights = cumulativeWeights;
+            this.description = description;
+        }
+
+        public static VersionMix parse(String mix, int rangeWidth) {
+            if (mix.equals("uniform")) {
+                int[] versions = new int[rangeWidth];
+                int[] cumulativeWeights = new int[rangeWidth];
+                for (int i = 0; i < rangeWidth; i++) {
+                    versions[i] = i + 1;
+                    cumulativeWeights[i] = i + 1;
+                }
+                return new VersionMix(versions, cumulativeWeights, mix);
+            }
+
+            String[] entries = mix.split(",");
+            int[] versions = new int[entries.length];
+            int[] cumulativeWeights = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] entry = entries[i].trim().split(":");
+                versions[i] = Integer.parseInt(entry[0]);
+                total += entry.length > 1 ? Integer.parseInt(entry[1]) : 1;
+                cumulativeWeights[i] = total;
+                if (versions[i] < 1 || versions[i] > rangeWidth) {
+                    throw new IllegalArgumentException(String.format("Version %d of the mix '%s' is not in the range 1-%d.",
+                            versions[i], mix, rangeWidth));
+                }
+            }
+            return new VersionMix(versions, cumulativeWeights, mix);
+        }
+
+        int next(SplittableRandom random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (cumulativeWeights[i] <= value) {
+                i++;
+            }
+            return versions[i];
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /***
+     * The measurement of one routing mode, the latencies are in microseconds.
+     */
+    public record Result(RoutingMode mode, long requests, long errors, double throughput, long p50, long p99, long p999) {
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = new HashMap<>();
+        for (String argument : args) {
+            int separator = argument.indexOf('=');
+            arguments.put(argument.substring(0, separator), argument.substring(separator + 1));
+        }
+        Options options = Options.parse(key -> arguments.getOrDefault(key, System.getProperty("load." + key)));
+
+        List<Result> results = new ArrayList<>();
+        results.add(run(RoutingMode.VANILLA, options));
+        for (RoutingMode mode : options.modes()) {
+            if (!mode.isVanilla()) {
+                results.add(run(mode, options));
+            }
+        }
+        print(options, results);
+    }
+
+    /***
+     * Starts the application for a routing mode, sends the requests and stops the application.
+     */
+    public static Result run(RoutingMode mode, Options options) throws InterruptedException {
+        Class<?> controllerClass = GeneratedControllers.compile(mode, options.endpoints(), options.rangeWidth(),
+                options.pathVariable(), options.postRatio() > 0);
+
+        Map<String, Object> properties = new HashMap<>(mode.getProperties());
+        properties.put("server.port", 0);
+        properties.put("server.tomcat.threads.max", Math.max(200, options.threads()));
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "warn");
+
+        SpringApplication application = new SpringApplication(LoadTestApplication.class);
+        application.setDefaultProperties(properties);
+        application.addInitializers(context ->
+                ((GenericApplicationContext) context).registerBean("generatedController", controllerClass));
+
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) application.run();
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            URI baseUri = URI.create("http://localhost:" + context.getWebServer().getPort());
+            drive(client, baseUri, options, options.warmup());
+            return measure(mode, client, baseUri, options);
+        }
+    }
+
+    private static Result measure(RoutingMode mode, HttpClient client, URI baseUri, Options options) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Worker> workers = drive(client, baseUri, options, options.duration());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long errors = 0;
+        int count = 0;
+        for (Worker worker : workers) {
+            errors += worker.errors;
+            count += worker.count;
+        }
+        long[] latencies = new long[count];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(mode, count, errors, count / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    private static List<Worker> drive(HttpClient client, URI baseUri, Options options, Duration duration) throws InterruptedException {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.threads(); i++) {
+            Worker worker = new Worker(client, baseUri, options, new SplittableRandom(i), startSignal);
+            workers.add(worker);
+            threads.add(Thread.ofPlatform().name("load-" + i).start(worker));
+        }
+
+        startSignal.countDown();
+        Thread.sleep(duration);
+        for (Worker worker : workers) {
+            worker.running = false;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return workers;
+    }
+
+    // the nearest rank of a sorted array, in microseconds
+    private static long percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1000;
+    }
+
+    private static void print(Options options, List<Result> results) {
+        System.out.printf("%nLoad test: %d endpoints, %d versions, %d threads, %d s (mix %s, %.0f%% POST)%n",
+                options.endpoints(), options.rangeWidth(), options.threads(), options.duration().toSeconds(),
+                options.mix(), options.postRatio() * 100);
+        System.out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "mode", "requests", "errors", "req/s", "vs vanilla", "p50 (us)", "p99 (us)", "p99.9 (us)");
+        double baseline = results.get(0).throughput();
+        for (Result result : results) {
+            System.out.printf("%-16s %10d %8d %10.0f %9.0f%% %10d %10d %10d%n", result.mode(), result.requests(),
+                    result.errors(), result.throughput(), result.throughput() / baseline * 100,
+                    result.p50(), result.p99(), result.p999());
+        }
+    }
+
+    /***
+     * Sends requests until it is stopped and records the latency of every request. A response with another status
+     * than 200 or another body than the name of the expected handler method is an error.
+     */
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final URI baseUri;
+        private final Options options;
+        private final SplittableRandom random;
+        private final CountDownLatch startSignal;
+
+        private volatile boolean running = true;
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private long errors;
+
+        private Worker(HttpClient client, URI baseUri, Options options, SplittableRandom random, CountDownLatch startSignal) {
+            this.client = client;
+            this.baseUri = baseUri;
+            this.options = options;
+            this.random = random;
+            this.startSignal = startSignal;
+        }
+
+        @Override
+        public void run() {
+            try {
+                startSignal.await();
+                while (running) {
+                    int endpoint = random.nextInt(options.endpoints());
+                    boolean post = random.nextDouble() < options.postRatio();
+                    String path = GeneratedControllers.requestPath(endpoint, options.mix().next(random), options.pathVariable());
+                    HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                            .method(post ? "POST" : "GET", HttpRequest.BodyPublishers.noBody())
+                            .build();
+
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        success = response.statusCode() == 200 && response.body().equals((post ? "p" : "e") + endpoint);
+                    } catch (IOException e) {
+                        success = false;
+                    }
+                    record(System.nanoTime() - start, success);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void record(long latency, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if (!success) {
+                errors++;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/***
+ * The application that is started by the {@link LoadTest}. The generated controller is registered when the application
+ * is started, so there is nothing to scan.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class LoadTestApplication {
+}
@@ -0,0 +1,39 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Measures the time it takes to register all mappings of a controller, which is part of the startup time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class RegistrationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int endpoints;
+
+    @Param({"1", "10", "100"})
+    public int rangeWidth;
+
+    @Param({"VANILLA", "EXPANDED", "COMPACT", "LAZY"})
+    public RoutingMode mode;
+
+    private Class<?> controllerClass;
+
+    @Setup
+    public void setup() {
+        controllerClass = GeneratedControllers.compile(mode, endpoints, rangeWidth, false);
+    }
+
+    @Benchmark
+    public RequestMappingHandlerMapping register() {
+        return HandlerMappings.create(mode, controllerClass);
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Measures the time it takes to find the handler for a versioned request. Run with '-prof gc' to also report the
+ * allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int endpoints;
+
+    @Param({"1", "10", "100"})
+    public int rangeWidth;
+
+    @Param({"false", "true"})
+    public boolean pathVariable;
+
+    @Param({"VANILLA", "EXPANDED", "COMPACT", "INDEXED", "COMPACT_INDEXED", "CACHED", "DIRECT"})
+    public RoutingMode mode;
+
+    private RequestMappingHandlerMapping handlerMapping;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<?> controllerClass = GeneratedControllers.compile(mode, endpoints, rangeWidth, pathVariable);
+        handlerMapping = HandlerMappings.create(mode, controllerClass);
+
+        // random endpoints and versions, the same for every mode
+        SplittableRandom random = new SplittableRandom(42);
+        requests = new MockHttpServletRequest[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            String path = GeneratedControllers.requestPath(random.nextInt(endpoints), 1 + random.nextInt(rangeWidth), pathVariable);
+            requests[i] = new MockHttpServletRequest("GET", path);
+        }
+
+        // fail fast when a mode does not route the requests
+        for (MockHttpServletRequest request : requests) {
+            if (lookup(request) == null) {
+                throw new IllegalStateException("No handler found for " + request.getRequestURI());
+            }
+        }
+    }
+
+    @Benchmark
+    public HandlerExecutionChain lookup() throws Exception {
+        MockHttpServletRequest request = requests[next];
+        next = (next + 1) & (REQUEST_COUNT - 1);
+        return lookup(request);
+    }
+
+    private HandlerExecutionChain lookup(MockHttpServletRequest request) throws Exception {
+        // the dispatcher servlet parses the request path before the handler mappings are used
+        ServletRequestPathUtils.parseAndCache(request);
+        return handlerMapping.getHandler(request);
+    }
+}
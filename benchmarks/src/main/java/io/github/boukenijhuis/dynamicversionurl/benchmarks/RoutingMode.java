@@ -0,0 +1,66 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.DynamicVersionUrlMvcAutoConfiguration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Map;
+
+/***
+ * The routing modes that are compared by the benchmarks. Add a constant here when a new routing mode is added to the
+ * library.
+ */
+public enum RoutingMode {
+
+    // plain @GetMapping annotations that list every version, handled by Spring only
+    VANILLA,
+    // @GetVersionMapping annotations, every version in the range is registered as a separate path
+    EXPANDED,
+    // @GetVersionMapping annotations, one path with a version placeholder per endpoint
+    COMPACT,
+    // expanded paths with the version lookup index
+    INDEXED,
+    // compact paths with the version lookup index
+    COMPACT_INDEXED,
+    // expanded paths, only the newest versions are registered at startup
+    LAZY,
+    // expanded paths with the lookup cache (large enough for all benchmark requests)
+    CACHED,
+    // expanded paths with the direct path table for the literal paths
+    DIRECT;
+
+    public boolean isVanilla() {
+        return this == VANILLA;
+    }
+
+    public RequestMappingHandlerMapping createHandlerMapping() {
+        if (isVanilla()) {
+            return new RequestMappingHandlerMapping();
+        }
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping(GeneratedControllers.PREFIX);
+        handlerMapping.setCompact(this == COMPACT || this == COMPACT_INDEXED);
+        handlerMapping.setIndexed(this == INDEXED || this == COMPACT_INDEXED);
+        handlerMapping.setLazy(this == LAZY);
+        handlerMapping.setLookupCacheSize(this == CACHED ? 4096 : 0);
+        handlerMapping.setDirectPathsEnabled(this == DIRECT);
+        return handlerMapping;
+    }
+
+    /***
+     * Returns the application properties that select this routing mode in a Spring Boot application. Vanilla mode
+     * excludes the auto configuration of the library, so Spring creates the handler mapping.
+     */
+    public Map<String, Object> getProperties() {
+        return switch (this) {
+            case VANILLA -> Map.of("spring.autoconfigure.exclude", DynamicVersionUrlMvcAutoConfiguration.class.getName());
+            case EXPANDED -> Map.of();
+            case COMPACT -> Map.of("version.compact", true);
+            case INDEXED -> Map.of("version.index", true);
+            case COMPACT_INDEXED -> Map.of("version.compact", true, "version.index", true);
+            case LAZY -> Map.of("version.lazy", true);
+            case CACHED -> Map.of("version.cache.size", 4096);
+            case DIRECT -> Map.of("version.direct-paths", true);
+        };
+    }
+}
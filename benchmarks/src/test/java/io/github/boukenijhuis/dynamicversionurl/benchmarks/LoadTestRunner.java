@@ -0,0 +1,15 @@
+package io.github.boukenijhuis.dynamicversionurl.benchmarks;
+
+import org.junit.jupiter.api.Test;
+
+/***
+ * Runs the {@link LoadTest} with Maven, because the shaded benchmarks jar cannot start a Spring Boot application. The
+ * name does not end with 'Test', so it only runs in the load-test profile.
+ */
+class LoadTestRunner {
+
+    @Test
+    void run() throws Exception {
+        LoadTest.main(new String[0]);
+    }
+}
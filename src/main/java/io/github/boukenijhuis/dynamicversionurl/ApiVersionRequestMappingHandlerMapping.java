@@ -1,23 +1,538 @@
 package io.github.boukenijhuis.dynamicversionurl;
 
 import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
-import org.springframework.core.annotation.AnnotationUtils;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
-import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ApiVersionRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
 
+    /***
+     * The name of the path variable that holds the version in compact mode.
+     */
+    public static final String VERSION_VARIABLE = "dynamicVersion";
+
+    static final String VERSION_PLACEHOLDER = "{" + VERSION_VARIABLE + ":\\d+}";
+
+    static final String SEMANTIC_VERSION_PLACEHOLDER = "{" + VERSION_VARIABLE + ":\\d+\\.\\d+}";
+
+    /***
+     * The name of the request attribute that holds the version (Integer) of the matched versioned mapping.
+     */
+    public static final String VERSION_ATTRIBUTE = ApiVersionRequestMappingHandlerMapping.class.getName() + ".version";
+
+    /***
+     * The name of the request attribute that holds the packed major.minor version (Long) of the matched semantic
+     * mapping, see {@link SemanticVersion}. The version attribute then holds the major version.
+     */
+    public static final String SEMANTIC_VERSION_ATTRIBUTE = ApiVersionRequestMappingHandlerMapping.class.getName() + ".semanticVersion";
+
+    /***
+     * The name of the request attribute that holds the {@link VersionedMapping} (with the declared range) that matched.
+     */
+    public static final String VERSIONED_MAPPING_ATTRIBUTE = ApiVersionRequestMappingHandlerMapping.class.getName() + ".versionedMapping";
+
     private final String prefix;
 
+    private final VersionMappingSupport support;
+
+    // the version information of every versioned mapping, by request mapping info and by handler method
+    private final VersionedMappingRegistry<RequestMappingInfo> registry = new VersionedMappingRegistry<>();
+
+    // the older versions that are registered on first use in lazy mode
+    private final LazyVersionTable lazyVersionTable;
+
+    // registers the older versions in lazy mode, as versioned mappings of one version (removed again on unregister)
+    private final LazyVersionTable.Registrar lazyRegistrar = new LazyVersionTable.Registrar() {
+        @Override
+        public void register(RequestMappingInfo info, VersionedMapping versionedMapping, Object handler, Method method) {
+            registry.put(info, versionedMapping);
+            registerMapping(info, handler, method);
+        }
+
+        @Override
+        public void unregister(RequestMappingInfo info) {
+            unregisterMapping(info);
+        }
+    };
+
+    // registers the mappings of the version window registrar and gives the lookup pipeline the registered mappings
+    private final Callbacks callbacks = new Callbacks();
+
+    // creates the versioned mappings for the supported versions and registers them again when the versions change
+    private final VersionWindowRegistrar windowRegistrar;
+
+    // the direct path table, the lookup cache and the version lookup index, before the normal lookup
+    private final VersionLookupPipeline pipeline;
+
+    // the time spent in getMappingForMethod
+    private final LongAdder registrationNanos = new LongAdder();
+
+    // the handler of which the methods are being detected
+    private Object detectingHandler;
+
+    // null when the response cache is disabled
+    @Nullable
+    private VersionResponseCache responseCache;
+
+    @Nullable
+    private VersionResponseCacheInterceptor responseCacheInterceptor;
+
+    // the maximum number of milliseconds that a request waits for the response of a concurrent request
+    private long responseCacheWaitTimeout = 5000;
+
+    @Nullable
+    private CanonicalVersionInterceptor canonicalVersionInterceptor;
+
+    // handler method -> the bulkhead of the mappings with a maximum number of concurrent requests
+    private final Map<Method, VersionBulkhead> methodBulkheads = new ConcurrentHashMap<>();
+
+    private final VersionBulkheadInterceptor bulkheadInterceptor = new VersionBulkheadInterceptor(methodBulkheads);
+
+    // true when a version mapping annotation has a cache ttl
+    private volatile boolean cacheTtlDeclared = false;
+
+    private boolean restartCacheEnabled = false;
+
+    // handler class -> the entry in the restart cache, for the classes that were detected in this context
+    private final Map<Class<?>, RestartCache.ClassEntry> restartCacheEntries = new ConcurrentHashMap<>();
+
+    // the detected classes that were not in the restart cache or had changed
+    private final Set<Class<?>> reprocessedHandlerTypes = ConcurrentHashMap.newKeySet();
+
+    // the entry in the restart cache of the handler of which the methods are being detected
+    @Nullable
+    private RestartCache.ClassEntry detectingEntry;
+
+    // the number of threads that scan the handler methods before the registration, 0 means no parallel scan
+    private int scanParallelism = 0;
+
+    // handler class -> method -> the result of the parallel scan, only filled during the detection of the handlers
+    private final Map<Class<?>, Map<Method, ScannedMethod>> scannedMethods = new ConcurrentHashMap<>();
+
+    // the time spent in the parallel scan
+    private volatile long scanNanos = 0;
+
+    // one in this number of requests is recorded as a flight recorder event, 0 records no requests
+    private int resolutionEventSampleInterval = 100;
+
+    private boolean deduplicationEnabled = false;
+
+    // null when the deduplication is disabled
+    @Nullable
+    private MappingDeduplicator deduplicator;
+
     public ApiVersionRequestMappingHandlerMapping(String prefix) {
         this.prefix = prefix;
+        this.support = new VersionMappingSupport(prefix);
+        this.lazyVersionTable = new LazyVersionTable(prefix);
+        this.windowRegistrar = new VersionWindowRegistrar(prefix, support, registry, lazyVersionTable, callbacks);
+        this.pipeline = new VersionLookupPipeline(prefix, callbacks, registry);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /***
+     * Sets the strategy that determines where the version of a request is found. Path based resolvers put the version
+     * in the registered paths. The other resolvers register the paths from the annotation and add a
+     * {@link ResolvedVersionRequestCondition}, in which case compact mode, lazy mode and the version lookup index have
+     * no effect.
+     * @param versionResolver the version resolver (default {@link PathPrefixVersionResolver})
+     */
+    public void setVersionResolver(VersionResolver versionResolver) {
+        windowRegistrar.setVersionResolver(versionResolver);
+        support.setVersionResolver(versionResolver);
+    }
+
+    public VersionResolver getVersionResolver() {
+        return windowRegistrar.getVersionResolver();
+    }
+
+    /***
+     * Enables compact mode. In compact mode only one pattern (with a version placeholder) is registered per path,
+     * combined with a {@link VersionRangeRequestCondition} that checks the requested version. Otherwise, every
+     * version in the range is registered as a separate path.
+     * @param compact true to enable compact mode
+     */
+    public void setCompact(boolean compact) {
+        windowRegistrar.setCompact(compact);
+    }
+
+    public boolean isCompact() {
+        return windowRegistrar.isCompact();
+    }
+
+    /***
+     * Enables the version lookup index. The index finds the versioned mapping for a request with a binary search over
+     * the version ranges of the requested endpoint. When the index does not find a (unique) match the normal lookup
+     * is used.
+     * @param indexed true to enable the version lookup index
+     */
+    public void setIndexed(boolean indexed) {
+        pipeline.setIndexed(indexed);
+    }
+
+    public boolean isIndexed() {
+        return pipeline.isIndexed();
+    }
+
+    /***
+     * Enables lazy mode. In lazy mode only the newest versions of a mapping are registered at startup. An older
+     * version is registered when it is requested for the first time. Lazy mode has no effect in compact mode, which
+     * registers only one pattern per path.
+     * @param lazy true to enable lazy mode
+     */
+    public void setLazy(boolean lazy) {
+        windowRegistrar.setLazy(lazy);
+    }
+
+    public boolean isLazy() {
+        return windowRegistrar.isLazy();
+    }
+
+    /***
+     * Sets the number of newest versions of a mapping that are registered at startup in lazy mode.
+     * @param eagerVersions the number of versions (at least 1)
+     */
+    public void setEagerVersions(int eagerVersions) {
+        if (eagerVersions < 1) {
+            throw new RuntimeException("The number of eager versions should be at least 1, but was " + eagerVersions + ".");
+        }
+        windowRegistrar.setEagerVersions(eagerVersions);
+    }
+
+    public int getEagerVersions() {
+        return windowRegistrar.getEagerVersions();
+    }
+
+    /***
+     * Enables the direct path table. The literal versioned paths (e.g. /api/v3/health) of the mappings without params,
+     * headers, consumes or produces conditions are put in an immutable hash table, keyed by request method and path,
+     * which is checked before the normal lookup. The table is built when the mappings have been registered and rebuilt
+     * after they change.
+     * @param directPathsEnabled true to enable the direct path table
+     */
+    public void setDirectPathsEnabled(boolean directPathsEnabled) {
+        pipeline.setDirectPathsEnabled(directPathsEnabled);
+    }
+
+    public boolean isDirectPathsEnabled() {
+        return pipeline.isDirectPathsEnabled();
+    }
+
+    /***
+     * Enables the lookup cache. The cache maps the request method and lookup path to the matched handler method, so a
+     * request for a path that was requested before skips the matching of all mappings. Only results that depend on
+     * nothing but the request method and path are cached. The cache is cleared when the mappings change.
+     * @param lookupCacheSize the maximum number of cached paths, 0 disables the cache
+     */
+    public void setLookupCacheSize(int lookupCacheSize) {
+        if (lookupCacheSize < 0) {
+            throw new RuntimeException("The lookup cache size should not be negative, but was " + lookupCacheSize + ".");
+        }
+        pipeline.setLookupCacheSize(lookupCacheSize);
+    }
+
+    /***
+     * Sets the size of the response cache, which is used for the mappings with a cache ttl.
+     * @param responseCacheSize the maximum number of cached responses, 0 disables the cache
+     */
+    public void setResponseCacheSize(int responseCacheSize) {
+        if (responseCacheSize < 0) {
+            throw new RuntimeException("The response cache size should not be negative, but was " + responseCacheSize + ".");
+        }
+        this.responseCache = responseCacheSize > 0 ? new VersionResponseCache(responseCacheSize) : null;
+        this.responseCacheInterceptor = responseCache != null ? new VersionResponseCacheInterceptor(this, responseCache) : null;
+    }
+
+    /***
+     * Sets the maximum time that a request waits for the response of a concurrent request for the same URL. After the
+     * timeout the request invokes the handler itself.
+     * @param responseCacheWaitTimeout the timeout in milliseconds, 5000 by default
+     */
+    public void setResponseCacheWaitTimeout(long responseCacheWaitTimeout) {
+        if (responseCacheWaitTimeout < 0) {
+            throw new RuntimeException("The response cache wait timeout should not be negative, but was "
+                    + responseCacheWaitTimeout + ".");
+        }
+        this.responseCacheWaitTimeout = responseCacheWaitTimeout;
+    }
+
+    long getResponseCacheWaitTimeout() {
+        return responseCacheWaitTimeout;
+    }
+
+    /***
+     * Sets the interceptor that adds the canonical locations and answers the conditional requests, which runs after the
+     * configured interceptors.
+     * @param canonicalVersionInterceptor the interceptor or null to disable the canonical locations
+     */
+    void setCanonicalVersionInterceptor(@Nullable CanonicalVersionInterceptor canonicalVersionInterceptor) {
+        this.canonicalVersionInterceptor = canonicalVersionInterceptor;
+    }
+
+    /***
+     * Limits the number of concurrent requests per version range, for all mappings together.
+     * @param bulkheads the bulkheads, their version ranges should not overlap
+     */
+    public void setVersionBulkheads(List<VersionBulkhead> bulkheads) {
+        bulkheadInterceptor.setRangeBulkheads(bulkheads);
+    }
+
+    /***
+     * Sets the status of the requests that are rejected by a bulkhead.
+     * @param rejectionStatus 503 (service unavailable) or 429 (too many requests)
+     */
+    public void setBulkheadRejectionStatus(int rejectionStatus) {
+        if (rejectionStatus != HttpServletResponse.SC_SERVICE_UNAVAILABLE && rejectionStatus != 429) {
+            throw new RuntimeException("The bulkhead rejection status should be 503 or 429, but was " + rejectionStatus + ".");
+        }
+        bulkheadInterceptor.setRejectionStatus(rejectionStatus);
+    }
+
+    public int getBulkheadRejectionStatus() {
+        return bulkheadInterceptor.getRejectionStatus();
+    }
+
+    /***
+     * Returns the permit usage of the version range bulkheads and of the mappings with a maximum number of concurrent
+     * requests.
+     * @return the statistics, sorted by name
+     */
+    public List<BulkheadStatistics> getBulkheadStatistics() {
+        List<BulkheadStatistics> statistics = new ArrayList<>();
+        getVersionBulkheads().forEach(bulkhead -> statistics.add(bulkhead.getStatistics()));
+        statistics.sort(Comparator.comparing(BulkheadStatistics::name));
+        return statistics;
+    }
+
+    /***
+     * Returns the version range bulkheads and the bulkheads of the mappings with a maximum number of concurrent requests.
+     */
+    List<VersionBulkhead> getVersionBulkheads() {
+        List<VersionBulkhead> bulkheads = new ArrayList<>(bulkheadInterceptor.getRangeBulkheads());
+        bulkheads.addAll(methodBulkheads.values());
+        return bulkheads;
+    }
+
+    /***
+     * Returns the response cache when it is enabled and used by at least one mapping.
+     */
+    @Nullable
+    VersionResponseCache getResponseCache() {
+        return cacheTtlDeclared ? responseCache : null;
+    }
+
+    /***
+     * Returns the current version: the configured latest version or, when no latest version is configured, the newest
+     * version of all version mapping annotations. The responses of the current version are never cached.
+     * @return the current version
+     */
+    public int getCurrentVersion() {
+        return windowRegistrar.getCurrentVersion();
+    }
+
+    /***
+     * Enables the route descriptor. The versions and paths of the methods that are in a route descriptor (written by
+     * the annotation processor) are read from the descriptor instead of from the annotations.
+     * @param routeDescriptorEnabled true to enable the route descriptor
+     */
+    public void setRouteDescriptorEnabled(boolean routeDescriptorEnabled) {
+        support.setRouteDescriptorEnabled(routeDescriptorEnabled);
+    }
+
+    public boolean isRouteDescriptorEnabled() {
+        return support.isRouteDescriptorEnabled();
+    }
+
+    /***
+     * Enables the restart cache. The cache keeps the version declarations, the expanded paths and the parsed patterns
+     * of the handler classes between restarts of the application context (e.g. by Spring Boot DevTools). After a
+     * restart only the handler classes of which the bytecode has changed are processed again, and the overlap check
+     * skips the paths that only have mappings of unchanged classes.
+     * @param restartCacheEnabled true to enable the restart cache
+     */
+    public void setRestartCacheEnabled(boolean restartCacheEnabled) {
+        this.restartCacheEnabled = restartCacheEnabled;
+    }
+
+    public boolean isRestartCacheEnabled() {
+        return restartCacheEnabled;
+    }
+
+    /***
+     * Enables the parallel scan. Before the handler methods are registered, the request mapping info, the version
+     * declaration and the versioned paths of the methods of all handler classes are created on a fork-join pool. The
+     * registration itself stays single-threaded and in the same order, and an invalid declaration is reported when its
+     * method is registered, so the result (and the first error) is the same as without the parallel scan.
+     * @param scanParallelism the number of threads, 0 disables the parallel scan
+     */
+    public void setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 0) {
+            throw new RuntimeException("The scan parallelism should not be negative, but was " + scanParallelism + ".");
+        }
+        this.scanParallelism = scanParallelism;
+    }
+
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    /***
+     * Returns the time spent in the parallel scan of the handler methods (wall-clock time).
+     * @return the scan time (zero when the parallel scan is disabled)
+     */
+    public Duration getScanTime() {
+        return Duration.ofNanos(scanNanos);
+    }
+
+    /***
+     * Enables the deduplication. Equal path patterns (e.g. the same versioned path of a GET and a POST mapping) share
+     * one parsed instance and the registrations of a handler method (e.g. the versions that are registered on first
+     * use in lazy mode) share its method parameters. The versions of one mapping already share the other conditions
+     * and the estimated saving is logged when the handler methods have been registered.
+     * @param deduplicationEnabled true to enable the deduplication
+     */
+    public void setDeduplicationEnabled(boolean deduplicationEnabled) {
+        this.deduplicationEnabled = deduplicationEnabled;
+    }
+
+    public boolean isDeduplicationEnabled() {
+        return deduplicationEnabled;
+    }
+
+    /***
+     * Returns the statistics of the deduplication.
+     * @return the statistics or null when the deduplication is disabled
+     */
+    @Nullable
+    public DeduplicationStatistics getDeduplicationStatistics() {
+        MappingDeduplicator mappingDeduplicator = deduplicator;
+        return mappingDeduplicator != null ? MappingDeduplicator.getStatistics(getHandlerMethods()) : null;
+    }
+
+    /***
+     * Sets how many requests are recorded as a flight recorder event (io.github.boukenijhuis.dynamicversionurl.RequestResolution)
+     * when the event is enabled in a recording. The event contains the resolved version and the time spent in the
+     * lookup. When the event is not enabled, the sampling is skipped as well.
+     * @param resolutionEventSampleInterval one in this number of requests is recorded, 0 records no requests
+     */
+    public void setResolutionEventSampleInterval(int resolutionEventSampleInterval) {
+        if (resolutionEventSampleInterval < 0) {
+            throw new RuntimeException("The resolution event sample interval should not be negative, but was "
+                    + resolutionEventSampleInterval + ".");
+        }
+        this.resolutionEventSampleInterval = resolutionEventSampleInterval;
+    }
+
+    public int getResolutionEventSampleInterval() {
+        return resolutionEventSampleInterval;
+    }
+
+    /***
+     * Returns the handler classes that were processed because they were not in the restart cache or had changed.
+     * @return the processed handler classes (empty when the restart cache is disabled)
+     */
+    public Set<Class<?>> getReprocessedHandlerTypes() {
+        return Collections.unmodifiableSet(reprocessedHandlerTypes);
+    }
+
+    /***
+     * Returns the overlap check that has passed with an unchanged handler class in an earlier context with the same
+     * supported versions.
+     * @param handlerType the handler class
+     * @return the verification or null when the class has to be checked
+     */
+    @Nullable
+    RestartCache.Verification getVerification(Class<?> handlerType) {
+        RestartCache.ClassEntry entry = restartCacheEntries.get(handlerType);
+        if (entry == null || reprocessedHandlerTypes.contains(handlerType)) {
+            return null;
+        }
+        RestartCache.Verification verification = entry.getVerification();
+        return verification != null && verification.getWindow().equals(getVersionWindow()) ? verification : null;
+    }
+
+    /***
+     * Records that the overlap check has passed for all handler classes of this context.
+     */
+    void markVerified() {
+        RestartCache.Verification verification = new RestartCache.Verification(getVersionWindow());
+        restartCacheEntries.values().forEach(entry -> entry.setVerification(verification));
+    }
+
+    /***
+     * Returns true when all versioned mappings were read from the route descriptor of one compilation, which means
+     * that the annotation processor has checked them for overlaps.
+     * @return true when the versioned mappings were verified at compile time
+     */
+    public boolean isVerifiedAtCompileTime() {
+        return support.isVerifiedAtCompileTime();
+    }
+
+    /***
+     * Returns the version information of all mappings that were created from a version mapping annotation.
+     * @return the versioned mappings
+     */
+    public Map<RequestMappingInfo, VersionedMapping> getVersionedMappings() {
+        return registry.asMap();
+    }
+
+    /***
+     * Sets the supported versions. Before the handler methods are detected this only sets the initial window. After
+     * that, the requests outside the new window are rejected immediately and only the mappings of which the registered
+     * versions change are replaced (via unregisterMapping and registerMapping). Requests keep being served while the
+     * mappings are replaced. When the new window is invalid for one of the mappings, nothing is changed.
+     * @param minSupported the oldest supported version, older versions are not registered
+     * @param latest the latest version, which is also used for the annotations with {@link VersionMapping#LATEST}
+     */
+    public void setSupportedVersions(int minSupported, int latest) {
+        windowRegistrar.setSupportedVersions(minSupported, latest);
+    }
+
+    public VersionWindow getVersionWindow() {
+        return windowRegistrar.getVersionWindow();
+    }
+
+    /***
+     * Checks the supported versions against all declared mappings, without changing anything.
+     * @param minSupported the oldest supported version
+     * @param latest the latest version
+     * @return the supported versions
+     * @throws IllegalArgumentException when the supported versions are invalid
+     */
+    public VersionWindow checkSupportedVersions(int minSupported, int latest) {
+        return windowRegistrar.checkSupportedVersions(minSupported, latest);
+    }
+
+    /***
+     * Returns the total time spent in creating the request mapping info objects (including the expansion of the
+     * version ranges).
+     * @return the registration time
+     */
+    public Duration getRegistrationTime() {
+        return Duration.ofNanos(registrationNanos.sum());
     }
 
     /***
@@ -30,140 +545,487 @@ public class ApiVersionRequestMappingHandlerMapping extends RequestMappingHandle
     @Override
     @Nullable
     protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+        long start = System.nanoTime();
+        VersionRegistrationEvent event = VersionRegistrationEvent.enabled() ? new VersionRegistrationEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        // the scanned mapping when the parallel scan has processed this method
+        Map<Method, ScannedMethod> scannedTypeMethods = scannedMethods.get(handlerType);
+        ScannedMethod scanned = scannedTypeMethods != null ? scannedTypeMethods.get(method) : null;
+        if (scanned != null && scanned.failure() != null) {
+            throw scanned.failure();
+        }
 
         // get the exiting request mapping info
-        RequestMappingInfo info = super.getMappingForMethod(method, handlerType);
+        RequestMappingInfo info = scanned != null ? scanned.info() : super.getMappingForMethod(method, handlerType);
 
-        // find the first version mapping annotation
-        Annotation annotation = getFirstAnnotation(method, getClass().getPackageName());
+        // the declaration and the versioned paths of an unchanged class are taken from the restart cache
+        RestartCache.ClassEntry classEntry = detectingEntry;
+        RestartCache.MethodEntry methodEntry = null;
+        if (info != null && classEntry != null) {
+            String key = RouteDescriptor.getKey(method);
+            methodEntry = classEntry.getMethod(key);
+            if (methodEntry == null || !methodEntry.matches(info.getPatternValues())) {
+                VersionMappingSupport.VersionDeclaration declaration = scanned != null ? scanned.declaration()
+                        : support.getVersionDeclaration(method);
+                methodEntry = new RestartCache.MethodEntry(info.getPatternValues(), declaration, declaration != null
+                        ? getVersionedPaths(info, declaration, scanned) : List.of());
+                classEntry.putMethod(key, methodEntry);
+            }
+        }
+
+        // find the versions of the first version mapping annotation
+        VersionMappingSupport.VersionDeclaration declaration = methodEntry != null ? methodEntry.getDeclaration()
+                : scanned != null ? scanned.declaration() : support.getVersionDeclaration(method);
 
-        if (annotation != null) {
-            AnnotationValues annotationValues = getAnnotationValues(method, annotation);
+        if (info != null && declaration != null) {
+            List<VersionedPath> versionedPaths = methodEntry != null ? methodEntry.getVersionedPaths()
+                    : getVersionedPaths(info, declaration, scanned);
+            if (declaration.cacheTtl() > 0) {
+                if (responseCache == null && !cacheTtlDeclared && logger.isWarnEnabled()) {
+                    logger.warn(String.format("The cache ttl of %s is ignored, because the response cache is not "
+                            + "enabled (version.response-cache.enabled).", method));
+                }
+                cacheTtlDeclared = true;
+            }
+            if (declaration.maxConcurrent() > 0) {
+                methodBulkheads.computeIfAbsent(method, m -> new VersionBulkhead(handlerType.getSimpleName() + "#" + m.getName(),
+                        declaration.oldest(), declaration.newest(), declaration.maxConcurrent()));
+            }
 
-            if (info != null && annotationValues.versions() != null) {
-                String[] versionPaths = updatePaths(info.getPatternValues(), annotationValues, annotation.getClass());
-                // update the request mapping info
-                info = info.mutate().paths(versionPaths).build();
+            // null when none of the declared versions is supported
+            info = windowRegistrar.declare(info, declaration, versionedPaths, detectingHandler, method, methodEntry,
+                    scanned != null ? scanned.expandedPaths() : null);
+            if (event != null && event.shouldCommit()) {
+                event.method = handlerType.getName() + "#" + method.getName();
+                event.oldestVersion = declaration.oldest();
+                event.newestVersion = declaration.newest();
+                event.pathCount = info != null ? info.getPatternValues().size() : 0;
+                event.commit();
             }
         }
 
+        registrationNanos.add(System.nanoTime() - start);
+
         // always return info
         return info;
     }
 
-    /**
-     * Build an AnnotationValues object containing values for versions, value and path.
-     * @param method
-     * @param annotation
-     * @return
-     */
-    private AnnotationValues getAnnotationValues(Method method, Annotation annotation) {
-
-        Map<String, Object> versionAttributes = AnnotationUtils.getAnnotationAttributes(annotation);
-
-        // special case: VersionMapping
-        if (annotation.annotationType().equals(VersionMapping.class)) {
-            Annotation mappingAnnotation = getFirstAnnotation(method, GetMapping.class.getPackageName());
-            Map<String, Object> mappingAttributes = AnnotationUtils.getAnnotationAttributes(mappingAnnotation);
-
-            return AnnotationValues.of(
-                    versionAttributes.get("value"),
-                    mappingAttributes.get("value"),
-                    mappingAttributes.get("path")
-            );
-        } else {
-            return AnnotationValues.of(
-                    versionAttributes.get("versions"),
-                    versionAttributes.get("value"),
-                    versionAttributes.get("path")
-            );
-        }
-    }
-
-    /**
-     * Find the first version annotation whose package name start with a given string on a given method.
-     *
-     * @param method     the method that is checked for the first version annotation
-     * @param startsWith the package name of the annotation should start with
-     * @return the first version annotation or null (when not found)
-     */
-    private Annotation getFirstAnnotation(Method method, String startsWith) {
-        Annotation[] declaredAnnotations = method.getDeclaredAnnotations();
-        for (Annotation annotation : declaredAnnotations) {
-            String packageName = annotation.annotationType().getPackageName();
-            if (packageName.startsWith(startsWith)) {
-                return annotation;
+    private List<VersionedPath> getVersionedPaths(RequestMappingInfo info, VersionMappingSupport.VersionDeclaration declaration,
+                                                  @Nullable ScannedMethod scanned) {
+        return scanned != null ? scanned.versionedPaths() : support.createVersionedPaths(info.getPatternValues(), declaration.paths());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // the parsed patterns are kept between restarts as well
+        if (restartCacheEnabled && getPatternParser() != null) {
+            CachingPathPatternParser patternParser = RestartCache.SHARED.getPatternParser(getPatternParser());
+            patternParser.startRegistration();
+            setPatternParser(patternParser);
+        }
+        // equal patterns share one instance, also with the patterns kept by the restart cache
+        if (deduplicationEnabled && getPatternParser() != null) {
+            CachingPathPatternParser patternParser = getPatternParser() instanceof CachingPathPatternParser cachingPatternParser
+                    ? cachingPatternParser : new CachingPathPatternParser(getPatternParser());
+            setPatternParser(patternParser);
+            deduplicator = new MappingDeduplicator();
+        }
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    @NonNull
+    protected HandlerMethod createHandlerMethod(@NonNull Object handler, @NonNull Method method) {
+        MappingDeduplicator mappingDeduplicator = deduplicator;
+        if (mappingDeduplicator == null) {
+            return super.createHandlerMethod(handler, method);
+        }
+        // the registered copies of a shared handler method share its method parameters
+        return mappingDeduplicator.getHandlerMethod(handler, method, () -> super.createHandlerMethod(handler, method));
+    }
+
+    @Override
+    protected void handlerMethodsInitialized(@NonNull Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        super.handlerMethodsInitialized(handlerMethods);
+        windowRegistrar.resolveSparseRanges(handlerMethods);
+        pipeline.initialize();
+        if (deduplicator != null && logger.isInfoEnabled()) {
+            DeduplicationStatistics statistics = MappingDeduplicator.getStatistics(handlerMethods);
+            logger.info(String.format("Shared %d path patterns and %d handler methods between the versioned "
+                    + "mappings, which saves about %d bytes.", statistics.sharedPatterns(),
+                    statistics.sharedHandlerMethods(), statistics.estimatedBytesSaved()));
+        }
+    }
+
+    @Override
+    protected void initHandlerMethods() {
+        if (scanParallelism > 0) {
+            scanHandlerMethods();
+        }
+        try {
+            super.initHandlerMethods();
+        } finally {
+            // only used for the initial registration
+            scannedMethods.clear();
+        }
+    }
+
+    /***
+     * Creates the request mapping info, the version declaration and the versioned paths of the methods of all
+     * handler classes on a fork-join pool.
+     */
+    private void scanHandlerMethods() {
+        long start = System.nanoTime();
+        Set<Class<?>> handlerTypes = new LinkedHashSet<>();
+        for (String beanName : getCandidateBeanNames()) {
+            if (beanName.startsWith("scopedTarget.")) {
+                continue;
+            }
+            Class<?> beanType;
+            try {
+                beanType = obtainApplicationContext().getType(beanName);
+            } catch (Throwable ex) {
+                // an unresolvable bean type, also ignored by the registration
+                continue;
+            }
+            if (beanType != null && isHandler(beanType)) {
+                handlerTypes.add(ClassUtils.getUserClass(beanType));
+            }
+        }
+
+        VersionWindow window = windowRegistrar.getVersionWindow();
+        ForkJoinPool pool = new ForkJoinPool(scanParallelism);
+        try {
+            pool.submit(() -> handlerTypes.parallelStream().forEach(handlerType -> {
+                // the same methods as the registration, the bridge methods are left to the registration
+                Set<Method> methods = MethodIntrospector.selectMethods(handlerType,
+                        (ReflectionUtils.MethodFilter) method -> !method.isBridge());
+                Map<Method, ScannedMethod> typeMethods = new ConcurrentHashMap<>();
+                methods.parallelStream().forEach(method -> typeMethods.put(method, scanMethod(method, handlerType, window)));
+                scannedMethods.put(handlerType, typeMethods);
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        scanNanos = System.nanoTime() - start;
+    }
+
+    private ScannedMethod scanMethod(Method method, Class<?> handlerType, VersionWindow window) {
+        try {
+            RequestMappingInfo info = super.getMappingForMethod(method, handlerType);
+            VersionMappingSupport.VersionDeclaration declaration = support.getVersionDeclaration(method);
+            if (info == null || declaration == null) {
+                return new ScannedMethod(info, declaration, List.of(), null, null);
+            }
+
+            List<VersionedPath> versionedPaths = support.createVersionedPaths(info.getPatternValues(), declaration.paths());
+            // the paths of an expanded mapping for the current window, the other modes do not expand
+            return new ScannedMethod(info, declaration, versionedPaths, windowRegistrar.expand(info, declaration, window), null);
+        } catch (RuntimeException ex) {
+            // reported when the method is registered, so the first error is the same as without the parallel scan
+            return new ScannedMethod(null, null, List.of(), null, ex);
+        }
+    }
+
+    @Override
+    protected void detectHandlerMethods(@NonNull Object handler) {
+        // the handler is needed to register the mappings again when the version window changes
+        detectingHandler = handler;
+        if (restartCacheEnabled) {
+            Class<?> handlerType = handler instanceof String beanName ? obtainApplicationContext().getType(beanName) : handler.getClass();
+            if (handlerType != null) {
+                detectingEntry = getRestartCacheEntry(ClassUtils.getUserClass(handlerType));
             }
         }
+        try {
+            super.detectHandlerMethods(handler);
+        } finally {
+            detectingHandler = null;
+            detectingEntry = null;
+        }
+    }
+
+    @Nullable
+    private RestartCache.ClassEntry getRestartCacheEntry(Class<?> handlerType) {
+        // the bytecode of generated classes cannot be read
+        Long hash = RestartCache.hash(handlerType);
+        if (hash == null) {
+            return null;
+        }
 
-        // no version annotation found
-        return null;
+        String configuration = getRestartCacheConfiguration();
+        RestartCache.ClassEntry entry = RestartCache.SHARED.getClassEntry(handlerType, hash, configuration);
+        if (entry == null) {
+            entry = RestartCache.SHARED.createClassEntry(handlerType, hash, configuration);
+            reprocessedHandlerTypes.add(handlerType);
+        }
+        restartCacheEntries.put(handlerType, entry);
+        return entry;
     }
 
     /***
-     * Calculates the dynamic URLs based upon exiting patternValues, versions and paths.
-     * @param patternValues the existing patternValues calculated by Spring Boot.
-     * @param annotationValues the attribute values from the annotation
-     * @param clazz the annotation where version and path were specified
-     * @return the updated patternValues
+     * Returns the settings that influence the cached version declarations and paths.
      */
-    private String[] updatePaths(Set<String> patternValues, AnnotationValues annotationValues, Class<? extends Annotation> clazz) {
+    private String getRestartCacheConfiguration() {
+        return prefix + "," + getVersionResolver().getClass().getName() + "," + isRouteDescriptorEnabled();
+    }
+
+    @Override
+    @Nullable
+    protected HandlerMethod getHandlerInternal(@NonNull HttpServletRequest request) throws Exception {
+        int sampleInterval = resolutionEventSampleInterval;
+        if (sampleInterval == 0 || !VersionResolutionEvent.enabled()
+                || (sampleInterval > 1 && ThreadLocalRandom.current().nextInt(sampleInterval) != 0)) {
+            return lookupHandlerMethodForRequest(request);
+        }
 
-        int[] versions = annotationValues.versions();
-        String[] paths = annotationValues.path();
+        VersionResolutionEvent event = new VersionResolutionEvent();
+        event.begin();
+        HandlerMethod handlerMethod = lookupHandlerMethodForRequest(request);
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestMethod = request.getMethod();
+            event.lookupPath = ServletRequestPathUtils.getCachedPathValue(request);
+            event.version = request.getAttribute(VERSION_ATTRIBUTE) instanceof Integer version ? version : -1;
+            event.handlerMethod = handlerMethod != null ? handlerMethod.toString() : null;
+            event.commit();
+        }
+        return handlerMethod;
+    }
 
-        List<String> versionedPaths = new ArrayList<>();
+    @Nullable
+    private HandlerMethod lookupHandlerMethodForRequest(HttpServletRequest request) throws Exception {
+        // registered before the lookup, which holds a read lock on the mappings
+        if (!lazyVersionTable.isEmpty()) {
+            lazyVersionTable.materialize(initLookupPath(request), lazyRegistrar);
+        }
+        return checkVersionWindow(super.getHandlerInternal(request), request);
+    }
 
-        int oldestVersion = versions[0];
-        int newestVersion = getNewestVersion(versions, paths, clazz);
+    /***
+     * Finds the handler method of a request that is not dispatched, e.g. the request of a shadow invocation. Unlike
+     * {@link #getHandler}, no handler execution chain (with the interceptors) is created, the lookup cache is neither
+     * read nor filled and older versions are not registered in lazy mode.
+     * @param request the request, of which the lookup path has been parsed
+     * @return the handler method or null when no mapping matches
+     */
+    @Nullable
+    HandlerMethod getDetachedHandlerMethod(HttpServletRequest request) throws Exception {
+        request.setAttribute(VersionLookupPipeline.DETACHED_LOOKUP_ATTRIBUTE, Boolean.TRUE);
+        return checkVersionWindow(super.getHandlerInternal(request), request);
+    }
 
-        // for every version
-        for (int version = oldestVersion; version <= newestVersion; version++) {
-            // for every path (in the annotation)
-            for (String annotationPath : paths)
-                // for every pattern value (from the existing request mapping info)
-                for (String patternValue : patternValues) {
-                    // TODO add a way to postfix the version number (default to prefix)
-                    // escape accolades from path variables
-                    // TODO should we escape more special characters?
-                    String escapedAnnotationPath = annotationPath.replace("{", "\\{").replace("}", "\\}");
-                    String replacement = "/" + prefix + version + annotationPath;
-                    String versionedPath = patternValue.replaceFirst(escapedAnnotationPath + "$", replacement);
-                    versionedPaths.add(versionedPath);
+    @Nullable
+    private HandlerMethod checkVersionWindow(@Nullable HandlerMethod handlerMethod, HttpServletRequest request) {
+        // the registered mappings can still contain versions that are no longer supported while the window changes
+        VersionWindow window = windowRegistrar.getVersionWindow();
+        if (handlerMethod != null && !window.isUnbounded()
+                && request.getAttribute(VERSION_ATTRIBUTE) instanceof Integer version && !window.contains(version)) {
+            request.removeAttribute(VERSION_ATTRIBUTE);
+            request.removeAttribute(VERSIONED_MAPPING_ATTRIBUTE);
+            return null;
+        }
+        return handlerMethod;
+    }
+
+    @Override
+    @NonNull
+    protected HandlerExecutionChain getHandlerExecutionChain(@NonNull Object handler, @NonNull HttpServletRequest request) {
+        HandlerExecutionChain chain = super.getHandlerExecutionChain(handler, request);
+        // a 304 for a canonical ETag skips the handler, so the configured interceptors (e.g. security checks) come first
+        CanonicalVersionInterceptor canonicalInterceptor = canonicalVersionInterceptor;
+        if (canonicalInterceptor != null) {
+            chain.addInterceptor(canonicalInterceptor);
+        }
+        // only the mappings with a cache ttl use the response cache, after the configured interceptors
+        VersionResponseCacheInterceptor interceptor = responseCacheInterceptor;
+        if (interceptor != null && request.getAttribute(VERSIONED_MAPPING_ATTRIBUTE) instanceof VersionedMapping versionedMapping
+                && versionedMapping.cacheTtl() > 0) {
+            chain.addInterceptor(interceptor);
+        }
+        // the bulkheads come last, so a cached response does not take a permit
+        if (bulkheadInterceptor.isEnabled()) {
+            chain.addInterceptor(bulkheadInterceptor);
+        }
+        return chain;
+    }
+
+    @Override
+    @Nullable
+    protected HandlerMethod handleNoMatch(@NonNull Set<RequestMappingInfo> infos, @NonNull String lookupPath,
+                                         @NonNull HttpServletRequest request) throws ServletException {
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> bridgedMapping : windowRegistrar.getBridgedMappings()) {
+            RequestMappingInfo matchingInfo = bridgedMapping.getKey().getMatchingCondition(request);
+            if (matchingInfo != null) {
+                request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, bridgedMapping.getValue());
+                handleMatch(matchingInfo, lookupPath, request);
+                return bridgedMapping.getValue();
+            }
+        }
+        return super.handleNoMatch(infos, lookupPath, request);
+    }
+
+    @Override
+    @Nullable
+    protected HandlerMethod lookupHandlerMethod(@NonNull String lookupPath, @NonNull HttpServletRequest request) throws Exception {
+        return pipeline.lookup(lookupPath, request);
+    }
+
+    @Override
+    protected void handleMatch(@NonNull RequestMappingInfo info, @NonNull String lookupPath, @NonNull HttpServletRequest request) {
+        super.handleMatch(info, lookupPath, request);
+        pipeline.matched(info, request);
+
+        // the info is a copy with only the matching conditions, so use the handler method to find the versioned mapping
+        HandlerMethod handlerMethod = (HandlerMethod) request.getAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE);
+        VersionedMapping versionedMapping = handlerMethod != null ? registry.get(handlerMethod.getMethod()) : null;
+        if (versionedMapping != null) {
+            request.setAttribute(VERSIONED_MAPPING_ATTRIBUTE, versionedMapping);
+            if (info.getCustomCondition() instanceof SemanticVersionRequestCondition condition) {
+                long semanticVersion = condition.getVersion(lookupPath);
+                if (semanticVersion != -1) {
+                    request.setAttribute(SEMANTIC_VERSION_ATTRIBUTE, semanticVersion);
+                    request.setAttribute(VERSION_ATTRIBUTE, SemanticVersion.major(semanticVersion));
+                }
+            } else {
+                VersionResolver versionResolver = getVersionResolver();
+                int version = versionResolver.isPathBased()
+                        ? getVersion(versionedMapping, lookupPath, prefix)
+                        : ResolvedVersionRequestCondition.resolveVersion(request, versionResolver);
+                if (versionedMapping.contains(version)) {
+                    request.setAttribute(VERSION_ATTRIBUTE, version);
                 }
+            }
         }
+    }
+
+    /***
+     * Returns the version of a lookup path that lies within the range of a versioned mapping.
+     * @param versionedMapping the matched versioned mapping
+     * @param lookupPath the lookup path of the request
+     * @param prefix the version prefix
+     * @return the version or -1 when the lookup path contains no version within the range
+     */
+    static int getVersion(VersionedMapping versionedMapping, String lookupPath, String prefix) {
+        for (VersionedPath path : versionedMapping.paths()) {
+            int version = VersionRangeRequestCondition.parseVersion(lookupPath, path.segmentIndex(), prefix);
+            if (versionedMapping.contains(version)) {
+                return version;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected void registerHandlerMethod(@NonNull Object handler, @NonNull Method method, @NonNull RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        registry.setMethod(mapping, method);
+        lazyVersionTable.setHandler(mapping, handler, method);
+        pipeline.invalidate();
+    }
 
-        // TODO check for overlapping versions!
+    @Override
+    public void registerMapping(@NonNull RequestMappingInfo mapping, @NonNull Object handler, @NonNull Method method) {
+        super.registerMapping(mapping, handler, method);
+        pipeline.invalidate();
+    }
 
-        // return the array with versioned paths
-        return versionedPaths.toArray(new String[0]);
+    @Override
+    public void unregisterMapping(@NonNull RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        registry.remove(mapping);
+        lazyVersionTable.remove(mapping, lazyRegistrar);
+        pipeline.invalidate();
+    }
 
+    /***
+     * Returns the statistics of the lookup cache.
+     * @return the statistics or null when the lookup cache is disabled
+     */
+    @Nullable
+    public LookupCacheStatistics getLookupCacheStatistics() {
+        return pipeline.getLookupCacheStatistics();
     }
 
     /***
-     * Get the newest version. This depends on the number of versions. Throws an exception when there are more
-     * than two versions.
-     * @param versions the versions from the annotation
-     * @param path the path from the annotation
-     * @param clazz the class of the annotation
-     * @return the newest version
+     * Returns the statistics of the version lookup index.
+     * @return the statistics or null when the index is disabled
      */
-    private static int getNewestVersion(int[] versions, String[] path, Class<? extends Annotation> clazz) {
-        int newestVersion;
-        // only one version specified
-        if (versions.length == 1) {
-            newestVersion = versions[0];
+    @Nullable
+    public LookupIndexStatistics getLookupIndexStatistics() {
+        return pipeline.getLookupIndexStatistics();
+    }
+
+    /***
+     * Gives the version window registrar and the lookup pipeline access to the registration and the lookup of this
+     * handler mapping.
+     */
+    private final class Callbacks implements VersionWindowRegistrar.Registration, VersionLookupPipeline.Mappings {
+
+        @Override
+        public void register(RequestMappingInfo info, Object handler, Method method) {
+            registerMapping(info, handler, method);
+        }
+
+        @Override
+        public void unregister(RequestMappingInfo info) {
+            unregisterMapping(info);
         }
-        // multiple versions specified
-        else if (versions.length == 2) {
-            newestVersion = versions[1];
+
+        @Override
+        public Map<RequestMappingInfo, HandlerMethod> getHandlerMethods() {
+            return ApiVersionRequestMappingHandlerMapping.this.getHandlerMethods();
         }
-        // too many versions specified
-        else {
-            String message = String.format("Too many versions (%s) specified on @%s with path %s.",
-                    Arrays.toString(versions), clazz.toString(), Arrays.toString(path));
-            throw new RuntimeException(message);
+
+        @Override
+        public Class<?> getHandlerType(Object handler) {
+            return handler instanceof String beanName ? obtainApplicationContext().getType(beanName) : handler.getClass();
+        }
+
+        @Override
+        public void invalidateLookups() {
+            pipeline.invalidate();
+        }
+
+        @Override
+        @Nullable
+        public PathPatternParser getPatternParser() {
+            return ApiVersionRequestMappingHandlerMapping.this.getPatternParser();
+        }
+
+        @Override
+        public VersionResolver getVersionResolver() {
+            return windowRegistrar.getVersionResolver();
+        }
+
+        @Override
+        public void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
+            ApiVersionRequestMappingHandlerMapping.this.handleMatch(info, lookupPath, request);
+        }
+
+        @Override
+        @Nullable
+        public HandlerMethod lookup(String lookupPath, HttpServletRequest request) throws Exception {
+            return ApiVersionRequestMappingHandlerMapping.super.lookupHandlerMethod(lookupPath, request);
         }
-        return newestVersion;
     }
+
+    /***
+     * The result of the parallel scan of a handler method.
+     * @param info the request mapping info without versions or null when the method is not a request mapping
+     * @param declaration the version declaration or null when the method has no version mapping annotation
+     * @param versionedPaths the paths that contain a version
+     * @param expandedPaths the expanded paths or null when the paths are not expanded
+     * @param failure the exception that is thrown when the method is registered
+     */
+    private record ScannedMethod(@Nullable RequestMappingInfo info,
+                                 @Nullable VersionMappingSupport.VersionDeclaration declaration,
+                                 List<VersionedPath> versionedPaths,
+                                 @Nullable VersionWindowRegistrar.ExpandedPaths expandedPaths,
+                                 @Nullable RuntimeException failure) {
+    }
+
 }
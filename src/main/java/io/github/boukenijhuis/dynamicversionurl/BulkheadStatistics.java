@@ -0,0 +1,13 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * The permit usage of a bulkhead.
+ * @param name the version range or the handler method of the bulkhead
+ * @param maxConcurrent the maximum number of concurrent requests
+ * @param inUse the number of permits that are in use
+ * @param peak the highest number of permits that were in use at the same time
+ * @param acquired the number of requests that got a permit
+ * @param rejected the number of requests that were rejected
+ */
+public record BulkheadStatistics(String name, int maxConcurrent, int inUse, int peak, long acquired, long rejected) {
+}
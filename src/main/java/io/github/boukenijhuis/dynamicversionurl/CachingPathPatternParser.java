@@ -0,0 +1,51 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.NonNull;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * A path pattern parser that keeps the parsed patterns, so the unchanged patterns are not parsed again after a
+ * restart and equal patterns share one instance. The patterns of the current and the previous registration are kept,
+ * older patterns are dropped.
+ */
+final class CachingPathPatternParser extends PathPatternParser {
+
+    private volatile Map<String, PathPattern> current = new ConcurrentHashMap<>();
+
+    private volatile Map<String, PathPattern> previous = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("deprecation")
+    CachingPathPatternParser(PathPatternParser patternParser) {
+        setCaseSensitive(patternParser.isCaseSensitive());
+        setMatchOptionalTrailingSeparator(patternParser.isMatchOptionalTrailingSeparator());
+        setPathOptions(patternParser.getPathOptions());
+    }
+
+    @Override
+    @NonNull
+    public PathPattern parse(@NonNull String pathPattern) {
+        Map<String, PathPattern> patterns = current;
+        PathPattern parsed = patterns.get(pathPattern);
+        if (parsed == null) {
+            parsed = previous.get(pathPattern);
+            if (parsed == null) {
+                parsed = super.parse(pathPattern);
+            }
+            patterns.put(pathPattern, parsed);
+        }
+        return parsed;
+    }
+
+    /***
+     * Starts a new registration. The patterns that are not used since the start of the previous registration are
+     * dropped.
+     */
+    synchronized void startRegistration() {
+        previous = current;
+        current = new ConcurrentHashMap<>();
+    }
+}
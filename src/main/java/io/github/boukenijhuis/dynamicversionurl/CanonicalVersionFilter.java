@@ -0,0 +1,235 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Collection;
+
+/***
+ * Creates a range-scoped ETag for the successful GET responses of versioned requests: the declared range and a hash of
+ * the body. Because the canonical location and the range are part of the key, the ETag of one version is valid for
+ * all versions of the range. A conditional request with a matching ETag is answered with 304 and no body. The ETag is
+ * remembered, so the {@link CanonicalVersionInterceptor} can answer the next conditional request before the handler is
+ * invoked. Responses that already have an ETag are left alone. Only the body of a versioned response is buffered: the
+ * response is wrapped for every GET request, but the buffer is only created when the interceptor has created an ETag key
+ * (a versioned handler without a streaming return type) before the body is written.
+ */
+public class CanonicalVersionFilter extends OncePerRequestFilter implements Ordered {
+
+    private final VersionETagCache eTagCache;
+
+    CanonicalVersionFilter(VersionETagCache eTagCache) {
+        this.eTagCache = eTagCache;
+    }
+
+    @Override
+    public int getOrder() {
+        // outside the response cache filter, so the cached responses get an ETag as well
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // the response is updated when the async processing has finished
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletResponse responseToUse = response;
+        if (!isAsyncDispatch(request) && !(response instanceof VersionedResponseWrapper)) {
+            responseToUse = new VersionedResponseWrapper(request, response);
+        }
+
+        filterChain.doFilter(request, responseToUse);
+
+        if (!isAsyncStarted(request)) {
+            updateResponse(request, responseToUse);
+        }
+    }
+
+    private void updateResponse(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VersionedResponseWrapper versionedResponse = WebUtils.getNativeResponse(response, VersionedResponseWrapper.class);
+        ContentCachingResponseWrapper wrapper = versionedResponse != null ? versionedResponse.cachingResponse : null;
+        if (wrapper == null) {
+            return;
+        }
+
+        String eTagKey = (String) request.getAttribute(CanonicalVersionInterceptor.ETAG_KEY_ATTRIBUTE);
+        if (eTagKey != null && wrapper.getStatus() == HttpServletResponse.SC_OK && !wrapper.containsHeader(HttpHeaders.ETAG)
+                && request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE) instanceof VersionedMapping versionedMapping) {
+            String eTag = createETag(versionedMapping, wrapper.getContentInputStream());
+            eTagCache.put(eTagKey, eTag);
+            HttpServletResponse rawResponse = (HttpServletResponse) wrapper.getResponse();
+            rawResponse.setHeader(HttpHeaders.ETAG, eTag);
+            if (CanonicalVersionInterceptor.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+                rawResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /***
+     * Creates an ETag from the declared range and the body, e.g. "1-9-0a1b...".
+     */
+    static String createETag(VersionedMapping versionedMapping, InputStream body) throws IOException {
+        return "\"" + versionedMapping.oldest() + "-" + versionedMapping.newest() + "-" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /***
+     * Passes the response through, unless the ETag key of the request exists when the body (or its length) is first
+     * written. Then the body is buffered by a {@link ContentCachingResponseWrapper}. The other headers are never
+     * buffered.
+     */
+    static class VersionedResponseWrapper extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private boolean decided;
+
+        @Nullable
+        private ContentCachingResponseWrapper cachingResponse;
+
+        VersionedResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        // decides on the first write whether the body is buffered
+        private HttpServletResponse getBodyResponse() {
+            if (!decided) {
+                decided = true;
+                if (request.getAttribute(CanonicalVersionInterceptor.ETAG_KEY_ATTRIBUTE) != null) {
+                    cachingResponse = new ContentCachingResponseWrapper((HttpServletResponse) getResponse());
+                }
+            }
+            return getCurrentResponse();
+        }
+
+        private HttpServletResponse getCurrentResponse() {
+            return cachingResponse != null ? cachingResponse : (HttpServletResponse) getResponse();
+        }
+
+        private HttpServletResponse getHeaderResponse(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) ? getBodyResponse() : getCurrentResponse();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return getBodyResponse().getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return getBodyResponse().getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            getBodyResponse().flushBuffer();
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            getBodyResponse().setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            getBodyResponse().setContentLengthLong(len);
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return getHeaderResponse(name).containsHeader(name);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            getHeaderResponse(name).setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            getHeaderResponse(name).addHeader(name, value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            getHeaderResponse(name).setIntHeader(name, value);
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            getHeaderResponse(name).addIntHeader(name, value);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return getHeaderResponse(name).getHeader(name);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            return getHeaderResponse(name).getHeaders(name);
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return getCurrentResponse().getHeaderNames();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            getCurrentResponse().sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            getCurrentResponse().sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            getCurrentResponse().sendRedirect(location);
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+            getCurrentResponse().setBufferSize(size);
+        }
+
+        @Override
+        public void resetBuffer() {
+            getCurrentResponse().resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            getCurrentResponse().reset();
+        }
+    }
+}
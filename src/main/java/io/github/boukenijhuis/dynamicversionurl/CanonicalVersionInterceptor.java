@@ -0,0 +1,146 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/***
+ * Adds the canonical location of a versioned request: the URL with the oldest version of the matched declared range.
+ * All versions of the range are served by the same handler method, so caches can store one response for the whole
+ * range. The location is sent as the Content-Location header and as a canonical link. A conditional request
+ * (If-None-Match) for the ETag of the last response of the range is answered with 304 before the handler is invoked.
+ * The ETags are remembered per user (a SHA-256 digest of the Authorization and Cookie header, so the credentials are
+ * not kept in memory), and the interceptor runs after the interceptors of the application, so a 304 does not skip
+ * their checks. The ETags are created by the {@link CanonicalVersionFilter}.
+ */
+public class CanonicalVersionInterceptor implements HandlerInterceptor {
+
+    /***
+     * The name of the request attribute that holds the canonical location (with context path and query string).
+     */
+    public static final String CANONICAL_LOCATION_ATTRIBUTE = CanonicalVersionInterceptor.class.getName() + ".canonicalLocation";
+
+    // the key of the ETag of the canonical location, read by the filter
+    static final String ETAG_KEY_ATTRIBUTE = CanonicalVersionInterceptor.class.getName() + ".eTagKey";
+
+    private final String prefix;
+
+    private final VersionResolver versionResolver;
+
+    private final VersionETagCache eTagCache;
+
+    CanonicalVersionInterceptor(String prefix, VersionResolver versionResolver, VersionETagCache eTagCache) {
+        this.prefix = prefix;
+        this.versionResolver = versionResolver;
+        this.eTagCache = eTagCache;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        if (!(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE) instanceof VersionedMapping versionedMapping)
+                || !(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE) instanceof Integer version)) {
+            return true;
+        }
+
+        String location = getCanonicalLocation(request, versionedMapping, version);
+        request.setAttribute(CANONICAL_LOCATION_ATTRIBUTE, location);
+        response.setHeader(HttpHeaders.CONTENT_LOCATION, location);
+        response.addHeader(HttpHeaders.LINK, "<" + location + ">; rel=\"canonical\"");
+
+        // a streamed body is not buffered for an ETag
+        if (handler instanceof HandlerMethod handlerMethod && isStreaming(handlerMethod)) {
+            return true;
+        }
+
+        // the representation depends on the accept headers and the user as well
+        String eTagKey = location + " " + versionedMapping.oldest() + "-" + versionedMapping.newest()
+                + " " + request.getHeader(HttpHeaders.ACCEPT)
+                + " " + request.getHeader(HttpHeaders.ACCEPT_LANGUAGE)
+                + " " + HeaderDigest.digest(request, HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE);
+        request.setAttribute(ETAG_KEY_ATTRIBUTE, eTagKey);
+
+        // answer the conditional request without invoking the handler
+        String eTag = eTagCache.get(eTagKey);
+        if (eTag != null && matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            return false;
+        }
+        return true;
+    }
+
+    /***
+     * Returns the URL of a request with the oldest version of the matched range instead of the requested version.
+     * When the version is not part of the path, the URL is the same for all versions.
+     * @param request the request
+     * @param versionedMapping the matched versioned mapping
+     * @param version the requested version
+     * @return the canonical location with context path and query string
+     */
+    String getCanonicalLocation(HttpServletRequest request, VersionedMapping versionedMapping, int version) {
+        String contextPath = request.getContextPath();
+        String path = request.getRequestURI().substring(contextPath.length());
+        if (versionResolver.isPathBased()) {
+            for (VersionedPath versionedPath : versionedMapping.paths()) {
+                if (VersionRangeRequestCondition.parseVersion(path, versionedPath.segmentIndex(), prefix) == version) {
+                    path = VersionMappingSupport.replaceSegment(path, versionedPath.segmentIndex(),
+                            prefix + versionedMapping.oldest());
+                    break;
+                }
+            }
+        }
+        String queryString = request.getQueryString();
+        return contextPath + path + (queryString != null ? "?" + queryString : "");
+    }
+
+    /***
+     * Returns true when a handler method streams its body, e.g. with a ResponseBodyEmitter, a StreamingResponseBody or
+     * a reactive type with multiple values (also inside a ResponseEntity).
+     */
+    static boolean isStreaming(HandlerMethod handlerMethod) {
+        MethodParameter returnType = handlerMethod.getReturnType();
+        Class<?> type = returnType.getParameterType();
+        if (ResponseEntity.class.isAssignableFrom(type)) {
+            type = ResolvableType.forMethodParameter(returnType).getGeneric().toClass();
+        }
+        ReactiveAdapter adapter = ReactiveAdapterRegistry.getSharedInstance().getAdapter(type);
+        return ResponseBodyEmitter.class.isAssignableFrom(type) || StreamingResponseBody.class.isAssignableFrom(type)
+                || (adapter != null && adapter.isMultiValue());
+    }
+
+    /***
+     * Returns true when an If-None-Match header contains the ETag (weak comparison) or a wildcard.
+     */
+    static boolean matches(@Nullable String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String tag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
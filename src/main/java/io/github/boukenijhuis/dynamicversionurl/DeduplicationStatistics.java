@@ -0,0 +1,10 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * The statistics of the shared mapping parts.
+ * @param sharedPatterns the number of references of the registered mappings to a path pattern that is already referenced
+ * @param sharedHandlerMethods the number of registered mappings of which the handler method is shared with another mapping
+ * @param estimatedBytesSaved the estimated number of bytes that the shared instances save
+ */
+public record DeduplicationStatistics(long sharedPatterns, long sharedHandlerMethods, long estimatedBytesSaved) {
+}
@@ -0,0 +1,179 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.*;
+
+/***
+ * An immutable open-addressed table of the literal versioned paths (e.g. /api/v3/health), keyed by request method and
+ * path. The hash seed is chosen so that the keys do not collide when possible, so a lookup is a single probe that does
+ * not allocate. Only the paths that cannot be matched by a more specific mapping are in the table: the mapping has no
+ * params, headers, consumes, produces or custom conditions, and no such mapping exists for the same path and request
+ * method. The table is rebuilt when the mappings change.
+ */
+final class DirectPathTable {
+
+    static final DirectPathTable EMPTY = new DirectPathTable(new String[1], new String[1], new Match[1], 0, true);
+
+    // the number of seeds that are tried per table size before the table is made larger
+    private static final int SEED_ATTEMPTS = 32;
+
+    /***
+     * A literal path of a versioned mapping.
+     * @param info the request mapping info with only the literal path
+     * @param handlerMethod the handler method of the mapping
+     */
+    record Match(RequestMappingInfo info, HandlerMethod handlerMethod) {
+    }
+
+    private final String[] paths;
+    private final String[] methods;
+    private final Match[] matches;
+    private final int mask;
+    private final int seed;
+    // true when every key is in its own slot, so a lookup never probes a second slot
+    private final boolean perfect;
+
+    private DirectPathTable(String[] paths, String[] methods, Match[] matches, int seed, boolean perfect) {
+        this.paths = paths;
+        this.methods = methods;
+        this.matches = matches;
+        this.mask = paths.length - 1;
+        this.seed = seed;
+        this.perfect = perfect;
+    }
+
+    /***
+     * Builds the table for the given handler methods.
+     * @param handlerMethods all registered mappings with their handler methods
+     * @param versionedMappings the version information of the versioned mappings
+     * @return the table
+     */
+    static DirectPathTable build(Map<RequestMappingInfo, HandlerMethod> handlerMethods,
+                                 Map<RequestMappingInfo, VersionedMapping> versionedMappings) {
+        // request method + path, the paths of conditional mappings are excluded
+        Map<String, Map<String, Match>> entries = new HashMap<>();
+        Map<String, Set<String>> excluded = new HashMap<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMethods.entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            Set<String> directPaths = info.getDirectPaths();
+            if (directPaths.isEmpty()) {
+                continue;
+            }
+
+            // a conditional mapping can be more specific than an unconditional one with the same path
+            if (VersionLookupPipeline.isConditional(info)) {
+                Set<String> requestMethods = info.getMethodsCondition().isEmpty() ? Set.of("") : getMethods(info);
+                for (String requestMethod : requestMethods) {
+                    excluded.computeIfAbsent(requestMethod, m -> new HashSet<>()).addAll(directPaths);
+                }
+                continue;
+            }
+
+            // a mapping without request methods is less specific than one with the request method
+            if (!versionedMappings.containsKey(info) || info.getMethodsCondition().isEmpty()) {
+                continue;
+            }
+            for (String requestMethod : getMethods(info)) {
+                Map<String, Match> byPath = entries.computeIfAbsent(requestMethod, m -> new HashMap<>());
+                for (String path : directPaths) {
+                    byPath.put(path, new Match(info.mutate().paths(path).build(), entry.getValue()));
+                }
+            }
+        }
+
+        List<String> keyPaths = new ArrayList<>();
+        List<String> keyMethods = new ArrayList<>();
+        List<Match> keyMatches = new ArrayList<>();
+        Set<String> anyMethodExcluded = excluded.getOrDefault("", Set.of());
+        entries.forEach((requestMethod, byPath) -> byPath.forEach((path, match) -> {
+            if (!anyMethodExcluded.contains(path) && !excluded.getOrDefault(requestMethod, Set.of()).contains(path)) {
+                keyPaths.add(path);
+                keyMethods.add(requestMethod);
+                keyMatches.add(match);
+            }
+        }));
+        return keyPaths.isEmpty() ? EMPTY : of(keyPaths, keyMethods, keyMatches);
+    }
+
+    private static DirectPathTable of(List<String> keyPaths, List<String> keyMethods, List<Match> keyMatches) {
+        int size = keyPaths.size();
+        int capacity = Integer.highestOneBit(Math.max(size * 2 - 1, 1)) << 1;
+        // try to find a seed without collisions, with a table of at most eight times the number of keys
+        for (int tableSize = capacity; tableSize <= capacity * 4; tableSize <<= 1) {
+            for (int seed = 0; seed < SEED_ATTEMPTS; seed++) {
+                DirectPathTable table = fill(tableSize, seed, keyPaths, keyMethods, keyMatches, false);
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+        // colliding keys are found with linear probing
+        return fill(capacity, 0, keyPaths, keyMethods, keyMatches, true);
+    }
+
+    @Nullable
+    private static DirectPathTable fill(int tableSize, int seed, List<String> keyPaths, List<String> keyMethods,
+                                        List<Match> keyMatches, boolean probe) {
+        String[] paths = new String[tableSize];
+        String[] methods = new String[tableSize];
+        Match[] matches = new Match[tableSize];
+        for (int i = 0; i < keyPaths.size(); i++) {
+            int index = hash(keyPaths.get(i), keyMethods.get(i), seed) & (tableSize - 1);
+            while (paths[index] != null) {
+                if (!probe) {
+                    return null;
+                }
+                index = (index + 1) & (tableSize - 1);
+            }
+            paths[index] = keyPaths.get(i);
+            methods[index] = keyMethods.get(i);
+            matches[index] = keyMatches.get(i);
+        }
+        return new DirectPathTable(paths, methods, matches, seed, !probe);
+    }
+
+    private static int hash(String path, String method, int seed) {
+        int hash = (path.hashCode() * 31 + method.hashCode()) ^ (seed * 0x9E3779B9);
+        // spread the high bits, because only the low bits select the slot
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Set<String> getMethods(RequestMappingInfo info) {
+        Set<String> methods = new HashSet<>();
+        for (RequestMethod method : info.getMethodsCondition().getMethods()) {
+            methods.add(method.name());
+        }
+        return methods;
+    }
+
+    /***
+     * Finds the mapping of a literal versioned path.
+     * @param method the request method
+     * @param path the lookup path
+     * @return the match or null when the normal lookup should be used
+     */
+    @Nullable
+    Match lookup(String method, String path) {
+        int index = hash(path, method, seed) & mask;
+        String slotPath;
+        while ((slotPath = paths[index]) != null) {
+            if (slotPath.equals(path) && methods[index].equals(method)) {
+                return matches[index];
+            }
+            if (perfect) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    boolean isPerfect() {
+        return perfect;
+    }
+}
@@ -1,20 +1,253 @@
 package io.github.boukenijhuis.dynamicversionurl;
 
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 @AutoConfiguration
-@ConditionalOnWebApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DynamicVersionUrlMvcAutoConfiguration implements WebMvcRegistrations {
 
     @Value( "${version.prefix:v}" )
     protected String prefix;
 
+    @Value( "${version.resolver:path-prefix}" )
+    protected String resolver;
+
+    @Value( "${version.placement:/{prefix}{version}{path}}" )
+    protected String placement;
+
+    @Value( "${version.header-name:" + HeaderVersionResolver.DEFAULT_HEADER_NAME + "}" )
+    protected String headerName;
+
+    @Value( "${version.query-parameter:" + QueryParameterVersionResolver.DEFAULT_PARAMETER_NAME + "}" )
+    protected String queryParameter;
+
+    // a version resolver bean replaces the configured resolver
+    @Autowired
+    protected ObjectProvider<VersionResolver> versionResolver;
+
+    @Value( "${version.min-supported:0}" )
+    protected int minSupported;
+
+    @Value( "${version.latest:" + VersionMapping.LATEST + "}" )
+    protected int latest;
+
+    @Value( "${version.compact:false}" )
+    protected boolean compact;
+
+    @Value( "${version.index:false}" )
+    protected boolean indexed;
+
+    @Value( "${version.lazy:false}" )
+    protected boolean lazy;
+
+    @Value( "${version.eager-versions:2}" )
+    protected int eagerVersions;
+
+    @Value( "${version.direct-paths:false}" )
+    protected boolean directPaths;
+
+    @Value( "${version.cache.size:0}" )
+    protected int cacheSize;
+
+    @Value( "${version.route-descriptor:false}" )
+    protected boolean routeDescriptor;
+
+    @Value( "${version.response-cache.enabled:false}" )
+    protected boolean responseCacheEnabled;
+
+    @Value( "${version.response-cache.size:1000}" )
+    protected int responseCacheSize;
+
+    @Value( "${version.response-cache.wait-timeout-millis:5000}" )
+    protected long responseCacheWaitTimeout;
+
+    @Value( "${version.restart-cache:false}" )
+    protected boolean restartCache;
+
+    @Value( "${version.scan-parallelism:0}" )
+    protected int scanParallelism;
+
+    @Value( "${version.deduplicate:false}" )
+    protected boolean deduplicate;
+
+    @Value( "${version.jfr.sample-interval:100}" )
+    protected int resolutionEventSampleInterval;
+
+    @Value( "${version.bulkhead.max-concurrent:}" )
+    protected String bulkheads;
+
+    @Value( "${version.bulkhead.rejection-status:503}" )
+    protected int bulkheadRejectionStatus;
+
+    @Value( "${version.shadow.sample-rate:0}" )
+    protected double shadowSampleRate;
+
+    @Value( "${version.shadow.methods:GET}" )
+    protected String[] shadowMethods;
+
+    @Value( "${version.shadow.max-concurrent:16}" )
+    protected int shadowMaxConcurrent;
+
+    @Value( "${version.canonical.enabled:false}" )
+    protected boolean canonical;
+
+    @Value( "${version.canonical.etag-cache-size:10000}" )
+    protected int eTagCacheSize;
+
+    @Value( "${version.canonical.etag-ttl-seconds:60}" )
+    protected int eTagTimeToLive;
+
+    // shared by the canonical version interceptor and filter
+    private VersionETagCache eTagCache;
+
+    @Value( "${version.metrics.bucket-size:1}" )
+    protected int metricsBucketSize;
+
+    /***
+     * Adds the version tags to the http.server.requests metrics.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "version.metrics.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(ServerRequestObservationConvention.class)
+    public VersionServerRequestObservationConvention versionServerRequestObservationConvention() {
+        return new VersionServerRequestObservationConvention(prefix, metricsBucketSize);
+    }
+
+    /***
+     * Adds the range-scoped ETags of the canonical version feature.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "version.canonical.enabled", havingValue = "true")
+    public CanonicalVersionFilter canonicalVersionFilter() {
+        return new CanonicalVersionFilter(getETagCache());
+    }
+
+    /***
+     * Buffers the responses of the mappings with a cache ttl, so they can be cached.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "version.response-cache.enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public VersionResponseCacheFilter versionResponseCacheFilter(
+            @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        return new VersionResponseCacheFilter(handlerMapping);
+    }
+
+    private synchronized VersionETagCache getETagCache() {
+        if (eTagCache == null) {
+            eTagCache = new VersionETagCache(eTagCacheSize, TimeUnit.SECONDS.toNanos(eTagTimeToLive));
+        }
+        return eTagCache;
+    }
+
+    /***
+     * Adds the versions endpoint when Spring Boot Actuator is present.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Endpoint.class)
+    static class VersionRouteTableEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnAvailableEndpoint(endpoint = VersionRouteTableEndpoint.class)
+        @ConditionalOnMissingBean
+        public VersionRouteTableEndpoint versionRouteTableEndpoint(
+                @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+            return new VersionRouteTableEndpoint(handlerMapping);
+        }
+    }
+
+    /***
+     * Registers the permit usage of the bulkheads as metrics when Micrometer is present.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class VersionBulkheadMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public VersionBulkheadMeterBinder versionBulkheadMeterBinder(
+                @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+            return new VersionBulkheadMeterBinder(handlerMapping);
+        }
+    }
+
     @Override
     public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
-        return new ApiVersionRequestMappingHandlerMapping(prefix);
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping(prefix);
+        handlerMapping.setVersionResolver(versionResolver.getIfAvailable(this::createVersionResolver));
+        handlerMapping.setSupportedVersions(minSupported, latest);
+        handlerMapping.setCompact(compact);
+        handlerMapping.setRouteDescriptorEnabled(routeDescriptor);
+        handlerMapping.setIndexed(indexed);
+        handlerMapping.setLazy(lazy);
+        handlerMapping.setEagerVersions(eagerVersions);
+        handlerMapping.setDirectPathsEnabled(directPaths);
+        handlerMapping.setLookupCacheSize(cacheSize);
+        handlerMapping.setResponseCacheSize(responseCacheEnabled ? responseCacheSize : 0);
+        handlerMapping.setResponseCacheWaitTimeout(responseCacheWaitTimeout);
+        handlerMapping.setRestartCacheEnabled(restartCache);
+        handlerMapping.setScanParallelism(scanParallelism);
+        handlerMapping.setDeduplicationEnabled(deduplicate);
+        handlerMapping.setResolutionEventSampleInterval(resolutionEventSampleInterval);
+        handlerMapping.setVersionBulkheads(VersionBulkhead.parse(bulkheads));
+        handlerMapping.setBulkheadRejectionStatus(bulkheadRejectionStatus);
+        if (canonical) {
+            handlerMapping.setCanonicalVersionInterceptor(new CanonicalVersionInterceptor(prefix,
+                    handlerMapping.getVersionResolver(), getETagCache()));
+        }
+        return handlerMapping;
+    }
+
+    /***
+     * Returns the shadow handler adapter when shadow dispatch is enabled, otherwise the default adapter is used.
+     */
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        if (shadowSampleRate == 0) {
+            return null;
+        }
+        ShadowRequestMappingHandlerAdapter adapter = new ShadowRequestMappingHandlerAdapter();
+        adapter.setSampleRate(shadowSampleRate);
+        adapter.setMethods(Arrays.stream(shadowMethods).map(String::trim).map(String::toUpperCase).toList());
+        adapter.setMaxConcurrent(shadowMaxConcurrent);
+        return adapter;
+    }
+
+    /***
+     * Creates the version resolver that is configured with the version.resolver property.
+     * @return the version resolver
+     */
+    protected VersionResolver createVersionResolver() {
+        return switch (resolver) {
+            case "path-prefix" -> new PathPrefixVersionResolver(prefix);
+            case "path-postfix" -> new PathPostfixVersionResolver(prefix);
+            case "path-template" -> new PathTemplateVersionResolver(prefix, placement);
+            case "header" -> new HeaderVersionResolver(headerName, prefix);
+            case "query-parameter" -> new QueryParameterVersionResolver(queryParameter, prefix);
+            case "media-type" -> new MediaTypeVersionResolver(prefix);
+            default -> throw new RuntimeException(String.format("Unknown version resolver '%s', use path-prefix, "
+                    + "path-postfix, path-template, header, query-parameter or media-type.", resolver));
+        };
     }
-}
\ No newline at end of file
+}
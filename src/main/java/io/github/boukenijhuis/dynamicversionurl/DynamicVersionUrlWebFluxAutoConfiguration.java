@@ -0,0 +1,54 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationConvention;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class DynamicVersionUrlWebFluxAutoConfiguration implements WebFluxRegistrations {
+
+    @Value( "${version.prefix:v}" )
+    protected String prefix;
+
+    @Value( "${version.min-supported:0}" )
+    protected int minSupported;
+
+    @Value( "${version.latest:" + VersionMapping.LATEST + "}" )
+    protected int latest;
+
+    @Value( "${version.compact:false}" )
+    protected boolean compact;
+
+    @Value( "${version.route-descriptor:false}" )
+    protected boolean routeDescriptor;
+
+    @Value( "${version.metrics.bucket-size:1}" )
+    protected int metricsBucketSize;
+
+    /***
+     * Adds the version tags to the http.server.requests metrics.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "version.metrics.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(ServerRequestObservationConvention.class)
+    public ReactiveVersionServerRequestObservationConvention versionServerRequestObservationConvention() {
+        return new ReactiveVersionServerRequestObservationConvention(prefix, metricsBucketSize);
+    }
+
+    @Override
+    public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping = new ReactiveApiVersionRequestMappingHandlerMapping(prefix);
+        handlerMapping.setSupportedVersions(minSupported, latest);
+        handlerMapping.setCompact(compact);
+        handlerMapping.setRouteDescriptorEnabled(routeDescriptor);
+        return handlerMapping;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * A bounded concurrent cache from request method and lookup path to the matched mapping. Entries are evicted with the
+ * clock (second chance) algorithm, an approximation of LRU that does not need a lock on a cache hit. The cache is
+ * cleared when the mappings change; a lookup that started before the change does not add its result afterwards.
+ */
+final class HandlerLookupCache {
+
+    /***
+     * A cached lookup result.
+     * @param info the matching request mapping info (as passed to handleMatch)
+     * @param handlerMethod the matched handler method
+     */
+    record Match(RequestMappingInfo info, HandlerMethod handlerMethod) {
+    }
+
+    private record Key(String method, String lookupPath) {
+    }
+
+    private static final class Entry {
+        private final Match match;
+        // set on every hit, cleared when the clock hand passes
+        private volatile boolean referenced;
+
+        private Entry(Match match) {
+            this.match = match;
+        }
+    }
+
+    private final int maximumSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // the keys in insertion order, the head is the clock hand
+    private final Queue<Key> clock = new ConcurrentLinkedQueue<>();
+    // incremented when the mappings change
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    HandlerLookupCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Nullable
+    Match get(String method, String lookupPath) {
+        Entry entry = entries.get(new Key(method, lookupPath));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.match;
+    }
+
+    /***
+     * Returns the current generation, which has to be passed to {@link #put} after the lookup.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /***
+     * Adds a lookup result, unless the mappings have changed since the lookup started.
+     */
+    void put(String method, String lookupPath, Match match, long lookupGeneration) {
+        Key key = new Key(method, lookupPath);
+        synchronized (this) {
+            if (generation.get() != lookupGeneration || entries.containsKey(key)) {
+                return;
+            }
+            while (entries.size() >= maximumSize && evict()) {
+                // evict until there is room
+            }
+            entries.put(key, new Entry(match));
+            clock.add(key);
+        }
+    }
+
+    private boolean evict() {
+        // give referenced entries a second chance, at most one full round
+        Key candidate;
+        while ((candidate = clock.poll()) != null) {
+            Entry entry = entries.get(candidate);
+            if (entry != null && entry.referenced) {
+                entry.referenced = false;
+                clock.add(candidate);
+            } else {
+                entries.remove(candidate);
+                evictions.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        clock.clear();
+    }
+
+    LookupCacheStatistics getStatistics() {
+        return new LookupCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size(), maximumSize);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/***
+ * Creates a SHA-256 digest of request headers that identify the user (e.g. Authorization and Cookie), so the caches can
+ * keep responses per user without keeping the credentials in memory.
+ */
+final class HeaderDigest {
+
+    private HeaderDigest() {
+    }
+
+    /***
+     * Returns the SHA-256 digest (hex) of the values of the given headers of a request. A missing header differs from
+     * an empty header.
+     * @param request the request
+     * @param headerNames the names of the headers
+     * @return the digest
+     */
+    static String digest(HttpServletRequest request, String... headerNames) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String headerName : headerNames) {
+                String value = request.getHeader(headerName);
+                // the marker keeps the headers apart and tells a missing header from an empty one
+                digest.update(value != null ? (byte) 1 : (byte) 0);
+                if (value != null) {
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not create the digest of the headers: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/***
+ * Reads the version from a request header, e.g. X-API-Version: 3. The version prefix is optional in the value.
+ */
+public class HeaderVersionResolver implements VersionResolver {
+
+    /***
+     * The default name of the version header.
+     */
+    public static final String DEFAULT_HEADER_NAME = "X-API-Version";
+
+    private final String headerName;
+    private final String prefix;
+
+    /***
+     * Creates the resolver.
+     * @param headerName the name of the header that contains the version
+     * @param prefix the version prefix (e.g. 'v')
+     */
+    public HeaderVersionResolver(String headerName, String prefix) {
+        this.headerName = headerName;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public int resolveVersion(HttpServletRequest request) {
+        return VersionRangeRequestCondition.parseVersionValue(request.getHeader(headerName), prefix);
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Keeps the older versions of mappings that are not registered at startup (lazy mode). When a request comes in for
+ * such a version, a mapping with only that version is created for every descriptor that contains it. The created
+ * mappings are registered once and then found by the normal lookup.
+ */
+final class LazyVersionTable {
+
+    /***
+     * Registers a materialized mapping at the handler mapping, together with the version information of the version
+     * that it serves.
+     */
+    interface Registrar {
+        void register(RequestMappingInfo info, VersionedMapping versionedMapping, Object handler, Method method);
+
+        void unregister(RequestMappingInfo info);
+    }
+
+    private final String prefix;
+
+    // eager request mapping info -> descriptor of the versions that are not registered
+    private final Map<RequestMappingInfo, Descriptor> descriptors = new ConcurrentHashMap<>();
+
+    // the versions for which the mappings have been registered
+    private final Set<Integer> materializedVersions = ConcurrentHashMap.newKeySet();
+
+    // the indexes of the version segments and the version bounds of all descriptors, for a fast rejection
+    private volatile int[] segmentIndexes = new int[0];
+    private volatile int minVersion = Integer.MAX_VALUE;
+    private volatile int maxVersion = Integer.MIN_VALUE;
+
+    LazyVersionTable(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /***
+     * Adds the versions of a mapping that are not registered at startup.
+     * @param info the registered request mapping info (with the eager versions)
+     * @param oldest the oldest version that is not registered
+     * @param newest the newest version that is not registered
+     * @param paths the paths that contain a version
+     * @param cacheTtl the cache ttl of the mapping
+     */
+    synchronized void add(RequestMappingInfo info, int oldest, int newest, List<VersionedPath> paths, int cacheTtl) {
+        descriptors.put(info, new Descriptor(oldest, newest, paths, cacheTtl));
+        minVersion = Math.min(minVersion, oldest);
+        maxVersion = Math.max(maxVersion, newest);
+        segmentIndexes = descriptors.values().stream()
+                .flatMap(descriptor -> descriptor.paths.stream())
+                .mapToInt(VersionedPath::segmentIndex)
+                .distinct()
+                .toArray();
+        // the new mapping has not been registered for the versions that were requested before
+        materializedVersions.clear();
+    }
+
+    /***
+     * Stores the handler of a mapping, which is needed to register its other versions.
+     */
+    void setHandler(RequestMappingInfo info, Object handler, Method method) {
+        Descriptor descriptor = descriptors.get(info);
+        if (descriptor != null) {
+            descriptor.handler = handler;
+            descriptor.method = method;
+        }
+    }
+
+    /***
+     * Removes a mapping and all the versions that were registered for it.
+     */
+    synchronized void remove(RequestMappingInfo info, Registrar registrar) {
+        Descriptor descriptor = descriptors.remove(info);
+        if (descriptor != null) {
+            descriptor.materialized.values().forEach(registrar::unregister);
+        }
+    }
+
+    /***
+     * Returns the mappings that were registered for the other versions of a mapping.
+     */
+    List<RequestMappingInfo> getMaterialized(RequestMappingInfo info) {
+        Descriptor descriptor = descriptors.get(info);
+        return descriptor != null ? List.copyOf(descriptor.materialized.values()) : List.of();
+    }
+
+    boolean isEmpty() {
+        return descriptors.isEmpty();
+    }
+
+    /***
+     * Registers the mappings for the version in the lookup path, when this has not been done before.
+     * @param lookupPath the lookup path of the request
+     * @param registrar registers the created mappings
+     */
+    void materialize(String lookupPath, Registrar registrar) {
+        for (int segmentIndex : segmentIndexes) {
+            int version = VersionRangeRequestCondition.parseVersion(lookupPath, segmentIndex, prefix);
+            if (version >= minVersion && version <= maxVersion && !materializedVersions.contains(version)) {
+                materialize(version, registrar);
+            }
+        }
+    }
+
+    private synchronized void materialize(int version, Registrar registrar) {
+        if (materializedVersions.contains(version)) {
+            return;
+        }
+
+        String versionString = String.valueOf(version);
+        for (Map.Entry<RequestMappingInfo, Descriptor> entry : descriptors.entrySet()) {
+            Descriptor descriptor = entry.getValue();
+            if (descriptor.handler != null && version >= descriptor.oldest && version <= descriptor.newest
+                    && !descriptor.materialized.containsKey(version)) {
+                String[] paths = descriptor.paths.stream()
+                        .map(path -> path.placeholderPath().replace(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER, versionString))
+                        .distinct()
+                        .toArray(String[]::new);
+                RequestMappingInfo info = entry.getKey().mutate().paths(paths).build();
+                registrar.register(info, new VersionedMapping(version, version, descriptor.paths, descriptor.cacheTtl),
+                        descriptor.handler, descriptor.method);
+                descriptor.materialized.put(version, info);
+            }
+        }
+        materializedVersions.add(version);
+    }
+
+    private static final class Descriptor {
+
+        private final int oldest;
+        private final int newest;
+        private final List<VersionedPath> paths;
+        private final int cacheTtl;
+        private final Map<Integer, RequestMappingInfo> materialized = new ConcurrentHashMap<>();
+        private volatile Object handler;
+        private volatile Method method;
+
+        private Descriptor(int oldest, int newest, List<VersionedPath> paths, int cacheTtl) {
+            this.oldest = oldest;
+            this.newest = newest;
+            this.paths = paths;
+            this.cacheTtl = cacheTtl;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * The statistics of the lookup cache.
+ * @param hits the number of lookups that were found in the cache
+ * @param misses the number of lookups that were not found in the cache
+ * @param evictions the number of entries that were removed to make room for new ones
+ * @param size the current number of entries
+ * @param maximumSize the maximum number of entries
+ */
+public record LookupCacheStatistics(long hits, long misses, long evictions, int size, int maximumSize) {
+
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
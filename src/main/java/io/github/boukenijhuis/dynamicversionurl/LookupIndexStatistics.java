@@ -0,0 +1,9 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * The statistics of the version lookup index.
+ * @param hits the number of lookups that were resolved by the index
+ * @param fallbacks the number of lookups that the index could not resolve and were handled by the normal lookup
+ */
+public record LookupIndexStatistics(long hits, long fallbacks) {
+}
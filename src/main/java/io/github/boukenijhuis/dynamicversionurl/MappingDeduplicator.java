@@ -0,0 +1,88 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/***
+ * Shares the handler methods of which the registered copies share the method parameters. The parsed path patterns are
+ * shared by a {@link CachingPathPatternParser}. The saved bytes are estimated from the number of shared instances,
+ * because the JDK cannot measure object sizes.
+ */
+final class MappingDeduplicator {
+
+    private record HandlerMethodKey(Object handler, Method method) {
+    }
+
+    private final Map<HandlerMethodKey, HandlerMethod> handlerMethods = new ConcurrentHashMap<>();
+
+    /***
+     * Returns the handler method that was created earlier for the same handler and method, or creates it.
+     * @param handler the handler (bean name or instance)
+     * @param method the method
+     * @param factory creates the handler method
+     * @return the shared handler method
+     */
+    HandlerMethod getHandlerMethod(Object handler, Method method, Supplier<HandlerMethod> factory) {
+        return handlerMethods.computeIfAbsent(new HandlerMethodKey(handler, method), key -> factory.get());
+    }
+
+    /***
+     * Counts the instances that are shared by the registered mappings. Only a second reference to a retained instance
+     * saves an object, so the patterns and handler methods that were shared with a mapping that is not registered
+     * (anymore) are not counted, e.g. those of a mapping that was replaced when the supported versions changed.
+     * @param registeredMappings the registered mappings and their handler methods
+     * @return the statistics
+     */
+    static DeduplicationStatistics getStatistics(Map<RequestMappingInfo, HandlerMethod> registeredMappings) {
+        Set<PathPattern> patterns = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the registered handler method is a copy, which shares the method parameters of the shared handler method
+        Set<MethodParameter[]> methodParameters = Collections.newSetFromMap(new IdentityHashMap<>());
+        long sharedPatterns = 0;
+        long sharedHandlerMethods = 0;
+        long bytesSaved = 0;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : registeredMappings.entrySet()) {
+            PathPatternsRequestCondition condition = entry.getKey().getPathPatternsCondition();
+            if (condition != null) {
+                for (PathPattern pattern : condition.getPatterns()) {
+                    if (!patterns.add(pattern)) {
+                        sharedPatterns++;
+                        bytesSaved += estimatePatternSize(pattern.getPatternString());
+                    }
+                }
+            }
+            if (!methodParameters.add(entry.getValue().getMethodParameters())) {
+                sharedHandlerMethods++;
+                bytesSaved += estimateHandlerMethodSize(entry.getValue().getMethod());
+            }
+        }
+        return new DeduplicationStatistics(sharedPatterns, sharedHandlerMethods, bytesSaved);
+    }
+
+    /***
+     * Estimates the size of a parsed path pattern: the pattern object, a separator and a path element (with its own
+     * copy of the segment text) per segment and the pattern string.
+     */
+    static long estimatePatternSize(String pattern) {
+        long segments = pattern.chars().filter(c -> c == '/').count();
+        return 64 + segments * 72 + 2L * pattern.length() + 40 + pattern.length();
+    }
+
+    /***
+     * Estimates the size of the parts of a handler method that are not shared by its registered copy: the handler
+     * method itself and a method parameter per parameter (including the return type).
+     */
+    static long estimateHandlerMethodSize(Method method) {
+        return 96 + (method.getParameterCount() + 1) * 80L;
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * Reads the version from a vendor media type in the Accept header, e.g. application/vnd.example.v3+json, or from a
+ * version parameter of the media type, e.g. application/json;version=3.
+ */
+public class MediaTypeVersionResolver implements VersionResolver {
+
+    private static final String VERSION_PARAMETER = "version";
+
+    private final String prefix;
+
+    /***
+     * Creates the resolver.
+     * @param prefix the version prefix (e.g. 'v')
+     */
+    public MediaTypeVersionResolver(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public int resolveVersion(HttpServletRequest request) {
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(Collections.list(request.getHeaders(HttpHeaders.ACCEPT)));
+        } catch (InvalidMediaTypeException e) {
+            return -1;
+        }
+
+        for (MediaType mediaType : mediaTypes) {
+            int version = resolveVersion(mediaType);
+            if (version != -1) {
+                return version;
+            }
+        }
+        return -1;
+    }
+
+    private int resolveVersion(MediaType mediaType) {
+        String parameter = mediaType.getParameter(VERSION_PARAMETER);
+        if (parameter != null) {
+            return VersionRangeRequestCondition.parseVersionValue(parameter, prefix);
+        }
+
+        String subtype = mediaType.getSubtype();
+        if (!subtype.startsWith("vnd.")) {
+            return -1;
+        }
+
+        // the version is the part of the subtype (in front of the suffix) that starts with the prefix
+        int suffix = subtype.indexOf('+');
+        String[] parts = (suffix == -1 ? subtype : subtype.substring(0, suffix)).split("\\.");
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].startsWith(prefix)) {
+                int version = VersionRangeRequestCondition.parseVersionValue(parts[i], prefix);
+                if (version != -1) {
+                    return version;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * Puts the version after the annotation path, e.g. /api/a/v3.
+ */
+public class PathPostfixVersionResolver extends PathTemplateVersionResolver {
+
+    /***
+     * Creates the resolver.
+     * @param prefix the version prefix (e.g. 'v')
+     */
+    public PathPostfixVersionResolver(String prefix) {
+        super(prefix, VersionPlacement.PATH_POSTFIX);
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * Puts the version in front of the annotation path, e.g. /api/v3/a. This is the default resolver.
+ */
+public class PathPrefixVersionResolver extends PathTemplateVersionResolver {
+
+    /***
+     * Creates the resolver.
+     * @param prefix the version prefix (e.g. 'v')
+     */
+    public PathPrefixVersionResolver(String prefix) {
+        super(prefix, VersionPlacement.PATH_PREFIX);
+    }
+}
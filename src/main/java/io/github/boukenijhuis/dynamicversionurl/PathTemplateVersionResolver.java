@@ -0,0 +1,59 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+/***
+ * Puts the version in the path as described by a {@link VersionPlacement} template, e.g. /{prefix}{version}{path}
+ * (/api/v3/a) or {path}/{prefix}{version}/json (/api/a/v3/json). The template is parsed once; the paths are versioned
+ * by concatenating the parsed parts.
+ */
+public class PathTemplateVersionResolver implements VersionResolver {
+
+    private final String prefix;
+
+    private final VersionPlacement placement;
+
+    /***
+     * Creates the resolver.
+     * @param prefix the version prefix (e.g. 'v')
+     * @param template the version placement template (e.g. '{path}/{prefix}{version}')
+     */
+    public PathTemplateVersionResolver(String prefix, String template) {
+        this(prefix, VersionPlacement.parse(template));
+    }
+
+    PathTemplateVersionResolver(String prefix, VersionPlacement placement) {
+        this.prefix = prefix;
+        this.placement = placement;
+    }
+
+    public VersionPlacement getPlacement() {
+        return placement;
+    }
+
+    @Override
+    public boolean isPathBased() {
+        return true;
+    }
+
+    @Override
+    public String versionPath(String patternValue, String annotationPath, String versionSegment) {
+        return placement.place(patternValue, annotationPath, versionSegment);
+    }
+
+    @Override
+    public int resolveVersion(HttpServletRequest request) {
+        // a version in front of the annotation path is the first version segment, otherwise it is the last one
+        return VersionRangeRequestCondition.findVersion(getPath(request), prefix, placement.isVersionAfterPath());
+    }
+
+    /***
+     * Returns the lookup path of a request or the request URI when the lookup path has not been parsed yet.
+     */
+    static String getPath(HttpServletRequest request) {
+        return ServletRequestPathUtils.hasCachedPath(request)
+                ? ServletRequestPathUtils.getCachedPathValue(request)
+                : request.getRequestURI();
+    }
+}
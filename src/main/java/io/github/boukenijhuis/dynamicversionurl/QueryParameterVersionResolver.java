@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/***
+ * Reads the version from a request parameter, e.g. /a?version=3. The version prefix is optional in the value.
+ */
+public class QueryParameterVersionResolver implements VersionResolver {
+
+    /***
+     * The default name of the version parameter.
+     */
+    public static final String DEFAULT_PARAMETER_NAME = "version";
+
+    private final String parameterName;
+    private final String prefix;
+
+    /***
+     * Creates the resolver.
+     * @param parameterName the name of the parameter that contains the version
+     * @param prefix the version prefix (e.g. 'v')
+     */
+    public QueryParameterVersionResolver(String parameterName, String prefix) {
+        this.parameterName = parameterName;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public int resolveVersion(HttpServletRequest request) {
+        return VersionRangeRequestCondition.parseVersionValue(request.getParameter(parameterName), prefix);
+    }
+}
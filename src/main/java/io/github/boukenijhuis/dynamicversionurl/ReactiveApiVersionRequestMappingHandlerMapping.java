@@ -0,0 +1,194 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/***
+ * The reactive (WebFlux) counterpart of {@link ApiVersionRequestMappingHandlerMapping}. It supports the same version
+ * mapping annotations and the expanded and compact mode. The versions are matched on the parsed request path, so no
+ * blocking work is done on the event loop.
+ */
+public class ReactiveApiVersionRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+    private final String prefix;
+
+    private final VersionMappingSupport support;
+
+    private boolean compact = false;
+
+    private VersionWindow versionWindow = VersionWindow.UNBOUNDED;
+
+    // the version information of every versioned mapping, by request mapping info and by handler method
+    private final VersionedMappingRegistry<RequestMappingInfo> registry = new VersionedMappingRegistry<>();
+
+    public ReactiveApiVersionRequestMappingHandlerMapping(String prefix) {
+        this.prefix = prefix;
+        this.support = new VersionMappingSupport(prefix);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /***
+     * Enables compact mode. In compact mode only one pattern (with a version placeholder) is registered per path,
+     * combined with a {@link ReactiveVersionRangeRequestCondition} that checks the requested version.
+     * @param compact true to enable compact mode
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /***
+     * Sets the supported versions. Older versions are not registered and {@link VersionMapping#LATEST} stands for the
+     * latest version. Unlike the servlet handler mapping, the supported versions can only be set before the handler
+     * methods are detected.
+     * @param minSupported the oldest supported version
+     * @param latest the latest version
+     */
+    public void setSupportedVersions(int minSupported, int latest) {
+        if (!registry.isEmpty()) {
+            throw new RuntimeException("The supported versions of the reactive handler mapping cannot be changed after "
+                    + "the handler methods have been detected.");
+        }
+        this.versionWindow = new VersionWindow(minSupported, latest);
+    }
+
+    public VersionWindow getVersionWindow() {
+        return versionWindow;
+    }
+
+    /***
+     * Enables the route descriptor. The versions and paths of the methods that are in a route descriptor (written by
+     * the annotation processor) are read from the descriptor instead of from the annotations.
+     * @param routeDescriptorEnabled true to enable the route descriptor
+     */
+    public void setRouteDescriptorEnabled(boolean routeDescriptorEnabled) {
+        support.setRouteDescriptorEnabled(routeDescriptorEnabled);
+    }
+
+    public boolean isRouteDescriptorEnabled() {
+        return support.isRouteDescriptorEnabled();
+    }
+
+    /***
+     * Returns true when all versioned mappings were read from the route descriptor of one compilation, which means
+     * that the annotation processor has checked them for overlaps.
+     * @return true when the versioned mappings were verified at compile time
+     */
+    public boolean isVerifiedAtCompileTime() {
+        return support.isVerifiedAtCompileTime();
+    }
+
+    /***
+     * Returns the version information of all mappings that were created from a version mapping annotation.
+     * @return the versioned mappings
+     */
+    public Map<RequestMappingInfo, VersionedMapping> getVersionedMappings() {
+        return registry.asMap();
+    }
+
+    /***
+     * Creates an updated request mapping info object, in the same way as the servlet handler mapping does.
+     * @param method the method that will be mapped to
+     * @param handlerType the class where the method is found
+     * @return the updated request mapping info object or null when none of the declared versions is supported
+     */
+    @Override
+    @Nullable
+    protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+
+        // get the exiting request mapping info
+        RequestMappingInfo info = super.getMappingForMethod(method, handlerType);
+
+        // find the versions of the first version mapping annotation
+        VersionMappingSupport.VersionDeclaration declaration = support.getVersionDeclaration(method);
+
+        if (info != null && declaration != null) {
+            if (declaration.sparse()) {
+                throw new RuntimeException(String.format("The since version of %s is not supported by the reactive "
+                        + "handler mapping, use a range of versions instead.", method));
+            }
+            if (declaration.semanticRange() != null) {
+                throw new RuntimeException(String.format("The semantic versions of %s are not supported by the reactive "
+                        + "handler mapping, use a range of versions instead.", method));
+            }
+            int oldestVersion = Math.max(declaration.oldest(), versionWindow.minSupported());
+            int newestVersion = Math.min(declaration.newest(), versionWindow.latest());
+            if (oldestVersion > newestVersion) {
+                return null;
+            }
+            Set<String> patternValues = getPatternValues(info);
+            List<VersionedPath> versionedPaths = support.createVersionedPaths(patternValues, declaration.paths());
+
+            if (compact && !versionedPaths.isEmpty()) {
+                ReactiveVersionRangeRequestCondition condition = new ReactiveVersionRangeRequestCondition(oldestVersion,
+                        newestVersion, prefix, VersionMappingSupport.getSegmentIndexes(versionedPaths));
+                info = info.mutate()
+                        .paths(VersionMappingSupport.getCompactPaths(versionedPaths))
+                        .customCondition(condition)
+                        .build();
+            } else if (!compact) {
+                // every version is registered as a path, so the newest version has to be a real version
+                if (newestVersion == VersionMapping.LATEST) {
+                    throw new RuntimeException(String.format("The newest version of %s is LATEST, but no latest version is "
+                            + "configured (version.latest).", method));
+                }
+                String[] versionPaths = support.updatePaths(patternValues, declaration.paths(), oldestVersion, newestVersion);
+                info = info.mutate().paths(versionPaths).build();
+            }
+
+            registry.put(info, new VersionedMapping(oldestVersion, newestVersion, versionedPaths));
+        }
+
+        // always return info
+        return info;
+    }
+
+    @Override
+    protected void handleMatch(RequestMappingInfo info, HandlerMethod handlerMethod, ServerWebExchange exchange) {
+        super.handleMatch(info, handlerMethod, exchange);
+
+        // the info is a copy with only the matching conditions, so use the handler method to find the versioned mapping
+        VersionedMapping versionedMapping = registry.get(handlerMethod.getMethod());
+        if (versionedMapping != null) {
+            exchange.getAttributes().put(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE, versionedMapping);
+            String lookupPath = exchange.getRequest().getPath().pathWithinApplication().value();
+            int version = ApiVersionRequestMappingHandlerMapping.getVersion(versionedMapping, lookupPath, prefix);
+            if (version != -1) {
+                exchange.getAttributes().put(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, version);
+            }
+        }
+    }
+
+    @Override
+    protected void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        registry.setMethod(mapping, method);
+    }
+
+    @Override
+    public void unregisterMapping(RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        registry.remove(mapping);
+    }
+
+    private static Set<String> getPatternValues(RequestMappingInfo info) {
+        return info.getPatternsCondition().getPatterns().stream()
+                .map(PathPattern::getPatternString)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
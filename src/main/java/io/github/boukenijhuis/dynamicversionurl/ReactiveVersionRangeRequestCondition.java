@@ -0,0 +1,81 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.result.condition.AbstractRequestCondition;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * The reactive counterpart of {@link VersionRangeRequestCondition}. The version is parsed from the already parsed
+ * request path, so matching never blocks the event loop.
+ */
+public final class ReactiveVersionRangeRequestCondition extends AbstractRequestCondition<ReactiveVersionRangeRequestCondition> {
+
+    private final int oldest;
+    private final int newest;
+    private final String prefix;
+    private final int[] segmentIndexes;
+
+    /***
+     * Creates a version range condition.
+     * @param oldest the oldest version (inclusive)
+     * @param newest the newest version (inclusive)
+     * @param prefix the version prefix (e.g. 'v')
+     * @param segmentIndexes the indexes of the path segments that contain the version (one per pattern)
+     */
+    public ReactiveVersionRangeRequestCondition(int oldest, int newest, String prefix, int[] segmentIndexes) {
+        this.oldest = oldest;
+        this.newest = newest;
+        this.prefix = prefix;
+        this.segmentIndexes = segmentIndexes;
+    }
+
+    public int getOldest() {
+        return oldest;
+    }
+
+    public int getNewest() {
+        return newest;
+    }
+
+    @Override
+    @NonNull
+    protected Collection<?> getContent() {
+        return List.of(oldest, newest);
+    }
+
+    @Override
+    @NonNull
+    protected String getToStringInfix() {
+        return "-";
+    }
+
+    @Override
+    @NonNull
+    public ReactiveVersionRangeRequestCondition combine(@NonNull ReactiveVersionRangeRequestCondition other) {
+        // the method level condition wins
+        return other;
+    }
+
+    @Override
+    @Nullable
+    public ReactiveVersionRangeRequestCondition getMatchingCondition(@NonNull ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        for (int segmentIndex : segmentIndexes) {
+            int version = VersionRangeRequestCondition.parseVersion(path, segmentIndex, prefix);
+            if (version >= oldest && version <= newest) {
+                return this;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(@NonNull ReactiveVersionRangeRequestCondition other, @NonNull ServerWebExchange exchange) {
+        // the narrowest range is the most specific one
+        return Integer.compare(newest - oldest, other.newest - other.oldest);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.reactive.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.lang.NonNull;
+
+/***
+ * The reactive counterpart of {@link VersionServerRequestObservationConvention}.
+ */
+public class ReactiveVersionServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final VersionTags versionTags;
+
+    /***
+     * Creates the observation convention.
+     * @param prefix the version prefix (e.g. 'v')
+     * @param bucketSize the number of versions per value of the version tag (1 means one value per version)
+     */
+    public ReactiveVersionServerRequestObservationConvention(String prefix, int bucketSize) {
+        this.versionTags = new VersionTags(prefix, bucketSize);
+    }
+
+    @Override
+    @NonNull
+    public KeyValues getLowCardinalityKeyValues(@NonNull ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of(VersionTags.VERSION, versionTags.version((Integer) context.getAttributes().get(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE))),
+                KeyValue.of(VersionTags.VERSION_RANGE, versionTags.versionRange(getVersionedMapping(context))));
+    }
+
+    @Override
+    @NonNull
+    protected KeyValue uri(@NonNull ServerRequestObservationContext context) {
+        String uri = versionTags.uri(context.getPathPattern(), getVersionedMapping(context));
+        return uri != null ? KeyValue.of("uri", uri) : super.uri(context);
+    }
+
+    private static VersionedMapping getVersionedMapping(ServerRequestObservationContext context) {
+        return (VersionedMapping) context.getAttributes().get(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * Request condition that matches a request when the version found by a {@link VersionResolver} lies within the range
+ * [oldest, newest]. It is used for the resolvers that do not put the version in the path (e.g. a header).
+ */
+public final class ResolvedVersionRequestCondition extends AbstractRequestCondition<ResolvedVersionRequestCondition> {
+
+    // the resolved version is stored in the request, so it is resolved once for all mappings
+    private static final String RESOLVED_VERSION_ATTRIBUTE = ResolvedVersionRequestCondition.class.getName() + ".version";
+
+    private final int oldest;
+    private final int newest;
+    private final VersionResolver versionResolver;
+
+    /***
+     * Creates a version range condition.
+     * @param oldest the oldest version (inclusive)
+     * @param newest the newest version (inclusive)
+     * @param versionResolver finds the version of a request
+     */
+    public ResolvedVersionRequestCondition(int oldest, int newest, VersionResolver versionResolver) {
+        this.oldest = oldest;
+        this.newest = newest;
+        this.versionResolver = versionResolver;
+    }
+
+    public int getOldest() {
+        return oldest;
+    }
+
+    public int getNewest() {
+        return newest;
+    }
+
+    @Override
+    @NonNull
+    protected Collection<?> getContent() {
+        return List.of(oldest, newest);
+    }
+
+    @Override
+    @NonNull
+    protected String getToStringInfix() {
+        return "-";
+    }
+
+    @Override
+    @NonNull
+    public ResolvedVersionRequestCondition combine(@NonNull ResolvedVersionRequestCondition other) {
+        // the method level condition wins
+        return other;
+    }
+
+    @Override
+    @Nullable
+    public ResolvedVersionRequestCondition getMatchingCondition(@NonNull HttpServletRequest request) {
+        // a pre-flight request does not contain the version (e.g. the version header)
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return this;
+        }
+        int version = resolveVersion(request, versionResolver);
+        return version >= oldest && version <= newest ? this : null;
+    }
+
+    @Override
+    public int compareTo(@NonNull ResolvedVersionRequestCondition other, @NonNull HttpServletRequest request) {
+        // the narrowest range is the most specific one
+        return Integer.compare(newest - oldest, other.newest - other.oldest);
+    }
+
+    /***
+     * Returns the version of a request, resolved once per request.
+     * @param request the request
+     * @param versionResolver finds the version when it was not resolved before
+     * @return the version or -1 when the request does not contain a valid version
+     */
+    static int resolveVersion(HttpServletRequest request, VersionResolver versionResolver) {
+        Object version = request.getAttribute(RESOLVED_VERSION_ATTRIBUTE);
+        if (version == null) {
+            version = versionResolver.resolveVersion(request);
+            request.setAttribute(RESOLVED_VERSION_ATTRIBUTE, version);
+        }
+        return (Integer) version;
+    }
+}
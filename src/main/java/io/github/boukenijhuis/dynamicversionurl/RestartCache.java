@@ -0,0 +1,232 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/***
+ * Keeps the version declarations and the expanded paths of the handler classes between restarts of the application
+ * context, e.g. by Spring Boot DevTools. The library is loaded by the base class loader, so the cache survives a
+ * restart while the application classes are loaded again. The entry of a class is only used when the bytecode of the
+ * class (and its superclasses and interfaces) has not changed. The parsed path patterns are kept as well.
+ */
+final class RestartCache {
+
+    static final RestartCache SHARED = new RestartCache();
+
+    // class name -> the cached information of the last registration of the class
+    private final Map<String, ClassEntry> classes = new ConcurrentHashMap<>();
+
+    // parser settings -> the caching parser
+    private final Map<String, CachingPathPatternParser> patternParsers = new ConcurrentHashMap<>();
+
+    /***
+     * Returns the entry of a handler class when the bytecode and the configuration have not changed.
+     * @param handlerType the handler class
+     * @param hash the hash of the bytecode of the class
+     * @param configuration the settings that influence the version declarations and the paths
+     * @return the entry or null when the class has to be processed again
+     */
+    @Nullable
+    ClassEntry getClassEntry(Class<?> handlerType, long hash, String configuration) {
+        ClassEntry entry = classes.get(handlerType.getName());
+        return entry != null && entry.hash == hash && entry.configuration.equals(configuration) ? entry : null;
+    }
+
+    /***
+     * Creates a new entry for a handler class, which replaces the existing entry.
+     * @param handlerType the handler class
+     * @param hash the hash of the bytecode of the class
+     * @param configuration the settings that influence the version declarations and the paths
+     * @return the new entry
+     */
+    ClassEntry createClassEntry(Class<?> handlerType, long hash, String configuration) {
+        ClassEntry entry = new ClassEntry(hash, configuration);
+        classes.put(handlerType.getName(), entry);
+        return entry;
+    }
+
+    /***
+     * Returns a parser with the settings of the given parser that keeps the parsed patterns.
+     * @param patternParser the configured parser
+     * @return the caching parser
+     */
+    CachingPathPatternParser getPatternParser(PathPatternParser patternParser) {
+        if (patternParser instanceof CachingPathPatternParser cachingPatternParser) {
+            return cachingPatternParser;
+        }
+        @SuppressWarnings("deprecation")
+        String key = patternParser.isCaseSensitive() + "," + patternParser.isMatchOptionalTrailingSeparator() + ","
+                + patternParser.getPathOptions().separator() + ","
+                + patternParser.getPathOptions().shouldDecodeAndParseSegments();
+        return patternParsers.computeIfAbsent(key, k -> new CachingPathPatternParser(patternParser));
+    }
+
+    /***
+     * Calculates a hash of the bytecode of a class and its superclasses and interfaces, because the mappings can also
+     * be declared there. The classes of the JDK are skipped.
+     * @return the hash or null when the bytecode of one of the classes cannot be read
+     */
+    @Nullable
+    static Long hash(Class<?> type) {
+        CRC32C checksum = new CRC32C();
+        long length = 0;
+        for (Class<?> current : hierarchy(type)) {
+            ClassLoader classLoader = current.getClassLoader();
+            if (classLoader == null) {
+                continue;
+            }
+            String resource = current.getName().replace('.', '/') + ".class";
+            try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+                if (inputStream == null) {
+                    return null;
+                }
+                byte[] bytes = inputStream.readAllBytes();
+                checksum.update(bytes);
+                length += bytes.length;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        // the length makes a collision less likely
+        return checksum.getValue() ^ (length << 32);
+    }
+
+    private static Set<Class<?>> hierarchy(Class<?> type) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            classes.add(current);
+            addInterfaces(current, classes);
+        }
+        return classes;
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> classes) {
+        for (Class<?> anInterface : type.getInterfaces()) {
+            if (classes.add(anInterface)) {
+                addInterfaces(anInterface, classes);
+            }
+        }
+    }
+
+    /***
+     * The cached information of a handler class.
+     */
+    static final class ClassEntry {
+
+        private final long hash;
+        private final String configuration;
+
+        // method key -> the cached information of the method
+        private final Map<String, MethodEntry> methods = new ConcurrentHashMap<>();
+
+        // the overlap check that has passed with this class, null when the class has not been checked yet
+        @Nullable
+        private volatile Verification verification;
+
+        private ClassEntry(long hash, String configuration) {
+            this.hash = hash;
+            this.configuration = configuration;
+        }
+
+        @Nullable
+        MethodEntry getMethod(String key) {
+            return methods.get(key);
+        }
+
+        void putMethod(String key, MethodEntry methodEntry) {
+            methods.put(key, methodEntry);
+        }
+
+        @Nullable
+        Verification getVerification() {
+            return verification;
+        }
+
+        void setVerification(Verification verification) {
+            this.verification = verification;
+        }
+    }
+
+    /***
+     * The cached information of a handler method. The request mapping info itself is not cached, because it refers to
+     * objects of the application context (e.g. the content negotiation manager).
+     */
+    static final class MethodEntry {
+
+        private final Set<String> patternValues;
+        @Nullable
+        private final VersionMappingSupport.VersionDeclaration declaration;
+        private final List<VersionedPath> versionedPaths;
+
+        // the paths of the last expansion
+        @Nullable
+        private volatile ExpandedPaths expandedPaths;
+
+        MethodEntry(Set<String> patternValues, @Nullable VersionMappingSupport.VersionDeclaration declaration,
+                    List<VersionedPath> versionedPaths) {
+            this.patternValues = patternValues;
+            this.declaration = declaration;
+            this.versionedPaths = versionedPaths;
+        }
+
+        /***
+         * Returns true when the entry was created for the same pattern values, which can differ between restarts
+         * because of placeholders in the paths.
+         */
+        boolean matches(Set<String> patternValues) {
+            return this.patternValues.equals(patternValues);
+        }
+
+        @Nullable
+        VersionMappingSupport.VersionDeclaration getDeclaration() {
+            return declaration;
+        }
+
+        List<VersionedPath> getVersionedPaths() {
+            return versionedPaths;
+        }
+
+        /***
+         * Returns the paths of the last expansion when it had the same versions.
+         */
+        @Nullable
+        String[] getExpandedPaths(int oldestVersion, int newestVersion) {
+            ExpandedPaths paths = expandedPaths;
+            return paths != null && paths.oldest() == oldestVersion && paths.newest() == newestVersion
+                    ? paths.paths() : null;
+        }
+
+        void setExpandedPaths(int oldestVersion, int newestVersion, String[] paths) {
+            expandedPaths = new ExpandedPaths(oldestVersion, newestVersion, paths);
+        }
+    }
+
+    private record ExpandedPaths(int oldest, int newest, String[] paths) {
+    }
+
+    /***
+     * An overlap check that has passed. The mappings of classes that passed the same check for the same supported
+     * versions do not overlap. Verifications are compared by identity.
+     */
+    static final class Verification {
+
+        private final VersionWindow window;
+
+        Verification(VersionWindow window) {
+            this.window = window;
+        }
+
+        VersionWindow getWindow() {
+            return window;
+        }
+    }
+}
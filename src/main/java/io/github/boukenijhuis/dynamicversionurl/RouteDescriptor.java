@@ -0,0 +1,154 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.processor.VersionMappingProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/***
+ * The route descriptors that are written by the {@link VersionMappingProcessor}. They contain the versions, paths, cache
+ * ttl and maximum number of concurrent requests of every versioned method, so the annotations do not have to be
+ * evaluated at startup. A route is only used when its fingerprint matches the annotation values of the loaded method,
+ * e.g. not when the class was compiled again without the processor. Descriptors of another format are ignored.
+ */
+final class RouteDescriptor {
+
+    /***
+     * The versions and paths of a method.
+     * @param fingerprint the fingerprint of the annotation values from which the route was written
+     * @param compilation the id of the compilation in which the routes were checked for overlaps
+     */
+    record Route(int oldest, int newest, String[] paths, int cacheTtl, int maxConcurrent, String fingerprint,
+                 String compilation) {
+    }
+
+    private final Map<String, Route> routes;
+
+    private RouteDescriptor(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    /***
+     * Loads all route descriptors that are visible to a class loader.
+     * @param classLoader the class loader
+     * @return the route descriptors
+     */
+    static RouteDescriptor load(ClassLoader classLoader) {
+        Map<String, Route> routes = new HashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(VersionMappingProcessor.DESCRIPTOR_LOCATION);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                Properties properties = new Properties();
+                try (InputStream inputStream = resource.openStream()) {
+                    properties.load(inputStream);
+                }
+
+                // e.g. written by an older version of the processor
+                if (!VersionMappingProcessor.FORMAT.equals(properties.getProperty(VersionMappingProcessor.FORMAT_KEY))) {
+                    continue;
+                }
+
+                String compilation = resource + "#" + properties.getProperty(VersionMappingProcessor.COMPILATION_KEY);
+                for (String key : properties.stringPropertyNames()) {
+                    if (!key.equals(VersionMappingProcessor.COMPILATION_KEY) && !key.equals(VersionMappingProcessor.FORMAT_KEY)) {
+                        String[] values = properties.getProperty(key).split(" ", -1);
+                        String[] paths = Arrays.stream(values, 5, values.length)
+                                .map(RouteDescriptor::decodePath)
+                                .toArray(String[]::new);
+                        routes.put(key, new Route(Integer.parseInt(values[0]), Integer.parseInt(values[1]), paths,
+                                Integer.parseInt(values[2]), Integer.parseInt(values[3]), values[4], compilation));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Could not read the route descriptors: " + e.getMessage(), e);
+        }
+        return new RouteDescriptor(routes);
+    }
+
+    /***
+     * Decodes a path that was encoded by the processor (every %XX is a UTF-8 byte), e.g. /a%20b becomes /a b.
+     */
+    static String decodePath(String value) {
+        if (value.indexOf('%') == -1) {
+            return value;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%') {
+                bytes.write(Integer.parseInt(value, i + 1, i + 3, 16));
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Returns the route of a method.
+     * @param method the method
+     * @return the route or null when the method is not in a route descriptor
+     */
+    @Nullable
+    Route get(Method method) {
+        return routes.get(getKey(method));
+    }
+
+    /***
+     * Returns the fingerprint of annotations, the same as {@link VersionMappingProcessor#fingerprint} at compile time.
+     * @param annotations the version annotation of a method and, for VersionMapping, its request mapping annotation
+     * @return the fingerprint
+     */
+    static String getFingerprint(List<Annotation> annotations) {
+        Map<String, SortedMap<String, List<String>>> values = new LinkedHashMap<>();
+        for (Annotation annotation : annotations) {
+            SortedMap<String, List<String>> attributes = new TreeMap<>();
+            for (Method attribute : annotation.annotationType().getDeclaredMethods()) {
+                Object value = AnnotationUtils.getValue(annotation, attribute.getName());
+                List<String> strings = new ArrayList<>();
+                if (value != null && value.getClass().isArray()) {
+                    for (int i = 0; i < Array.getLength(value); i++) {
+                        strings.add(getString(Array.get(value, i)));
+                    }
+                } else {
+                    strings.add(getString(value));
+                }
+                attributes.put(attribute.getName(), strings);
+            }
+            values.put(annotation.annotationType().getName(), attributes);
+        }
+        return VersionMappingProcessor.fingerprint(values);
+    }
+
+    // the same strings as the processor: enum constants by name and classes by binary name
+    private static String getString(@Nullable Object value) {
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        if (value instanceof Class<?> type) {
+            return type.getTypeName();
+        }
+        return String.valueOf(value);
+    }
+
+    /***
+     * Returns the key of a method, e.g. com.example.Controller#get(java.lang.String,int[]).
+     */
+    static String getKey(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName() + "("
+                + Arrays.stream(method.getParameterTypes()).map(Class::getTypeName).collect(Collectors.joining(",")) + ")";
+    }
+}
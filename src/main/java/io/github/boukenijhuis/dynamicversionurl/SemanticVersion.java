@@ -0,0 +1,107 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * Semantic major.minor versions (e.g. 2.3) packed into a long: the major version in the high 32 bits and the minor
+ * version in the low 32 bits. The packed versions are ordered like the versions themselves, so 2.10 is newer than
+ * 2.9, and a range check is a comparison of two longs.
+ */
+public final class SemanticVersion {
+
+    private SemanticVersion() {
+    }
+
+    /***
+     * Packs a version.
+     * @param major the major version (not negative)
+     * @param minor the minor version (not negative)
+     * @return the packed version
+     */
+    public static long pack(int major, int minor) {
+        return ((long) major << 32) | (minor & 0xFFFFFFFFL);
+    }
+
+    public static int major(long version) {
+        return (int) (version >>> 32);
+    }
+
+    public static int minor(long version) {
+        return (int) version;
+    }
+
+    /***
+     * Parses a version from an annotation, e.g. '2.3'.
+     * @param version the version
+     * @return the packed version
+     */
+    public static long parse(String version) {
+        long packed = parse(version, 0, version.length());
+        if (packed == -1) {
+            throw new RuntimeException(String.format("Invalid semantic version '%s', expected major.minor (e.g. 2.3).", version));
+        }
+        return packed;
+    }
+
+    /***
+     * Formats a packed version, e.g. '2.3'.
+     */
+    public static String format(long version) {
+        return major(version) + "." + minor(version);
+    }
+
+    /***
+     * Parses the version of a path segment without allocating, e.g. 'v2.3' with prefix 'v' results in the packed
+     * version 2.3.
+     * @param path the lookup path of the request
+     * @param segmentIndex the index of the segment that contains the version (the first segment has index 0)
+     * @param prefix the version prefix
+     * @return the packed version or -1 when the segment does not contain a valid major.minor version
+     */
+    static long parseSegment(String path, int segmentIndex, String prefix) {
+        // find the start of the segment
+        int start = 0;
+        for (int segment = 0; segment <= segmentIndex; segment++) {
+            start = path.indexOf('/', start);
+            if (start == -1) {
+                return -1;
+            }
+            start++;
+        }
+
+        if (!path.startsWith(prefix, start)) {
+            return -1;
+        }
+
+        int end = start + prefix.length();
+        while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != ';') {
+            end++;
+        }
+        return parse(path, start + prefix.length(), end);
+    }
+
+    // parses major.minor between start and end, -1 when the characters are not a valid version
+    private static long parse(CharSequence value, int start, int end) {
+        int major = 0;
+        int minor = 0;
+        int digits = 0;
+        boolean inMinor = false;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && !inMinor && digits > 0) {
+                inMinor = true;
+                digits = 0;
+                continue;
+            }
+            int current = inMinor ? minor : major;
+            if (c < '0' || c > '9' || current > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            if (inMinor) {
+                minor = minor * 10 + (c - '0');
+            } else {
+                major = major * 10 + (c - '0');
+            }
+            digits++;
+        }
+        return inMinor && digits > 0 ? pack(major, minor) : -1;
+    }
+}
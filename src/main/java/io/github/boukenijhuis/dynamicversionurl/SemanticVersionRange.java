@@ -0,0 +1,18 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * A range of packed semantic versions.
+ * @param oldest the oldest version (inclusive)
+ * @param newest the newest version (inclusive)
+ */
+public record SemanticVersionRange(long oldest, long newest) {
+
+    public boolean contains(long version) {
+        return version >= oldest && version <= newest;
+    }
+
+    @Override
+    public String toString() {
+        return SemanticVersion.format(oldest) + "-" + SemanticVersion.format(newest);
+    }
+}
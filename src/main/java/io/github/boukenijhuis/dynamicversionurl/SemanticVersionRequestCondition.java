@@ -0,0 +1,84 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * Request condition that matches a request when the major.minor version in its URL lies within a range of semantic
+ * versions. Only one pattern (with a major.minor version placeholder) is registered per path, so the minor versions
+ * are never expanded into separate paths.
+ */
+public final class SemanticVersionRequestCondition extends AbstractRequestCondition<SemanticVersionRequestCondition> {
+
+    private final SemanticVersionRange range;
+    private final String prefix;
+    private final int[] segmentIndexes;
+
+    /***
+     * Creates a semantic version range condition.
+     * @param range the packed versions
+     * @param prefix the version prefix (e.g. 'v')
+     * @param segmentIndexes the indexes of the path segments that contain the version (one per pattern)
+     */
+    public SemanticVersionRequestCondition(SemanticVersionRange range, String prefix, int[] segmentIndexes) {
+        this.range = range;
+        this.prefix = prefix;
+        this.segmentIndexes = segmentIndexes;
+    }
+
+    public SemanticVersionRange getRange() {
+        return range;
+    }
+
+    @Override
+    @NonNull
+    protected Collection<?> getContent() {
+        return List.of(range);
+    }
+
+    @Override
+    @NonNull
+    protected String getToStringInfix() {
+        return "";
+    }
+
+    @Override
+    @NonNull
+    public SemanticVersionRequestCondition combine(@NonNull SemanticVersionRequestCondition other) {
+        // the method level condition wins
+        return other;
+    }
+
+    @Override
+    @Nullable
+    public SemanticVersionRequestCondition getMatchingCondition(@NonNull HttpServletRequest request) {
+        return getVersion(ServletRequestPathUtils.getCachedPathValue(request)) != -1 ? this : null;
+    }
+
+    /***
+     * Returns the packed version of a lookup path that lies within the range.
+     * @param lookupPath the lookup path of the request
+     * @return the packed version or -1 when the lookup path contains no version within the range
+     */
+    long getVersion(String lookupPath) {
+        for (int segmentIndex : segmentIndexes) {
+            long version = SemanticVersion.parseSegment(lookupPath, segmentIndex, prefix);
+            if (version != -1 && range.contains(version)) {
+                return version;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int compareTo(@NonNull SemanticVersionRequestCondition other, @NonNull HttpServletRequest request) {
+        // the narrowest range is the most specific one
+        return Long.compare(range.newest() - range.oldest(), other.range.newest() - other.range.oldest());
+    }
+}
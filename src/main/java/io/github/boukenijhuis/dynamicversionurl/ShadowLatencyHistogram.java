@@ -0,0 +1,61 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/***
+ * A lock-free latency histogram with four buckets per power of two, so a percentile is at most 25% too high. It is
+ * meant to compare two latency distributions, not to measure a single request precisely.
+ */
+final class ShadowLatencyHistogram {
+
+    // 4 buckets for every power of two of a positive long
+    private static final int BUCKETS = 4 * 63;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet(index(Math.max(nanos, 0)));
+    }
+
+    static int index(long value) {
+        if (value < 4) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & 3;
+        return 4 * (exponent - 1) + sub;
+    }
+
+    // the highest value of a bucket
+    static long upperBound(int index) {
+        if (index < 4) {
+            return index;
+        }
+        int exponent = index / 4 + 1;
+        long lower = (long) (4 + index % 4) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+
+    /***
+     * Returns the upper bound of the bucket that contains a percentile.
+     * @param percentile the percentile, e.g. 0.99
+     * @return the latency in nanoseconds or 0 when nothing is recorded
+     */
+    long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,673 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.MappingMatch;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Handler adapter that compares a handler method with the handler method of the next version. For a sampled fraction
+ * of the requests for version N, the handler method that serves version N+1 of the same path is invoked as well, in
+ * the background on a bounded executor with virtual threads. Its result is only compared with the result of the
+ * handler (with equals) and then discarded. The latencies and the number of equal results are kept per pair of
+ * handler methods.
+ * <p>
+ * The only work on the request thread is a copy of the request (request line, headers, parameters and cookies), made
+ * after the handler has been invoked. The handler of the next version is found in the background, without the
+ * interceptors and the lookup cache of the handler mapping, and its arguments are resolved from the copy. The
+ * latencies of both handlers include the argument resolution. Shadow handlers with parameters that give access to the request or the response (e.g. HttpServletResponse or a Writer) are
+ * never invoked, and neither are shadow handlers that read the request body (e.g. with @RequestBody, @RequestPart or an
+ * HttpEntity), because the body has already been consumed. Only path based versions (not semantic versions) can be
+ * shadowed.
+ */
+public class ShadowRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter implements DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(ShadowRequestMappingHandlerAdapter.class);
+
+    // the parameter types that give access to the request, its body or the response, which are gone when the shadow runs
+    private static final List<Class<?>> UNSAFE_PARAMETER_TYPES = List.of(jakarta.servlet.ServletRequest.class,
+            jakarta.servlet.ServletResponse.class, jakarta.servlet.http.HttpSession.class, WebRequest.class,
+            InputStream.class, Reader.class, OutputStream.class, Writer.class, HttpEntity.class, MultipartFile.class,
+            jakarta.servlet.http.Part.class);
+
+    // the parameter annotations that read the request body
+    private static final List<Class<? extends Annotation>> BODY_PARAMETER_ANNOTATIONS = List.of(RequestBody.class,
+            RequestPart.class);
+
+    private double sampleRate = 0;
+
+    private Set<String> methods = Set.of("GET");
+
+    private VersionBulkhead bound = new VersionBulkhead("shadow", 0, Integer.MAX_VALUE, 16);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("version-shadow-", 0).factory());
+
+    @Nullable
+    private ApiVersionRequestMappingHandlerMapping handlerMapping;
+
+    private final Map<Method, Boolean> safeMethods = new ConcurrentHashMap<>();
+
+    // handler method + shadow handler method -> the comparison
+    private final Map<List<Method>, ShadowPair> pairs = new ConcurrentHashMap<>();
+
+    // handler method -> the sampled requests that were not shadowed, because the maximum number was running
+    private final Map<Method, LongAdder> droppedByHandler = new ConcurrentHashMap<>();
+
+    /***
+     * Sets the fraction of the requests that are also sent to the handler of the next version.
+     * @param sampleRate a number between 0 (no requests) and 1 (all requests)
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new RuntimeException("The shadow sample rate should be between 0 and 1, but was " + sampleRate + ".");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /***
+     * Sets the request methods that are shadowed, GET by default. Only add request methods without side effects.
+     * @param methods the request methods
+     */
+    public void setMethods(Collection<String> methods) {
+        this.methods = Set.copyOf(methods);
+    }
+
+    /***
+     * Sets the maximum number of shadow invocations that run at the same time, the other ones are dropped.
+     * @param maxConcurrent the maximum number of concurrent shadow invocations
+     */
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.bound = new VersionBulkhead("shadow", 0, Integer.MAX_VALUE, maxConcurrent);
+    }
+
+    /***
+     * Sets the handler mapping that finds the handler of the next version. When it is not set, the versioned handler
+     * mapping of the application context is used.
+     * @param handlerMapping the handler mapping
+     */
+    public void setHandlerMapping(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (handlerMapping == null && getApplicationContext() != null) {
+            Map<String, ApiVersionRequestMappingHandlerMapping> handlerMappings =
+                    getApplicationContext().getBeansOfType(ApiVersionRequestMappingHandlerMapping.class);
+            if (handlerMappings.size() == 1) {
+                handlerMapping = handlerMappings.values().iterator().next();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /***
+     * Returns the comparison of every pair of handler methods that was shadowed.
+     * @return the statistics, sorted by handler and shadow handler
+     */
+    public List<ShadowStatistics> getShadowStatistics() {
+        return pairs.values().stream()
+                .map(ShadowPair::getStatistics)
+                .sorted(Comparator.comparing(ShadowStatistics::handler).thenComparing(ShadowStatistics::shadowHandler))
+                .toList();
+    }
+
+    @Override
+    @NonNull
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(@NonNull HandlerMethod handlerMethod) {
+        return new ShadowInvocableHandlerMethod(handlerMethod);
+    }
+
+    private boolean isSampled(@Nullable HttpServletRequest request) {
+        return request != null && handlerMapping != null && sampleRate > 0
+                && methods.contains(request.getMethod())
+                && request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE) instanceof Integer
+                && request.getAttribute(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_ATTRIBUTE) == null
+                && handlerMapping.getVersionResolver().isPathBased()
+                && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /***
+     * Copies the request for the next version and finds, resolves and invokes the handler of the next version in the
+     * background. Only the copy is made on the request thread.
+     */
+    private void shadow(HttpServletRequest request, ShadowInvocableHandlerMethod handlerMethod, @Nullable Object result,
+                        long handlerNanos) {
+        ApiVersionRequestMappingHandlerMapping mapping = handlerMapping;
+        String lookupPath = ServletRequestPathUtils.getCachedPathValue(request);
+        String shadowPath = getNextVersionPath(mapping, request, lookupPath);
+        if (shadowPath == null || !request.getRequestURI().endsWith(lookupPath)) {
+            return;
+        }
+
+        LongAdder dropped = droppedByHandler.computeIfAbsent(handlerMethod.getMethod(), method -> new LongAdder());
+        if (!bound.tryAcquire()) {
+            dropped.increment();
+            return;
+        }
+
+        DetachedRequest shadowRequest = new DetachedRequest(request,
+                request.getRequestURI().substring(0, request.getRequestURI().length() - lookupPath.length()) + shadowPath);
+        try {
+            executor.execute(() -> {
+                try {
+                    invokeShadow(mapping, shadowRequest, handlerMethod, result, handlerNanos, dropped);
+                } finally {
+                    bound.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            bound.release();
+        }
+    }
+
+    /***
+     * Finds the handler of the next version (without interceptors), resolves its arguments and invokes it. The
+     * latency of both handlers includes the argument resolution.
+     */
+    private void invokeShadow(ApiVersionRequestMappingHandlerMapping mapping, DetachedRequest shadowRequest,
+                              ShadowInvocableHandlerMethod handlerMethod, @Nullable Object result, long handlerNanos,
+                              LongAdder dropped) {
+        HandlerMethod shadowHandlerMethod;
+        try {
+            ServletRequestPathUtils.parseAndCache(shadowRequest);
+            shadowHandlerMethod = mapping.getDetachedHandlerMethod(shadowRequest);
+        } catch (Exception ex) {
+            return;
+        }
+
+        // the same handler method serves the next version as well, so there is nothing to compare
+        if (shadowHandlerMethod == null || shadowHandlerMethod.getMethod().equals(handlerMethod.getMethod())
+                || !isSafe(shadowHandlerMethod)) {
+            return;
+        }
+
+        ShadowPair pair = pairs.computeIfAbsent(List.of(handlerMethod.getMethod(), shadowHandlerMethod.getMethod()),
+                key -> new ShadowPair(describe(handlerMethod), describe(shadowHandlerMethod), dropped));
+        try {
+            ShadowInvocation invocation = new ShadowInvocation(shadowHandlerMethod, handlerMethod);
+            long start = System.nanoTime();
+            Object[] arguments = invocation.resolveArguments(new ServletWebRequest(shadowRequest), new ModelAndViewContainer());
+            Object shadowResult = invocation.invoke(arguments);
+            pair.record(handlerNanos, System.nanoTime() - start, Objects.deepEquals(result, shadowResult));
+        } catch (Throwable ex) {
+            pair.failed.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Shadow invocation of " + pair.shadowHandler + " failed", ex);
+            }
+        }
+    }
+
+    /***
+     * Returns the lookup path with the next version instead of the requested version.
+     */
+    @Nullable
+    private static String getNextVersionPath(ApiVersionRequestMappingHandlerMapping mapping, HttpServletRequest request,
+                                             String lookupPath) {
+        if (!(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE) instanceof VersionedMapping versionedMapping)
+                || !(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE) instanceof Integer version)
+                || version == Integer.MAX_VALUE) {
+            return null;
+        }
+        for (VersionedPath path : versionedMapping.paths()) {
+            if (VersionRangeRequestCondition.parseVersion(lookupPath, path.segmentIndex(), mapping.getPrefix()) == version) {
+                return VersionMappingSupport.replaceSegment(lookupPath, path.segmentIndex(), mapping.getPrefix() + (version + 1));
+            }
+        }
+        return null;
+    }
+
+    private boolean isSafe(HandlerMethod handlerMethod) {
+        return safeMethods.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+                Class<?> type = parameter.nestedIfOptional().getNestedParameterType();
+                if (UNSAFE_PARAMETER_TYPES.stream().anyMatch(unsafe -> unsafe.isAssignableFrom(type))
+                        || BODY_PARAMETER_ANNOTATIONS.stream().anyMatch(parameter::hasParameterAnnotation)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private static String describe(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+    }
+
+    /***
+     * Invokes the handler and, for a sampled request, the handler of the next version. The argument resolvers and the
+     * data binder factory of the request are kept, so the shadow handler gets its arguments in the same way.
+     */
+    private final class ShadowInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+
+        @Nullable
+        private HandlerMethodArgumentResolverComposite argumentResolvers;
+
+        @Nullable
+        private WebDataBinderFactory dataBinderFactory;
+
+        private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+        private ShadowInvocableHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        public void setHandlerMethodArgumentResolvers(@NonNull HandlerMethodArgumentResolverComposite argumentResolvers) {
+            super.setHandlerMethodArgumentResolvers(argumentResolvers);
+            this.argumentResolvers = argumentResolvers;
+        }
+
+        @Override
+        public void setDataBinderFactory(@NonNull WebDataBinderFactory dataBinderFactory) {
+            super.setDataBinderFactory(dataBinderFactory);
+            this.dataBinderFactory = dataBinderFactory;
+        }
+
+        @Override
+        public void setParameterNameDiscoverer(@NonNull ParameterNameDiscoverer parameterNameDiscoverer) {
+            super.setParameterNameDiscoverer(parameterNameDiscoverer);
+            this.parameterNameDiscoverer = parameterNameDiscoverer;
+        }
+
+        @Override
+        @Nullable
+        public Object invokeForRequest(@NonNull NativeWebRequest request, @Nullable ModelAndViewContainer mavContainer,
+                                       Object... providedArgs) throws Exception {
+            HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+            if (!isSampled(servletRequest)) {
+                return super.invokeForRequest(request, mavContainer, providedArgs);
+            }
+
+            long start = System.nanoTime();
+            Object result = super.invokeForRequest(request, mavContainer, providedArgs);
+            shadow(servletRequest, this, result, System.nanoTime() - start);
+            return result;
+        }
+    }
+
+    /***
+     * The invocation of a shadow handler method.
+     */
+    private static final class ShadowInvocation extends InvocableHandlerMethod {
+
+        private ShadowInvocation(HandlerMethod handlerMethod, ShadowInvocableHandlerMethod invocable) {
+            super(handlerMethod);
+            if (invocable.argumentResolvers != null) {
+                setHandlerMethodArgumentResolvers(invocable.argumentResolvers);
+            }
+            if (invocable.dataBinderFactory != null) {
+                setDataBinderFactory(invocable.dataBinderFactory);
+            }
+            setParameterNameDiscoverer(invocable.parameterNameDiscoverer);
+        }
+
+        private Object[] resolveArguments(NativeWebRequest request, ModelAndViewContainer mavContainer) throws Exception {
+            return getMethodArgumentValues(request, mavContainer);
+        }
+
+        @Nullable
+        private Object invoke(Object[] arguments) throws Exception {
+            return doInvoke(arguments);
+        }
+    }
+
+    /***
+     * A copy of the request for the next version, with another request URI. The original request is recycled after the
+     * response has been sent, so the request line, headers, parameters, cookies, locales and principal are copied on
+     * the request thread. The body is not copied and the session is not available, the other methods return a default
+     * value (e.g. null).
+     */
+    private static final class DetachedRequest extends HttpServletRequestWrapper {
+
+        private static final HttpServletRequest EMPTY_REQUEST = (HttpServletRequest) Proxy.newProxyInstance(
+                DetachedRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, arguments) -> getDefaultValue(method.getReturnType()));
+
+        private final String method;
+        private final String requestUri;
+        private final String contextPath;
+        private final String servletPath;
+        @Nullable
+        private final String pathInfo;
+        @Nullable
+        private final String queryString;
+        private final String scheme;
+        private final String serverName;
+        private final int serverPort;
+        private final boolean secure;
+        @Nullable
+        private final String characterEncoding;
+        @Nullable
+        private final String contentType;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, String[]> parameters;
+        @Nullable
+        private final Cookie[] cookies;
+        private final List<Locale> locales;
+        @Nullable
+        private final Principal userPrincipal;
+        @Nullable
+        private final HttpServletMapping servletMapping;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        private DetachedRequest(HttpServletRequest request, String requestUri) {
+            super(EMPTY_REQUEST);
+            this.method = request.getMethod();
+            this.requestUri = requestUri;
+            this.contextPath = request.getContextPath();
+            this.servletPath = request.getServletPath();
+            this.pathInfo = request.getPathInfo();
+            this.queryString = request.getQueryString();
+            this.scheme = request.getScheme();
+            this.serverName = request.getServerName();
+            this.serverPort = request.getServerPort();
+            this.secure = request.isSecure();
+            this.characterEncoding = request.getCharacterEncoding();
+            this.contentType = request.getContentType();
+            for (String name : Collections.list(request.getHeaderNames())) {
+                headers.put(name, Collections.list(request.getHeaders(name)));
+            }
+            this.parameters = new LinkedHashMap<>(request.getParameterMap());
+            Cookie[] requestCookies = request.getCookies();
+            this.cookies = requestCookies != null ? Arrays.stream(requestCookies).map(Cookie::clone).toArray(Cookie[]::new) : null;
+            this.locales = Collections.list(request.getLocales());
+            this.userPrincipal = request.getUserPrincipal();
+            HttpServletMapping mapping = request.getHttpServletMapping();
+            this.servletMapping = mapping != null ? new DetachedServletMapping(mapping.getMatchValue(), mapping.getPattern(),
+                    mapping.getServletName(), mapping.getMappingMatch()) : null;
+        }
+
+        private static Object getDefaultValue(Class<?> type) {
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            if (type == long.class) {
+                return -1L;
+            }
+            return null;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return requestUri;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer(scheme).append("://").append(serverName);
+            return url.append(':').append(serverPort).append(requestUri);
+        }
+
+        @Override
+        public String getContextPath() {
+            return contextPath;
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return pathInfo;
+        }
+
+        @Override
+        public String getQueryString() {
+            return queryString;
+        }
+
+        @Override
+        public String getScheme() {
+            return scheme;
+        }
+
+        @Override
+        public String getServerName() {
+            return serverName;
+        }
+
+        @Override
+        public int getServerPort() {
+            return serverPort;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.getFirst(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return Collections.enumeration(headers.getOrEmpty(name));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = headers.getFirst(name);
+            return value != null ? Integer.parseInt(value) : -1;
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            return headers.getFirstDate(name);
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values != null && values.length > 0 ? values[0] : null;
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return parameters.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return Collections.unmodifiableMap(parameters);
+        }
+
+        @Override
+        public Cookie[] getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+        }
+
+        @Override
+        public Enumeration<Locale> getLocales() {
+            return Collections.enumeration(locales);
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return userPrincipal;
+        }
+
+        @Override
+        public HttpServletMapping getHttpServletMapping() {
+            return servletMapping;
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return DispatcherType.REQUEST;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+    }
+
+    private record DetachedServletMapping(String matchValue, String pattern, String servletName,
+                                          MappingMatch mappingMatch) implements HttpServletMapping {
+
+        @Override
+        public String getMatchValue() {
+            return matchValue;
+        }
+
+        @Override
+        public String getPattern() {
+            return pattern;
+        }
+
+        @Override
+        public String getServletName() {
+            return servletName;
+        }
+
+        @Override
+        public MappingMatch getMappingMatch() {
+            return mappingMatch;
+        }
+    }
+
+    /***
+     * The comparison of a handler method with the handler method of the next version.
+     */
+    private static final class ShadowPair {
+
+        private final String handler;
+        private final String shadowHandler;
+        private final LongAdder equal = new LongAdder();
+        private final LongAdder different = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        // the sampled requests of the handler that were not shadowed, shared by the pairs of the handler
+        private final LongAdder dropped;
+        private final ShadowLatencyHistogram handlerLatencies = new ShadowLatencyHistogram();
+        private final ShadowLatencyHistogram shadowLatencies = new ShadowLatencyHistogram();
+
+        private ShadowPair(String handler, String shadowHandler, LongAdder dropped) {
+            this.handler = handler;
+            this.shadowHandler = shadowHandler;
+            this.dropped = dropped;
+        }
+
+        private void record(long handlerNanos, long shadowNanos, boolean equalResult) {
+            handlerLatencies.record(handlerNanos);
+            shadowLatencies.record(shadowNanos);
+            (equalResult ? equal : different).increment();
+        }
+
+        private ShadowStatistics getStatistics() {
+            long equalCount = equal.sum();
+            long differentCount = different.sum();
+            return new ShadowStatistics(handler, shadowHandler, equalCount + differentCount, equalCount, differentCount,
+                    failed.sum(), dropped.sum(), handlerLatencies.percentile(0.5) / 1000, handlerLatencies.percentile(0.99) / 1000,
+                    shadowLatencies.percentile(0.5) / 1000, shadowLatencies.percentile(0.99) / 1000);
+        }
+    }
+}
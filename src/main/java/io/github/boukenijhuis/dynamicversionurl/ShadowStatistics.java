@@ -0,0 +1,23 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * The comparison of a handler method with the handler method of the next version, see
+ * {@link ShadowRequestMappingHandlerAdapter}. The latencies are the time spent resolving the arguments of the handler
+ * methods and invoking them, in microseconds, and are at most 25% too high.
+ * @param handler the handler method that served the requests
+ * @param shadowHandler the handler method of the next version that was invoked in the background
+ * @param samples the number of shadow invocations that completed
+ * @param equal the number of shadow invocations with a result equal to the result of the handler
+ * @param different the number of shadow invocations with a different result
+ * @param failed the number of shadow invocations that threw an exception or whose arguments could not be resolved
+ * @param dropped the number of sampled requests of the handler that were not shadowed, because the maximum number of
+ *                shadow invocations was running
+ * @param handlerP50Micros the median latency of the handler
+ * @param handlerP99Micros the 99th percentile latency of the handler
+ * @param shadowP50Micros the median latency of the shadow handler
+ * @param shadowP99Micros the 99th percentile latency of the shadow handler
+ */
+public record ShadowStatistics(String handler, String shadowHandler, long samples, long equal, long different,
+                               long failed, long dropped, long handlerP50Micros, long handlerP99Micros,
+                               long shadowP50Micros, long shadowP99Micros) {
+}
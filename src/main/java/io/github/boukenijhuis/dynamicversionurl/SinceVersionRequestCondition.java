@@ -0,0 +1,88 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * Request condition of a sparse mapping, which only declares the version in which the behavior of the endpoint
+ * changed. It matches a request when its version is served by this mapping: the highest since version of the endpoint
+ * that is not newer than the requested version. Like in compact mode, only one pattern (with a version placeholder)
+ * is registered per path.
+ */
+public final class SinceVersionRequestCondition extends AbstractRequestCondition<SinceVersionRequestCondition> {
+
+    private final int since;
+    private final SparseVersionTable table;
+    private final String prefix;
+    private final int[] segmentIndexes;
+
+    /***
+     * Creates a since version condition.
+     * @param since the version in which the behavior changed
+     * @param table the since versions of all sparse mappings of the endpoint
+     * @param prefix the version prefix (e.g. 'v')
+     * @param segmentIndexes the indexes of the path segments that contain the version (one per pattern)
+     */
+    SinceVersionRequestCondition(int since, SparseVersionTable table, String prefix, int[] segmentIndexes) {
+        this.since = since;
+        this.table = table;
+        this.prefix = prefix;
+        this.segmentIndexes = segmentIndexes;
+    }
+
+    public int getSince() {
+        return since;
+    }
+
+    /***
+     * Returns the newest version that this mapping serves, which depends on the other mappings of the endpoint.
+     * @return the version before the next since version or LATEST when there is no newer mapping
+     */
+    public int getNewest() {
+        return table.getNewest(since);
+    }
+
+    @Override
+    @NonNull
+    protected Collection<?> getContent() {
+        return List.of(since);
+    }
+
+    @Override
+    @NonNull
+    protected String getToStringInfix() {
+        return "";
+    }
+
+    @Override
+    @NonNull
+    public SinceVersionRequestCondition combine(@NonNull SinceVersionRequestCondition other) {
+        // the method level condition wins
+        return other;
+    }
+
+    @Override
+    @Nullable
+    public SinceVersionRequestCondition getMatchingCondition(@NonNull HttpServletRequest request) {
+        String path = ServletRequestPathUtils.getCachedPathValue(request);
+        for (int segmentIndex : segmentIndexes) {
+            int version = VersionRangeRequestCondition.parseVersion(path, segmentIndex, prefix);
+            if (version != -1 && table.floor(version) == since) {
+                return this;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(@NonNull SinceVersionRequestCondition other, @NonNull HttpServletRequest request) {
+        // only one mapping of an endpoint matches a version, the newest one is the most specific one
+        return Integer.compare(other.since, since);
+    }
+}
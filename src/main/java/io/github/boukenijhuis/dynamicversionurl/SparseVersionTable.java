@@ -0,0 +1,82 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/***
+ * The since versions of the sparse mappings of one endpoint (the same paths, request methods and conditions), sorted
+ * in ascending order. A version is served by the mapping with the highest since version that is not newer than the
+ * requested version, as long as the requested version is not older than the oldest supported version and not newer
+ * than the current version. The array is replaced when a mapping is added, so a lookup is a binary search without
+ * locking or allocation.
+ */
+final class SparseVersionTable {
+
+    private volatile int[] sinceVersions = new int[0];
+
+    private final IntSupplier minSupported;
+
+    private final IntSupplier currentVersion;
+
+    /***
+     * Creates an empty table.
+     * @param minSupported returns the oldest version that is served
+     * @param currentVersion returns the newest version that is served
+     */
+    SparseVersionTable(IntSupplier minSupported, IntSupplier currentVersion) {
+        this.minSupported = minSupported;
+        this.currentVersion = currentVersion;
+    }
+
+    /***
+     * Adds the since version of a mapping.
+     * @param since the since version
+     * @param description the mapping, used in the error message
+     */
+    synchronized void add(int since, Object description) {
+        int[] versions = sinceVersions;
+        int index = Arrays.binarySearch(versions, since);
+        if (index >= 0) {
+            throw new RuntimeException(String.format("The since version %d is declared more than once for the same "
+                    + "endpoint as %s.", since, description));
+        }
+        int insertionPoint = -index - 1;
+        int[] updated = new int[versions.length + 1];
+        System.arraycopy(versions, 0, updated, 0, insertionPoint);
+        updated[insertionPoint] = since;
+        System.arraycopy(versions, insertionPoint, updated, insertionPoint + 1, versions.length - insertionPoint);
+        sinceVersions = updated;
+    }
+
+    /***
+     * Returns the since version of the mapping that serves a version.
+     * @param version the requested version
+     * @return the since version or -1 when no mapping serves the version
+     */
+    int floor(int version) {
+        if (version < minSupported.getAsInt() || version > currentVersion.getAsInt()) {
+            return -1;
+        }
+        int[] versions = sinceVersions;
+        int index = Arrays.binarySearch(versions, version);
+        if (index >= 0) {
+            return versions[index];
+        }
+        int insertionPoint = -index - 1;
+        return insertionPoint > 0 ? versions[insertionPoint - 1] : -1;
+    }
+
+    /***
+     * Returns the newest version that is served by the mapping with a since version.
+     * @param since the since version of the mapping
+     * @return the version before the next since version or {@link VersionMapping#LATEST} for the newest mapping
+     */
+    int getNewest(int since) {
+        int[] versions = sinceVersions;
+        int index = Arrays.binarySearch(versions, since);
+        int next = index >= 0 ? index + 1 : -index - 1;
+        return next < versions.length ? versions[next] - 1 : VersionMapping.LATEST;
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Limits the number of concurrent requests for a range of versions, so a burst of requests for an old version cannot
+ * take all worker threads from the newer versions. The permits are counted with compare-and-set, so a request never
+ * waits for a permit: when all permits are in use, the request is rejected right away.
+ */
+public final class VersionBulkhead {
+
+    private final String name;
+    private final int oldest;
+    private final int newest;
+    private final int maxConcurrent;
+
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /***
+     * Creates a bulkhead.
+     * @param name the name in the statistics, e.g. the version range or the handler method
+     * @param oldest the oldest version (inclusive)
+     * @param newest the newest version (inclusive)
+     * @param maxConcurrent the maximum number of concurrent requests
+     */
+    public VersionBulkhead(String name, int oldest, int newest, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new RuntimeException(String.format("The maximum number of concurrent requests of bulkhead %s should be positive, but was %s.",
+                    name, maxConcurrent));
+        }
+        if (oldest > newest) {
+            throw new RuntimeException(String.format("Invalid version range %s-%s of bulkhead %s.", oldest, newest, name));
+        }
+        this.name = name;
+        this.oldest = oldest;
+        this.newest = newest;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /***
+     * Parses the bulkheads of the version.bulkhead.max-concurrent property, e.g. '1-3:20,4:50' allows 20 concurrent
+     * requests for the versions 1 to 3 together and 50 for version 4.
+     * @param ranges the ranges with their maximum number of concurrent requests, an empty string means no bulkheads
+     * @return the bulkheads
+     */
+    public static List<VersionBulkhead> parse(String ranges) {
+        List<VersionBulkhead> bulkheads = new ArrayList<>();
+        if (ranges.isBlank()) {
+            return bulkheads;
+        }
+        for (String entry : ranges.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String range = parts[0].trim();
+            int separator = range.indexOf('-');
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                int oldest = Integer.parseInt(separator == -1 ? range : range.substring(0, separator));
+                int newest = separator == -1 ? oldest : Integer.parseInt(range.substring(separator + 1));
+                bulkheads.add(new VersionBulkhead(range, oldest, newest, Integer.parseInt(parts[1].trim())));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException(String.format("Invalid bulkhead '%s', expected a version range and a maximum "
+                        + "number of concurrent requests (e.g. 1-3:20).", entry.trim()));
+            }
+        }
+
+        // a request uses the bulkhead of its version, so the ranges cannot overlap
+        for (int i = 0; i < bulkheads.size(); i++) {
+            for (int j = i + 1; j < bulkheads.size(); j++) {
+                VersionBulkhead a = bulkheads.get(i);
+                VersionBulkhead b = bulkheads.get(j);
+                if (a.oldest <= b.newest && b.oldest <= a.newest) {
+                    throw new RuntimeException(String.format("The bulkhead ranges %s and %s overlap.", a.name, b.name));
+                }
+            }
+        }
+        return bulkheads;
+    }
+
+    /***
+     * Takes a permit when one is available.
+     * @return true when the request may proceed, false when it should be rejected
+     */
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inUse.get();
+            if (current >= maxConcurrent) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inUse.compareAndSet(current, current + 1));
+
+        acquired.increment();
+        // only the first request that reaches a new peak has to update it
+        int peakValue;
+        while (current + 1 > (peakValue = peak.get()) && !peak.compareAndSet(peakValue, current + 1)) {
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    void release() {
+        inUse.decrementAndGet();
+    }
+
+    boolean contains(int version) {
+        return version >= oldest && version <= newest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    int getInUse() {
+        return inUse.get();
+    }
+
+    int getPeak() {
+        return peak.get();
+    }
+
+    long getAcquired() {
+        return acquired.sum();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    public BulkheadStatistics getStatistics() {
+        return new BulkheadStatistics(name, maxConcurrent, inUse.get(), peak.get(), acquired.sum(), rejected.sum());
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Takes a permit from the bulkhead of the requested version and from the bulkhead of the matched handler method, and
+ * rejects the request with the rejection status (503 or 429) when one of them has no permit left. The permits are
+ * returned when the request is completed. The interceptor is only added to the handler execution chain when bulkheads
+ * are configured.
+ */
+final class VersionBulkheadInterceptor implements HandlerInterceptor {
+
+    // the permits that this request holds, an async dispatch of the same request does not take them again
+    private static final String RANGE_PERMIT_ATTRIBUTE = VersionBulkheadInterceptor.class.getName() + ".rangePermit";
+    private static final String METHOD_PERMIT_ATTRIBUTE = VersionBulkheadInterceptor.class.getName() + ".methodPermit";
+
+    private final Map<Method, VersionBulkhead> methodBulkheads;
+
+    private volatile VersionBulkhead[] rangeBulkheads = new VersionBulkhead[0];
+
+    private volatile int rejectionStatus = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+    VersionBulkheadInterceptor(Map<Method, VersionBulkhead> methodBulkheads) {
+        this.methodBulkheads = methodBulkheads;
+    }
+
+    void setRangeBulkheads(List<VersionBulkhead> rangeBulkheads) {
+        this.rangeBulkheads = rangeBulkheads.toArray(VersionBulkhead[]::new);
+    }
+
+    List<VersionBulkhead> getRangeBulkheads() {
+        return List.of(rangeBulkheads);
+    }
+
+    void setRejectionStatus(int rejectionStatus) {
+        this.rejectionStatus = rejectionStatus;
+    }
+
+    int getRejectionStatus() {
+        return rejectionStatus;
+    }
+
+    boolean isEnabled() {
+        return rangeBulkheads.length > 0 || !methodBulkheads.isEmpty();
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (request.getAttribute(RANGE_PERMIT_ATTRIBUTE) != null || request.getAttribute(METHOD_PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+
+        VersionBulkhead rangeBulkhead = request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE) instanceof Integer version
+                ? getRangeBulkhead(version) : null;
+        VersionBulkhead methodBulkhead = handler instanceof HandlerMethod handlerMethod ? methodBulkheads.get(handlerMethod.getMethod()) : null;
+
+        if (rangeBulkhead != null && !rangeBulkhead.tryAcquire()) {
+            response.sendError(rejectionStatus);
+            return false;
+        }
+        if (methodBulkhead != null && !methodBulkhead.tryAcquire()) {
+            if (rangeBulkhead != null) {
+                rangeBulkhead.release();
+            }
+            response.sendError(rejectionStatus);
+            return false;
+        }
+
+        if (rangeBulkhead != null) {
+            request.setAttribute(RANGE_PERMIT_ATTRIBUTE, rangeBulkhead);
+        }
+        if (methodBulkhead != null) {
+            request.setAttribute(METHOD_PERMIT_ATTRIBUTE, methodBulkhead);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, @Nullable Exception ex) {
+        release(request, RANGE_PERMIT_ATTRIBUTE);
+        release(request, METHOD_PERMIT_ATTRIBUTE);
+    }
+
+    private static void release(HttpServletRequest request, String attribute) {
+        if (request.getAttribute(attribute) instanceof VersionBulkhead bulkhead) {
+            request.removeAttribute(attribute);
+            bulkhead.release();
+        }
+    }
+
+    @Nullable
+    private VersionBulkhead getRangeBulkhead(int version) {
+        // a handful of ranges, so a linear search is the fastest
+        for (VersionBulkhead bulkhead : rangeBulkheads) {
+            if (bulkhead.contains(version)) {
+                return bulkhead;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.function.Supplier;
+
+/***
+ * Registers the permit usage of the bulkheads as metrics, tagged with the name of the bulkhead (the version range or
+ * the handler method): the permits in use, the peak and the maximum as gauges, and the acquired and rejected requests
+ * as counters. The bulkheads that exist when the binder is bound are registered, which are all bulkheads of the
+ * configuration and of the detected handler methods. Nothing is registered when the request mapping handler mapping is
+ * not an ApiVersionRequestMappingHandlerMapping.
+ */
+public class VersionBulkheadMeterBinder implements MeterBinder {
+
+    static final String IN_USE = "version.bulkhead.in.use";
+    static final String PEAK = "version.bulkhead.peak";
+    static final String MAX_CONCURRENT = "version.bulkhead.max.concurrent";
+    static final String ACQUIRED = "version.bulkhead.acquired";
+    static final String REJECTED = "version.bulkhead.rejected";
+    static final String BULKHEAD_TAG = "bulkhead";
+
+    private final Supplier<RequestMappingHandlerMapping> handlerMappingSupplier;
+
+    public VersionBulkheadMeterBinder(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        this.handlerMappingSupplier = () -> handlerMapping;
+    }
+
+    VersionBulkheadMeterBinder(ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+        this.handlerMappingSupplier = handlerMappingProvider::getIfAvailable;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        if (!(handlerMappingSupplier.get() instanceof ApiVersionRequestMappingHandlerMapping handlerMapping)) {
+            return;
+        }
+        for (VersionBulkhead bulkhead : handlerMapping.getVersionBulkheads()) {
+            Gauge.builder(IN_USE, bulkhead, VersionBulkhead::getInUse)
+                    .tag(BULKHEAD_TAG, bulkhead.getName())
+                    .description("The number of permits in use")
+                    .register(registry);
+            Gauge.builder(PEAK, bulkhead, VersionBulkhead::getPeak)
+                    .tag(BULKHEAD_TAG, bulkhead.getName())
+                    .description("The highest number of permits in use at the same time")
+                    .register(registry);
+            Gauge.builder(MAX_CONCURRENT, bulkhead, VersionBulkhead::getMaxConcurrent)
+                    .tag(BULKHEAD_TAG, bulkhead.getName())
+                    .description("The maximum number of concurrent requests")
+                    .register(registry);
+            FunctionCounter.builder(ACQUIRED, bulkhead, VersionBulkhead::getAcquired)
+                    .tag(BULKHEAD_TAG, bulkhead.getName())
+                    .description("The number of requests that got a permit")
+                    .register(registry);
+            FunctionCounter.builder(REJECTED, bulkhead, VersionBulkhead::getRejected)
+                    .tag(BULKHEAD_TAG, bulkhead.getName())
+                    .description("The number of requests that were rejected")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/***
+ * A bounded concurrent cache from canonical location to the ETag of the last response, used to answer conditional
+ * requests before the handler is invoked. An ETag is only used for a limited time, because the response of the handler
+ * can change without a new request for the canonical location. The oldest entries are evicted first.
+ */
+final class VersionETagCache {
+
+    private record Entry(String eTag, long expiresAt) {
+    }
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // the keys in insertion order
+    private final Queue<String> keys = new ConcurrentLinkedQueue<>();
+
+    VersionETagCache(int maximumSize, long timeToLiveNanos) {
+        if (maximumSize < 1) {
+            throw new RuntimeException("The ETag cache size should be at least 1, but was " + maximumSize + ".");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLiveNanos;
+    }
+
+    /***
+     * Returns the ETag of the last response for a key.
+     * @param key the canonical location and the representation
+     * @return the ETag or null when there is no ETag or it has expired
+     */
+    @Nullable
+    String get(String key) {
+        // expired entries stay until they are replaced or evicted, so every key is in the queue once
+        Entry entry = entries.get(key);
+        return entry != null && System.nanoTime() - entry.expiresAt() < 0 ? entry.eTag() : null;
+    }
+
+    void put(String key, String eTag) {
+        Entry entry = new Entry(eTag, System.nanoTime() + timeToLiveNanos);
+        if (entries.put(key, entry) == null) {
+            keys.add(key);
+            while (entries.size() > maximumSize) {
+                String oldest = keys.poll();
+                if (oldest == null) {
+                    break;
+                }
+                entries.remove(oldest);
+            }
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
+import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Index of the versioned mappings, keyed by request method and unversioned path. Every entry holds the version
+ * ranges of an endpoint, sorted by their oldest version, so the handler for a version is found with a binary search
+ * instead of checking every registered pattern. Unversioned paths with pattern syntax are matched against the request
+ * path without its version segment, so no version patterns are needed. The index is immutable, it is rebuilt when the
+ * mappings change.
+ */
+final class VersionLookupIndex {
+
+    // mappings without a request method condition match every request method
+    private static final String ANY_METHOD = "";
+
+    private final String prefix;
+    private final int[] segmentIndexes;
+    // request method -> segment index -> unversioned literal path -> version table
+    private final Map<String, Map<Integer, Map<String, VersionTable>>> literals;
+    // request method -> segment index -> unversioned patterns with their version tables
+    private final Map<String, Map<Integer, PatternBuckets>> patterns;
+    // paths without pattern syntax, these are found by Spring without scanning all mappings
+    private final Set<String> directPaths;
+    // mappings that are not versioned, but can match the same requests as the versioned ones
+    private final OtherPatternMappings otherPatternMappings;
+
+    private VersionLookupIndex(String prefix, int[] segmentIndexes, Map<String, Map<Integer, Map<String, VersionTable>>> literals,
+                               Map<String, Map<Integer, PatternBuckets>> patterns, Set<String> directPaths,
+                               OtherPatternMappings otherPatternMappings) {
+        this.prefix = prefix;
+        this.segmentIndexes = segmentIndexes;
+        this.literals = literals;
+        this.patterns = patterns;
+        this.directPaths = directPaths;
+        this.otherPatternMappings = otherPatternMappings;
+    }
+
+    /***
+     * Builds an index for the given handler methods.
+     * @param prefix the version prefix
+     * @param handlerMethods all registered mappings with their handler methods
+     * @param versionedMappings the version information of the versioned mappings
+     * @param parser the parser for the paths with a version placeholder
+     * @return the index
+     */
+    static VersionLookupIndex build(String prefix, Map<RequestMappingInfo, HandlerMethod> handlerMethods,
+                                    Map<RequestMappingInfo, VersionedMapping> versionedMappings, PathPatternParser parser) {
+
+        Set<Integer> segmentIndexes = new TreeSet<>();
+        Map<String, Map<Integer, Map<String, List<Candidate>>>> literalCandidates = new HashMap<>();
+        Map<String, Map<Integer, Map<String, List<Candidate>>>> patternCandidates = new HashMap<>();
+        Set<String> directPaths = new HashSet<>();
+        List<RequestMappingInfo> otherPatternMappings = new ArrayList<>();
+
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMethods.entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            VersionedMapping versionedMapping = versionedMappings.get(info);
+            directPaths.addAll(info.getDirectPaths());
+
+            if (versionedMapping == null) {
+                if (hasPatternSyntax(info)) {
+                    otherPatternMappings.add(info);
+                }
+                continue;
+            }
+
+            // an expanded mapping has a pattern per version and no condition that checks the version
+            boolean expanded = info.getCustomCondition() == null;
+            for (VersionedPath path : versionedMapping.paths()) {
+                boolean literal = !parser.parse(path.unversionedPath()).hasPatternSyntax();
+                // expanded literal paths are direct paths, so they are already found without scanning
+                if (literal && !info.getDirectPaths().isEmpty()) {
+                    continue;
+                }
+
+                Candidate candidate = new Candidate(info, entry.getValue(), versionedMapping.oldest(),
+                        versionedMapping.newest(), expanded ? path.placeholderPath() : null);
+                for (String method : getMethods(info)) {
+                    segmentIndexes.add(path.segmentIndex());
+                    (literal ? literalCandidates : patternCandidates).computeIfAbsent(method, m -> new HashMap<>())
+                            .computeIfAbsent(path.segmentIndex(), i -> new LinkedHashMap<>())
+                            .computeIfAbsent(path.unversionedPath(), p -> new ArrayList<>())
+                            .add(candidate);
+                }
+            }
+        }
+
+        Map<String, Map<Integer, Map<String, VersionTable>>> literals = new HashMap<>();
+        literalCandidates.forEach((method, bySegmentIndex) -> bySegmentIndex.forEach((segmentIndex, byPath) -> byPath.forEach((path, candidates) ->
+                literals.computeIfAbsent(method, m -> new HashMap<>())
+                        .computeIfAbsent(segmentIndex, i -> new HashMap<>())
+                        .put(path, VersionTable.of(candidates)))));
+
+        Map<String, Map<Integer, PatternBuckets>> patterns = new HashMap<>();
+        patternCandidates.forEach((method, bySegmentIndex) -> bySegmentIndex.forEach((segmentIndex, byPath) -> {
+            List<PatternEntry> patternEntries = new ArrayList<>();
+            byPath.forEach((path, candidates) -> patternEntries.add(new PatternEntry(path, parser.parse(path), VersionTable.of(candidates))));
+            patterns.computeIfAbsent(method, m -> new HashMap<>()).put(segmentIndex, PatternBuckets.of(patternEntries));
+        }));
+
+        return new VersionLookupIndex(prefix, segmentIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                literals, patterns, directPaths, OtherPatternMappings.of(otherPatternMappings));
+    }
+
+    /***
+     * Finds the best matching versioned mapping for a request.
+     * @param lookupPath the lookup path of the request
+     * @param request the request
+     * @return the best match or null when the normal lookup should be used
+     */
+    Match lookup(String lookupPath, HttpServletRequest request) {
+        // a literal path is found by Spring without scanning all mappings
+        // an encoded path may not match the literal keys of the index
+        if (directPaths.contains(lookupPath) || lookupPath.indexOf('%') != -1) {
+            return null;
+        }
+
+        List<Match> candidates = new ArrayList<>(2);
+        String method = request.getMethod();
+
+        for (int segmentIndex : segmentIndexes) {
+            int version = VersionRangeRequestCondition.parseVersion(lookupPath, segmentIndex, prefix);
+            if (version == -1) {
+                continue;
+            }
+
+            UnversionedPath path = new UnversionedPath(removeSegment(lookupPath, segmentIndex));
+            collectCandidates(method, segmentIndex, version, path, candidates);
+            collectCandidates(ANY_METHOD, segmentIndex, version, path, candidates);
+            // HEAD requests are also served by GET mappings
+            if ("HEAD".equals(method) && candidates.isEmpty()) {
+                collectCandidates("GET", segmentIndex, version, path, candidates);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        // check the remaining conditions (e.g. params, headers, consumes and produces)
+        List<Match> matches = new ArrayList<>(candidates.size());
+        for (Match candidate : candidates) {
+            RequestMappingInfo matchingInfo = candidate.info().getMatchingCondition(request);
+            if (matchingInfo != null) {
+                matches.add(new Match(matchingInfo, candidate.handlerMethod()));
+            }
+        }
+
+        if (matches.isEmpty() || otherPatternMappings.matches(lookupPath, request)) {
+            return null;
+        }
+
+        if (matches.size() > 1) {
+            matches.sort((a, b) -> a.info().compareTo(b.info(), request));
+            // let the normal lookup report the ambiguous match
+            if (matches.get(0).info().compareTo(matches.get(1).info(), request) == 0) {
+                return null;
+            }
+        }
+
+        return matches.get(0);
+    }
+
+    private void collectCandidates(String method, int segmentIndex, int version, UnversionedPath path, List<Match> candidates) {
+        Map<Integer, Map<String, VersionTable>> literalsBySegmentIndex = literals.get(method);
+        if (literalsBySegmentIndex != null) {
+            Map<String, VersionTable> literalsByPath = literalsBySegmentIndex.get(segmentIndex);
+            VersionTable table = literalsByPath != null ? literalsByPath.get(path.value()) : null;
+            if (table != null) {
+                table.collect(version, candidates);
+            }
+        }
+
+        Map<Integer, PatternBuckets> patternsBySegmentIndex = patterns.get(method);
+        if (patternsBySegmentIndex != null) {
+            PatternBuckets buckets = patternsBySegmentIndex.get(segmentIndex);
+            if (buckets != null) {
+                buckets.collect(version, path, candidates);
+            }
+        }
+    }
+
+    /***
+     * Removes a segment from a path, e.g. removing segment 1 from /api/v1/a results in /api/a.
+     */
+    private static String removeSegment(String path, int segmentIndex) {
+        int start = 0;
+        for (int segment = 0; segment <= segmentIndex; segment++) {
+            start = path.indexOf('/', start) + 1;
+        }
+        int end = path.indexOf('/', start);
+        return end == -1 ? path.substring(0, start - 1) : path.substring(0, start - 1) + path.substring(end);
+    }
+
+    private static boolean hasPatternSyntax(RequestMappingInfo info) {
+        PathPatternsRequestCondition condition = info.getPathPatternsCondition();
+        return condition == null || condition.getPatterns().stream().anyMatch(PathPattern::hasPatternSyntax);
+    }
+
+    private static Set<String> getMethods(RequestMappingInfo info) {
+        RequestMethodsRequestCondition condition = info.getMethodsCondition();
+        if (condition.isEmpty()) {
+            return Set.of(ANY_METHOD);
+        }
+        Set<String> methods = new HashSet<>();
+        condition.getMethods().forEach(method -> methods.add(method.name()));
+        return methods;
+    }
+
+    /***
+     * A versioned mapping that was matched by the index.
+     * @param info the request mapping info narrowed down to the request
+     * @param handlerMethod the handler method of the mapping
+     */
+    record Match(RequestMappingInfo info, HandlerMethod handlerMethod) {
+    }
+
+    /***
+     * A versioned mapping in a version table. The info of an expanded mapping has a pattern for every version, so it
+     * is narrowed down to the patterns of the requested version, which are then the only ones that are matched.
+     */
+    private static final class Candidate {
+
+        private final RequestMappingInfo info;
+        private final HandlerMethod handlerMethod;
+        private final int oldest;
+        private final int newest;
+        // the path with a version placeholder, null when the info is not expanded
+        @Nullable
+        private final String placeholderPath;
+        // version -> the info with only the pattern of that version, created on first use
+        @Nullable
+        private final Map<Integer, RequestMappingInfo> versionInfos;
+
+        Candidate(RequestMappingInfo info, HandlerMethod handlerMethod, int oldest, int newest, @Nullable String placeholderPath) {
+            this.info = info;
+            this.handlerMethod = handlerMethod;
+            this.oldest = oldest;
+            this.newest = newest;
+            this.placeholderPath = placeholderPath;
+            this.versionInfos = placeholderPath != null ? new ConcurrentHashMap<>() : null;
+        }
+
+        int oldest() {
+            return oldest;
+        }
+
+        int newest() {
+            return newest;
+        }
+
+        Match forVersion(int version) {
+            if (versionInfos == null) {
+                return new Match(info, handlerMethod);
+            }
+            return new Match(versionInfos.computeIfAbsent(version, this::createVersionInfo), handlerMethod);
+        }
+
+        private RequestMappingInfo createVersionInfo(int version) {
+            String path = placeholderPath.replace(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER, String.valueOf(version));
+            // in lazy mode the older versions are registered as separate mappings, which the normal lookup finds
+            if (!info.getPatternValues().contains(path)) {
+                return info;
+            }
+            return info.mutate().paths(path).build();
+        }
+    }
+
+    private record PatternEntry(String path, PathPattern pattern, VersionTable table) {
+    }
+
+    /***
+     * Patterns grouped by their literal start (e.g. /api/orders for /api/orders/{id}), so a request is only matched
+     * against the patterns that start with the same segments.
+     */
+    private static final class PatternBuckets {
+
+        // the distinct numbers of literal segments at the start of the patterns, in descending order
+        private final int[] literalSegmentCounts;
+        // literal start -> patterns
+        private final Map<String, List<PatternEntry>> buckets;
+
+        private PatternBuckets(int[] literalSegmentCounts, Map<String, List<PatternEntry>> buckets) {
+            this.literalSegmentCounts = literalSegmentCounts;
+            this.buckets = buckets;
+        }
+
+        static PatternBuckets of(List<PatternEntry> patternEntries) {
+            Set<Integer> literalSegmentCounts = new TreeSet<>(Comparator.reverseOrder());
+            Map<String, List<PatternEntry>> buckets = new HashMap<>();
+            for (PatternEntry patternEntry : patternEntries) {
+                String literalStart = getLiteralStart(patternEntry.path());
+                literalSegmentCounts.add(countSegments(literalStart));
+                buckets.computeIfAbsent(literalStart, p -> new ArrayList<>()).add(patternEntry);
+            }
+            return new PatternBuckets(literalSegmentCounts.stream().mapToInt(Integer::intValue).toArray(), buckets);
+        }
+
+        void collect(int version, UnversionedPath path, List<Match> candidates) {
+            for (int literalSegmentCount : literalSegmentCounts) {
+                String literalStart = getStart(path.value(), literalSegmentCount);
+                List<PatternEntry> patternEntries = literalStart != null ? buckets.get(literalStart) : null;
+                if (patternEntries != null) {
+                    for (PatternEntry patternEntry : patternEntries) {
+                        if (patternEntry.pattern().matches(path.container())) {
+                            patternEntry.table().collect(version, candidates);
+                        }
+                    }
+                }
+            }
+        }
+
+        /***
+         * Returns the segments of a pattern before the first segment with pattern syntax, e.g. /api/orders for
+         * /api/orders/{id}.
+         */
+        private static String getLiteralStart(String pattern) {
+            int end = 0;
+            while (end < pattern.length()) {
+                int next = pattern.indexOf('/', end + 1);
+                String segment = pattern.substring(end, next == -1 ? pattern.length() : next);
+                if (segment.indexOf('{') != -1 || segment.indexOf('*') != -1 || segment.indexOf('?') != -1) {
+                    break;
+                }
+                end = next == -1 ? pattern.length() : next;
+            }
+            return pattern.substring(0, end);
+        }
+
+        private static int countSegments(String path) {
+            return (int) path.chars().filter(c -> c == '/').count();
+        }
+
+        /***
+         * Returns the first segments of a path or null when the path has fewer segments.
+         */
+        private static String getStart(String path, int segmentCount) {
+            int end = 0;
+            for (int segment = 0; segment < segmentCount; segment++) {
+                if (end >= path.length()) {
+                    return null;
+                }
+                int next = path.indexOf('/', end + 1);
+                end = next == -1 ? path.length() : next;
+            }
+            return path.substring(0, end);
+        }
+    }
+
+    /***
+     * The mappings that are not versioned, grouped by the first segment of their patterns, so a request is only
+     * matched against the mappings that can match its first segment.
+     */
+    private static final class OtherPatternMappings {
+
+        // first literal segment -> mappings
+        private final Map<String, List<RequestMappingInfo>> byFirstSegment;
+        // mappings of which a pattern starts with pattern syntax
+        private final List<RequestMappingInfo> anyFirstSegment;
+
+        private OtherPatternMappings(Map<String, List<RequestMappingInfo>> byFirstSegment, List<RequestMappingInfo> anyFirstSegment) {
+            this.byFirstSegment = byFirstSegment;
+            this.anyFirstSegment = anyFirstSegment;
+        }
+
+        static OtherPatternMappings of(List<RequestMappingInfo> infos) {
+            Map<String, List<RequestMappingInfo>> byFirstSegment = new HashMap<>();
+            List<RequestMappingInfo> anyFirstSegment = new ArrayList<>();
+            for (RequestMappingInfo info : infos) {
+                PathPatternsRequestCondition condition = info.getPathPatternsCondition();
+                if (condition == null) {
+                    anyFirstSegment.add(info);
+                    continue;
+                }
+                Set<String> firstSegments = new HashSet<>();
+                for (String pattern : condition.getPatternValues()) {
+                    String firstSegment = getFirstSegment(pattern);
+                    if (firstSegment.indexOf('{') != -1 || firstSegment.indexOf('*') != -1 || firstSegment.indexOf('?') != -1) {
+                        anyFirstSegment.add(info);
+                        firstSegments.clear();
+                        break;
+                    }
+                    firstSegments.add(firstSegment);
+                }
+                firstSegments.forEach(firstSegment -> byFirstSegment.computeIfAbsent(firstSegment, s -> new ArrayList<>()).add(info));
+            }
+            return new OtherPatternMappings(byFirstSegment, anyFirstSegment);
+        }
+
+        boolean matches(String lookupPath, HttpServletRequest request) {
+            String firstSegment = getFirstSegment(lookupPath);
+            // matrix variables are not part of the pattern
+            int semicolon = firstSegment.indexOf(';');
+            if (semicolon != -1) {
+                firstSegment = firstSegment.substring(0, semicolon);
+            }
+            return matches(byFirstSegment.getOrDefault(firstSegment, List.of()), request) || matches(anyFirstSegment, request);
+        }
+
+        private static boolean matches(List<RequestMappingInfo> infos, HttpServletRequest request) {
+            for (RequestMappingInfo info : infos) {
+                PathPatternsRequestCondition condition = info.getPathPatternsCondition();
+                if (condition == null || condition.getMatchingCondition(request) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /***
+         * Returns the first segment of a path, e.g. api for /api/orders.
+         */
+        private static String getFirstSegment(String path) {
+            int start = path.startsWith("/") ? 1 : 0;
+            int end = path.indexOf('/', start);
+            return path.substring(start, end == -1 ? path.length() : end);
+        }
+    }
+
+    /***
+     * The request path without the version segment, only parsed when it is matched against a pattern.
+     */
+    private static final class UnversionedPath {
+
+        private final String value;
+        private PathContainer container;
+
+        UnversionedPath(String value) {
+            this.value = value;
+        }
+
+        String value() {
+            return value;
+        }
+
+        PathContainer container() {
+            if (container == null) {
+                container = PathContainer.parsePath(value);
+            }
+            return container;
+        }
+    }
+
+    /***
+     * The version ranges of one endpoint, sorted by their oldest version.
+     */
+    private static final class VersionTable {
+
+        private final int[] oldest;
+        // the highest newest version of this and all previous candidates, to support overlapping ranges
+        private final int[] maxNewest;
+        private final Candidate[] candidates;
+
+        private VersionTable(Candidate[] candidates) {
+            this.candidates = candidates;
+            this.oldest = new int[candidates.length];
+            this.maxNewest = new int[candidates.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < candidates.length; i++) {
+                oldest[i] = candidates[i].oldest();
+                max = Math.max(max, candidates[i].newest());
+                maxNewest[i] = max;
+            }
+        }
+
+        static VersionTable of(List<Candidate> candidates) {
+            Candidate[] sorted = candidates.toArray(new Candidate[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(Candidate::oldest));
+            return new VersionTable(sorted);
+        }
+
+        void collect(int version, List<Match> result) {
+            // find the last range that starts at or before the version
+            int index = Arrays.binarySearch(oldest, version);
+            if (index < 0) {
+                index = -index - 2;
+            } else {
+                // skip to the last range that starts at exactly this version
+                while (index + 1 < oldest.length && oldest[index + 1] == version) {
+                    index++;
+                }
+            }
+
+            // walk back as long as an earlier range can still contain the version
+            for (int i = index; i >= 0 && maxNewest[i] >= version; i--) {
+                if (candidates[i].newest() >= version) {
+                    result.add(candidates[i].forVersion(version));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Finds the handler method of a request before the normal lookup of the handler mapping: in the direct path table, the
+ * lookup cache and the version lookup index, in that order. The tables are rebuilt on first use after the mappings
+ * have changed.
+ */
+final class VersionLookupPipeline {
+
+    /***
+     * The parts of the handler mapping that are used by the lookup.
+     */
+    interface Mappings {
+        Map<RequestMappingInfo, HandlerMethod> getHandlerMethods();
+
+        @Nullable
+        PathPatternParser getPatternParser();
+
+        VersionResolver getVersionResolver();
+
+        void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request);
+
+        /***
+         * The normal lookup, which matches all registered mappings.
+         */
+        @Nullable
+        HandlerMethod lookup(String lookupPath, HttpServletRequest request) throws Exception;
+    }
+
+    // marks a lookup that should not use or fill the lookup cache (see getDetachedHandlerMethod)
+    static final String DETACHED_LOOKUP_ATTRIBUTE = VersionLookupPipeline.class.getName() + ".detachedLookup";
+
+    // passes the matching request mapping info from handleMatch to the lookup cache
+    private static final String MATCHING_INFO_ATTRIBUTE = VersionLookupPipeline.class.getName() + ".matchingInfo";
+
+    private final String prefix;
+
+    private final Mappings mappings;
+
+    private final VersionedMappingRegistry<RequestMappingInfo> registry;
+
+    private boolean indexed = false;
+
+    private boolean directPathsEnabled = false;
+
+    private final Object monitor = new Object();
+
+    // rebuilt on first use after the mappings have changed
+    private volatile VersionLookupIndex lookupIndex;
+
+    private final LongAdder lookupIndexHits = new LongAdder();
+    private final LongAdder lookupIndexFallbacks = new LongAdder();
+
+    // the literal versioned paths, rebuilt on first use after the mappings have changed
+    private volatile DirectPathTable directPathTable;
+
+    // the mappings with conditions other than the path and request method, rebuilt on first use after a change
+    private volatile List<RequestMappingInfo> conditionalMappings;
+
+    // null when the lookup cache is disabled
+    private volatile HandlerLookupCache lookupCache;
+
+    VersionLookupPipeline(String prefix, Mappings mappings, VersionedMappingRegistry<RequestMappingInfo> registry) {
+        this.prefix = prefix;
+        this.mappings = mappings;
+        this.registry = registry;
+    }
+
+    void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    boolean isIndexed() {
+        return indexed;
+    }
+
+    void setDirectPathsEnabled(boolean directPathsEnabled) {
+        this.directPathsEnabled = directPathsEnabled;
+    }
+
+    boolean isDirectPathsEnabled() {
+        return directPathsEnabled;
+    }
+
+    void setLookupCacheSize(int lookupCacheSize) {
+        this.lookupCache = lookupCacheSize > 0 ? new HandlerLookupCache(lookupCacheSize) : null;
+    }
+
+    @Nullable
+    LookupCacheStatistics getLookupCacheStatistics() {
+        HandlerLookupCache cache = lookupCache;
+        return cache != null ? cache.getStatistics() : null;
+    }
+
+    @Nullable
+    LookupIndexStatistics getLookupIndexStatistics() {
+        return indexed ? new LookupIndexStatistics(lookupIndexHits.sum(), lookupIndexFallbacks.sum()) : null;
+    }
+
+    /***
+     * Builds the direct path table, so the first requests do not wait for it.
+     */
+    void initialize() {
+        if (directPathsEnabled) {
+            getDirectPathTable();
+        }
+    }
+
+    /***
+     * Finds the handler method of a request.
+     * @param lookupPath the lookup path of the request
+     * @param request the request
+     * @return the handler method or null when no mapping matches
+     */
+    @Nullable
+    HandlerMethod lookup(String lookupPath, HttpServletRequest request) throws Exception {
+        if (directPathsEnabled && !CorsUtils.isPreFlightRequest(request)) {
+            DirectPathTable.Match directMatch = getDirectPathTable().lookup(request.getMethod(), lookupPath);
+            if (directMatch != null) {
+                request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, directMatch.handlerMethod());
+                mappings.handleMatch(directMatch.info(), lookupPath, request);
+                request.removeAttribute(MATCHING_INFO_ATTRIBUTE);
+                return directMatch.handlerMethod();
+            }
+        }
+
+        HandlerLookupCache cache = lookupCache;
+        if (cache == null || CorsUtils.isPreFlightRequest(request) || request.getAttribute(DETACHED_LOOKUP_ATTRIBUTE) != null) {
+            return lookupVersioned(lookupPath, request);
+        }
+
+        HandlerLookupCache.Match cachedMatch = cache.get(request.getMethod(), lookupPath);
+        if (cachedMatch != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, cachedMatch.handlerMethod());
+            mappings.handleMatch(cachedMatch.info(), lookupPath, request);
+            request.removeAttribute(MATCHING_INFO_ATTRIBUTE);
+            return cachedMatch.handlerMethod();
+        }
+
+        long generation = cache.getGeneration();
+        HandlerMethod handlerMethod = lookupVersioned(lookupPath, request);
+        RequestMappingInfo matchingInfo = (RequestMappingInfo) request.getAttribute(MATCHING_INFO_ATTRIBUTE);
+        request.removeAttribute(MATCHING_INFO_ATTRIBUTE);
+        if (handlerMethod != null && matchingInfo != null && isCacheable(matchingInfo, request)) {
+            cache.put(request.getMethod(), lookupPath, new HandlerLookupCache.Match(matchingInfo, handlerMethod), generation);
+        }
+        return handlerMethod;
+    }
+
+    @Nullable
+    private HandlerMethod lookupVersioned(String lookupPath, HttpServletRequest request) throws Exception {
+        PathPatternParser patternParser = mappings.getPatternParser();
+        if (indexed && mappings.getVersionResolver().isPathBased() && patternParser != null && patternParser.isCaseSensitive()
+                && !CorsUtils.isPreFlightRequest(request)) {
+            VersionLookupIndex.Match match = getLookupIndex(patternParser).lookup(lookupPath, request);
+            if (match != null) {
+                lookupIndexHits.increment();
+                request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, match.handlerMethod());
+                mappings.handleMatch(match.info(), lookupPath, request);
+                return match.handlerMethod();
+            }
+            lookupIndexFallbacks.increment();
+        }
+        return mappings.lookup(lookupPath, request);
+    }
+
+    /***
+     * Keeps the matching request mapping info of a lookup, which is put in the lookup cache.
+     */
+    void matched(RequestMappingInfo info, HttpServletRequest request) {
+        if (lookupCache != null) {
+            request.setAttribute(MATCHING_INFO_ATTRIBUTE, info);
+        }
+    }
+
+    /***
+     * A lookup result can be cached when it only depends on the request method and the lookup path. That is the case
+     * when neither the matching mapping nor any other mapping for the same path and request method has params, headers,
+     * consumes, produces or custom conditions.
+     */
+    private boolean isCacheable(RequestMappingInfo info, HttpServletRequest request) {
+        if (isConditional(info)) {
+            return false;
+        }
+        for (RequestMappingInfo conditionalMapping : getConditionalMappings()) {
+            if (conditionalMapping.getMethodsCondition().getMatchingCondition(request) != null
+                    && conditionalMapping.getActivePatternsCondition().getMatchingCondition(request) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isConditional(RequestMappingInfo info) {
+        return !info.getParamsCondition().isEmpty() || !info.getHeadersCondition().isEmpty()
+                || !info.getConsumesCondition().isEmpty() || !info.getProducesCondition().isEmpty()
+                || (info.getCustomCondition() != null && !(info.getCustomCondition() instanceof VersionRangeRequestCondition)
+                && !(info.getCustomCondition() instanceof SinceVersionRequestCondition)
+                && !(info.getCustomCondition() instanceof SemanticVersionRequestCondition));
+    }
+
+    private List<RequestMappingInfo> getConditionalMappings() {
+        List<RequestMappingInfo> result = conditionalMappings;
+        if (result == null) {
+            synchronized (monitor) {
+                result = conditionalMappings;
+                if (result == null) {
+                    result = mappings.getHandlerMethods().keySet().stream()
+                            .filter(VersionLookupPipeline::isConditional)
+                            .toList();
+                    conditionalMappings = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private VersionLookupIndex getLookupIndex(PathPatternParser patternParser) {
+        VersionLookupIndex index = lookupIndex;
+        if (index == null) {
+            synchronized (monitor) {
+                index = lookupIndex;
+                if (index == null) {
+                    index = VersionLookupIndex.build(prefix, mappings.getHandlerMethods(), registry.asMap(), patternParser);
+                    lookupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private DirectPathTable getDirectPathTable() {
+        DirectPathTable table = directPathTable;
+        if (table == null) {
+            synchronized (monitor) {
+                table = directPathTable;
+                if (table == null) {
+                    table = DirectPathTable.build(mappings.getHandlerMethods(), registry.asMap());
+                    directPathTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /***
+     * Drops the tables and the cached lookups, after the mappings have changed.
+     */
+    void invalidate() {
+        synchronized (monitor) {
+            lookupIndex = null;
+            directPathTable = null;
+            conditionalMappings = null;
+        }
+        HandlerLookupCache cache = lookupCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * The version expansion that is shared by the servlet and the reactive handler mapping. It reads the version mapping
+ * annotations and calculates the versioned paths, independent of the request mapping info type of the web stack.
+ */
+final class VersionMappingSupport {
+
+    private final String prefix;
+
+    private boolean routeDescriptorEnabled = false;
+
+    // null means that the version is put in front of the annotation path
+    @Nullable
+    private VersionResolver versionResolver;
+
+    // class loader -> route descriptors, loaded on first use
+    private final Map<ClassLoader, RouteDescriptor> routeDescriptors = new ConcurrentHashMap<>();
+
+    // the compilations of the route descriptors that were used and whether annotations had to be read
+    private final Set<String> compilations = ConcurrentHashMap.newKeySet();
+    private volatile boolean annotationsRead = false;
+
+    VersionMappingSupport(String prefix) {
+        this.prefix = prefix;
+    }
+
+    void setRouteDescriptorEnabled(boolean routeDescriptorEnabled) {
+        this.routeDescriptorEnabled = routeDescriptorEnabled;
+    }
+
+    boolean isRouteDescriptorEnabled() {
+        return routeDescriptorEnabled;
+    }
+
+    /***
+     * Returns true when all version declarations were read from route descriptors of one compilation. The annotation
+     * processor has checked these for overlaps, so the startup check can be skipped.
+     */
+    boolean isVerifiedAtCompileTime() {
+        return !annotationsRead && compilations.size() == 1;
+    }
+
+    void setVersionResolver(@Nullable VersionResolver versionResolver) {
+        this.versionResolver = versionResolver;
+    }
+
+    /***
+     * Returns true when the version is part of the path, so the paths have to be versioned.
+     */
+    boolean isPathBased() {
+        return versionResolver == null || versionResolver.isPathBased();
+    }
+
+    String getPrefix() {
+        return prefix;
+    }
+
+    /***
+     * The versions and paths of a version mapping annotation.
+     * @param oldest the oldest version (inclusive)
+     * @param newest the newest version (inclusive)
+     * @param paths the paths from the annotation
+     * @param cacheTtl the number of seconds that the responses of the older versions are cached (0 means not cached)
+     * @param maxConcurrent the maximum number of concurrent requests of the mapping (0 means not limited)
+     * @param sparse true when only the since version is declared, the newest version is then {@link VersionMapping#LATEST}
+     * @param semanticRange the major.minor versions or null for integer versions, the oldest and newest version are
+     *                      then the major versions
+     */
+    record VersionDeclaration(int oldest, int newest, String[] paths, int cacheTtl, int maxConcurrent, boolean sparse,
+                              @Nullable SemanticVersionRange semanticRange) {
+
+        VersionDeclaration(int oldest, int newest, String[] paths, int cacheTtl, int maxConcurrent) {
+            this(oldest, newest, paths, cacheTtl, maxConcurrent, false, null);
+        }
+
+        VersionDeclaration(int oldest, int newest, String[] paths, int cacheTtl, int maxConcurrent, boolean sparse) {
+            this(oldest, newest, paths, cacheTtl, maxConcurrent, sparse, null);
+        }
+    }
+
+    /***
+     * Finds the first version mapping annotation on a method and returns its versions and paths.
+     * @param method the method that is checked for a version mapping annotation
+     * @return the versions and paths or null when the method has no version mapping annotation with versions
+     */
+    @Nullable
+    VersionDeclaration getVersionDeclaration(Method method) {
+        if (routeDescriptorEnabled) {
+            ClassLoader classLoader = method.getDeclaringClass().getClassLoader();
+            RouteDescriptor routeDescriptor = routeDescriptors.computeIfAbsent(classLoader, RouteDescriptor::load);
+            RouteDescriptor.Route route = routeDescriptor.get(method);
+            // the route is not used when the annotations have changed since it was written
+            if (route != null && route.fingerprint().equals(RouteDescriptor.getFingerprint(getFingerprintAnnotations(method)))) {
+                compilations.add(route.compilation());
+                return new VersionDeclaration(route.oldest(), route.newest(), route.paths(), route.cacheTtl(), route.maxConcurrent());
+            }
+        }
+
+        // find the first version mapping annotation
+        Annotation annotation = getFirstAnnotation(method, VersionMapping.class.getPackageName());
+        if (annotation == null) {
+            return null;
+        }
+
+        AnnotationValues annotationValues = getAnnotationValues(method, annotation);
+        if (annotationValues.versions() == null) {
+            return null;
+        }
+        annotationsRead = true;
+
+        SemanticVersionRange semanticRange = getSemanticRange(annotation, annotationValues);
+        if (semanticRange != null) {
+            return new VersionDeclaration(SemanticVersion.major(semanticRange.oldest()), SemanticVersion.major(semanticRange.newest()),
+                    annotationValues.path(), getCacheTtl(method, annotation), getMaxConcurrent(annotation), false, semanticRange);
+        }
+
+        int since = getSince(annotation, annotationValues);
+        if (since > 0) {
+            return new VersionDeclaration(since, VersionMapping.LATEST, annotationValues.path(), getCacheTtl(method, annotation),
+                    getMaxConcurrent(annotation), true);
+        }
+
+        int oldestVersion = annotationValues.versions()[0];
+        int newestVersion = getNewestVersion(annotationValues.versions(), annotationValues.path(), annotation.getClass());
+        return new VersionDeclaration(oldestVersion, newestVersion, annotationValues.path(), getCacheTtl(method, annotation),
+                getMaxConcurrent(annotation));
+    }
+
+    /***
+     * Returns the since version of an annotation or 0 when the annotation declares a range of versions.
+     */
+    private static int getSince(Annotation annotation, AnnotationValues annotationValues) {
+        Object since = AnnotationUtils.getValue(annotation, "since");
+        if (!(since instanceof Integer version) || version == 0) {
+            return 0;
+        }
+        if (version < 0) {
+            throw new RuntimeException(String.format("The since version should be positive, but was %s on %s.",
+                    version, annotation));
+        }
+        // the default of the versions attribute
+        if (!Arrays.equals(annotationValues.versions(), new int[]{1})) {
+            throw new RuntimeException(String.format("Both versions %s and since %s specified on %s, use only one of them.",
+                    Arrays.toString(annotationValues.versions()), version, annotation));
+        }
+        return version;
+    }
+
+    /***
+     * Returns the major.minor versions of an annotation or null when the annotation declares integer versions.
+     */
+    @Nullable
+    private static SemanticVersionRange getSemanticRange(Annotation annotation, AnnotationValues annotationValues) {
+        Object value = AnnotationUtils.getValue(annotation, "semanticVersions");
+        if (!(value instanceof String[] versions) || versions.length == 0) {
+            return null;
+        }
+        if (!Arrays.equals(annotationValues.versions(), new int[]{1}) || !Integer.valueOf(0).equals(AnnotationUtils.getValue(annotation, "since"))) {
+            throw new RuntimeException(String.format("Both semanticVersions %s and versions or since specified on %s, use only one of them.",
+                    Arrays.toString(versions), annotation));
+        }
+        if (versions.length > 2) {
+            throw new RuntimeException(String.format("Too many semanticVersions %s on %s, specify one version or a range of two versions.",
+                    Arrays.toString(versions), annotation));
+        }
+
+        long oldest = SemanticVersion.parse(versions[0]);
+        long newest = SemanticVersion.parse(versions[versions.length - 1]);
+        if (oldest > newest) {
+            throw new RuntimeException(String.format("Invalid semantic version range %s on %s, the oldest version is newer than the newest version.",
+                    Arrays.toString(versions), annotation));
+        }
+        return new SemanticVersionRange(oldest, newest);
+    }
+
+    /***
+     * Returns the annotations of a method from which the processor has written its route: the first version mapping
+     * annotation and, for VersionMapping, the first request mapping annotation.
+     */
+    private List<Annotation> getFingerprintAnnotations(Method method) {
+        Annotation annotation = getFirstAnnotation(method, VersionMapping.class.getPackageName());
+        if (annotation == null) {
+            return List.of();
+        }
+        Annotation mappingAnnotation = getFirstAnnotation(method, GetMapping.class.getPackageName());
+        return annotation.annotationType().equals(VersionMapping.class) && mappingAnnotation != null
+                ? List.of(annotation, mappingAnnotation) : List.of(annotation);
+    }
+
+    private static int getMaxConcurrent(Annotation annotation) {
+        Object maxConcurrent = AnnotationUtils.getValue(annotation, "maxConcurrent");
+        if (maxConcurrent instanceof Integer permits) {
+            if (permits < 0) {
+                throw new RuntimeException(String.format("The maximum number of concurrent requests should not be negative, but was %s on %s.",
+                        permits, annotation));
+            }
+            return permits;
+        }
+        return 0;
+    }
+
+    private static int getCacheTtl(Method method, @Nullable Annotation annotation) {
+        Object cacheTtl = annotation != null ? AnnotationUtils.getValue(annotation, "cacheTtl") : null;
+        if (cacheTtl instanceof Integer seconds) {
+            if (seconds < 0) {
+                throw new RuntimeException(String.format("The cache ttl should not be negative, but was %s on %s.",
+                        seconds, annotation));
+            }
+            // only GET responses are cached, no request methods means all request methods
+            RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (seconds > 0 && requestMapping != null && requestMapping.method().length > 0
+                    && !Arrays.asList(requestMapping.method()).contains(RequestMethod.GET)) {
+                throw new RuntimeException(String.format("The cache ttl only applies to GET requests, but was %s on %s with request methods %s.",
+                        seconds, method, Arrays.toString(requestMapping.method())));
+            }
+            return seconds;
+        }
+        return 0;
+    }
+
+    /**
+     * Build an AnnotationValues object containing values for versions, value and path.
+     * @param method
+     * @param annotation
+     * @return
+     */
+    private AnnotationValues getAnnotationValues(Method method, Annotation annotation) {
+
+        Map<String, Object> versionAttributes = AnnotationUtils.getAnnotationAttributes(annotation);
+
+        // special case: VersionMapping
+        if (annotation.annotationType().equals(VersionMapping.class)) {
+            Annotation mappingAnnotation = getFirstAnnotation(method, GetMapping.class.getPackageName());
+            Map<String, Object> mappingAttributes = AnnotationUtils.getAnnotationAttributes(mappingAnnotation);
+
+            return AnnotationValues.of(
+                    versionAttributes.get("value"),
+                    mappingAttributes.get("value"),
+                    mappingAttributes.get("path")
+            );
+        } else {
+            return AnnotationValues.of(
+                    versionAttributes.get("versions"),
+                    versionAttributes.get("value"),
+                    versionAttributes.get("path")
+            );
+        }
+    }
+
+    /**
+     * Find the first version annotation whose package name start with a given string on a given method.
+     *
+     * @param method     the method that is checked for the first version annotation
+     * @param startsWith the package name of the annotation should start with
+     * @return the first version annotation or null (when not found)
+     */
+    private Annotation getFirstAnnotation(Method method, String startsWith) {
+        Annotation[] declaredAnnotations = method.getDeclaredAnnotations();
+        for (Annotation annotation : declaredAnnotations) {
+            String packageName = annotation.annotationType().getPackageName();
+            if (packageName.startsWith(startsWith)) {
+                return annotation;
+            }
+        }
+
+        // no version annotation found
+        return null;
+    }
+
+    /***
+     * Calculates the dynamic URLs based upon exiting patternValues, versions and paths.
+     * @param patternValues the existing patternValues calculated by Spring Boot.
+     * @param paths the paths from the annotation
+     * @param oldestVersion the oldest version that is registered
+     * @param newestVersion the newest version that is registered
+     * @return the updated patternValues
+     */
+    String[] updatePaths(Set<String> patternValues, String[] paths, int oldestVersion, int newestVersion) {
+
+        // compose every combination of annotation path and pattern value once, the versions only fill in the placeholder
+        List<String[]> placeholderPaths = new ArrayList<>(paths.length * patternValues.size());
+        // for every path (in the annotation)
+        for (String annotationPath : paths) {
+            // for every pattern value (from the existing request mapping info)
+            for (String patternValue : patternValues) {
+                String placeholderPath = versionPath(patternValue, annotationPath, ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER);
+                int versionStart = placeholderPath.indexOf(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER);
+                placeholderPaths.add(versionStart == -1
+                        ? new String[]{placeholderPath}
+                        : new String[]{placeholderPath.substring(0, versionStart),
+                        placeholderPath.substring(versionStart + ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER.length())});
+            }
+        }
+
+        String[] versionedPaths = new String[(newestVersion - oldestVersion + 1) * placeholderPaths.size()];
+        int index = 0;
+        // for every version
+        for (int version = oldestVersion; version <= newestVersion; version++) {
+            String versionValue = String.valueOf(version);
+            for (String[] parts : placeholderPaths) {
+                versionedPaths[index++] = parts.length == 1 ? parts[0] : parts[0] + versionValue + parts[1];
+            }
+        }
+
+        // return the array with versioned paths
+        return versionedPaths;
+
+    }
+
+    /***
+     * Determines for every combination of annotation path and pattern value where the version ends up.
+     * @param patternValues the existing patternValues calculated by Spring Boot
+     * @param paths the paths from the annotation
+     * @return the paths that contain a version
+     */
+    List<VersionedPath> createVersionedPaths(Set<String> patternValues, String[] paths) {
+        List<VersionedPath> versionedPaths = new ArrayList<>();
+        for (String annotationPath : paths) {
+            for (String patternValue : patternValues) {
+                String placeholderPath = versionPath(patternValue, annotationPath, ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER);
+                // the pattern value does not end with this annotation path
+                if (placeholderPath.equals(patternValue)) {
+                    continue;
+                }
+
+                // the number of slashes in front of the version segment is the index of the version segment plus one
+                int versionStart = placeholderPath.indexOf(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER);
+                int segmentIndex = (int) placeholderPath.substring(0, versionStart).chars().filter(c -> c == '/').count() - 1;
+                versionedPaths.add(new VersionedPath(patternValue, placeholderPath, segmentIndex));
+            }
+        }
+        return versionedPaths;
+    }
+
+    /***
+     * Returns the distinct paths with a version placeholder, which are registered in compact mode.
+     * @param versionedPaths the paths that contain a version
+     * @return the compact paths
+     */
+    static String[] getCompactPaths(List<VersionedPath> versionedPaths) {
+        return versionedPaths.stream().map(VersionedPath::placeholderPath).distinct().toArray(String[]::new);
+    }
+
+    /***
+     * Returns the distinct indexes of the version segments.
+     * @param versionedPaths the paths that contain a version
+     * @return the segment indexes
+     */
+    static int[] getSegmentIndexes(List<VersionedPath> versionedPaths) {
+        return versionedPaths.stream().mapToInt(VersionedPath::segmentIndex).distinct().toArray();
+    }
+
+    /***
+     * Replaces a segment of a path.
+     * @param path the path
+     * @param segmentIndex the index of the segment (the first segment has index 0)
+     * @param replacement the new segment
+     * @return the path with the replaced segment
+     */
+    static String replaceSegment(String path, int segmentIndex, String replacement) {
+        int start = 0;
+        for (int segment = 0; segment <= segmentIndex; segment++) {
+            start = path.indexOf('/', start) + 1;
+        }
+        int end = path.indexOf('/', start);
+        return path.substring(0, start) + replacement + (end == -1 ? "" : path.substring(end));
+    }
+
+    /***
+     * Puts the version in the pattern value, in front of the annotation path unless a path based version resolver is
+     * set.
+     * @param patternValue the existing pattern value calculated by Spring Boot
+     * @param annotationPath the path from the annotation
+     * @param version the version (or a version placeholder)
+     * @return the versioned path
+     */
+    private String versionPath(String patternValue, String annotationPath, String version) {
+        String versionSegment = prefix + version;
+        if (versionResolver != null) {
+            return versionResolver.versionPath(patternValue, annotationPath, versionSegment);
+        }
+        return VersionPlacement.PATH_PREFIX.place(patternValue, annotationPath, versionSegment);
+    }
+
+    /***
+     * Get the newest version. This depends on the number of versions. Throws an exception when there are more
+     * than two versions.
+     * @param versions the versions from the annotation
+     * @param path the path from the annotation
+     * @param clazz the class of the annotation
+     * @return the newest version
+     */
+    private static int getNewestVersion(int[] versions, String[] path, Class<? extends Annotation> clazz) {
+        int newestVersion;
+        // only one version specified
+        if (versions.length == 1) {
+            newestVersion = versions[0];
+        }
+        // multiple versions specified
+        else if (versions.length == 2) {
+            newestVersion = versions[1];
+        }
+        // too many versions specified
+        else {
+            String message = String.format("Too many versions (%s) specified on @%s with path %s.",
+                    Arrays.toString(versions), clazz.toString(), Arrays.toString(path));
+            throw new RuntimeException(message);
+        }
+        return newestVersion;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jdk.jfr.*;
+
+/***
+ * JDK Flight Recorder event for the overlap check of the mappings of one handler mapping.
+ */
+@Name(VersionOverlapCheckEvent.NAME)
+@Label("Version Overlap Check")
+@Category("Dynamic Version URL")
+@Description("The check for overlapping version ranges of the mappings of one handler mapping")
+@StackTrace(false)
+final class VersionOverlapCheckEvent extends Event {
+
+    static final String NAME = "io.github.boukenijhuis.dynamicversionurl.OverlapCheck";
+
+    @Label("Mapping Count")
+    int mappingCount;
+
+    @Label("Group Count")
+    @Description("The number of groups with the same path and conditions")
+    int groupCount;
+
+    @Label("Checked Group Count")
+    @Description("The number of groups that were not skipped by the restart cache")
+    int checkedGroupCount;
+
+    @Label("Overlap Count")
+    int overlapCount;
+}
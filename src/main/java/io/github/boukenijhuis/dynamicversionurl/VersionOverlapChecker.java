@@ -1,48 +1,233 @@
 package io.github.boukenijhuis.dynamicversionurl;
 
+import io.github.boukenijhuis.dynamicversionurl.processor.VersionMappingProcessor;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
-import org.springframework.web.util.pattern.PathPattern;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 
+/***
+ * Checks that no two mappings serve the same URL for the same version. Mappings are grouped by their path (with
+ * normalized path variables) and their params, headers, consumes and produces conditions. Within a group the version
+ * ranges are sorted and swept, so every overlapping pair is found in one pass without expanding the ranges. Both the
+ * servlet and the reactive handler mapping are checked.
+ */
 @Component
 public class VersionOverlapChecker implements ApplicationListener<ContextRefreshedEvent> {
 
+    private static final boolean REACTIVE_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping",
+            VersionOverlapChecker.class.getClassLoader());
+
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
         ApplicationContext applicationContext = event.getApplicationContext();
-        Set<RequestMappingInfo> requestMappings = applicationContext.getBean(RequestMappingHandlerMapping.class).getHandlerMethods().keySet();
-        var patterns = new HashSet<String>();
-
-        // get all patterns
-        for (RequestMappingInfo requestMapping : requestMappings) {
-            if (requestMapping.getPathPatternsCondition() != null) {
-                for (PathPattern pathPattern : requestMapping.getPathPatternsCondition().getPatterns()) {
-                    findDuplicate(pathPattern, patterns);
+
+        List<String> overlaps = new ArrayList<>();
+        // the mappings that were verified by the annotation processor do not have to be checked again
+        applicationContext.getBeansOfType(ApiVersionRequestMappingHandlerMapping.class).values().stream()
+                .filter(handlerMapping -> !handlerMapping.isVerifiedAtCompileTime())
+                .forEach(handlerMapping -> overlaps.addAll(findOverlaps(handlerMapping)));
+        if (REACTIVE_PRESENT) {
+            applicationContext.getBeansOfType(ReactiveApiVersionRequestMappingHandlerMapping.class).values().stream()
+                    .filter(handlerMapping -> !handlerMapping.isVerifiedAtCompileTime())
+                    .forEach(handlerMapping -> overlaps.addAll(findOverlaps(handlerMapping)));
+        }
+
+        if (!overlaps.isEmpty()) {
+            throw new RuntimeException(String.join(System.lineSeparator(), overlaps));
+        }
+
+        // after a restart only the paths with mappings of changed classes have to be checked
+        applicationContext.getBeansOfType(ApiVersionRequestMappingHandlerMapping.class).values().stream()
+                .filter(ApiVersionRequestMappingHandlerMapping::isRestartCacheEnabled)
+                .forEach(ApiVersionRequestMappingHandlerMapping::markVerified);
+    }
+
+    /***
+     * Finds all overlapping mappings. When the restart cache is enabled, the paths that only have mappings of classes
+     * that are unchanged since a passed check are skipped.
+     * @param handlerMapping the handler mapping with the versioned mappings
+     * @return a message for every overlapping pair of mappings
+     */
+    public static List<String> findOverlaps(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<RequestMappingInfo, VersionedMapping> versionedMappings = handlerMapping.getVersionedMappings();
+        List<Mapping> mappings = new ArrayList<>();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> mappings.add(new Mapping(
+                versionedMappings.get(info), info.getDirectPaths(),
+                // the version of these mappings is not part of the path
+                info.getCustomCondition() instanceof ResolvedVersionRequestCondition ? info.getPatternValues() : Set.of(),
+                info.getMethodsCondition().getMethods(),
+                List.of(info.getParamsCondition(), info.getHeadersCondition(), info.getConsumesCondition(),
+                        info.getProducesCondition()),
+                info.getCustomCondition() instanceof SemanticVersionRequestCondition condition ? condition.getRange() : null,
+                handlerMethod)));
+        return findOverlaps(mappings, handlerMapping.getPrefix(), handlerMapping::getVerification);
+    }
+
+    /***
+     * Finds all overlapping mappings of a reactive handler mapping.
+     * @param handlerMapping the reactive handler mapping with the versioned mappings
+     * @return a message for every overlapping pair of mappings
+     */
+    public static List<String> findOverlaps(ReactiveApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<org.springframework.web.reactive.result.method.RequestMappingInfo, VersionedMapping> versionedMappings =
+                handlerMapping.getVersionedMappings();
+        List<Mapping> mappings = new ArrayList<>();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> mappings.add(new Mapping(
+                versionedMappings.get(info), info.getDirectPaths(), Set.of(), info.getMethodsCondition().getMethods(),
+                List.of(info.getParamsCondition(), info.getHeadersCondition(), info.getConsumesCondition(),
+                        info.getProducesCondition()),
+                null, handlerMethod)));
+        return findOverlaps(mappings, handlerMapping.getPrefix(), handlerType -> null);
+    }
+
+    private static List<String> findOverlaps(List<Mapping> mappings, String prefix,
+                                             Function<Class<?>, RestartCache.Verification> verifications) {
+        VersionOverlapCheckEvent event = new VersionOverlapCheckEvent();
+        event.begin();
+
+        // the indexes of the version segments, used to recognize versions in mappings without a version annotation
+        Set<Integer> segmentIndexes = new TreeSet<>();
+        mappings.stream()
+                .filter(mapping -> mapping.versionedMapping() != null)
+                .forEach(mapping -> mapping.versionedMapping().paths().forEach(path -> segmentIndexes.add(path.segmentIndex())));
+
+        // group the version ranges by path and conditions
+        Map<GroupKey, List<Range>> groups = new LinkedHashMap<>();
+        for (Mapping mapping : mappings) {
+            VersionedMapping versionedMapping = mapping.versionedMapping();
+
+            if (mapping.semanticRange() != null) {
+                // the packed major.minor versions, the placeholder keeps them apart from the integer versions
+                for (VersionedPath path : versionedMapping.paths()) {
+                    addRange(groups, mapping, path.placeholderPath(), mapping.semanticRange().oldest(), mapping.semanticRange().newest());
+                }
+            } else if (versionedMapping != null) {
+                for (VersionedPath path : versionedMapping.paths()) {
+                    addRange(groups, mapping, path.placeholderPath(), versionedMapping.oldest(), versionedMapping.newest());
+                }
+                for (String pattern : mapping.unversionedPatterns()) {
+                    addRange(groups, mapping, pattern, versionedMapping.oldest(), versionedMapping.newest());
+                }
+            } else {
+                // a mapping without a version annotation can still contain a version (e.g. /v3/a)
+                for (String pattern : mapping.directPaths()) {
+                    for (int segmentIndex : segmentIndexes) {
+                        int version = VersionRangeRequestCondition.parseVersion(pattern, segmentIndex, prefix);
+                        if (version != -1) {
+                            String placeholderPath = VersionMappingSupport.replaceSegment(pattern, segmentIndex, prefix
+                                    + ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER);
+                            addRange(groups, mapping, placeholderPath, version, version);
+                        }
+                    }
                 }
             }
         }
+
+        List<String> overlaps = new ArrayList<>();
+        List<List<Range>> checkedGroups = groups.values().stream()
+                .filter(ranges -> !isVerified(ranges, verifications))
+                .toList();
+        checkedGroups.forEach(ranges -> sweep(ranges, overlaps));
+
+        // the order of the handler methods is not defined, so sort the messages to get a stable result
+        Collections.sort(overlaps);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.mappingCount = mappings.size();
+            event.groupCount = groups.size();
+            event.checkedGroupCount = checkedGroups.size();
+            event.overlapCount = overlaps.size();
+            event.commit();
+        }
+        return overlaps;
+    }
+
+    /***
+     * Returns true when all mappings of a group belong to classes that passed the same overlap check and have not
+     * changed since.
+     */
+    private static boolean isVerified(List<Range> ranges, Function<Class<?>, RestartCache.Verification> verifications) {
+        RestartCache.Verification verification = verifications.apply(ranges.get(0).handlerMethod().getBeanType());
+        return verification != null && ranges.stream()
+                .allMatch(range -> verifications.apply(range.handlerMethod().getBeanType()) == verification);
     }
 
-    private static void findDuplicate(PathPattern pathPattern, HashSet<String> patterns) {
-        // sometimes /error comes in more than once, but we are not interested in that url
-        if (doesNotEqualError(pathPattern)) {
-            boolean success = patterns.add(pathPattern.getPatternString());
-            if (!success) {
-                // duplicate found
-                String message = String.format("Ambiguous version mapping found with the following URL: %s", pathPattern);
-                throw new RuntimeException(message);
+    private static void addRange(Map<GroupKey, List<Range>> groups, Mapping mapping, String placeholderPath,
+                                 long oldest, long newest) {
+        GroupKey key = new GroupKey(VersionMappingProcessor.normalize(placeholderPath), mapping.conditions());
+        groups.computeIfAbsent(key, k -> new ArrayList<>())
+                .add(new Range(oldest, newest, mapping.methods(), placeholderPath, mapping.handlerMethod()));
+    }
+
+    /***
+     * Sorts the ranges of a group by their oldest version and reports every pair of ranges that overlap and share a
+     * request method.
+     */
+    private static void sweep(List<Range> ranges, List<String> overlaps) {
+        ranges.sort(Comparator.comparingLong(Range::oldest));
+        List<Range> active = new ArrayList<>();
+
+        for (Range range : ranges) {
+            // ranges that end before this one starts cannot overlap with the remaining ones
+            active.removeIf(activeRange -> activeRange.newest() < range.oldest());
+
+            for (Range activeRange : active) {
+                // the versions that are registered on first use in lazy mode overlap with the mapping of the same handler method
+                if (sharesRequestMethod(activeRange, range) && !activeRange.handlerMethod().equals(range.handlerMethod())) {
+                    String url = range.placeholderPath().contains(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER)
+                            ? range.placeholderPath().replace(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER, String.valueOf(range.oldest()))
+                            : range.placeholderPath().contains(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER)
+                            ? range.placeholderPath().replace(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER, SemanticVersion.format(range.oldest()))
+                            : range.placeholderPath() + " (version " + range.oldest() + ")";
+                    overlaps.add(String.format("Ambiguous version mapping found with the following URL: %s (%s and %s)",
+                            url, describe(activeRange.handlerMethod()), describe(range.handlerMethod())));
+                }
             }
+            active.add(range);
         }
     }
 
-    private static boolean doesNotEqualError(PathPattern pathPattern) {
-        return !pathPattern.getPatternString().equals("/error");
+    private static boolean sharesRequestMethod(Range a, Range b) {
+        // no request methods means all request methods
+        return a.methods().isEmpty() || b.methods().isEmpty() || !Collections.disjoint(a.methods(), b.methods());
+    }
+
+    private static String describe(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+    }
+
+    /***
+     * A registered mapping of the servlet or the reactive stack.
+     * @param versionedMapping the version information or null when the mapping has no version annotation
+     * @param directPaths the paths without pattern syntax
+     * @param unversionedPatterns the patterns of a versioned mapping whose version is not part of the path
+     * @param methods the request methods (empty means all request methods)
+     * @param conditions the params, headers, consumes and produces conditions
+     * @param semanticRange the packed major.minor versions or null when the mapping has integer versions
+     * @param handlerMethod the handler method
+     */
+    private record Mapping(@Nullable VersionedMapping versionedMapping, Set<String> directPaths,
+                           Set<String> unversionedPatterns, Set<RequestMethod> methods,
+                           List<Object> conditions, @Nullable SemanticVersionRange semanticRange,
+                           HandlerMethod handlerMethod) {
+    }
+
+    private record GroupKey(String path, List<Object> conditions) {
+    }
+
+    // the versions are packed for a semantic mapping
+    private record Range(long oldest, long newest, Set<RequestMethod> methods, String placeholderPath,
+                         HandlerMethod handlerMethod) {
     }
 }
@@ -0,0 +1,155 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * A version placement template, e.g. /{prefix}{version}{path} or {path}/{prefix}{version}. The template is parsed
+ * once into the parts before and after the annotation path; placing a version only concatenates these parts, so no
+ * regular expressions are involved and all path syntax (e.g. '.', '*', '**' and path variables) is kept as it is.
+ * The version (with the prefix) is always a separate path segment, because requests are matched per segment.
+ */
+public final class VersionPlacement {
+
+    public static final String PREFIX = "{prefix}";
+    public static final String VERSION = "{version}";
+    public static final String PATH = "{path}";
+
+    /***
+     * The version in front of the annotation path, e.g. /api/v3/a.
+     */
+    public static final VersionPlacement PATH_PREFIX = parse("/" + PREFIX + VERSION + PATH);
+
+    /***
+     * The version after the annotation path, e.g. /api/a/v3.
+     */
+    public static final VersionPlacement PATH_POSTFIX = parse(PATH + "/" + PREFIX + VERSION);
+
+    // the parts in front of and after the annotation path, null stands for the version segment
+    private final List<String> beforePath;
+    private final List<String> afterPath;
+    private final String template;
+
+    private VersionPlacement(String template, List<String> beforePath, List<String> afterPath) {
+        this.template = template;
+        this.beforePath = beforePath;
+        this.afterPath = afterPath;
+    }
+
+    /***
+     * Parses a placement template. The template contains {path} once and {prefix}{version} once, as a separate path
+     * segment. The other parts of the template are literal path segments.
+     * @param template the template
+     * @return the parsed template
+     */
+    public static VersionPlacement parse(String template) {
+        int pathStart = template.indexOf(PATH);
+        String versionSegment = PREFIX + VERSION;
+        int versionStart = template.indexOf(versionSegment);
+        if (pathStart == -1 || template.indexOf(PATH, pathStart + 1) != -1
+                || versionStart == -1 || template.indexOf(versionSegment, versionStart + 1) != -1) {
+            throw invalid(template, "it should contain {path} and {prefix}{version} once");
+        }
+
+        List<String> beforePath = new ArrayList<>();
+        List<String> afterPath = new ArrayList<>();
+        boolean versionBeforePath = versionStart < pathStart;
+        String before = template.substring(0, pathStart);
+        String after = template.substring(pathStart + PATH.length());
+        String versionPart = versionBeforePath ? before : after;
+        int index = versionBeforePath ? versionStart : versionStart - pathStart - PATH.length();
+
+        String head = versionPart.substring(0, index);
+        String tail = versionPart.substring(index + versionSegment.length());
+        // the version has to be a complete segment
+        if (!head.endsWith("/") || !(tail.isEmpty() || tail.startsWith("/"))) {
+            throw invalid(template, "{prefix}{version} should be a separate path segment");
+        }
+        List<String> parts = versionBeforePath ? beforePath : afterPath;
+        addLiteral(parts, head, template);
+        parts.add(null);
+        addLiteral(parts, tail, template);
+        addLiteral(versionBeforePath ? afterPath : beforePath, versionBeforePath ? after : before, template);
+        return new VersionPlacement(template, beforePath, afterPath);
+    }
+
+    private static void addLiteral(List<String> parts, String literal, String template) {
+        if (literal.isEmpty()) {
+            return;
+        }
+        for (char c : literal.toCharArray()) {
+            if (c == '{' || c == '}' || c == '*' || c == '?') {
+                throw invalid(template, "the other parts should be literal path segments");
+            }
+        }
+        parts.add(literal);
+    }
+
+    private static RuntimeException invalid(String template, String reason) {
+        return new RuntimeException(String.format("Invalid version placement '%s': %s.", template, reason));
+    }
+
+    /***
+     * Puts the version segment in a pattern value.
+     * @param patternValue the pattern value calculated by Spring, which ends with the annotation path
+     * @param annotationPath the path from the annotation
+     * @param versionSegment the prefix and the version (or a version placeholder), e.g. v3
+     * @return the versioned path or the unchanged pattern value when it does not end with the annotation path
+     */
+    public String place(String patternValue, String annotationPath, String versionSegment) {
+        if (!patternValue.endsWith(annotationPath)) {
+            return patternValue;
+        }
+        if (!afterPath.isEmpty() && isCatchAll(annotationPath)) {
+            throw new RuntimeException(String.format("The version cannot be placed after the path %s with the "
+                    + "version placement '%s', because nothing can follow a catch-all segment.", annotationPath, template));
+        }
+
+        StringBuilder path = new StringBuilder(patternValue.length() + versionSegment.length() + 16);
+        path.append(patternValue, 0, patternValue.length() - annotationPath.length());
+        append(path, beforePath, versionSegment);
+        appendPart(path, annotationPath);
+        append(path, afterPath, versionSegment);
+        return path.toString();
+    }
+
+    private static void append(StringBuilder path, List<String> parts, String versionSegment) {
+        for (String part : parts) {
+            appendPart(path, part != null ? part : versionSegment);
+        }
+    }
+
+    // joins two parts with exactly one slash, so no empty segment is created and no segments are glued together
+    private static void appendPart(StringBuilder path, String part) {
+        if (part.isEmpty()) {
+            return;
+        }
+        boolean pathSlash = !path.isEmpty() && path.charAt(path.length() - 1) == '/';
+        boolean partSlash = part.charAt(0) == '/';
+        if (pathSlash && partSlash) {
+            path.append(part, 1, part.length());
+        } else {
+            if (!pathSlash && !partSlash && !path.isEmpty()) {
+                path.append('/');
+            }
+            path.append(part);
+        }
+    }
+
+    private static boolean isCatchAll(String path) {
+        String lastSegment = path.substring(path.lastIndexOf('/') + 1);
+        return lastSegment.equals("**") || lastSegment.startsWith("{*");
+    }
+
+    /***
+     * Returns true when the version is placed after the annotation path.
+     */
+    public boolean isVersionAfterPath() {
+        return afterPath.contains(null);
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * Request condition that matches a request when the version in its URL lies within the range [oldest, newest].
+ * It is used in compact mode, where only one pattern (with a version placeholder) is registered per endpoint.
+ */
+public final class VersionRangeRequestCondition extends AbstractRequestCondition<VersionRangeRequestCondition> {
+
+    private final int oldest;
+    private final int newest;
+    private final String prefix;
+    private final int[] segmentIndexes;
+
+    /***
+     * Creates a version range condition.
+     * @param oldest the oldest version (inclusive)
+     * @param newest the newest version (inclusive)
+     * @param prefix the version prefix (e.g. 'v')
+     * @param segmentIndexes the indexes of the path segments that contain the version (one per pattern)
+     */
+    public VersionRangeRequestCondition(int oldest, int newest, String prefix, int[] segmentIndexes) {
+        this.oldest = oldest;
+        this.newest = newest;
+        this.prefix = prefix;
+        this.segmentIndexes = segmentIndexes;
+    }
+
+    public int getOldest() {
+        return oldest;
+    }
+
+    public int getNewest() {
+        return newest;
+    }
+
+    @Override
+    @NonNull
+    protected Collection<?> getContent() {
+        return List.of(oldest, newest);
+    }
+
+    @Override
+    @NonNull
+    protected String getToStringInfix() {
+        return "-";
+    }
+
+    @Override
+    @NonNull
+    public VersionRangeRequestCondition combine(@NonNull VersionRangeRequestCondition other) {
+        // the method level condition wins
+        return other;
+    }
+
+    @Override
+    @Nullable
+    public VersionRangeRequestCondition getMatchingCondition(@NonNull HttpServletRequest request) {
+        String path = ServletRequestPathUtils.getCachedPathValue(request);
+        for (int segmentIndex : segmentIndexes) {
+            int version = parseVersion(path, segmentIndex, prefix);
+            if (version >= oldest && version <= newest) {
+                return this;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(@NonNull VersionRangeRequestCondition other, @NonNull HttpServletRequest request) {
+        // the narrowest range is the most specific one
+        return Integer.compare(newest - oldest, other.newest - other.oldest);
+    }
+
+    /***
+     * Parses the version from a path segment without allocating, e.g. 'v12' with prefix 'v' results in 12.
+     * @param path the lookup path of the request
+     * @param segmentIndex the index of the segment that contains the version (the first segment has index 0)
+     * @param prefix the version prefix
+     * @return the version or -1 when the segment does not contain a valid version
+     */
+    static int parseVersion(String path, int segmentIndex, String prefix) {
+        // find the start of the segment
+        int start = 0;
+        for (int segment = 0; segment <= segmentIndex; segment++) {
+            start = path.indexOf('/', start);
+            if (start == -1) {
+                return -1;
+            }
+            start++;
+        }
+
+        if (!path.startsWith(prefix, start)) {
+            return -1;
+        }
+
+        int version = 0;
+        int digits = 0;
+        for (int i = start + prefix.length(); i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/' || c == ';') {
+                break;
+            }
+            if (c < '0' || c > '9' || version > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            version = version * 10 + (c - '0');
+            digits++;
+        }
+
+        return digits > 0 ? version : -1;
+    }
+
+    /***
+     * Parses the version of the first (or last) path segment that contains a valid version.
+     * @param path the lookup path of the request
+     * @param prefix the version prefix
+     * @param last true to use the last segment with a version instead of the first one
+     * @return the version or -1 when no segment contains a valid version
+     */
+    static int findVersion(String path, String prefix, boolean last) {
+        int segments = (int) path.chars().filter(c -> c == '/').count();
+        int version = -1;
+        for (int segmentIndex = 0; segmentIndex < segments; segmentIndex++) {
+            int segmentVersion = parseVersion(path, segmentIndex, prefix);
+            if (segmentVersion != -1) {
+                if (!last) {
+                    return segmentVersion;
+                }
+                version = segmentVersion;
+            }
+        }
+        return version;
+    }
+
+    /***
+     * Parses a version value from a header, query parameter or media type, e.g. '3' or (with prefix 'v') 'v3'.
+     * @param value the value
+     * @param prefix the version prefix, which is optional in the value
+     * @return the version or -1 when the value is not a valid version
+     */
+    static int parseVersionValue(@Nullable String value, String prefix) {
+        if (value == null) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        int start = !prefix.isEmpty() && trimmed.startsWith(prefix) ? prefix.length() : 0;
+        if (start == trimmed.length() || trimmed.length() - start > 9) {
+            return -1;
+        }
+
+        int version = 0;
+        for (int i = start; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            version = version * 10 + (c - '0');
+        }
+        return version;
+    }
+}
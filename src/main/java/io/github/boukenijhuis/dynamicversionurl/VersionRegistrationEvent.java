@@ -0,0 +1,38 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jdk.jfr.*;
+
+/***
+ * JDK Flight Recorder event for the creation of the request mapping info of a versioned handler method, including the
+ * expansion of its version range. The event is only created when it is enabled in a recording.
+ */
+@Name(VersionRegistrationEvent.NAME)
+@Label("Version Mapping Registration")
+@Category("Dynamic Version URL")
+@Description("The creation of the request mapping info of a versioned handler method")
+@StackTrace(false)
+final class VersionRegistrationEvent extends Event {
+
+    static final String NAME = "io.github.boukenijhuis.dynamicversionurl.MappingRegistration";
+
+    // only used to check whether the event is enabled, without creating an event per method
+    private static final VersionRegistrationEvent PROBE = new VersionRegistrationEvent();
+
+    @Label("Handler Method")
+    String method;
+
+    @Label("Oldest Version")
+    int oldestVersion;
+
+    @Label("Newest Version")
+    @Description("The newest declared version, 2147483647 stands for LATEST")
+    int newestVersion;
+
+    @Label("Path Count")
+    @Description("The number of registered paths")
+    int pathCount;
+
+    static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jdk.jfr.*;
+
+/***
+ * JDK Flight Recorder event for the lookup of the handler method of a request. Only a sample of the requests is
+ * recorded and the event is only created when it is enabled in a recording, so a disabled event costs one check per
+ * request.
+ */
+@Name(VersionResolutionEvent.NAME)
+@Label("Version Request Resolution")
+@Category("Dynamic Version URL")
+@Description("The lookup of the handler method of a sampled request")
+@StackTrace(false)
+final class VersionResolutionEvent extends Event {
+
+    static final String NAME = "io.github.boukenijhuis.dynamicversionurl.RequestResolution";
+
+    // only used to check whether the event is enabled, without creating an event per request
+    private static final VersionResolutionEvent PROBE = new VersionResolutionEvent();
+
+    @Label("Request Method")
+    String requestMethod;
+
+    @Label("Lookup Path")
+    String lookupPath;
+
+    @Label("Version")
+    @Description("The resolved version or -1 when no versioned mapping matched")
+    int version;
+
+    @Label("Handler Method")
+    String handlerMethod;
+
+    static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/***
+ * Determines where the version of a request is found. Path based resolvers put the version in the registered paths,
+ * so every version of a range gets its own path (or one path with a version placeholder in compact mode). The other
+ * resolvers register only the paths from the annotation and check the version of a request with a
+ * {@link ResolvedVersionRequestCondition}. The version range of an annotation means the same for every resolver.
+ */
+public interface VersionResolver {
+
+    /***
+     * Returns true when the version is part of the path.
+     * @return true for a path based resolver
+     */
+    default boolean isPathBased() {
+        return false;
+    }
+
+    /***
+     * Puts the version in a path. Only used for path based resolvers.
+     * @param patternValue the pattern value calculated by Spring, which ends with the annotation path
+     * @param annotationPath the path from the annotation
+     * @param versionSegment the path segment with the prefix and the version (or a version placeholder), e.g. v3
+     * @return the versioned path or the unchanged pattern value when it does not end with the annotation path
+     */
+    default String versionPath(String patternValue, String annotationPath, String versionSegment) {
+        return patternValue;
+    }
+
+    /***
+     * Returns the version of a request.
+     * @param request the request
+     * @return the version or -1 when the request does not contain a valid version
+     */
+    int resolveVersion(HttpServletRequest request);
+}
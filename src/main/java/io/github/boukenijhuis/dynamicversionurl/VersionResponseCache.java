@@ -0,0 +1,89 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/***
+ * A bounded concurrent cache of the responses of older versions, with single-flight coalescing: while the response for
+ * a key is being created, the other requests for the same key wait for it instead of invoking the handler as well.
+ * Expired entries stay until they are replaced or evicted. The oldest entries are evicted first.
+ */
+final class VersionResponseCache {
+
+    /***
+     * A cached response.
+     * @param status the status code
+     * @param headers the response headers
+     * @param body the response body
+     * @param expiresAt the value of System.nanoTime() at which the response expires
+     */
+    record CachedResponse(int status, Map<String, List<String>> headers, byte[] body, long expiresAt) {
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+
+    private final int maximumSize;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    // the keys in insertion order
+    private final Queue<String> keys = new ConcurrentLinkedQueue<>();
+    // the responses that are being created
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    VersionResponseCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /***
+     * Returns the cached response for a key.
+     * @param key the request key
+     * @return the response or null when there is no response or it has expired
+     */
+    @Nullable
+    CachedResponse get(String key) {
+        CachedResponse response = entries.get(key);
+        return response != null && !response.isExpired() ? response : null;
+    }
+
+    /***
+     * Starts the creation of the response for a key, unless another request is already creating it.
+     * @param key the request key
+     * @return null when the caller has to create the response (and call {@link #complete}), otherwise the response
+     * that is being created by another request (which completes with null when no response could be cached)
+     */
+    @Nullable
+    CompletableFuture<CachedResponse> start(String key) {
+        return inFlight.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    /***
+     * Finishes the creation of the response for a key and releases the waiting requests.
+     * @param key the request key
+     * @param response the response or null when the response cannot be cached
+     */
+    void complete(String key, @Nullable CachedResponse response) {
+        if (response != null) {
+            if (entries.put(key, response) == null) {
+                keys.add(key);
+                while (entries.size() > maximumSize) {
+                    String oldest = keys.poll();
+                    if (oldest == null) {
+                        break;
+                    }
+                    entries.remove(oldest);
+                }
+            }
+        }
+        CompletableFuture<CachedResponse> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(response);
+        }
+    }
+}
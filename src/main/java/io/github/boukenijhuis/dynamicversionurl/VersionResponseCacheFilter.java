@@ -0,0 +1,147 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Buffers the GET responses when there are mappings with a cache ttl, so the {@link VersionResponseCacheInterceptor}
+ * can cache them. Only successful responses without cookies are cached, unless their Cache-Control header is private or
+ * no-store, or they vary on a header that is not part of the key. The responses of asynchronous requests are not
+ * cached. The filter runs after the other filters of this library, so they see the cached responses as well.
+ */
+public class VersionResponseCacheFilter extends OncePerRequestFilter implements Ordered {
+
+    // the wrapped response, also used after an asynchronous dispatch
+    static final String WRAPPER_ATTRIBUTE = VersionResponseCacheFilter.class.getName() + ".wrapper";
+
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider;
+
+    // resolved on the first request, because the filter is created before the handler mapping
+    @Nullable
+    private volatile VersionResponseCache responseCache;
+
+    private volatile boolean resolved = false;
+
+    VersionResponseCacheFilter(ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+        this.handlerMappingProvider = handlerMappingProvider;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // the body is copied to the response when the async processing has finished
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = (ContentCachingResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper == null) {
+            if (isAsyncDispatch(request) || !HttpMethod.GET.matches(request.getMethod()) || getResponseCache() == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            wrapper = new ContentCachingResponseWrapper(response);
+            request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+        }
+
+        boolean handled = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            handled = true;
+        } finally {
+            // release the waiting requests, also when the handler has failed or continues asynchronously
+            VersionResponseCacheInterceptor.PendingResponse pendingResponse = (VersionResponseCacheInterceptor.PendingResponse)
+                    request.getAttribute(VersionResponseCacheInterceptor.PENDING_RESPONSE_ATTRIBUTE);
+            if (pendingResponse != null) {
+                request.removeAttribute(VersionResponseCacheInterceptor.PENDING_RESPONSE_ATTRIBUTE);
+                boolean cacheable = handled && !isAsyncStarted(request);
+                getResponseCache().complete(pendingResponse.key(), cacheable ? createCachedResponse(wrapper, pendingResponse) : null);
+            }
+        }
+
+        if (!isAsyncStarted(request)) {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    @Nullable
+    private static VersionResponseCache.CachedResponse createCachedResponse(ContentCachingResponseWrapper wrapper,
+                                                                            VersionResponseCacheInterceptor.PendingResponse pendingResponse) {
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || wrapper.containsHeader(HttpHeaders.SET_COOKIE)
+                || !isShared(wrapper)) {
+            return null;
+        }
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : wrapper.getHeaderNames()) {
+            // the content length is set when the body is written
+            if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+            }
+        }
+        if (wrapper.getContentType() != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(wrapper.getContentType()));
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(pendingResponse.cacheTtl());
+        return new VersionResponseCache.CachedResponse(wrapper.getStatus(), headers, wrapper.getContentAsByteArray(), expiresAt);
+    }
+
+    /***
+     * Returns whether a response may be shared by the requests with the same key.
+     */
+    private static boolean isShared(ContentCachingResponseWrapper wrapper) {
+        for (String cacheControl : wrapper.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : cacheControl.split(",")) {
+                String name = directive.trim().toLowerCase();
+                if (name.startsWith("private") || name.equals("no-store") || name.startsWith("no-cache")) {
+                    return false;
+                }
+            }
+        }
+        for (String vary : wrapper.getHeaders(HttpHeaders.VARY)) {
+            for (String header : vary.split(",")) {
+                String name = header.trim().toLowerCase();
+                if (!name.isEmpty() && !VersionResponseCacheInterceptor.KEY_HEADERS.contains(name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private VersionResponseCache getResponseCache() {
+        if (!resolved) {
+            if (handlerMappingProvider.getIfAvailable() instanceof ApiVersionRequestMappingHandlerMapping handlerMapping) {
+                responseCache = handlerMapping.getResponseCache();
+            }
+            resolved = true;
+        }
+        return responseCache;
+    }
+}
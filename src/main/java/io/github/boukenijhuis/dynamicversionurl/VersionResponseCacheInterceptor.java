@@ -0,0 +1,127 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/***
+ * Answers the GET requests for the older versions of a mapping with a cache ttl from the {@link VersionResponseCache}.
+ * When the response is not cached, the first request invokes the handler and the concurrent requests for the same
+ * URL wait for its response, at most for the wait timeout of the handler mapping. After the timeout they invoke the
+ * handler themselves. The response is stored by the {@link VersionResponseCacheFilter}. The interceptor is only
+ * added to the handler execution chain of the mappings with a cache ttl.
+ */
+final class VersionResponseCacheInterceptor implements HandlerInterceptor {
+
+    // the response that this request creates, read by the filter
+    static final String PENDING_RESPONSE_ATTRIBUTE = VersionResponseCacheInterceptor.class.getName() + ".pendingResponse";
+
+    // the (lower case) request headers that are part of the key
+    static final Set<String> KEY_HEADERS = Set.of(HttpHeaders.ACCEPT.toLowerCase(),
+            HttpHeaders.ACCEPT_LANGUAGE.toLowerCase(), HttpHeaders.AUTHORIZATION.toLowerCase());
+
+    /***
+     * A response that is being created.
+     * @param key the request key
+     * @param cacheTtl the number of seconds that the response is cached
+     */
+    record PendingResponse(String key, int cacheTtl) {
+    }
+
+    private final ApiVersionRequestMappingHandlerMapping handlerMapping;
+
+    private final VersionResponseCache responseCache;
+
+    VersionResponseCacheInterceptor(ApiVersionRequestMappingHandlerMapping handlerMapping, VersionResponseCache responseCache) {
+        this.handlerMapping = handlerMapping;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        // the response can only be stored when the filter has wrapped it
+        if (!HttpMethod.GET.matches(request.getMethod())
+                || request.getAttribute(VersionResponseCacheFilter.WRAPPER_ATTRIBUTE) == null
+                || !(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE) instanceof VersionedMapping versionedMapping)
+                || !(request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE) instanceof Integer version)) {
+            return true;
+        }
+
+        // the current version is never cached
+        if (versionedMapping.cacheTtl() == 0 || version >= handlerMapping.getCurrentVersion()) {
+            return true;
+        }
+
+        // the response can depend on the user of a cookie or session, which is not part of the key
+        if (request.getHeader(HttpHeaders.COOKIE) != null || request.getSession(false) != null) {
+            return true;
+        }
+
+        String key = getKey(request);
+        VersionResponseCache.CachedResponse cachedResponse = responseCache.get(key);
+        if (cachedResponse != null) {
+            write(cachedResponse, response);
+            return false;
+        }
+
+        CompletableFuture<VersionResponseCache.CachedResponse> inFlight = responseCache.start(key);
+        if (inFlight == null) {
+            request.setAttribute(PENDING_RESPONSE_ATTRIBUTE, new PendingResponse(key, versionedMapping.cacheTtl()));
+            return true;
+        }
+
+        // another request is invoking the handler, invoke it as well when its response could not be cached in time
+        cachedResponse = await(inFlight);
+        if (cachedResponse != null) {
+            write(cachedResponse, response);
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private VersionResponseCache.CachedResponse await(CompletableFuture<VersionResponseCache.CachedResponse> inFlight) {
+        try {
+            return inFlight.get(handlerMapping.getResponseCacheWaitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /***
+     * Returns the key of a request: the URL and the headers that select the representation or the user. The user is
+     * part of the key as a SHA-256 digest of the Authorization header, so the credentials are not kept in memory.
+     * Requests with a cookie or a session are not cached.
+     */
+    static String getKey(HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return request.getRequestURI() + (queryString != null ? "?" + queryString : "")
+                + " " + request.getHeader(HttpHeaders.ACCEPT)
+                + " " + request.getHeader(HttpHeaders.ACCEPT_LANGUAGE)
+                + " " + HeaderDigest.digest(request, HttpHeaders.AUTHORIZATION);
+    }
+
+    private static void write(VersionResponseCache.CachedResponse cachedResponse, HttpServletResponse response) throws IOException {
+        response.setStatus(cachedResponse.status());
+        cachedResponse.headers().forEach((name, values) -> {
+            response.setHeader(name, values.get(0));
+            values.subList(1, values.size()).forEach(value -> response.addHeader(name, value));
+        });
+        response.getOutputStream().write(cachedResponse.body());
+    }
+}
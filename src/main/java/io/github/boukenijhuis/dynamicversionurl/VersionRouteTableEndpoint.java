@@ -0,0 +1,203 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.function.Supplier;
+
+/***
+ * Actuator endpoint (/actuator/versions) that describes the versioned route table: the declared version range of
+ * every handler method, the number of registered patterns, an estimate of their heap footprint and the time spent in
+ * creating the mappings. Unlike /actuator/mappings it does not list every expanded pattern. It also shows the permit
+ * usage of the bulkheads. The supported versions can be changed with a POST request. The endpoint responds with 404
+ * when the request mapping handler mapping is not an ApiVersionRequestMappingHandlerMapping (e.g. when another
+ * WebMvcRegistrations replaces it).
+ */
+@Endpoint(id = "versions")
+public class VersionRouteTableEndpoint {
+
+    // rough sizes (in bytes) of the objects that are created for a mapping, used to estimate the heap footprint
+    private static final long MAPPING_BYTES = 512;
+    private static final long PATTERN_BYTES = 160;
+    private static final long SEGMENT_BYTES = 96;
+    private static final long DIRECT_PATH_BYTES = 96;
+
+    private final Supplier<RequestMappingHandlerMapping> handlerMappingSupplier;
+
+    public VersionRouteTableEndpoint(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        this.handlerMappingSupplier = () -> handlerMapping;
+    }
+
+    VersionRouteTableEndpoint(ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+        this.handlerMappingSupplier = handlerMappingProvider::getIfAvailable;
+    }
+
+    @ReadOperation
+    @Nullable
+    public VersionRouteTable versions() {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = getHandlerMapping();
+        return handlerMapping != null ? versions(handlerMapping) : null;
+    }
+
+    private static VersionRouteTable versions(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<RequestMappingInfo, VersionedMapping> versionedMappings = handlerMapping.getVersionedMappings();
+
+        // the older versions in lazy mode are registered as separate mappings, so group the mappings by method
+        Map<Method, HandlerRouteBuilder> builders = new HashMap<>();
+        int patterns = 0;
+        long estimatedHeapBytes = 0;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            long infoBytes = estimateHeapBytes(info);
+            patterns += info.getPatternValues().size();
+            estimatedHeapBytes += infoBytes;
+
+            HandlerRouteBuilder builder = builders.computeIfAbsent(entry.getValue().getMethod(),
+                    method -> new HandlerRouteBuilder(entry.getValue()));
+            builder.patterns += info.getPatternValues().size();
+            builder.estimatedHeapBytes += infoBytes;
+            // the mapping with all versions, not one of the versions that were registered on first use
+            VersionedMapping versionedMapping = versionedMappings.get(info);
+            if (versionedMapping != null && (builder.versionedMapping == null
+                    || versionedMapping.newest() - versionedMapping.oldest() > builder.versionedMapping.newest() - builder.versionedMapping.oldest())) {
+                builder.versionedMapping = versionedMapping;
+            }
+        }
+
+        List<HandlerRoute> handlers = builders.values().stream()
+                .filter(builder -> builder.versionedMapping != null)
+                .map(HandlerRouteBuilder::build)
+                .sorted(Comparator.comparing(HandlerRoute::handler))
+                .toList();
+
+        Integer oldestVersion = handlers.stream().map(HandlerRoute::oldest).min(Integer::compare).orElse(null);
+        Integer newestVersion = handlers.stream().map(HandlerRoute::newest).max(Integer::compare).orElse(null);
+        int versionedPatterns = handlers.stream().mapToInt(HandlerRoute::patterns).sum();
+        double registrationTimeMillis = handlerMapping.getRegistrationTime().toNanos() / 1_000_000.0;
+
+        VersionWindow window = handlerMapping.getVersionWindow();
+        return new VersionRouteTable(oldestVersion, newestVersion, window.minSupported(), window.latest(),
+                handlers.size(), patterns, versionedPatterns, estimatedHeapBytes, registrationTimeMillis,
+                handlerMapping.isCompact(), handlerMapping.isLazy(), handlers, handlerMapping.getBulkheadStatistics());
+    }
+
+    /***
+     * Changes the supported versions without restarting the application.
+     * @param minSupported the oldest supported version (unchanged when null)
+     * @param latest the latest version (unchanged when null)
+     * @return the route table after the change, or null when the handler mapping is not versioned
+     * @throws InvalidEndpointRequestException (400) when the supported versions are invalid
+     */
+    @WriteOperation
+    @Nullable
+    public VersionRouteTable updateSupportedVersions(@Nullable Integer minSupported, @Nullable Integer latest) {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = getHandlerMapping();
+        if (handlerMapping == null) {
+            return null;
+        }
+        VersionWindow window = handlerMapping.getVersionWindow();
+        int newMinSupported = minSupported != null ? minSupported : window.minSupported();
+        int newLatest = latest != null ? latest : window.latest();
+        try {
+            handlerMapping.checkSupportedVersions(newMinSupported, newLatest);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        handlerMapping.setSupportedVersions(newMinSupported, newLatest);
+        return versions(handlerMapping);
+    }
+
+    @Nullable
+    private ApiVersionRequestMappingHandlerMapping getHandlerMapping() {
+        return handlerMappingSupplier.get() instanceof ApiVersionRequestMappingHandlerMapping handlerMapping ? handlerMapping : null;
+    }
+
+    /***
+     * Estimates the retained size of a mapping: the request mapping info, a parsed pattern per path (with an element per
+     * separator and segment) and an entry in the lookup of the direct paths. It is a rough estimate that is meant to
+     * follow the growth of the route table, not to replace a heap dump.
+     * @param info the registered request mapping info
+     * @return the estimated size in bytes
+     */
+    static long estimateHeapBytes(RequestMappingInfo info) {
+        long bytes = MAPPING_BYTES;
+        for (String pattern : info.getPatternValues()) {
+            long segments = pattern.chars().filter(c -> c == '/').count();
+            // the pattern string (latin-1) and the characters of the path elements
+            bytes += PATTERN_BYTES + 3L * pattern.length() + segments * SEGMENT_BYTES;
+        }
+        bytes += info.getDirectPaths().size() * DIRECT_PATH_BYTES;
+        return bytes;
+    }
+
+    private static final class HandlerRouteBuilder {
+
+        private final HandlerMethod handlerMethod;
+
+        @Nullable
+        private VersionedMapping versionedMapping;
+
+        private int patterns;
+
+        private long estimatedHeapBytes;
+
+        private HandlerRouteBuilder(HandlerMethod handlerMethod) {
+            this.handlerMethod = handlerMethod;
+        }
+
+        private HandlerRoute build() {
+            List<String> paths = versionedMapping.paths().stream()
+                    .map(path -> path.placeholderPath().replace(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER,
+                            "{" + VersionTags.VERSION + "}")
+                            .replace(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER, "{" + VersionTags.VERSION + "}"))
+                    .toList();
+            return new HandlerRoute(handlerMethod.getBeanType().getName() + "#" + handlerMethod.getMethod().getName(),
+                    versionedMapping.oldest(), versionedMapping.newest(), paths, patterns, estimatedHeapBytes);
+        }
+    }
+
+    /***
+     * The versioned route table.
+     * @param oldestVersion the oldest version that is served or null when there are no versioned mappings
+     * @param newestVersion the newest version that is served or null when there are no versioned mappings
+     * @param minSupported the configured oldest supported version
+     * @param latest the configured latest version
+     * @param versionedHandlers the number of handler methods with a version mapping annotation
+     * @param patterns the number of registered patterns (including the mappings without a version)
+     * @param versionedPatterns the number of registered patterns of the versioned handler methods
+     * @param estimatedHeapBytes the estimated heap footprint of all registered mappings
+     * @param registrationTimeMillis the time spent in creating the mappings
+     * @param compact true when compact mode is enabled
+     * @param lazy true when lazy mode is enabled
+     * @param handlers the versioned handler methods
+     * @param bulkheads the permit usage of the bulkheads
+     */
+    public record VersionRouteTable(@Nullable Integer oldestVersion, @Nullable Integer newestVersion, int minSupported,
+                                    int latest, int versionedHandlers,
+                                    int patterns, int versionedPatterns, long estimatedHeapBytes,
+                                    double registrationTimeMillis, boolean compact, boolean lazy,
+                                    List<HandlerRoute> handlers, List<BulkheadStatistics> bulkheads) {
+    }
+
+    /***
+     * A versioned handler method.
+     * @param handler the class and method name
+     * @param oldest the oldest declared version
+     * @param newest the newest declared version
+     * @param paths the paths with {version} instead of the version
+     * @param patterns the number of registered patterns (in lazy mode this grows when older versions are requested)
+     * @param estimatedHeapBytes the estimated heap footprint of the mappings of the handler method
+     */
+    public record HandlerRoute(String handler, int oldest, int newest, List<String> paths, int patterns,
+                               long estimatedHeapBytes) {
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.lang.NonNull;
+
+/***
+ * Adds the version and the declared version range of the matched mapping to the http.server.requests metrics. The uri
+ * tag contains {version} instead of the version number, so all versions of an endpoint share one uri value. No extra
+ * meters are registered, the tags are added to the existing ones.
+ */
+public class VersionServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final VersionTags versionTags;
+
+    /***
+     * Creates the observation convention.
+     * @param prefix the version prefix (e.g. 'v')
+     * @param bucketSize the number of versions per value of the version tag (1 means one value per version)
+     */
+    public VersionServerRequestObservationConvention(String prefix, int bucketSize) {
+        this.versionTags = new VersionTags(prefix, bucketSize);
+    }
+
+    @Override
+    @NonNull
+    public KeyValues getLowCardinalityKeyValues(@NonNull ServerRequestObservationContext context) {
+        HttpServletRequest request = context.getCarrier();
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of(VersionTags.VERSION, versionTags.version((Integer) request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE))),
+                KeyValue.of(VersionTags.VERSION_RANGE, versionTags.versionRange(getVersionedMapping(request))));
+    }
+
+    @Override
+    @NonNull
+    protected KeyValue uri(@NonNull ServerRequestObservationContext context) {
+        String uri = versionTags.uri(context.getPathPattern(), getVersionedMapping(context.getCarrier()));
+        return uri != null ? KeyValue.of("uri", uri) : super.uri(context);
+    }
+
+    private static VersionedMapping getVersionedMapping(HttpServletRequest request) {
+        return (VersionedMapping) request.getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.lang.Nullable;
+
+/***
+ * Creates the metric tag values for the version of a request. The values are only created when a metric is recorded,
+ * so the request handling itself only stores the matched version and versioned mapping.
+ */
+final class VersionTags {
+
+    static final String VERSION = "version";
+    static final String VERSION_RANGE = "version.range";
+    static final String NONE = "none";
+
+    private final String prefix;
+    private final int bucketSize;
+
+    /***
+     * Creates the tag values.
+     * @param prefix the version prefix (e.g. 'v')
+     * @param bucketSize the number of versions per bucket of the version tag (1 means one tag value per version)
+     */
+    VersionTags(String prefix, int bucketSize) {
+        if (bucketSize < 1) {
+            throw new RuntimeException("The version bucket size should be at least 1, but was " + bucketSize + ".");
+        }
+        this.prefix = prefix;
+        this.bucketSize = bucketSize;
+    }
+
+    /***
+     * Returns the version or the bucket of the version, e.g. 1-10 for version 4 with bucket size 10.
+     */
+    String version(@Nullable Integer version) {
+        if (version == null) {
+            return NONE;
+        }
+        if (bucketSize == 1) {
+            return String.valueOf(version);
+        }
+        int oldest = (version - 1) / bucketSize * bucketSize + 1;
+        return oldest + "-" + (oldest + bucketSize - 1);
+    }
+
+    /***
+     * Returns the declared version range of the matched mapping, e.g. 1-9 or 1-latest.
+     */
+    String versionRange(@Nullable VersionedMapping versionedMapping) {
+        if (versionedMapping == null) {
+            return NONE;
+        }
+        String newest = versionedMapping.newest() == VersionMapping.LATEST ? "latest" : String.valueOf(versionedMapping.newest());
+        return versionedMapping.oldest() + "-" + newest;
+    }
+
+    /***
+     * Replaces the version in the matched pattern by {version}, so all versions of an endpoint share one uri tag value,
+     * e.g. /v3/a and /v{dynamicVersion:\d+}/a both become /v{version}/a.
+     * @param pattern the best matching pattern
+     * @param versionedMapping the matched versioned mapping
+     * @return the uri template or null when the pattern does not contain a version
+     */
+    @Nullable
+    String uri(@Nullable String pattern, @Nullable VersionedMapping versionedMapping) {
+        if (pattern == null || versionedMapping == null) {
+            return null;
+        }
+
+        // compact mode
+        if (pattern.contains(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER)) {
+            return pattern.replace(ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER, "{" + VERSION + "}");
+        }
+        if (pattern.contains(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER)) {
+            return pattern.replace(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER, "{" + VERSION + "}");
+        }
+
+        // expanded mode
+        for (VersionedPath path : versionedMapping.paths()) {
+            if (VersionRangeRequestCondition.parseVersion(pattern, path.segmentIndex(), prefix) != -1) {
+                return VersionMappingSupport.replaceSegment(pattern, path.segmentIndex(), prefix + "{" + VERSION + "}");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+
+/***
+ * The versions that are supported. Versions older than the oldest supported version are retired and versions newer
+ * than the latest version are not served yet.
+ * @param minSupported the oldest supported version (inclusive)
+ * @param latest the latest version (inclusive), {@link VersionMapping#LATEST} means no upper bound
+ */
+public record VersionWindow(int minSupported, int latest) {
+
+    /***
+     * The window without bounds, in which every declared version is served.
+     */
+    public static final VersionWindow UNBOUNDED = new VersionWindow(0, VersionMapping.LATEST);
+
+    public VersionWindow {
+        if (minSupported < 0) {
+            throw new RuntimeException("The oldest supported version should not be negative, but was " + minSupported + ".");
+        }
+        if (latest < minSupported) {
+            throw new RuntimeException(String.format("The latest version (%s) should not be older than the oldest "
+                    + "supported version (%s).", latest, minSupported));
+        }
+    }
+
+    public boolean contains(int version) {
+        return version >= minSupported && version <= latest;
+    }
+
+    public boolean isUnbounded() {
+        return minSupported == 0 && latest == VersionMapping.LATEST;
+    }
+}
@@ -0,0 +1,536 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Creates the versioned request mapping info of the declared mappings for the supported versions: expanded (a path per
+ * version, in lazy mode only the newest versions), compact, sparse or semantic, or with a version condition for the
+ * resolvers that are not path based. When the supported versions change, the mappings of which the versions change are
+ * registered again.
+ */
+final class VersionWindowRegistrar {
+
+    /***
+     * Registers the mappings at the handler mapping.
+     */
+    interface Registration {
+        void register(RequestMappingInfo info, Object handler, Method method);
+
+        void unregister(RequestMappingInfo info);
+
+        Map<RequestMappingInfo, HandlerMethod> getHandlerMethods();
+
+        Class<?> getHandlerType(Object handler);
+
+        void invalidateLookups();
+    }
+
+    /***
+     * The paths of an expanded mapping, created before the registration (e.g. by the parallel scan).
+     * @param oldest the oldest version of the paths
+     * @param newest the newest version of the paths
+     * @param paths the expanded paths
+     */
+    record ExpandedPaths(int oldest, int newest, String[] paths) {
+    }
+
+    private final String prefix;
+
+    private final VersionMappingSupport support;
+
+    private final VersionedMappingRegistry<RequestMappingInfo> registry;
+
+    private final LazyVersionTable lazyVersionTable;
+
+    private final Registration registration;
+
+    private VersionResolver versionResolver;
+
+    private boolean compact = false;
+
+    private boolean lazy = false;
+
+    private int eagerVersions = 2;
+
+    // the supported versions, checked for every request without locking
+    private volatile VersionWindow versionWindow = VersionWindow.UNBOUNDED;
+
+    // method -> the declared versions and the mapping that is registered for the current version window
+    private final Map<Method, DeclaredMapping> declaredMappings = new ConcurrentHashMap<>();
+
+    // the mappings that are replaced while the version window changes, used when the registry has no match
+    private volatile List<Map.Entry<RequestMappingInfo, HandlerMethod>> bridgedMappings = List.of();
+
+    // endpoint (the request mapping info with the placeholder paths) -> the since versions of its sparse mappings
+    private final Map<RequestMappingInfo, SparseVersionTable> sparseVersionTables = new ConcurrentHashMap<>();
+
+    // the newest version of all version mapping annotations (without LATEST)
+    private volatile int newestDeclaredVersion = 0;
+
+    VersionWindowRegistrar(String prefix, VersionMappingSupport support, VersionedMappingRegistry<RequestMappingInfo> registry,
+                           LazyVersionTable lazyVersionTable, Registration registration) {
+        this.prefix = prefix;
+        this.support = support;
+        this.registry = registry;
+        this.lazyVersionTable = lazyVersionTable;
+        this.registration = registration;
+        this.versionResolver = new PathPrefixVersionResolver(prefix);
+    }
+
+    void setVersionResolver(VersionResolver versionResolver) {
+        this.versionResolver = versionResolver;
+    }
+
+    VersionResolver getVersionResolver() {
+        return versionResolver;
+    }
+
+    void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    boolean isCompact() {
+        return compact;
+    }
+
+    void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    boolean isLazy() {
+        return lazy;
+    }
+
+    void setEagerVersions(int eagerVersions) {
+        this.eagerVersions = eagerVersions;
+    }
+
+    int getEagerVersions() {
+        return eagerVersions;
+    }
+
+    VersionWindow getVersionWindow() {
+        return versionWindow;
+    }
+
+    /***
+     * Returns the mappings that were replaced by a change of the version window that is in progress.
+     */
+    List<Map.Entry<RequestMappingInfo, HandlerMethod>> getBridgedMappings() {
+        return bridgedMappings;
+    }
+
+    /***
+     * Returns the configured latest version or, when no latest version is configured, the newest version of all version
+     * mapping annotations.
+     */
+    int getCurrentVersion() {
+        int latest = versionWindow.latest();
+        return latest != VersionMapping.LATEST ? latest : newestDeclaredVersion;
+    }
+
+    /***
+     * Sets the supported versions and registers the mappings of which the versions change again.
+     * @param minSupported the oldest supported version
+     * @param latest the latest version
+     * @throws IllegalArgumentException when the supported versions are invalid
+     */
+    synchronized void setSupportedVersions(int minSupported, int latest) {
+        VersionWindow window = checkSupportedVersions(minSupported, latest);
+        VersionWindow previousWindow = versionWindow;
+        versionWindow = window;
+        if (declaredMappings.isEmpty() || window.equals(previousWindow)) {
+            return;
+        }
+
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = registration.getHandlerMethods();
+        for (DeclaredMapping declaredMapping : declaredMappings.values()) {
+            updateRegistration(declaredMapping, window, handlerMethods);
+        }
+        // the sparse mappings stay registered, but the cached lookups can depend on the latest version
+        if (!sparseVersionTables.isEmpty()) {
+            registration.invalidateLookups();
+        }
+    }
+
+    /***
+     * Checks the supported versions against all declared mappings, without changing anything.
+     * @param minSupported the oldest supported version
+     * @param latest the latest version
+     * @return the supported versions
+     * @throws IllegalArgumentException when the supported versions are invalid
+     */
+    VersionWindow checkSupportedVersions(int minSupported, int latest) {
+        VersionWindow window;
+        try {
+            window = new VersionWindow(minSupported, latest);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        for (DeclaredMapping declaredMapping : declaredMappings.values()) {
+            checkLatestVersion(declaredMapping, window);
+        }
+        return window;
+    }
+
+    /***
+     * Checks that an expanded mapping up to {@link VersionMapping#LATEST} has a latest version, because every version
+     * is registered as a path.
+     */
+    private void checkLatestVersion(DeclaredMapping declaredMapping, VersionWindow window) {
+        VersionMappingSupport.VersionDeclaration declaration = declaredMapping.declaration;
+        boolean expanded = versionResolver.isPathBased() && !compact && !declaration.sparse()
+                && declaration.semanticRange() == null;
+        if (expanded && declaration.newest() == VersionMapping.LATEST && window.latest() == VersionMapping.LATEST) {
+            throw new IllegalArgumentException(String.format("The newest version of %s is LATEST, but no latest version "
+                    + "is configured (version.latest).", declaredMapping.method));
+        }
+    }
+
+    /***
+     * Expands the paths of a mapping for the given supported versions, when the mapping is expanded.
+     * @param info the request mapping info without versions
+     * @param declaration the declared versions
+     * @param window the supported versions
+     * @return the expanded paths or null when the mapping is not expanded
+     */
+    @Nullable
+    ExpandedPaths expand(RequestMappingInfo info, VersionMappingSupport.VersionDeclaration declaration, VersionWindow window) {
+        int oldestVersion = Math.max(declaration.oldest(), window.minSupported());
+        int newestVersion = Math.min(declaration.newest(), window.latest());
+        if (!versionResolver.isPathBased() || compact || declaration.semanticRange() != null
+                || newestVersion == VersionMapping.LATEST || oldestVersion > newestVersion) {
+            return null;
+        }
+        int eagerOldestVersion = getEagerOldestVersion(oldestVersion, newestVersion);
+        return new ExpandedPaths(eagerOldestVersion, newestVersion,
+                support.updatePaths(info.getPatternValues(), declaration.paths(), eagerOldestVersion, newestVersion));
+    }
+
+    /***
+     * Declares the versions of a handler method and creates its request mapping info for the current version window.
+     * @param info the request mapping info without versions
+     * @param declaration the declared versions
+     * @param versionedPaths the paths that contain a version
+     * @param handler the handler (bean name or instance), needed to register the mapping again
+     * @param method the handler method
+     * @param methodEntry the entry in the restart cache or null when the restart cache is disabled
+     * @param expandedPaths the paths that were expanded before the registration or null
+     * @return the versioned request mapping info or null when none of the declared versions is supported
+     */
+    @Nullable
+    RequestMappingInfo declare(RequestMappingInfo info, VersionMappingSupport.VersionDeclaration declaration,
+                               List<VersionedPath> versionedPaths, @Nullable Object handler, Method method,
+                               @Nullable RestartCache.MethodEntry methodEntry, @Nullable ExpandedPaths expandedPaths) {
+        DeclaredMapping declaredMapping = new DeclaredMapping(info, declaration, versionedPaths, handler, method,
+                methodEntry, expandedPaths);
+        // the since version of a sparse mapping is its newest declared version
+        int declaredNewest = declaration.sparse() ? declaration.oldest() : declaration.newest();
+        if (declaredNewest != VersionMapping.LATEST && declaredNewest > newestDeclaredVersion) {
+            newestDeclaredVersion = declaredNewest;
+        }
+        declaredMappings.put(method, declaredMapping);
+
+        RequestMappingInfo versionedInfo = createVersionedInfo(declaredMapping, versionWindow);
+        declaredMapping.registeredInfo = versionedInfo;
+        declaredMapping.expandedPaths = null;
+        return versionedInfo;
+    }
+
+    /***
+     * Creates the request mapping info for the declared versions that lie within the version window.
+     * @param declaredMapping the declared versions and the request mapping info without versions
+     * @param window the supported versions
+     * @return the request mapping info or null when none of the declared versions is supported
+     */
+    @Nullable
+    private RequestMappingInfo createVersionedInfo(DeclaredMapping declaredMapping, VersionWindow window) {
+        RequestMappingInfo info = declaredMapping.info;
+        VersionMappingSupport.VersionDeclaration declaration = declaredMapping.declaration;
+        List<VersionedPath> versionedPaths = declaredMapping.versionedPaths;
+
+        // the version window is checked per request, so a sparse mapping does not change with the window
+        if (declaration.sparse()) {
+            return createSparseInfo(declaredMapping);
+        }
+        if (declaration.semanticRange() != null) {
+            return createSemanticInfo(declaredMapping, window);
+        }
+
+        int oldestVersion = Math.max(declaration.oldest(), window.minSupported());
+        int newestVersion = Math.min(declaration.newest(), window.latest());
+        if (oldestVersion > newestVersion) {
+            return null;
+        }
+
+        if (!versionResolver.isPathBased()) {
+            // the version is not part of the path, so the paths stay as they are
+            info = info.mutate()
+                    .customCondition(new ResolvedVersionRequestCondition(oldestVersion, newestVersion, versionResolver))
+                    .build();
+            registry.put(info, new VersionedMapping(oldestVersion, newestVersion, versionedPaths, declaration.cacheTtl()));
+        } else if (compact) {
+            info = createCompactInfo(info, oldestVersion, newestVersion, versionedPaths);
+            registry.put(info, new VersionedMapping(oldestVersion, newestVersion, versionedPaths, declaration.cacheTtl()));
+        } else {
+            checkLatestVersion(declaredMapping, window);
+
+            // in lazy mode the older versions are registered on first use
+            int eagerOldestVersion = getEagerOldestVersion(oldestVersion, newestVersion);
+            String[] versionPaths = expandPaths(declaredMapping, eagerOldestVersion, newestVersion);
+            // update the request mapping info
+            info = info.mutate().paths(versionPaths).build();
+
+            registry.put(info, new VersionedMapping(oldestVersion, newestVersion, versionedPaths, declaration.cacheTtl()));
+            if (eagerOldestVersion > oldestVersion && !versionedPaths.isEmpty()) {
+                lazyVersionTable.add(info, oldestVersion, eagerOldestVersion - 1, versionedPaths, declaration.cacheTtl());
+            }
+        }
+        return info;
+    }
+
+    private int getEagerOldestVersion(int oldestVersion, int newestVersion) {
+        return lazy ? Math.max(oldestVersion, newestVersion - eagerVersions + 1) : oldestVersion;
+    }
+
+    private String[] expandPaths(DeclaredMapping declaredMapping, int oldestVersion, int newestVersion) {
+        RestartCache.MethodEntry methodEntry = declaredMapping.methodEntry;
+        String[] paths = methodEntry != null ? methodEntry.getExpandedPaths(oldestVersion, newestVersion) : null;
+        if (paths == null) {
+            // expanded before the registration
+            ExpandedPaths expandedPaths = declaredMapping.expandedPaths;
+            paths = expandedPaths != null && expandedPaths.oldest() == oldestVersion && expandedPaths.newest() == newestVersion
+                    ? expandedPaths.paths() : null;
+            if (paths == null) {
+                paths = support.updatePaths(declaredMapping.info.getPatternValues(), declaredMapping.declaration.paths(),
+                        oldestVersion, newestVersion);
+            }
+            if (methodEntry != null) {
+                methodEntry.setExpandedPaths(oldestVersion, newestVersion, paths);
+            }
+        }
+        return paths;
+    }
+
+    /***
+     * Replaces the registered mapping of a declared mapping when its supported versions have changed. The old mapping
+     * is bridged: it is used for the requests that arrive between the unregistration and the registration.
+     */
+    private void updateRegistration(DeclaredMapping declaredMapping, VersionWindow window,
+                                    Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        RequestMappingInfo registeredInfo = declaredMapping.registeredInfo;
+        VersionedMapping registered = registeredInfo != null ? registry.get(registeredInfo) : null;
+        int oldestVersion = Math.max(declaredMapping.declaration.oldest(), window.minSupported());
+        int newestVersion = Math.min(declaredMapping.declaration.newest(), window.latest());
+        boolean unchanged = registered != null
+                ? registered.oldest() == oldestVersion && registered.newest() == newestVersion
+                : oldestVersion > newestVersion;
+        if (unchanged || declaredMapping.handler == null || declaredMapping.declaration.sparse()) {
+            return;
+        }
+
+        if (registeredInfo != null) {
+            List<Map.Entry<RequestMappingInfo, HandlerMethod>> bridge = new ArrayList<>();
+            for (RequestMappingInfo info : concat(registeredInfo, lazyVersionTable.getMaterialized(registeredInfo))) {
+                HandlerMethod handlerMethod = handlerMethods.get(info);
+                if (handlerMethod != null) {
+                    bridge.add(Map.entry(info, handlerMethod));
+                }
+            }
+            bridgedMappings = bridge;
+            registration.unregister(registeredInfo);
+        }
+
+        RequestMappingInfo info = createVersionedInfo(declaredMapping, window);
+        if (info != null) {
+            Object handler = declaredMapping.handler;
+            Method invocableMethod = AopUtils.selectInvocableMethod(declaredMapping.method, registration.getHandlerType(handler));
+            registry.setMethod(info, invocableMethod);
+            lazyVersionTable.setHandler(info, handler, invocableMethod);
+            registration.register(info, handler, invocableMethod);
+        }
+        declaredMapping.registeredInfo = info;
+        bridgedMappings = List.of();
+    }
+
+    private static List<RequestMappingInfo> concat(RequestMappingInfo info, List<RequestMappingInfo> infos) {
+        List<RequestMappingInfo> result = new ArrayList<>(infos.size() + 1);
+        result.add(info);
+        result.addAll(infos);
+        return result;
+    }
+
+    /***
+     * Creates a request mapping info with one pattern per path, in which the version is a placeholder. The version
+     * range is checked by a {@link VersionRangeRequestCondition}.
+     * @param info the existing request mapping info
+     * @param oldestVersion the oldest version from the annotation
+     * @param newestVersion the newest version from the annotation
+     * @param versionedPaths the paths that contain a version
+     * @return the compact request mapping info
+     */
+    private RequestMappingInfo createCompactInfo(RequestMappingInfo info, int oldestVersion, int newestVersion,
+                                                 List<VersionedPath> versionedPaths) {
+
+        // nothing to compact
+        if (versionedPaths.isEmpty()) {
+            return info;
+        }
+
+        String[] compactPaths = VersionMappingSupport.getCompactPaths(versionedPaths);
+        int[] segmentIndexes = VersionMappingSupport.getSegmentIndexes(versionedPaths);
+
+        VersionRangeRequestCondition condition = new VersionRangeRequestCondition(oldestVersion, newestVersion,
+                prefix, segmentIndexes);
+
+        return info.mutate()
+                .paths(compactPaths)
+                .customCondition(condition)
+                .build();
+    }
+
+    /***
+     * Creates a request mapping info with one pattern per path, in which the version is a placeholder. The served
+     * versions are found by a {@link SinceVersionRequestCondition} in the since versions of the endpoint.
+     * @param declaredMapping the declared since version and the request mapping info without versions
+     * @return the sparse request mapping info
+     */
+    private RequestMappingInfo createSparseInfo(DeclaredMapping declaredMapping) {
+        if (!versionResolver.isPathBased()) {
+            throw new RuntimeException(String.format("The since version of %s requires a path based version resolver.",
+                    declaredMapping.method));
+        }
+
+        // nothing to version
+        List<VersionedPath> versionedPaths = declaredMapping.versionedPaths;
+        if (versionedPaths.isEmpty()) {
+            return declaredMapping.info;
+        }
+
+        int since = declaredMapping.declaration.oldest();
+        RequestMappingInfo endpoint = declaredMapping.info.mutate()
+                .paths(VersionMappingSupport.getCompactPaths(versionedPaths))
+                .build();
+        SparseVersionTable table = sparseVersionTables.computeIfAbsent(endpoint, e -> new SparseVersionTable(
+                () -> versionWindow.minSupported(), this::getCurrentVersion));
+        table.add(since, declaredMapping.method);
+
+        RequestMappingInfo info = endpoint.mutate()
+                .customCondition(new SinceVersionRequestCondition(since, table, prefix,
+                        VersionMappingSupport.getSegmentIndexes(versionedPaths)))
+                .build();
+        // the newest version is known when all mappings of the endpoint have been registered
+        registry.put(info, new VersionedMapping(since, VersionMapping.LATEST, versionedPaths,
+                declaredMapping.declaration.cacheTtl()));
+        return info;
+    }
+
+    /***
+     * Creates a request mapping info with one pattern per path, in which the version is a major.minor placeholder. The
+     * range is checked by a {@link SemanticVersionRequestCondition}, so the minor versions are never expanded. The
+     * version window limits the major versions.
+     * @param declaredMapping the declared major.minor versions and the request mapping info without versions
+     * @param window the supported versions
+     * @return the semantic request mapping info or null when none of the declared versions is supported
+     */
+    @Nullable
+    private RequestMappingInfo createSemanticInfo(DeclaredMapping declaredMapping, VersionWindow window) {
+        if (!versionResolver.isPathBased()) {
+            throw new RuntimeException(String.format("The semantic versions of %s require a path based version resolver.",
+                    declaredMapping.method));
+        }
+
+        // nothing to version
+        List<VersionedPath> versionedPaths = declaredMapping.versionedPaths;
+        if (versionedPaths.isEmpty()) {
+            return declaredMapping.info;
+        }
+
+        VersionMappingSupport.VersionDeclaration declaration = declaredMapping.declaration;
+        SemanticVersionRange declared = declaration.semanticRange();
+        SemanticVersionRange range = new SemanticVersionRange(
+                Math.max(declared.oldest(), SemanticVersion.pack(window.minSupported(), 0)),
+                Math.min(declared.newest(), SemanticVersion.pack(window.latest(), Integer.MAX_VALUE)));
+        if (range.oldest() > range.newest()) {
+            return null;
+        }
+
+        List<VersionedPath> semanticPaths = versionedPaths.stream()
+                .map(path -> new VersionedPath(path.unversionedPath(), path.placeholderPath().replace(
+                        ApiVersionRequestMappingHandlerMapping.VERSION_PLACEHOLDER,
+                        ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_PLACEHOLDER), path.segmentIndex()))
+                .toList();
+        RequestMappingInfo info = declaredMapping.info.mutate()
+                .paths(VersionMappingSupport.getCompactPaths(semanticPaths))
+                .customCondition(new SemanticVersionRequestCondition(range, prefix,
+                        VersionMappingSupport.getSegmentIndexes(semanticPaths)))
+                .build();
+        registry.put(info, new VersionedMapping(SemanticVersion.major(range.oldest()),
+                SemanticVersion.major(range.newest()), semanticPaths, declaration.cacheTtl()));
+        return info;
+    }
+
+    /***
+     * Sets the newest version of the sparse mappings to the version before the next since version of their endpoint,
+     * so the versioned mappings (e.g. in the overlap check and the route table) show the versions that are served.
+     */
+    void resolveSparseRanges(Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        if (sparseVersionTables.isEmpty()) {
+            return;
+        }
+        registry.asMap().forEach((info, versionedMapping) -> {
+            if (info.getCustomCondition() instanceof SinceVersionRequestCondition condition) {
+                VersionedMapping resolved = new VersionedMapping(versionedMapping.oldest(), condition.getNewest(),
+                        versionedMapping.paths(), versionedMapping.cacheTtl());
+                HandlerMethod handlerMethod = handlerMethods.get(info);
+                if (handlerMethod != null) {
+                    registry.put(info, handlerMethod.getMethod(), resolved);
+                } else {
+                    registry.put(info, resolved);
+                }
+            }
+        });
+    }
+
+    /***
+     * The declared versions of a handler method and the mapping that is registered for the current version window.
+     */
+    private static final class DeclaredMapping {
+
+        private final RequestMappingInfo info;
+        private final VersionMappingSupport.VersionDeclaration declaration;
+        private final List<VersionedPath> versionedPaths;
+        @Nullable
+        private final Object handler;
+        private final Method method;
+        @Nullable
+        private final RestartCache.MethodEntry methodEntry;
+        // only used for the initial registration
+        @Nullable
+        private ExpandedPaths expandedPaths;
+        @Nullable
+        private volatile RequestMappingInfo registeredInfo;
+
+        private DeclaredMapping(RequestMappingInfo info, VersionMappingSupport.VersionDeclaration declaration,
+                                List<VersionedPath> versionedPaths, @Nullable Object handler, Method method,
+                                @Nullable RestartCache.MethodEntry methodEntry, @Nullable ExpandedPaths expandedPaths) {
+            this.info = info;
+            this.declaration = declaration;
+            this.versionedPaths = versionedPaths;
+            this.handler = handler;
+            this.method = method;
+            this.methodEntry = methodEntry;
+            this.expandedPaths = expandedPaths;
+        }
+    }
+}
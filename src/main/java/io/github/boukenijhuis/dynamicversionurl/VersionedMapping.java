@@ -0,0 +1,21 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import java.util.List;
+
+/***
+ * The version information of a mapping that was created from a version mapping annotation.
+ * @param oldest the oldest version (inclusive)
+ * @param newest the newest version (inclusive)
+ * @param paths the paths that contain a version
+ * @param cacheTtl the number of seconds that the responses of the older versions are cached (0 means not cached)
+ */
+public record VersionedMapping(int oldest, int newest, List<VersionedPath> paths, int cacheTtl) {
+
+    public VersionedMapping(int oldest, int newest, List<VersionedPath> paths) {
+        this(oldest, newest, paths, 0);
+    }
+
+    public boolean contains(int version) {
+        return version >= oldest && version <= newest;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * The version information of the versioned mappings, by request mapping info and by handler method. A match only has
+ * a copy of the request mapping info (with the matching conditions), so the versioned mapping of a match is found via
+ * its handler method. Used by the servlet and the reactive handler mapping, which have their own request mapping info.
+ * @param <I> the type of the request mapping info
+ */
+final class VersionedMappingRegistry<I> {
+
+    // the version information of every versioned mapping
+    private final Map<I, VersionedMapping> versionedMappings = new ConcurrentHashMap<>();
+
+    // handler method -> version information, also used for the mappings that are registered in lazy mode
+    private final Map<Method, VersionedMapping> versionedMappingsByMethod = new ConcurrentHashMap<>();
+
+    // versioned mapping -> its handler method, so an unregistered mapping is removed from the map above in constant time
+    private final Map<I, Method> methodsByVersionedInfo = new ConcurrentHashMap<>();
+
+    /***
+     * Adds the version information of a mapping that is about to be registered.
+     */
+    void put(I info, VersionedMapping versionedMapping) {
+        versionedMappings.put(info, versionedMapping);
+    }
+
+    /***
+     * Replaces the version information of a registered mapping.
+     */
+    void put(I info, Method method, VersionedMapping versionedMapping) {
+        versionedMappings.put(info, versionedMapping);
+        versionedMappingsByMethod.put(method, versionedMapping);
+        methodsByVersionedInfo.put(info, method);
+    }
+
+    /***
+     * Links the version information of a mapping to its handler method, when the mapping is versioned.
+     */
+    void setMethod(I info, Method method) {
+        VersionedMapping versionedMapping = versionedMappings.get(info);
+        if (versionedMapping != null) {
+            versionedMappingsByMethod.put(method, versionedMapping);
+            methodsByVersionedInfo.put(info, method);
+        }
+    }
+
+    @Nullable
+    VersionedMapping get(I info) {
+        return versionedMappings.get(info);
+    }
+
+    @Nullable
+    VersionedMapping get(Method method) {
+        return versionedMappingsByMethod.get(method);
+    }
+
+    /***
+     * Removes the version information of a mapping. The handler method keeps the version information of a newer
+     * mapping.
+     */
+    void remove(I info) {
+        VersionedMapping versionedMapping = versionedMappings.remove(info);
+        Method method = methodsByVersionedInfo.remove(info);
+        if (versionedMapping != null && method != null) {
+            versionedMappingsByMethod.remove(method, versionedMapping);
+        }
+    }
+
+    boolean isEmpty() {
+        return versionedMappings.isEmpty();
+    }
+
+    /***
+     * Returns a read-only view of the version information by request mapping info.
+     */
+    Map<I, VersionedMapping> asMap() {
+        return Collections.unmodifiableMap(versionedMappings);
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.boukenijhuis.dynamicversionurl;
+
+/***
+ * A path of a versioned mapping.
+ * @param unversionedPath the path without a version (e.g. /api/a/{id})
+ * @param placeholderPath the path with a version placeholder (e.g. /api/v{dynamicVersion:\d+}/a/{id})
+ * @param segmentIndex the index of the path segment that contains the version (the first segment has index 0)
+ */
+public record VersionedPath(String unversionedPath, String placeholderPath, int segmentIndex) {
+}
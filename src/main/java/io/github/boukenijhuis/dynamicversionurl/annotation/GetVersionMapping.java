@@ -24,6 +24,20 @@ public @interface GetVersionMapping {
     @AliasFor("version")
     int[] versions() default 1;
 
+    /***
+     * The version in which the behavior of the endpoint changed, instead of a range of versions. The mapping serves
+     * this version and the newer ones, up to the next mapping of the same endpoint with a higher since version or up
+     * to the current version. Cannot be combined with versions. 0 means that the versions are used.
+     */
+    int since() default 0;
+
+    /***
+     * A range of major.minor versions, e.g. {"2.0", "2.7"}, or a single major.minor version, instead of the integer
+     * versions. The version in the URL is then a major.minor version as well (e.g. /v2.3/orders). Only one pattern per
+     * path is registered, the minor versions are not expanded. Cannot be combined with versions or since.
+     */
+    String[] semanticVersions() default {};
+
     @AliasFor(
             annotation = RequestMapping.class
     )
@@ -58,5 +72,18 @@ public @interface GetVersionMapping {
             annotation = RequestMapping.class
     )
     String[] produces() default {};
+
+    /***
+     * The number of seconds that the successful responses of the versions older than the current version are kept in
+     * the response cache (only for GET requests). 0 disables the cache. The current version is never cached.
+     */
+    int cacheTtl() default 0;
+
+    /***
+     * The maximum number of concurrent requests for this mapping (all its versions together). The requests above the
+     * maximum are rejected right away with the status of version.bulkhead.rejection-status (503 by default). 0 means
+     * that the requests are not limited.
+     */
+    int maxConcurrent() default 0;
 }
 
@@ -0,0 +1,585 @@
+package io.github.boukenijhuis.dynamicversionurl.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/***
+ * Validates the version mapping annotations at compile time. It reports malformed version ranges and overlapping
+ * version ranges (for the same path, request method and conditions) as compile errors, with the same messages as the
+ * runtime checks. It also writes a route descriptor with the versions, paths, cache ttl and maximum number of
+ * concurrent requests of every versioned method, which the runtime can use instead of evaluating the annotations. Every
+ * route has a fingerprint of the annotation values, so the runtime does not use a route of a class that was compiled
+ * again without the processor.
+ * <p>
+ * The processor only works with the names of the annotations, so Spring does not have to be on the processor path.
+ * The version prefix can be set with the option -Adynamicversionurl.prefix (default 'v').
+ */
+@SupportedAnnotationTypes({
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".GetVersionMapping",
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".PostVersionMapping",
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".PutVersionMapping",
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".PatchVersionMapping",
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".DeleteVersionMapping",
+        VersionMappingProcessor.VERSION_ANNOTATION_PACKAGE + ".VersionMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".RequestMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".GetMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".PostMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".PutMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".PatchMapping",
+        VersionMappingProcessor.SPRING_ANNOTATION_PACKAGE + ".DeleteMapping"
+})
+@SupportedOptions(VersionMappingProcessor.PREFIX_OPTION)
+public class VersionMappingProcessor extends AbstractProcessor {
+
+    /***
+     * The location of the route descriptor in the class output.
+     */
+    public static final String DESCRIPTOR_LOCATION = "META-INF/dynamic-version-url/routes.properties";
+
+    /***
+     * The key of the compilation id in the route descriptor. All routes in a descriptor were checked together.
+     */
+    public static final String COMPILATION_KEY = "compilation";
+
+    /***
+     * The key of the format of the route descriptor. Descriptors with another format are not used by the runtime.
+     */
+    public static final String FORMAT_KEY = "format";
+
+    /***
+     * The format of the routes: the oldest and newest version, the cache ttl, the maximum number of concurrent requests,
+     * the fingerprint and the encoded paths, separated by spaces.
+     */
+    public static final String FORMAT = "2";
+
+    static final String PREFIX_OPTION = "dynamicversionurl.prefix";
+    static final String VERSION_ANNOTATION_PACKAGE = "io.github.boukenijhuis.dynamicversionurl.annotation";
+    static final String SPRING_ANNOTATION_PACKAGE = "org.springframework.web.bind.annotation";
+
+    private static final String PLACEHOLDER = "{}";
+
+    // the methods in source order, collected over all rounds
+    private final Map<ExecutableElement, MappedMethod> methods = new LinkedHashMap<>();
+
+    // every method is read once, also when it has a version and a Spring annotation (e.g. VersionMapping and GetMapping)
+    private final Set<ExecutableElement> readMethods = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof ExecutableElement method && readMethods.add(method)) {
+                    MappedMethod mappedMethod = readMethod(method);
+                    if (mappedMethod != null) {
+                        methods.put(method, mappedMethod);
+                    }
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !methods.isEmpty()) {
+            boolean valid = checkOverlaps();
+            if (valid && !roundEnv.errorRaised()) {
+                writeDescriptor();
+            }
+        }
+
+        // the annotations are not claimed, so other processors can use them as well
+        return false;
+    }
+
+    /***
+     * Reads the request methods, paths, conditions and versions of a mapped method. Reports malformed version ranges.
+     */
+    private MappedMethod readMethod(ExecutableElement method) {
+        AnnotationMirror versionAnnotation = getFirstAnnotation(method, VERSION_ANNOTATION_PACKAGE);
+        AnnotationMirror springAnnotation = getFirstAnnotation(method, SPRING_ANNOTATION_PACKAGE);
+
+        // the special case VersionMapping takes the paths and request methods from the Spring annotation
+        boolean versionMapping = versionAnnotation != null && getSimpleName(versionAnnotation).equals("VersionMapping");
+        AnnotationMirror mappingAnnotation = versionAnnotation != null && !versionMapping ? versionAnnotation : springAnnotation;
+        if (mappingAnnotation == null) {
+            return null;
+        }
+
+        List<String> paths = getPaths(mappingAnnotation);
+        // the versions of a sparse mapping depend on the other mappings of the endpoint, they are checked at runtime
+        if (versionAnnotation != null && getValue(versionAnnotation, "since") != null) {
+            if (hasVersions(versionAnnotation, versionMapping)) {
+                String annotationName = ((TypeElement) versionAnnotation.getAnnotationType().asElement()).getQualifiedName().toString();
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Both versions and since "
+                        + "specified on @%s with path %s, use only one of them.", annotationName, paths), method, versionAnnotation);
+            }
+            return null;
+        }
+        // the major.minor versions are checked at runtime
+        if (versionAnnotation != null && getValue(versionAnnotation, "semanticVersions") != null) {
+            if (hasVersions(versionAnnotation, versionMapping) || getValue(versionAnnotation, "since") != null) {
+                String annotationName = ((TypeElement) versionAnnotation.getAnnotationType().asElement()).getQualifiedName().toString();
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Both semanticVersions and "
+                        + "versions or since specified on @%s with path %s, use only one of them.", annotationName, paths),
+                        method, versionAnnotation);
+            }
+            return null;
+        }
+
+        int[] versions = null;
+        int cacheTtl = 0;
+        int maxConcurrent = 0;
+        String fingerprint = null;
+        if (versionAnnotation != null) {
+            versions = getVersions(versionAnnotation, versionMapping);
+            cacheTtl = getInt(versionAnnotation, "cacheTtl");
+            maxConcurrent = getInt(versionAnnotation, "maxConcurrent");
+            if (!isValid(method, versionAnnotation, versions, paths)
+                    || !isValid(method, versionAnnotation, cacheTtl, maxConcurrent, getRequestMethods(mappingAnnotation), paths)) {
+                return null;
+            }
+            fingerprint = getFingerprint(versionMapping ? List.of(versionAnnotation, mappingAnnotation) : List.of(versionAnnotation));
+        }
+
+        List<String> conditions = new ArrayList<>();
+        for (String name : List.of("params", "headers", "consumes", "produces")) {
+            List<String> values = new ArrayList<>(getStrings(mappingAnnotation, name));
+            Collections.sort(values);
+            conditions.add(name + values);
+        }
+
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        AnnotationMirror typeAnnotation = getAnnotation(type, SPRING_ANNOTATION_PACKAGE + ".RequestMapping");
+        List<String> typePaths = typeAnnotation != null ? getPaths(typeAnnotation) : List.of();
+
+        return new MappedMethod(method, type, getRequestMethods(mappingAnnotation), conditions,
+                typePaths.isEmpty() ? List.of("") : typePaths, paths.isEmpty() ? List.of("") : paths, versions,
+                cacheTtl, maxConcurrent, fingerprint);
+    }
+
+    private boolean isValid(ExecutableElement method, AnnotationMirror annotation, int[] versions, List<String> paths) {
+        Messager messager = processingEnv.getMessager();
+        String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+        if (versions.length == 0 || versions.length > 2) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Too many versions (%s) specified on @%s with path %s.",
+                    Arrays.toString(versions), annotationName, paths), method, annotation);
+            return false;
+        }
+        int oldest = versions[0];
+        int newest = versions[versions.length - 1];
+        if (oldest < 0 || oldest > newest) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Invalid version range (%s) specified on @%s with path %s.",
+                    Arrays.toString(versions), annotationName, paths), method, annotation);
+            return false;
+        }
+        return true;
+    }
+
+    /***
+     * Reports a negative cache ttl or maximum number of concurrent requests and a cache ttl on a mapping without the
+     * GET request method, which the runtime rejects as well.
+     */
+    private boolean isValid(ExecutableElement method, AnnotationMirror annotation, int cacheTtl, int maxConcurrent,
+                            Set<String> requestMethods, List<String> paths) {
+        Messager messager = processingEnv.getMessager();
+        String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+        if (cacheTtl < 0) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("The cache ttl should not be negative, but was %s on @%s with path %s.",
+                    cacheTtl, annotationName, paths), method, annotation);
+            return false;
+        }
+        // no request methods means all request methods
+        if (cacheTtl > 0 && !requestMethods.isEmpty() && !requestMethods.contains("GET")) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("The cache ttl only applies to GET requests, but was %s on @%s with path %s.",
+                    cacheTtl, annotationName, paths), method, annotation);
+            return false;
+        }
+        if (maxConcurrent < 0) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("The maximum number of concurrent requests should not be negative, but was %s on @%s with path %s.",
+                    maxConcurrent, annotationName, paths), method, annotation);
+            return false;
+        }
+        return true;
+    }
+
+    /***
+     * Groups the version ranges by path and conditions and reports every pair of ranges that overlap and share a
+     * request method. This is the same check as the runtime VersionOverlapChecker, over all classes in the compilation.
+     * @return true when there are no overlaps
+     */
+    private boolean checkOverlaps() {
+        String prefix = processingEnv.getOptions().getOrDefault(PREFIX_OPTION, "v");
+
+        Map<String, List<Range>> groups = new LinkedHashMap<>();
+        for (MappedMethod method : methods.values()) {
+            for (String typePath : method.typePaths()) {
+                for (String path : method.paths()) {
+                    String methodPath = path.isEmpty() || path.startsWith("/") ? path : "/" + path;
+                    if (method.versions() != null) {
+                        String placeholderPath = typePath + "/" + prefix + PLACEHOLDER + methodPath;
+                        addRange(groups, method, placeholderPath, method.versions()[0], method.versions()[method.versions().length - 1]);
+                    } else {
+                        // a mapping without a version annotation can still contain a version (e.g. /v3/a)
+                        String fullPath = typePath + methodPath;
+                        String[] segments = fullPath.split("/", -1);
+                        for (int i = 0; i < segments.length; i++) {
+                            int version = parseVersion(segments[i], prefix);
+                            if (version != -1) {
+                                segments[i] = prefix + PLACEHOLDER;
+                                addRange(groups, method, String.join("/", segments), version, version);
+                                segments[i] = prefix + version;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        boolean valid = true;
+        for (List<Range> ranges : groups.values()) {
+            ranges.sort(Comparator.comparingInt(Range::oldest));
+            List<Range> active = new ArrayList<>();
+            for (Range range : ranges) {
+                active.removeIf(activeRange -> activeRange.newest() < range.oldest());
+                for (Range activeRange : active) {
+                    if (sharesRequestMethod(activeRange.method(), range.method())) {
+                        String url = range.placeholderPath().replace(PLACEHOLDER, String.valueOf(range.oldest()));
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                String.format("Ambiguous version mapping found with the following URL: %s (%s and %s)",
+                                        url, describe(activeRange.method()), describe(range.method())),
+                                range.method().element());
+                        valid = false;
+                    }
+                }
+                active.add(range);
+            }
+        }
+        return valid;
+    }
+
+    private static void addRange(Map<String, List<Range>> groups, MappedMethod method, String placeholderPath, int oldest, int newest) {
+        String key = normalize(placeholderPath) + " " + method.conditions();
+        groups.computeIfAbsent(key, k -> new ArrayList<>()).add(new Range(oldest, newest, placeholderPath, method));
+    }
+
+    private static boolean sharesRequestMethod(MappedMethod a, MappedMethod b) {
+        // no request methods means all request methods
+        return a.requestMethods().isEmpty() || b.requestMethods().isEmpty() || !Collections.disjoint(a.requestMethods(), b.requestMethods());
+    }
+
+    private static String describe(MappedMethod method) {
+        return method.type().getSimpleName() + "#" + method.element().getSimpleName();
+    }
+
+    /***
+     * Writes the versions and paths of all versioned methods. The compilation id is a hash of the content, so the
+     * output is the same for the same sources.
+     */
+    private void writeDescriptor() {
+        StringBuilder routes = new StringBuilder();
+        List<Element> originatingElements = new ArrayList<>();
+        for (MappedMethod method : methods.values()) {
+            if (method.versions() == null) {
+                continue;
+            }
+            int[] versions = method.versions();
+            routes.append(escape(getKey(method))).append('=')
+                    .append(versions[0]).append(' ').append(versions[versions.length - 1])
+                    .append(' ').append(method.cacheTtl()).append(' ').append(method.maxConcurrent())
+                    .append(' ').append(method.fingerprint());
+            for (String path : method.paths()) {
+                routes.append(' ').append(escape(encodePath(path)));
+            }
+            routes.append('\n');
+            originatingElements.add(method.type());
+        }
+
+        if (routes.isEmpty()) {
+            return;
+        }
+
+        String content = "# generated by " + getClass().getName() + "\n"
+                + FORMAT_KEY + "=" + FORMAT + "\n"
+                + COMPILATION_KEY + "=" + Integer.toHexString(routes.toString().hashCode()) + "\n"
+                + routes;
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    DESCRIPTOR_LOCATION, originatingElements.stream().distinct().toArray(Element[]::new));
+            try (Writer writer = resource.openWriter()) {
+                writer.write(content);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write the route descriptor: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Returns the key of a method in the route descriptor, e.g. com.example.Controller#get(java.lang.String,int[]).
+     * The names are the binary names, as returned by Class.getTypeName() at runtime.
+     */
+    private String getKey(MappedMethod method) {
+        String parameters = method.element().getParameters().stream()
+                .map(parameter -> getTypeName(processingEnv.getTypeUtils().erasure(parameter.asType())))
+                .collect(Collectors.joining(","));
+        return processingEnv.getElementUtils().getBinaryName(method.type()) + "#" + method.element().getSimpleName() + "(" + parameters + ")";
+    }
+
+    private String getTypeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return getTypeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+        }
+        return type.toString();
+    }
+
+    /***
+     * Returns the fingerprint of the annotations of a method, with all attribute values (also the defaults).
+     */
+    private String getFingerprint(List<AnnotationMirror> annotations) {
+        Map<String, SortedMap<String, List<String>>> values = new LinkedHashMap<>();
+        for (AnnotationMirror annotation : annotations) {
+            SortedMap<String, List<String>> attributes = new TreeMap<>();
+            processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).forEach((element, value) ->
+                    attributes.put(element.getSimpleName().toString(), value.getValue() instanceof List<?> list
+                            ? list.stream().map(item -> getString((AnnotationValue) item)).toList()
+                            : List.of(getString(value))));
+            values.put(processingEnv.getElementUtils().getBinaryName((TypeElement) annotation.getAnnotationType().asElement()).toString(), attributes);
+        }
+        return fingerprint(values);
+    }
+
+    // the same strings as the runtime: enum constants by name and classes by binary name
+    private String getString(AnnotationValue value) {
+        if (value.getValue() instanceof VariableElement constant) {
+            return constant.getSimpleName().toString();
+        }
+        if (value.getValue() instanceof TypeMirror type) {
+            return getTypeName(type);
+        }
+        return value.getValue().toString();
+    }
+
+    /***
+     * Returns the fingerprint of the annotation values of a method: a hash of the (binary) annotation names and their attribute
+     * values (also the defaults), with every value as a list of strings (enum constants by name, classes by binary name).
+     * The runtime calculates it from the annotations of the loaded class and only uses a route with the same
+     * fingerprint.
+     * @param annotations the annotation name -> the attribute name -> the values, in the order of the annotations
+     * @return the fingerprint
+     */
+    public static String fingerprint(Map<String, SortedMap<String, List<String>>> annotations) {
+        StringBuilder content = new StringBuilder();
+        annotations.forEach((name, attributes) -> {
+            content.append('@').append(name).append('(');
+            attributes.forEach((attribute, values) -> content.append(attribute).append('=').append(values).append(','));
+            content.append(')');
+        });
+        return Integer.toHexString(content.toString().hashCode());
+    }
+
+    /***
+     * Encodes the characters of a path that cannot be written as they are: the space that separates the paths, the
+     * other whitespace and control characters, the characters outside ASCII (the descriptor is read as ISO-8859-1) and
+     * the percent sign itself. They become %XX for every UTF-8 byte, e.g. /a b becomes /a%20b.
+     */
+    private static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder(path.length());
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if (c <= ' ' || c >= 0x7F || c == '%') {
+                encoded.append(String.format("%%%02X", c));
+            } else {
+                encoded.append((char) c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    /***
+     * Escapes the characters that have a special meaning in a properties file.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("=", "\\=").replace(":", "\\:");
+    }
+
+    /***
+     * Removes the names of path variables, e.g. /a/{id} and /a/{name} both become /a/{}. Regular expressions of path
+     * variables are kept. The runtime overlap check groups the paths with this method as well, so both checks find the
+     * same overlaps.
+     * @param path the path
+     * @return the path without the names of the path variables
+     */
+    public static String normalize(String path) {
+        StringBuilder normalized = new StringBuilder(path.length());
+        int depth = 0;
+        boolean inName = false;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '{') {
+                depth++;
+                if (depth == 1) {
+                    inName = true;
+                    normalized.append(c);
+                    continue;
+                }
+            } else if (c == '}') {
+                depth--;
+                if (depth == 0) {
+                    inName = false;
+                }
+            } else if (c == ':' && depth == 1) {
+                inName = false;
+            }
+
+            if (!inName) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static int parseVersion(String segment, String prefix) {
+        if (!segment.startsWith(prefix) || segment.length() == prefix.length() || segment.length() - prefix.length() > 9) {
+            return -1;
+        }
+        for (int i = prefix.length(); i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(segment.substring(prefix.length()));
+    }
+
+    private static AnnotationMirror getFirstAnnotation(Element element, String packageName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().toString().startsWith(packageName + ".")) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String qualifiedName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(qualifiedName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static String getSimpleName(AnnotationMirror annotation) {
+        return annotation.getAnnotationType().asElement().getSimpleName().toString();
+    }
+
+    /***
+     * Returns the path attribute if it contains values, otherwise the value attribute (the same as the runtime).
+     */
+    private static List<String> getPaths(AnnotationMirror annotation) {
+        List<String> paths = getStrings(annotation, "path");
+        return paths.isEmpty() ? getStrings(annotation, "value") : paths;
+    }
+
+    private static Set<String> getRequestMethods(AnnotationMirror annotation) {
+        String name = getSimpleName(annotation);
+        if (name.equals("RequestMapping")) {
+            return new TreeSet<>(getStrings(annotation, "method"));
+        }
+        // e.g. GetVersionMapping or GetMapping
+        String requestMethod = name.replace("VersionMapping", "").replace("Mapping", "").toUpperCase(Locale.ROOT);
+        return Set.of(requestMethod);
+    }
+
+    private static int[] getVersions(AnnotationMirror annotation, boolean versionMapping) {
+        for (String name : getVersionAttributes(versionMapping)) {
+            if (getValue(annotation, name) != null) {
+                return getInts(annotation, name);
+            }
+        }
+        // the default version
+        return new int[]{1};
+    }
+
+    private static boolean hasVersions(AnnotationMirror annotation, boolean versionMapping) {
+        return getVersionAttributes(versionMapping).stream().anyMatch(name -> getValue(annotation, name) != null);
+    }
+
+    /***
+     * Returns the names of the attributes with the versions: the value of VersionMapping, or the versions (or version)
+     * of the other version mapping annotations.
+     */
+    private static List<String> getVersionAttributes(boolean versionMapping) {
+        return versionMapping ? List.of("value") : List.of("versions", "version");
+    }
+
+    private static int getInt(AnnotationMirror annotation, String name) {
+        AnnotationValue value = getValue(annotation, name);
+        return value != null ? (Integer) value.getValue() : 0;
+    }
+
+    private static int[] getInts(AnnotationMirror annotation, String name) {
+        return getValues(annotation, name).stream().mapToInt(value -> (Integer) value.getValue()).toArray();
+    }
+
+    private static List<String> getStrings(AnnotationMirror annotation, String name) {
+        // enum constants (e.g. RequestMethod.GET) are converted to their name
+        return getValues(annotation, name).stream().map(value -> value.getValue().toString()).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> getValues(AnnotationMirror annotation, String name) {
+        AnnotationValue value = getValue(annotation, name);
+        if (value == null) {
+            return List.of();
+        }
+        if (value.getValue() instanceof List<?>) {
+            return (List<? extends AnnotationValue>) value.getValue();
+        }
+        return List.of(value);
+    }
+
+    private static AnnotationValue getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /***
+     * A method with a (version) mapping annotation.
+     * @param versions the versions or null for a mapping without a version annotation
+     * @param fingerprint the fingerprint of the annotation values or null for a mapping without a version annotation
+     */
+    private record MappedMethod(ExecutableElement element, TypeElement type, Set<String> requestMethods,
+                                List<String> conditions, List<String> typePaths, List<String> paths, int[] versions,
+                                int cacheTtl, int maxConcurrent, String fingerprint) {
+    }
+
+    private record Range(int oldest, int newest, String placeholderPath, MappedMethod method) {
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.boukenijhuis.dynamicversionurl.bulkhead;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/bulkhead")
+public class BulkheadController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3}, maxConcurrent = 1)
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/b", versions = {1, 3})
+    public String b1() {
+        return "b1";
+    }
+
+    @GetVersionMapping(path = "/b", versions = {4, 5})
+    public String b4() {
+        return "b4";
+    }
+}
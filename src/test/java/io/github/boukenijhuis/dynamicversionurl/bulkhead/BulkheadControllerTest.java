@@ -0,0 +1,42 @@
+package io.github.boukenijhuis.dynamicversionurl.bulkhead;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.BulkheadStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = BulkheadController.class, properties = {"version.bulkhead.max-concurrent=1-2:5",
+        "version.bulkhead.rejection-status=429"})
+class BulkheadControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testPermitsAreReturned() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/bulkhead/v2/a")).andExpect(status().isOk()).andExpect(content().string("a1"));
+        }
+        mockMvc.perform(get("/bulkhead/v4/b")).andExpect(status().isOk()).andExpect(content().string("b4"));
+
+        ApiVersionRequestMappingHandlerMapping apiHandlerMapping = (ApiVersionRequestMappingHandlerMapping) handlerMapping;
+        assertEquals(429, apiHandlerMapping.getBulkheadRejectionStatus());
+        // version 4 is not in a bulkhead range
+        assertEquals(List.of(new BulkheadStatistics("1-2", 5, 0, 1, 3, 0),
+                        new BulkheadStatistics("BulkheadController#a1", 1, 0, 1, 3, 0)),
+                apiHandlerMapping.getBulkheadStatistics());
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.boukenijhuis.dynamicversionurl.bulkhead;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.BulkheadStatistics;
+import io.github.boukenijhuis.dynamicversionurl.DynamicVersionUrlMvcAutoConfiguration;
+import io.github.boukenijhuis.dynamicversionurl.VersionBulkhead;
+import io.github.boukenijhuis.dynamicversionurl.VersionBulkheadMeterBinder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    public void testMappingBulkhead() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping();
+
+        Request first = Request.start(handlerMapping, "/bulkhead/v1/a");
+        assertTrue(first.preHandle());
+        // the second concurrent request is rejected right away
+        Request second = Request.start(handlerMapping, "/bulkhead/v3/a");
+        assertFalse(second.preHandle());
+        assertEquals(503, second.response.getStatus());
+        // the other mappings are not limited
+        assertTrue(Request.start(handlerMapping, "/bulkhead/v1/b").preHandle());
+
+        first.afterCompletion();
+        assertTrue(Request.start(handlerMapping, "/bulkhead/v3/a").preHandle());
+        assertEquals(List.of(new BulkheadStatistics("BulkheadController#a1", 1, 1, 1, 2, 1)),
+                handlerMapping.getBulkheadStatistics());
+    }
+
+    @Test
+    public void testRangeBulkhead() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping();
+        handlerMapping.setVersionBulkheads(VersionBulkhead.parse("1-3:1"));
+        handlerMapping.setBulkheadRejectionStatus(429);
+
+        // the versions 1 to 3 of all mappings share the permit
+        Request first = Request.start(handlerMapping, "/bulkhead/v1/b");
+        assertTrue(first.preHandle());
+        Request second = Request.start(handlerMapping, "/bulkhead/v2/b");
+        assertFalse(second.preHandle());
+        assertEquals(429, second.response.getStatus());
+        assertTrue(Request.start(handlerMapping, "/bulkhead/v4/b").preHandle());
+
+        // an async dispatch of the same request does not take a second permit
+        assertTrue(first.preHandle());
+        first.afterCompletion();
+        assertTrue(Request.start(handlerMapping, "/bulkhead/v2/b").preHandle());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping();
+        handlerMapping.setVersionBulkheads(VersionBulkhead.parse("4-5:2"));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new VersionBulkheadMeterBinder(handlerMapping).bindTo(registry);
+
+        Request first = Request.start(handlerMapping, "/bulkhead/v1/a");
+        assertTrue(first.preHandle());
+        assertFalse(Request.start(handlerMapping, "/bulkhead/v2/a").preHandle());
+
+        assertEquals(1, registry.get("version.bulkhead.in.use").tag("bulkhead", "BulkheadController#a1").gauge().value());
+        assertEquals(1, registry.get("version.bulkhead.peak").tag("bulkhead", "BulkheadController#a1").gauge().value());
+        assertEquals(1, registry.get("version.bulkhead.max.concurrent").tag("bulkhead", "BulkheadController#a1").gauge().value());
+        assertEquals(1, registry.get("version.bulkhead.acquired").tag("bulkhead", "BulkheadController#a1").functionCounter().count());
+        assertEquals(1, registry.get("version.bulkhead.rejected").tag("bulkhead", "BulkheadController#a1").functionCounter().count());
+        assertEquals(2, registry.get("version.bulkhead.max.concurrent").tag("bulkhead", "4-5").gauge().value());
+
+        first.afterCompletion();
+        assertEquals(0, registry.get("version.bulkhead.in.use").tag("bulkhead", "BulkheadController#a1").gauge().value());
+    }
+
+    @Test
+    public void testOtherHandlerMapping() {
+        // with a second WebMvcRegistrations none of them is used, so the handler mapping is not versioned
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(WebMvcAutoConfiguration.class, DynamicVersionUrlMvcAutoConfiguration.class))
+                .withBean(WebMvcRegistrations.class, () -> new WebMvcRegistrations() { })
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertFalse(context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class)
+                            instanceof ApiVersionRequestMappingHandlerMapping);
+
+                    MeterRegistry registry = new SimpleMeterRegistry();
+                    context.getBean(VersionBulkheadMeterBinder.class).bindTo(registry);
+                    assertTrue(registry.getMeters().isEmpty());
+                });
+    }
+
+    @Test
+    public void testInvalidBulkheads() {
+        assertEquals(List.of(), VersionBulkhead.parse(""));
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> VersionBulkhead.parse("1-3:10,3-5:10"));
+        assertEquals("The bulkhead ranges 1-3 and 3-5 overlap.", exception.getMessage());
+        exception = assertThrows(RuntimeException.class, () -> VersionBulkhead.parse("1-3"));
+        assertEquals("Invalid bulkhead '1-3', expected a version range and a maximum number of concurrent requests (e.g. 1-3:20).",
+                exception.getMessage());
+        assertThrows(RuntimeException.class, () -> VersionBulkhead.parse("1:0"));
+        assertThrows(RuntimeException.class, () -> createHandlerMapping().setBulkheadRejectionStatus(500));
+    }
+
+    private record Request(MockHttpServletRequest request, MockHttpServletResponse response, HandlerExecutionChain chain) {
+
+        static Request start(ApiVersionRequestMappingHandlerMapping handlerMapping, String path) throws Exception {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            ServletRequestPathUtils.parseAndCache(request);
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            assertNotNull(chain);
+            return new Request(request, new MockHttpServletResponse(), chain);
+        }
+
+        boolean preHandle() throws Exception {
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                if (!interceptor.preHandle(request, response, chain.getHandler())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void afterCompletion() throws Exception {
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                interceptor.afterCompletion(request, response, chain.getHandler(), null);
+            }
+        }
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping() {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton(BulkheadController.class.getSimpleName(), BulkheadController.class);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.boukenijhuis.dynamicversionurl.cache;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 10})
+    public String a4() {
+        return "a4";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+
+    @GetVersionMapping(path = "/c", versions = {1, 5}, produces = "application/json")
+    public String jsonC() {
+        return "json-c";
+    }
+
+    @GetVersionMapping(path = "/c", versions = {1, 5}, produces = "application/xml")
+    public String xmlC() {
+        return "xml-c";
+    }
+}
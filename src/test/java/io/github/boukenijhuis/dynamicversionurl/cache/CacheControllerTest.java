@@ -0,0 +1,101 @@
+package io.github.boukenijhuis.dynamicversionurl.cache;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.LookupCacheStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = CacheController.class, properties = "version.cache.size=3")
+class CacheControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    ApiVersionRequestMappingHandlerMapping handlerMapping;
+
+    @BeforeEach
+    public void clearCache() throws Exception {
+        handlerMapping = (ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping;
+        // registering a mapping clears the cache
+        RequestMappingInfo info = RequestMappingInfo.paths("/cache/clear").options(handlerMapping.getBuilderConfiguration()).build();
+        handlerMapping.registerMapping(info, new CacheController(), CacheController.class.getMethod("a1"));
+        handlerMapping.unregisterMapping(info);
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        LookupCacheStatistics before = handlerMapping.getLookupCacheStatistics();
+
+        testEndpoint("/cache/v2/a", "a1");
+        testEndpoint("/cache/v2/a", "a1");
+        testEndpoint("/cache/v3/b/aap", "baap");
+        testEndpoint("/cache/v3/b/aap", "baap");
+        testEndpoint("/cache/v3/b/noot", "bnoot");
+
+        LookupCacheStatistics after = handlerMapping.getLookupCacheStatistics();
+        assertEquals(2, after.hits() - before.hits());
+        assertEquals(3, after.misses() - before.misses());
+        assertEquals(3, after.size());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        LookupCacheStatistics before = handlerMapping.getLookupCacheStatistics();
+
+        for (int version = 1; version <= 10; version++) {
+            testEndpoint("/cache/v" + version + "/a", version <= 3 ? "a1" : "a4");
+        }
+
+        LookupCacheStatistics after = handlerMapping.getLookupCacheStatistics();
+        assertEquals(3, after.size());
+        assertEquals(7, after.evictions() - before.evictions());
+    }
+
+    @Test
+    public void testConditionalMappingsAreNotCached() throws Exception {
+        mockMvc.perform(get("/cache/v1/c").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("json-c"));
+        mockMvc.perform(get("/cache/v1/c").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isOk())
+                .andExpect(content().string("xml-c"));
+
+        assertEquals(0, handlerMapping.getLookupCacheStatistics().size());
+    }
+
+    @Test
+    public void testCacheIsClearedWhenMappingsChange() throws Exception {
+        testEndpoint("/cache/v1/a", "a1");
+        assertEquals(1, handlerMapping.getLookupCacheStatistics().size());
+
+        clearCache();
+        assertEquals(0, handlerMapping.getLookupCacheStatistics().size());
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        mockMvc.perform(get("/cache/v11/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/cache/v11/a")).andExpect(status().isNotFound());
+        assertEquals(0, handlerMapping.getLookupCacheStatistics().size());
+    }
+
+    private void testEndpoint(String path, String response) throws Exception {
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(content().string(response));
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.boukenijhuis.dynamicversionurl.canonical;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RestController
+@RequestMapping("/canonical")
+public class CanonicalController {
+
+    static final AtomicInteger invocations = new AtomicInteger();
+
+    static volatile boolean committed;
+
+    @GetVersionMapping(path = "/c", versions = {1, 9})
+    public String c(@RequestParam(name = "q", required = false) String q) {
+        invocations.incrementAndGet();
+        return "c" + (q != null ? q : "");
+    }
+
+    @GetVersionMapping(path = "/d", versions = {1, 2})
+    public String d1() {
+        return "d1";
+    }
+
+    @GetVersionMapping(path = "/d", versions = {3, 4})
+    public String d3() {
+        return "d3";
+    }
+
+    @GetVersionMapping(path = "/s", versions = {1, 2})
+    public StreamingResponseBody s() {
+        return outputStream -> outputStream.write("s".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @GetMapping("/plain")
+    public void plain(HttpServletResponse response) throws IOException {
+        response.getWriter().write("plain");
+        response.flushBuffer();
+        committed = response.isCommitted();
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.boukenijhuis.dynamicversionurl.canonical;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.github.boukenijhuis.dynamicversionurl.CanonicalVersionInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = CanonicalController.class, properties = "version.canonical.enabled=true")
+class CanonicalControllerTest {
+
+    private static final String BLOCKED_HEADER = "X-Blocked";
+
+    @TestConfiguration
+    static class BlockingConfiguration implements WebMvcConfigurer {
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                    if (request.getHeader(BLOCKED_HEADER) != null) {
+                        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                        return false;
+                    }
+                    return true;
+                }
+            });
+        }
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testCanonicalLocation() throws Exception {
+        mockMvc.perform(get("/canonical/v3/c"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("c"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LOCATION, "/canonical/v1/c"))
+                .andExpect(header().string(HttpHeaders.LINK, "</canonical/v1/c>; rel=\"canonical\""));
+
+        mockMvc.perform(get("/canonical/v4/d"))
+                .andExpect(content().string("d3"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LOCATION, "/canonical/v3/d"));
+
+        // the query string is part of the location
+        mockMvc.perform(get("/canonical/v9/c?q=1"))
+                .andExpect(content().string("c1"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LOCATION, "/canonical/v1/c?q=1"));
+    }
+
+    @Test
+    public void testETagIsSharedByTheRange() throws Exception {
+        String eTag = getETag("/canonical/v2/c");
+        assertEquals(eTag, getETag("/canonical/v8/c"));
+        assertTrue(eTag.startsWith("\"1-9-"));
+
+        // another range has another ETag
+        assertNotEquals(getETag("/canonical/v1/d"), getETag("/canonical/v3/d"));
+    }
+
+    @Test
+    public void testConditionalRequestIsAnsweredBeforeTheHandler() throws Exception {
+        String eTag = getETag("/canonical/v5/c");
+        int invocations = CanonicalController.invocations.get();
+
+        mockMvc.perform(get("/canonical/v6/c").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        assertEquals(invocations, CanonicalController.invocations.get());
+
+        // an unknown ETag invokes the handler
+        mockMvc.perform(get("/canonical/v6/c").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("c"));
+        assertEquals(invocations + 1, CanonicalController.invocations.get());
+    }
+
+    @Test
+    public void testETagsAreRememberedPerUser() throws Exception {
+        String eTag = mockMvc.perform(get("/canonical/v5/c").header(HttpHeaders.AUTHORIZATION, "Bearer aap"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        int invocations = CanonicalController.invocations.get();
+
+        // another user gets the ETag from the handler, not from the remembered ETag of the first user
+        mockMvc.perform(get("/canonical/v6/c").header(HttpHeaders.AUTHORIZATION, "Bearer noot")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        assertEquals(invocations + 1, CanonicalController.invocations.get());
+    }
+
+    @Test
+    public void testCredentialsAreNotRemembered() throws Exception {
+        String eTagKey = (String) mockMvc.perform(get("/canonical/v5/c")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer aap")
+                        .header(HttpHeaders.COOKIE, "session=noot"))
+                .andExpect(status().isOk())
+                .andReturn().getRequest().getAttribute(CanonicalVersionInterceptor.class.getName() + ".eTagKey");
+
+        // the user is part of the key as a digest
+        assertNotNull(eTagKey);
+        assertFalse(eTagKey.contains("aap"));
+        assertFalse(eTagKey.contains("noot"));
+    }
+
+    @Test
+    public void testOnlyVersionedResponsesAreBuffered() throws Exception {
+        // the body of an unversioned handler is flushed to the client
+        mockMvc.perform(get("/canonical/plain"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("plain"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        assertTrue(CanonicalController.committed);
+
+        // a streamed body gets the canonical location, but no ETag
+        MvcResult result = mockMvc.perform(get("/canonical/v2/s"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("s"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LOCATION, "/canonical/v1/s"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void testApplicationInterceptorsRunBeforeTheConditionalRequest() throws Exception {
+        String eTag = getETag("/canonical/v5/c");
+
+        mockMvc.perform(get("/canonical/v6/c").header(HttpHeaders.IF_NONE_MATCH, eTag).header(BLOCKED_HEADER, "true"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void testOtherRequestsAreNotChanged() throws Exception {
+        mockMvc.perform(post("/canonical/v1/c"))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_LOCATION))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    private String getETag(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl.compact;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/compact")
+public class CompactController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 120})
+    public String a4() {
+        return "a4";
+    }
+
+    @PostVersionMapping(path = "/c", versions = {1, 120})
+    public String postC() {
+        return "post-c";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+}
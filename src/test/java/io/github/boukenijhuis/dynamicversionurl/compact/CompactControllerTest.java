@@ -0,0 +1,51 @@
+package io.github.boukenijhuis.dynamicversionurl.compact;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = CompactController.class, properties = "version.compact=true")
+class CompactControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testRanges() throws Exception {
+        testEndpoint("/compact/v1/a", "a1");
+        testEndpoint("/compact/v3/a", "a1");
+        testEndpoint("/compact/v4/a", "a4");
+        testEndpoint("/compact/v120/a", "a4");
+
+        mockMvc.perform(post("/compact/v60/c"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("post-c"));
+    }
+
+    @Test
+    public void testPathVariable() throws Exception {
+        testEndpoint("/compact/v2/b/aap", "baap");
+        testEndpoint("/compact/v5/b/noot", "bnoot");
+    }
+
+    @Test
+    public void testVersionsOutsideOfRange() throws Exception {
+        mockMvc.perform(get("/compact/v0/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/compact/v121/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/compact/v1/b/aap")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/compact/vx/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/compact/a")).andExpect(status().isNotFound());
+    }
+
+    private void testEndpoint(String path, String response) throws Exception {
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(content().string(response));
+    }
+}
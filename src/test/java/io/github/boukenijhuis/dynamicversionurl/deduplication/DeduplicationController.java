@@ -0,0 +1,22 @@
+package io.github.boukenijhuis.dynamicversionurl.deduplication;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/shared")
+public class DeduplicationController {
+
+    @GetVersionMapping(path = "/a/{id}", versions = {1, 5})
+    public String getA(@PathVariable("id") String id) {
+        return "get-a" + id;
+    }
+
+    @PostVersionMapping(path = "/a/{id}", versions = {1, 5})
+    public String postA(@PathVariable("id") String id) {
+        return "post-a" + id;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.boukenijhuis.dynamicversionurl.deduplication;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.DeduplicationStatistics;
+import io.github.boukenijhuis.dynamicversionurl.VersionWindow;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = DeduplicationController.class,
+        properties = {"version.deduplicate=true", "version.lazy=true", "version.eager-versions=2"})
+class DeduplicationControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    @Test
+    public void testEqualPatternsAreShared() {
+        List<PathPattern> getPatterns = getPatterns("getA");
+        List<PathPattern> postPatterns = getPatterns("postA");
+
+        assertEquals(getPatterns.size(), postPatterns.size());
+        for (int i = 0; i < getPatterns.size(); i++) {
+            assertSame(getPatterns.get(i), postPatterns.get(i));
+        }
+    }
+
+    @Test
+    public void testLazyRegistrationsShareMethodParameters() throws Exception {
+        mockMvc.perform(get("/shared/v1/a/1")).andExpect(status().isOk()).andExpect(content().string("get-a1"));
+        mockMvc.perform(post("/shared/v2/a/2")).andExpect(status().isOk()).andExpect(content().string("post-a2"));
+
+        List<HandlerMethod> handlerMethods = requestMappingHandlerMapping.getHandlerMethods().values().stream()
+                .filter(handlerMethod -> handlerMethod.getMethod().getName().equals("getA"))
+                .toList();
+        assertTrue(handlerMethods.size() > 1);
+        handlerMethods.forEach(handlerMethod -> assertSame(handlerMethods.get(0).getMethodParameters(), handlerMethod.getMethodParameters()));
+
+        DeduplicationStatistics statistics = ((ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping).getDeduplicationStatistics();
+        assertNotNull(statistics);
+        assertTrue(statistics.sharedPatterns() > 0);
+        assertTrue(statistics.sharedHandlerMethods() > 0);
+        assertTrue(statistics.estimatedBytesSaved() > 0);
+    }
+
+    @Test
+    public void testReplacedMappingsAreNotCounted() {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = (ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping;
+        VersionWindow window = handlerMapping.getVersionWindow();
+        // drops the versions that were registered on first use by the other tests
+        handlerMapping.setSupportedVersions(2, VersionMapping.LATEST);
+        handlerMapping.setSupportedVersions(window.minSupported(), window.latest());
+        DeduplicationStatistics before = handlerMapping.getDeduplicationStatistics();
+        assertNotNull(before);
+        assertTrue(before.sharedPatterns() > 0);
+
+        // the mappings are registered again, but the replaced mappings do not retain anything
+        handlerMapping.setSupportedVersions(2, VersionMapping.LATEST);
+        handlerMapping.setSupportedVersions(window.minSupported(), window.latest());
+        assertEquals(before, handlerMapping.getDeduplicationStatistics());
+    }
+
+    private List<PathPattern> getPatterns(String methodName) {
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : requestMappingHandlerMapping.getHandlerMethods().entrySet()) {
+            if (entry.getValue().getMethod().getName().equals(methodName) && entry.getKey().getPathPatternsCondition() != null
+                    && entry.getKey().getPathPatternsCondition().getPatterns().size() > 1) {
+                return List.copyOf(entry.getKey().getPathPatternsCondition().getPatterns());
+            }
+        }
+        throw new AssertionError("No eager mapping found for " + methodName);
+    }
+}
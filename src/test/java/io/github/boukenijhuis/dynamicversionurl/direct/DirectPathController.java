@@ -0,0 +1,42 @@
+package io.github.boukenijhuis.dynamicversionurl.direct;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/direct")
+public class DirectPathController {
+
+    @GetVersionMapping(path = "/health", versions = {1, 3})
+    public String health1() {
+        return "health1";
+    }
+
+    @GetVersionMapping(path = "/health", versions = {4, 5})
+    public String health4() {
+        return "health4";
+    }
+
+    @PostVersionMapping(path = "/health", versions = {1, 5})
+    public String postHealth() {
+        return "post-health";
+    }
+
+    @GetVersionMapping(path = "/config", versions = {1, 3})
+    public String config() {
+        return "config";
+    }
+
+    @GetVersionMapping(path = "/config", versions = {1, 3}, params = "debug")
+    public String debugConfig() {
+        return "debug-config";
+    }
+
+    @GetVersionMapping(path = "/items/{id}", versions = {1, 3})
+    public String item(@PathVariable("id") String id) {
+        return "item" + id;
+    }
+}
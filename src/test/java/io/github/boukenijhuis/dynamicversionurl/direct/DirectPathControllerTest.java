@@ -0,0 +1,49 @@
+package io.github.boukenijhuis.dynamicversionurl.direct;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = DirectPathController.class, properties = "version.direct-paths=true")
+class DirectPathControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testLiteralPaths() throws Exception {
+        mockMvc.perform(get("/direct/v1/health")).andExpect(status().isOk()).andExpect(content().string("health1"));
+        mockMvc.perform(get("/direct/v5/health")).andExpect(status().isOk()).andExpect(content().string("health4"));
+        mockMvc.perform(post("/direct/v3/health")).andExpect(status().isOk()).andExpect(content().string("post-health"));
+        mockMvc.perform(head("/direct/v3/health")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/direct/v6/health")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testMatchAttributes() throws Exception {
+        mockMvc.perform(get("/direct/v2/health"))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, 2))
+                .andExpect(request().attribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/direct/v2/health"));
+    }
+
+    @Test
+    public void testConditionalMappingsStillMatch() throws Exception {
+        mockMvc.perform(get("/direct/v2/config")).andExpect(status().isOk()).andExpect(content().string("config"));
+        mockMvc.perform(get("/direct/v2/config").param("debug", "true"))
+                .andExpect(status().isOk()).andExpect(content().string("debug-config"));
+    }
+
+    @Test
+    public void testPatternPaths() throws Exception {
+        mockMvc.perform(get("/direct/v3/items/7")).andExpect(status().isOk()).andExpect(content().string("item7"));
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.boukenijhuis.dynamicversionurl.endpoint;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/endpoint")
+public class EndpointController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 5})
+    public String a() {
+        return "a";
+    }
+
+    @PostVersionMapping(path = "/b/{id}", versions = {3, 8})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+
+    @GetMapping("/c")
+    public String c() {
+        return "c";
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.boukenijhuis.dynamicversionurl.endpoint;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.DynamicVersionUrlMvcAutoConfiguration;
+import io.github.boukenijhuis.dynamicversionurl.VersionRouteTableEndpoint;
+import io.github.boukenijhuis.dynamicversionurl.VersionWindow;
+import io.github.boukenijhuis.dynamicversionurl.VersionRouteTableEndpoint.HandlerRoute;
+import io.github.boukenijhuis.dynamicversionurl.VersionRouteTableEndpoint.VersionRouteTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+
+@WebMvcTest(value = EndpointController.class, properties = {"version.lazy=true", "version.eager-versions=2",
+        "management.endpoints.web.exposure.include=versions"})
+class VersionRouteTableEndpointTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    VersionRouteTableEndpoint endpoint;
+
+    @Test
+    public void testRouteTable() throws Exception {
+        VersionRouteTable routeTable = endpoint.versions();
+
+        assertEquals(1, routeTable.oldestVersion());
+        assertEquals(8, routeTable.newestVersion());
+        assertTrue(routeTable.lazy());
+        assertFalse(routeTable.compact());
+        assertTrue(routeTable.registrationTimeMillis() > 0);
+        assertTrue(routeTable.estimatedHeapBytes() > 0);
+
+        HandlerRoute a = getHandlerRoute(routeTable, "a");
+        assertEquals(1, a.oldest());
+        assertEquals(5, a.newest());
+        assertEquals(List.of("/endpoint/v{version}/a"), a.paths());
+
+        HandlerRoute b = getHandlerRoute(routeTable, "b");
+        assertEquals(List.of("/endpoint/v{version}/b/{id}"), b.paths());
+
+        // the unversioned mapping is only counted in the total
+        assertTrue(routeTable.patterns() > routeTable.versionedPatterns());
+    }
+
+    @Test
+    public void testOtherHandlerMapping() {
+        // with a second WebMvcRegistrations none of them is used, so the handler mapping is not versioned
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(WebMvcAutoConfiguration.class, DynamicVersionUrlMvcAutoConfiguration.class,
+                        EndpointAutoConfiguration.class))
+                .withBean(WebMvcRegistrations.class, () -> new WebMvcRegistrations() { })
+                .withPropertyValues("management.endpoints.web.exposure.include=versions")
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertFalse(context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class)
+                            instanceof ApiVersionRequestMappingHandlerMapping);
+                    assertNull(context.getBean(VersionRouteTableEndpoint.class).versions());
+                    assertNull(context.getBean(VersionRouteTableEndpoint.class).updateSupportedVersions(2, null));
+                });
+    }
+
+    @Test
+    public void testLazyVersionsAreCounted() throws Exception {
+        HandlerRoute before = getHandlerRoute(endpoint.versions(), "a");
+        assertEquals(2, before.patterns());
+
+        // registers version 1 of the mapping
+        mockMvc.perform(get("/endpoint/v1/a")).andExpect(content().string("a"));
+
+        HandlerRoute after = getHandlerRoute(endpoint.versions(), "a");
+        assertEquals(3, after.patterns());
+        assertTrue(after.estimatedHeapBytes() > before.estimatedHeapBytes());
+    }
+
+    @Test
+    public void testInvalidSupportedVersions() {
+        // the latest version is older than the oldest supported version
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.updateSupportedVersions(5, 2));
+        VersionRouteTable routeTable = endpoint.versions();
+        assertEquals(VersionWindow.UNBOUNDED, new VersionWindow(routeTable.minSupported(), routeTable.latest()));
+    }
+
+    private static HandlerRoute getHandlerRoute(VersionRouteTable routeTable, String method) {
+        return routeTable.handlers().stream()
+                .filter(handler -> handler.handler().equals(EndpointController.class.getName() + "#" + method))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.boukenijhuis.dynamicversionurl.index;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/indexed")
+public class IndexedController {
+
+    @GetVersionMapping(path = "/orders/{id}", versions = {1, 4})
+    public String order1(@PathVariable("id") String id) {
+        return "order1-" + id;
+    }
+
+    @GetVersionMapping(path = "/orders/{id}", versions = {5, 100})
+    public String order5(@PathVariable("id") String id) {
+        return "order5-" + id;
+    }
+
+    @GetVersionMapping(path = "/orders/latest", versions = {3, 100})
+    public String latestOrder() {
+        return "latest";
+    }
+
+    // more specific than the versioned orders mapping, because of the literal zero
+    @GetMapping("/v2/orders/0{id}")
+    public String paddedOrder2(@PathVariable("id") String id) {
+        return "padded-order2-" + id;
+    }
+
+    @GetVersionMapping(path = "/health", versions = {1, 100})
+    public String health() {
+        return "health";
+    }
+
+    @GetVersionMapping(path = "/health", versions = {1, 100}, params = "verbose")
+    public String verboseHealth() {
+        return "verbose-health";
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.boukenijhuis.dynamicversionurl.index;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.LookupIndexStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = IndexedController.class, properties = "version.index=true")
+class IndexedControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    @Test
+    public void testPathVariables() throws Exception {
+        testEndpoint("/indexed/v1/orders/12", "order1-12");
+        testEndpoint("/indexed/v4/orders/12", "order1-12");
+        testEndpoint("/indexed/v5/orders/12", "order5-12");
+        testEndpoint("/indexed/v100/orders/12", "order5-12");
+        mockMvc.perform(get("/indexed/v101/orders/12")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testLiteralIsMoreSpecificThanPathVariable() throws Exception {
+        testEndpoint("/indexed/v2/orders/latest", "order1-latest");
+        // the expanded literal paths are direct paths, which are found without the index
+        testDirectPath("/indexed/v3/orders/latest", "latest");
+        testDirectPath("/indexed/v50/orders/latest", "latest");
+    }
+
+    @Test
+    public void testBestMatchingPatternIsTheRequestedVersion() throws Exception {
+        mockMvc.perform(get("/indexed/v7/orders/12"))
+                .andExpect(request().attribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/indexed/v7/orders/{id}"))
+                .andExpect(request().attribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "12")));
+    }
+
+    @Test
+    public void testUnversionedPatternMapping() throws Exception {
+        // the more specific unversioned mapping is left to the normal lookup
+        testEndpoint("/indexed/v2/orders/012", "padded-order2-12", 0);
+
+        testEndpoint("/indexed/v2/orders/12", "order1-12");
+        testEndpoint("/indexed/v3/orders/012", "order1-012");
+    }
+
+    @Test
+    public void testConditions() throws Exception {
+        testDirectPath("/indexed/v3/health", "health");
+        mockMvc.perform(get("/indexed/v3/health").param("verbose", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("verbose-health"));
+        mockMvc.perform(head("/indexed/v3/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testCompactMode() throws Exception {
+        ApiVersionRequestMappingHandlerMapping compactHandlerMapping = createCompactHandlerMapping();
+        List<MockHttpServletRequestBuilder> requests = List.of(get("/indexed/v1/orders/12"), get("/indexed/v4/orders/12"),
+                get("/indexed/v5/orders/12"), get("/indexed/v100/orders/12"), get("/indexed/v2/orders/latest"),
+                get("/indexed/v3/orders/latest"), get("/indexed/v50/orders/latest"), get("/indexed/v3/health"),
+                get("/indexed/v3/health").param("verbose", "true"), head("/indexed/v3/health"));
+
+        // the compact mapping has no direct paths, so the index finds the same handler methods for all requests
+        for (MockHttpServletRequestBuilder request : requests) {
+            Method expected = ((HandlerMethod) mockMvc.perform(request).andReturn().getHandler()).getMethod();
+            assertEquals(expected, getHandlerMethod(compactHandlerMapping, request));
+        }
+        assertEquals(new LookupIndexStatistics(requests.size(), 0), compactHandlerMapping.getLookupIndexStatistics());
+
+        assertNull(compactHandlerMapping.getHandler(buildRequest(get("/indexed/v101/orders/12"))));
+    }
+
+    private void testEndpoint(String path, String response) throws Exception {
+        testEndpoint(path, response, 1);
+    }
+
+    private void testDirectPath(String path, String response) throws Exception {
+        testEndpoint(path, response, 0);
+    }
+
+    private void testEndpoint(String path, String response, int indexHits) throws Exception {
+        long hits = getStatistics().hits();
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(content().string(response));
+        assertEquals(hits + indexHits, getStatistics().hits());
+    }
+
+    private LookupIndexStatistics getStatistics() {
+        LookupIndexStatistics statistics = ((ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping).getLookupIndexStatistics();
+        assertNotNull(statistics);
+        return statistics;
+    }
+
+    private static Method getHandlerMethod(ApiVersionRequestMappingHandlerMapping handlerMapping, MockHttpServletRequestBuilder request) throws Exception {
+        HandlerExecutionChain chain = handlerMapping.getHandler(buildRequest(request));
+        assertNotNull(chain);
+        return ((HandlerMethod) chain.getHandler()).getMethod();
+    }
+
+    private static MockHttpServletRequest buildRequest(MockHttpServletRequestBuilder request) {
+        MockHttpServletRequest servletRequest = request.buildRequest(new MockServletContext());
+        ServletRequestPathUtils.parseAndCache(servletRequest);
+        return servletRequest;
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createCompactHandlerMapping() {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("indexedController", IndexedController.class);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return beanType == IndexedController.class;
+            }
+        };
+        handlerMapping.setCompact(true);
+        handlerMapping.setIndexed(true);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.boukenijhuis.dynamicversionurl.jfr;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import io.github.boukenijhuis.dynamicversionurl.direct.DirectPathController;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    private static final String REGISTRATION = "io.github.boukenijhuis.dynamicversionurl.MappingRegistration";
+    private static final String OVERLAP_CHECK = "io.github.boukenijhuis.dynamicversionurl.OverlapCheck";
+    private static final String RESOLUTION = "io.github.boukenijhuis.dynamicversionurl.RequestResolution";
+
+    @Test
+    public void testEvents() throws Exception {
+        List<RecordedEvent> events = record(1);
+
+        RecordedEvent registration = find(events, REGISTRATION, "method", DirectPathController.class.getName() + "#health1");
+        assertEquals(1, registration.getInt("oldestVersion"));
+        assertEquals(3, registration.getInt("newestVersion"));
+        assertEquals(3, registration.getInt("pathCount"));
+        assertEquals(6, events.stream().filter(event -> event.getEventType().getName().equals(REGISTRATION)).count());
+
+        RecordedEvent overlapCheck = find(events, OVERLAP_CHECK, null, null);
+        assertEquals(6, overlapCheck.getInt("mappingCount"));
+        assertEquals(0, overlapCheck.getInt("overlapCount"));
+
+        RecordedEvent resolution = find(events, RESOLUTION, "lookupPath", "/direct/v2/health");
+        assertEquals("GET", resolution.getString("requestMethod"));
+        assertEquals(2, resolution.getInt("version"));
+        assertFalse(resolution.getDuration().isNegative());
+    }
+
+    @Test
+    public void testNoResolutionEventsWithoutSampling() throws Exception {
+        List<RecordedEvent> events = record(0);
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().equals(RESOLUTION)));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals(REGISTRATION)));
+    }
+
+    private static List<RecordedEvent> record(int sampleInterval) throws Exception {
+        Path file = Files.createTempFile("version-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(REGISTRATION);
+            recording.enable(OVERLAP_CHECK);
+            recording.enable(RESOLUTION);
+            recording.start();
+
+            ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(sampleInterval);
+            VersionOverlapChecker.findOverlaps(handlerMapping);
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/direct/v2/health");
+            ServletRequestPathUtils.parseAndCache(request);
+            assertNotNull(handlerMapping.getHandler(request));
+
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name, String field, Object value) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .filter(event -> field == null || value.equals(event.getValue(field)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event recorded"));
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(int sampleInterval) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("directPathController", DirectPathController.class);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setResolutionEventSampleInterval(sampleInterval);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+}
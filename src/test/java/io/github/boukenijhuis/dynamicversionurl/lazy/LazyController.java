@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl.lazy;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/lazy")
+public class LazyController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 10})
+    public String a4() {
+        return "a4";
+    }
+
+    @PostVersionMapping(path = "/a", versions = {1, 2})
+    public String postA() {
+        return "post-a";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 8})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+}
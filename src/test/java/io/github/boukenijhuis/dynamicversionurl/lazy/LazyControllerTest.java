@@ -0,0 +1,78 @@
+package io.github.boukenijhuis.dynamicversionurl.lazy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = LazyController.class, properties = {"version.lazy=true", "version.eager-versions=2"})
+class LazyControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testEagerVersions() throws Exception {
+        assertTrue(isRegistered("/lazy/v10/a"));
+        assertTrue(isRegistered("/lazy/v9/a"));
+        assertFalse(isRegistered("/lazy/v5/a"));
+
+        testEndpoint("/lazy/v10/a", "a4");
+        testEndpoint("/lazy/v9/a", "a4");
+    }
+
+    @Test
+    public void testLazyVersions() throws Exception {
+        assertFalse(isRegistered("/lazy/v4/a"));
+
+        testEndpoint("/lazy/v4/a", "a4");
+        testEndpoint("/lazy/v1/a", "a1");
+        testEndpoint("/lazy/v3/b/aap", "baap");
+        testEndpoint("/lazy/v2/b/noot", "bnoot");
+
+        assertTrue(isRegistered("/lazy/v4/a"));
+        assertTrue(isRegistered("/lazy/v1/a"));
+    }
+
+    @Test
+    public void testLazyVersionWithOtherRequestMethod() throws Exception {
+        // the post mapping registers version 1 and 2 eagerly, the get mapping does not
+        testEndpoint("/lazy/v2/a", "a1");
+
+        mockMvc.perform(post("/lazy/v1/a"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("post-a"));
+    }
+
+    @Test
+    public void testVersionsOutsideOfRange() throws Exception {
+        mockMvc.perform(get("/lazy/v0/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/lazy/v11/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/lazy/v1/b/aap")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/lazy/v1/c")).andExpect(status().isNotFound());
+    }
+
+    private boolean isRegistered(String path) {
+        return handlerMapping.getHandlerMethods().keySet().stream()
+                .map(RequestMappingInfo::getPatternValues)
+                .anyMatch(patternValues -> patternValues.contains(path));
+    }
+
+    private void testEndpoint(String path, String response) throws Exception {
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(content().string(response));
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.boukenijhuis.dynamicversionurl.lazy;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import io.github.boukenijhuis.dynamicversionurl.VersionRouteTableEndpoint;
+import io.github.boukenijhuis.dynamicversionurl.VersionedMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyVersionTest {
+
+    @Test
+    public void testMaterializedVersionsAreVersioned() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping();
+
+        assertEquals("b", getHandlerMethodName(handlerMapping, "/lazy/v3/b/aap"));
+        assertEquals("a1", getHandlerMethodName(handlerMapping, "/lazy/v1/a"));
+
+        // every materialized mapping only serves its own version
+        VersionedMapping b3 = getVersionedMapping(handlerMapping, "/lazy/v3/b/{id}");
+        assertEquals(List.of(3, 3), List.of(b3.oldest(), b3.newest()));
+        VersionedMapping a1 = getVersionedMapping(handlerMapping, "/lazy/v1/a");
+        assertEquals(List.of(1, 1), List.of(a1.oldest(), a1.newest()));
+
+        // the materialized versions are part of the versions of their handler method
+        assertEquals(List.of(), VersionOverlapChecker.findOverlaps(handlerMapping));
+        VersionRouteTableEndpoint.HandlerRoute route = new VersionRouteTableEndpoint(handlerMapping).versions().handlers().stream()
+                .filter(handlerRoute -> handlerRoute.handler().endsWith("#b"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, route.oldest());
+        assertEquals(8, route.newest());
+    }
+
+    @Test
+    public void testMaterializedVersionsAreRemoved() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping();
+        assertEquals("b", getHandlerMethodName(handlerMapping, "/lazy/v3/b/aap"));
+
+        // the mapping of b is registered again, without the materialized versions
+        handlerMapping.setSupportedVersions(1, 7);
+
+        assertNull(findVersionedMapping(handlerMapping, "/lazy/v3/b/{id}"));
+        assertTrue(handlerMapping.getVersionedMappings().keySet().stream()
+                .allMatch(info -> handlerMapping.getHandlerMethods().containsKey(info)));
+        assertEquals("b", getHandlerMethodName(handlerMapping, "/lazy/v3/b/aap"));
+    }
+
+    private static VersionedMapping getVersionedMapping(ApiVersionRequestMappingHandlerMapping handlerMapping, String pattern) {
+        VersionedMapping versionedMapping = findVersionedMapping(handlerMapping, pattern);
+        assertNotNull(versionedMapping);
+        return versionedMapping;
+    }
+
+    private static VersionedMapping findVersionedMapping(ApiVersionRequestMappingHandlerMapping handlerMapping, String pattern) {
+        for (RequestMappingInfo info : handlerMapping.getHandlerMethods().keySet()) {
+            if (info.getPatternValues().equals(Set.of(pattern))) {
+                return handlerMapping.getVersionedMappings().get(info);
+            }
+        }
+        return null;
+    }
+
+    private static String getHandlerMethodName(ApiVersionRequestMappingHandlerMapping handlerMapping, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        ServletRequestPathUtils.parseAndCache(request);
+        HandlerExecutionChain chain = handlerMapping.getHandler(request);
+        assertNotNull(chain);
+        return ((HandlerMethod) chain.getHandler()).getMethod().getName();
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping() {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("lazyController", LazyController.class);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return beanType == LazyController.class;
+            }
+        };
+        handlerMapping.setLazy(true);
+        handlerMapping.setEagerVersions(2);
+        handlerMapping.setIndexed(true);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+}
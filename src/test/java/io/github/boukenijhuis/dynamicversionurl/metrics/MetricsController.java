@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl.metrics;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 12})
+    public String a4() {
+        return "a4";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+
+    @GetMapping("/unversioned")
+    public String unversioned() {
+        return "unversioned";
+    }
+}
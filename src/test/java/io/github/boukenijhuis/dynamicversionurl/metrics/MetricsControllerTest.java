@@ -0,0 +1,75 @@
+package io.github.boukenijhuis.dynamicversionurl.metrics;
+
+import io.github.boukenijhuis.dynamicversionurl.VersionServerRequestObservationConvention;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = MetricsController.class, properties = {"version.metrics.enabled=true", "version.metrics.bucket-size=5"})
+class MetricsControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    VersionServerRequestObservationConvention convention;
+
+    @Test
+    public void testVersionTags() throws Exception {
+        KeyValues keyValues = getKeyValues(convention, "/metrics/v4/a");
+        assertTag(keyValues, "version", "1-5");
+        assertTag(keyValues, "version.range", "4-12");
+        assertTag(keyValues, "uri", "/metrics/v{version}/a");
+
+        keyValues = getKeyValues(convention, "/metrics/v12/a");
+        assertTag(keyValues, "version", "11-15");
+        assertTag(keyValues, "version.range", "4-12");
+        assertTag(keyValues, "uri", "/metrics/v{version}/a");
+
+        keyValues = getKeyValues(convention, "/metrics/v3/b/aap");
+        assertTag(keyValues, "version", "1-5");
+        assertTag(keyValues, "version.range", "2-5");
+        assertTag(keyValues, "uri", "/metrics/v{version}/b/{id}");
+    }
+
+    @Test
+    public void testVersionTagsWithoutBuckets() throws Exception {
+        KeyValues keyValues = getKeyValues(new VersionServerRequestObservationConvention("v", 1), "/metrics/v7/a");
+        assertTag(keyValues, "version", "7");
+        assertTag(keyValues, "version.range", "4-12");
+    }
+
+    @Test
+    public void testUnversionedRequest() throws Exception {
+        KeyValues keyValues = getKeyValues(convention, "/metrics/unversioned");
+        assertTag(keyValues, "version", "none");
+        assertTag(keyValues, "version.range", "none");
+        assertTag(keyValues, "uri", "/metrics/unversioned");
+    }
+
+    private KeyValues getKeyValues(VersionServerRequestObservationConvention convention, String path) throws Exception {
+        HttpServletRequest request = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getRequest();
+
+        // the observation filter gets the pattern from the handler mapping
+        ServerRequestObservationContext context = new ServerRequestObservationContext(request, new MockHttpServletResponse());
+        context.setPathPattern((String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        return convention.getLowCardinalityKeyValues(context);
+    }
+
+    private static void assertTag(KeyValues keyValues, String key, String value) {
+        assertEquals(value, keyValues.stream().filter(keyValue -> keyValue.getKey().equals(key)).findFirst().orElseThrow().getValue());
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.boukenijhuis.dynamicversionurl.overlapping;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.HeaderVersionResolver;
+import io.github.boukenijhuis.dynamicversionurl.PathPrefixVersionResolver;
+import io.github.boukenijhuis.dynamicversionurl.ReactiveApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import io.github.boukenijhuis.dynamicversionurl.VersionResolver;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OverlapDetectionTest {
+
+    @Test
+    public void testAllOverlapsAreReported() {
+        List<String> overlaps = findOverlaps(false, new PathPrefixVersionResolver("v"));
+
+        assertEquals(List.of(
+                "Ambiguous version mapping found with the following URL: /conflicts/v2/e (Conflicts#e1 and Conflicts#e2)",
+                "Ambiguous version mapping found with the following URL: /conflicts/v3/a/{name} (Conflicts#a1 and Conflicts#a3)",
+                "Ambiguous version mapping found with the following URL: /conflicts/v4/f (Conflicts#f1 and Conflicts#f4)",
+                "Ambiguous version mapping found with the following URL: /conflicts/v5/e (Conflicts#e1 and Conflicts#e5)"
+        ), overlaps);
+    }
+
+    @Test
+    public void testAllOverlapsAreReportedInCompactMode() {
+        assertEquals(findOverlaps(false, new PathPrefixVersionResolver("v")), findOverlaps(true, new PathPrefixVersionResolver("v")));
+    }
+
+    @Test
+    public void testAllOverlapsAreReportedWithHeaderResolver() {
+        List<String> overlaps = findOverlaps(false, new HeaderVersionResolver(HeaderVersionResolver.DEFAULT_HEADER_NAME, "v"));
+
+        // the version is not part of the path, so /v4/f is not an overlap
+        assertEquals(List.of(
+                "Ambiguous version mapping found with the following URL: /conflicts/a/{name} (version 3) (Conflicts#a1 and Conflicts#a3)",
+                "Ambiguous version mapping found with the following URL: /conflicts/e (version 2) (Conflicts#e1 and Conflicts#e2)",
+                "Ambiguous version mapping found with the following URL: /conflicts/e (version 5) (Conflicts#e1 and Conflicts#e5)"
+        ), overlaps);
+    }
+
+    @Test
+    public void testAllOverlapsAreReportedForReactiveMappings() {
+        List<String> overlaps = findOverlaps(false, new PathPrefixVersionResolver("v"));
+        assertEquals(overlaps, findReactiveOverlaps(false));
+        assertEquals(overlaps, findReactiveOverlaps(true));
+    }
+
+    private static List<String> findOverlaps(boolean compact, VersionResolver versionResolver) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("conflicts", Conflicts.class);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return beanType == Conflicts.class;
+            }
+        };
+        handlerMapping.setCompact(compact);
+        handlerMapping.setVersionResolver(versionResolver);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+
+        return VersionOverlapChecker.findOverlaps(handlerMapping);
+    }
+
+    private static List<String> findReactiveOverlaps(boolean compact) {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.registerSingleton("conflicts", Conflicts.class);
+
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping = new ReactiveApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return beanType == Conflicts.class;
+            }
+        };
+        handlerMapping.setCompact(compact);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+
+        return VersionOverlapChecker.findOverlaps(handlerMapping);
+    }
+
+    // not a controller, otherwise every test application would contain these overlapping mappings
+    @RequestMapping("/conflicts")
+    static class Conflicts {
+
+        @GetVersionMapping(path = "/a/{id}", versions = {1, 3})
+        public String a1(@PathVariable("id") String id) {
+            return "a1";
+        }
+
+        @GetVersionMapping(path = "/a/{name}", versions = {3, 5})
+        public String a3(@PathVariable("name") String name) {
+            return "a3";
+        }
+
+        @GetVersionMapping(path = "/b", versions = {1, 5})
+        public String getB() {
+            return "get-b";
+        }
+
+        @PostVersionMapping(path = "/b", versions = {1, 5})
+        public String postB() {
+            return "post-b";
+        }
+
+        @GetVersionMapping(path = "/c", versions = {1, 5}, produces = "application/json")
+        public String jsonC() {
+            return "json-c";
+        }
+
+        @GetVersionMapping(path = "/c", versions = {1, 5}, produces = "application/xml")
+        public String xmlC() {
+            return "xml-c";
+        }
+
+        @GetVersionMapping(path = "/d", versions = {1, 2})
+        public String d1() {
+            return "d1";
+        }
+
+        @GetVersionMapping(path = "/d", versions = {3, 4})
+        public String d3() {
+            return "d3";
+        }
+
+        @GetVersionMapping(path = "/e", versions = {1, 9})
+        public String e1() {
+            return "e1";
+        }
+
+        @GetVersionMapping(path = "/e", versions = {2, 2})
+        public String e2() {
+            return "e2";
+        }
+
+        @GetVersionMapping(path = "/e", versions = {5, 6})
+        public String e5() {
+            return "e5";
+        }
+
+        @GetVersionMapping(path = "/f", versions = {1, 4})
+        public String f1() {
+            return "f1";
+        }
+
+        // mapping without version annotation
+        @GetMapping(path = "/v4/f")
+        public String f4() {
+            return "f4";
+        }
+    }
+}
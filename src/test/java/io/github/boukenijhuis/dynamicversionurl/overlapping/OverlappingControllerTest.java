@@ -17,6 +17,17 @@ class OverlappingControllerTest {
             SpringApplication.run(classes, new String[]{});
         });
 
-        assertEquals("Ambiguous version mapping found with the following URL: /v3/overlap", exception.getMessage());
+        assertEquals("Ambiguous version mapping found with the following URL: /v3/overlap (OverlappingController#a1 and OverlappingController#a2)", exception.getMessage());
+    }
+
+    @Test
+    public void testEndpointWithOverlappingVersioningInCompactMode() {
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            Class<?>[] classes = {TestApplication.class, OverlappingController.class};
+            SpringApplication.run(classes, new String[]{"--version.compact=true"});
+        });
+
+        assertEquals("Ambiguous version mapping found with the following URL: /v3/overlap (OverlappingController#a1 and OverlappingController#a2)", exception.getMessage());
     }
 }
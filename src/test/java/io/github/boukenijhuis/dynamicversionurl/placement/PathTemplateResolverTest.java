@@ -0,0 +1,42 @@
+package io.github.boukenijhuis.dynamicversionurl.placement;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = PlacementController.class,
+        properties = {"version.resolver=path-template", "version.placement={path}/{prefix}{version}/json"})
+class PathTemplateResolverTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testVersionPlacedByTemplate() throws Exception {
+        testEndpoint("/placement/a/v1/json", "a1");
+        testEndpoint("/placement/a/v3/json", "a1");
+        testEndpoint("/placement/a/v9/json", "a4");
+        testEndpoint("/placement/files/report.pdf/v2/json", "reportpdf");
+        testEndpoint("/placement/users/42/v5/json", "user42");
+
+        mockMvc.perform(get("/placement/v1/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/placement/a/v1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/placement/a/v10/json")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/placement/users/bob/v2/json")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testVersionAttribute() throws Exception {
+        mockMvc.perform(get("/placement/users/7/v3/json"))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, 3));
+    }
+
+    private void testEndpoint(String path, String expected) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isOk()).andExpect(content().string(expected));
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.boukenijhuis.dynamicversionurl.placement;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/placement")
+public class PlacementController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 9})
+    public String a4() {
+        return "a4";
+    }
+
+    @GetVersionMapping(path = "/files/{name}.{extension}", versions = 2)
+    public String file(@PathVariable("name") String name, @PathVariable("extension") String extension) {
+        return name + extension;
+    }
+
+    @GetVersionMapping(path = "/users/{id:\\d+}", versions = {2, 5})
+    public String user(@PathVariable("id") int id) {
+        return "user" + id;
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.boukenijhuis.dynamicversionurl.placement;
+
+import io.github.boukenijhuis.dynamicversionurl.VersionPlacement;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VersionPlacementTest {
+
+    @Test
+    public void testPlace() {
+        VersionPlacement prefix = VersionPlacement.PATH_PREFIX;
+        assertEquals("/api/v3/a", prefix.place("/api/a", "/a", "v3"));
+        assertEquals("/api/v3/docs/**", prefix.place("/api/docs/**", "/docs/**", "v3"));
+        assertEquals("/v3/", prefix.place("/", "/", "v3"));
+        assertEquals("/api/v3", prefix.place("/api", "", "v3"));
+        // a pattern value of another annotation path is not changed
+        assertEquals("/api/b", prefix.place("/api/b", "/a", "v3"));
+
+        VersionPlacement postfix = VersionPlacement.PATH_POSTFIX;
+        assertEquals("/api/a/v3", postfix.place("/api/a", "/a", "v3"));
+        assertEquals("/api/a/v3", postfix.place("/api/a/", "/a/", "v3"));
+        assertEquals("/api/{name}.{extension}/v3", postfix.place("/api/{name}.{extension}", "/{name}.{extension}", "v3"));
+
+        VersionPlacement template = VersionPlacement.parse("/api/{prefix}{version}{path}/json");
+        assertEquals("/x/api/v3/a/json", template.place("/x/a", "/a", "v3"));
+    }
+
+    @Test
+    public void testInvalidTemplates() {
+        assertThrows(RuntimeException.class, () -> VersionPlacement.parse("/{prefix}{version}"));
+        assertThrows(RuntimeException.class, () -> VersionPlacement.parse("{path}/{version}"));
+        assertThrows(RuntimeException.class, () -> VersionPlacement.parse("{path}.{prefix}{version}"));
+        assertThrows(RuntimeException.class, () -> VersionPlacement.parse("/{prefix}{version}{path}{path}"));
+        assertThrows(RuntimeException.class, () -> VersionPlacement.parse("/{prefix}{version}/*{path}"));
+    }
+
+    @Test
+    public void testNothingAfterCatchAll() {
+        assertThrows(RuntimeException.class, () -> VersionPlacement.PATH_POSTFIX.place("/api/docs/**", "/docs/**", "v3"));
+        assertThrows(RuntimeException.class, () -> VersionPlacement.PATH_POSTFIX.place("/api/{*rest}", "/{*rest}", "v3"));
+    }
+}
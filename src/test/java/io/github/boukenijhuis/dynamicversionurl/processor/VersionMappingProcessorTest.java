@@ -0,0 +1,290 @@
+package io.github.boukenijhuis.dynamicversionurl.processor;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+import javax.tools.*;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionMappingProcessorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRouteDescriptor() throws Exception {
+        List<String> errors = compile("Routes", """
+                @RequestMapping("/routes")
+                public class Routes {
+                    @GetVersionMapping(path = "/a", versions = {1, 3}, cacheTtl = 60)
+                    public String a1() { return "a1"; }
+
+                    @GetVersionMapping(path = "/a", versions = {4, 9})
+                    public String a4() { return "a4"; }
+
+                    @PostVersionMapping(path = "/a", versions = {1, 9}, maxConcurrent = 5)
+                    public String postA() { return "post-a"; }
+
+                    @GetVersionMapping(path = "/b/{id:\\\\d+}", version = 2)
+                    public String b(@PathVariable("id") String id, int[] numbers) { return "b"; }
+
+                    @VersionMapping({5, 6})
+                    @GetMapping("/c")
+                    public String c() { return "c"; }
+                }
+                """);
+        assertEquals(List.of(), errors);
+
+        // the versions, the cache ttl, the maximum number of concurrent requests, the fingerprint and the paths
+        String descriptor = Files.readString(directory.resolve(VersionMappingProcessor.DESCRIPTOR_LOCATION));
+        assertTrue(descriptor.contains("format=2\n"));
+        assertRoute(descriptor, "example.Routes#a1()=1 3 60 0", "/a");
+        assertRoute(descriptor, "example.Routes#postA()=1 9 0 5", "/a");
+        assertRoute(descriptor, "example.Routes#b(java.lang.String,int[])=2 2 0 0", "/b/{id\\:\\\\d+}");
+        assertRoute(descriptor, "example.Routes#c()=5 6 0 0", "/c");
+    }
+
+    @Test
+    public void testRuntimeUsesRouteDescriptor() throws Exception {
+        assertEquals(List.of(), compile("Routes", """
+                @RequestMapping("/routes")
+                public class Routes {
+                    @GetVersionMapping(path = "/a", versions = {1, 3}, cacheTtl = 60)
+                    public String a1() { return "a1"; }
+
+                    @GetVersionMapping(path = "/b/{id}", versions = {2, 5}, maxConcurrent = 3)
+                    public String b(@PathVariable("id") String id) { return "b"; }
+
+                    @GetVersionMapping(path = {"/c d", "/e%20f", "/g\\u00e9"}, versions = {1, 2})
+                    public String c() { return "c"; }
+
+                    @VersionMapping(value = {1, 4}, maxConcurrent = 2)
+                    @RequestMapping(path = "/d", method = {RequestMethod.GET, RequestMethod.HEAD}, produces = "text/plain")
+                    public String d() { return "d"; }
+                }
+                """));
+        // the space separates the paths, the descriptor is read as ISO-8859-1
+        assertRoute(Files.readString(directory.resolve(VersionMappingProcessor.DESCRIPTOR_LOCATION)),
+                "example.Routes#c()=1 2 0 0", "/c%20d /e%2520f /g%C3%A9");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> routes = classLoader.loadClass("example.Routes");
+
+            ApiVersionRequestMappingHandlerMapping withDescriptor = createHandlerMapping(routes, true);
+            ApiVersionRequestMappingHandlerMapping withoutDescriptor = createHandlerMapping(routes, false);
+
+            // the fingerprints of all routes match, so no annotation had to be evaluated
+            assertTrue(withDescriptor.isVerifiedAtCompileTime());
+            assertFalse(withoutDescriptor.isVerifiedAtCompileTime());
+            assertEquals(withoutDescriptor.getVersionedMappings(), withDescriptor.getVersionedMappings());
+            assertEquals(withoutDescriptor.getBulkheadStatistics(), withDescriptor.getBulkheadStatistics());
+        }
+    }
+
+    @Test
+    public void testStaleRouteIsNotUsed() throws Exception {
+        assertEquals(List.of(), compile("Routes", """
+                @RequestMapping("/routes")
+                public class Routes {
+                    @GetVersionMapping(path = "/a", versions = {1, 3})
+                    public String a1() { return "a1"; }
+                }
+                """));
+        // compiled again without the processor, the route descriptor is left behind
+        assertEquals(List.of(), compile("Routes", """
+                @RequestMapping("/routes")
+                public class Routes {
+                    @GetVersionMapping(path = "/a", versions = {1, 5}, cacheTtl = 60)
+                    public String a1() { return "a1"; }
+                }
+                """, false));
+        assertTrue(Files.exists(directory.resolve(VersionMappingProcessor.DESCRIPTOR_LOCATION)));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> routes = classLoader.loadClass("example.Routes");
+
+            ApiVersionRequestMappingHandlerMapping withDescriptor = createHandlerMapping(routes, true);
+            ApiVersionRequestMappingHandlerMapping withoutDescriptor = createHandlerMapping(routes, false);
+
+            // the annotations are read instead, and checked at startup
+            assertFalse(withDescriptor.isVerifiedAtCompileTime());
+            assertEquals(withoutDescriptor.getVersionedMappings(), withDescriptor.getVersionedMappings());
+            assertEquals(5, withDescriptor.getVersionedMappings().values().iterator().next().newest());
+        }
+    }
+
+    @Test
+    public void testInvalidAttributes() throws Exception {
+        List<String> errors = compile("Attributes", """
+                public class Attributes {
+                    @PostMapping("/a")
+                    @VersionMapping(value = {1, 2}, cacheTtl = 60)
+                    public String a() { return "a"; }
+
+                    @GetVersionMapping(path = "/b", versions = {1, 2}, maxConcurrent = -1)
+                    public String b() { return "b"; }
+                }
+                """);
+
+        assertEquals(List.of(
+                "The cache ttl only applies to GET requests, but was 60 on @io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping with path [/a].",
+                "The maximum number of concurrent requests should not be negative, but was -1 on @io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping with path [/b]."
+        ), errors);
+    }
+
+    private static void assertRoute(String descriptor, String route, String paths) {
+        assertTrue(Pattern.compile(Pattern.quote(route) + " [0-9a-f]+ " + Pattern.quote(paths) + "\n").matcher(descriptor).find(),
+                route + " " + paths + " not found in " + descriptor);
+    }
+
+    @Test
+    public void testOverlappingRanges() throws Exception {
+        List<String> errors = compile("Overlaps", """
+                @RequestMapping("/overlaps")
+                public class Overlaps {
+                    @GetVersionMapping(path = "/a/{id}", versions = {1, 3})
+                    public String a1(@PathVariable("id") String id) { return "a1"; }
+
+                    @GetVersionMapping(path = "/a/{name}", versions = {3, 5})
+                    public String a3(@PathVariable("name") String name) { return "a3"; }
+
+                    @GetVersionMapping(path = "/b", versions = {1, 5}, produces = "application/json")
+                    public String jsonB() { return "json-b"; }
+
+                    @GetVersionMapping(path = "/b", versions = {1, 5}, produces = "application/xml")
+                    public String xmlB() { return "xml-b"; }
+
+                    @PostVersionMapping(path = "/c", versions = {1, 5})
+                    public String postC() { return "post-c"; }
+
+                    @GetVersionMapping(path = "/c", versions = {1, 4})
+                    public String c1() { return "c1"; }
+
+                    @GetMapping("/v4/c")
+                    public String c4() { return "c4"; }
+                }
+                """);
+
+        assertEquals(List.of(
+                "Ambiguous version mapping found with the following URL: /overlaps/v3/a/{name} (Overlaps#a1 and Overlaps#a3)",
+                "Ambiguous version mapping found with the following URL: /overlaps/v4/c (Overlaps#c1 and Overlaps#c4)"
+        ), errors);
+        assertFalse(Files.exists(directory.resolve(VersionMappingProcessor.DESCRIPTOR_LOCATION)));
+    }
+
+    @Test
+    public void testMalformedRanges() throws Exception {
+        List<String> errors = compile("Malformed", """
+                public class Malformed {
+                    @GetVersionMapping(path = "/a", versions = {1, 2, 3})
+                    public String a() { return "a"; }
+
+                    @GetVersionMapping(path = "/b", versions = {5, 2})
+                    public String b() { return "b"; }
+                }
+                """);
+
+        assertEquals(List.of(
+                "Too many versions ([1, 2, 3]) specified on @io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping with path [/a].",
+                "Invalid version range ([5, 2]) specified on @io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping with path [/b]."
+        ), errors);
+    }
+
+    @Test
+    public void testVersionMappingWithSince() throws Exception {
+        List<String> errors = compile("Since", """
+                public class Since {
+                    @GetMapping("/a")
+                    @VersionMapping(since = 3)
+                    public String a() { return "a"; }
+
+                    @GetMapping("/b")
+                    @VersionMapping(value = {1, 2}, since = 3)
+                    public String b() { return "b"; }
+                }
+                """);
+
+        assertEquals(List.of(
+                "Both versions and since specified on @io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping with path [/b], use only one of them."
+        ), errors);
+    }
+
+    private ApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?> handlerType, boolean routeDescriptor) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("routes", handlerType);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return beanType == handlerType;
+            }
+        };
+        handlerMapping.setRouteDescriptorEnabled(routeDescriptor);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    /***
+     * Compiles a class in the package 'example' with the processor and returns the error messages.
+     */
+    private List<String> compile(String className, String source) throws Exception {
+        return compile(className, source, true);
+    }
+
+    private List<String> compile(String className, String source, boolean processor) throws Exception {
+        String imports = """
+                package example;
+
+                import io.github.boukenijhuis.dynamicversionurl.annotation.*;
+                import org.springframework.web.bind.annotation.*;
+
+                """;
+        Path sourceFile = directory.resolve(className + ".java");
+        Files.writeString(sourceFile, imports + source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            List<String> options = List.of("-classpath", getClasspath(), "-d", directory.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(sourceFile));
+            task.setProcessors(processor ? List.of(new VersionMappingProcessor()) : List.of());
+            task.call();
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return errors;
+    }
+
+    // surefire hides the classpath in a manifest, so use the locations of the classes that the sources need
+    private static String getClasspath() throws URISyntaxException {
+        List<String> locations = new ArrayList<>();
+        for (Class<?> clazz : Stream.of(VersionMapping.class, RequestMapping.class, AliasFor.class).toList()) {
+            locations.add(Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        return String.join(File.pathSeparator, locations);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.boukenijhuis.dynamicversionurl.reactive;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public Mono<String> a1() {
+        return Mono.just("a1");
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 10})
+    public Mono<String> a4() {
+        return Mono.just("a4");
+    }
+
+    @PostVersionMapping(path = "/c", versions = {1, 10})
+    public Mono<String> postC() {
+        return Mono.just("post-c");
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public Mono<String> b(@PathVariable("id") String id) {
+        return Mono.just("b" + id);
+    }
+}
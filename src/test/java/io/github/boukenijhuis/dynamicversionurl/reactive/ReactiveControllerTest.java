@@ -0,0 +1,63 @@
+package io.github.boukenijhuis.dynamicversionurl.reactive;
+
+import io.github.boukenijhuis.dynamicversionurl.ReactiveApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WebFluxTest(value = ReactiveController.class, properties = "version.compact=false")
+class ReactiveControllerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testRanges() {
+        testEndpoint("/reactive/v1/a", "a1");
+        testEndpoint("/reactive/v3/a", "a1");
+        testEndpoint("/reactive/v4/a", "a4");
+        testEndpoint("/reactive/v10/a", "a4");
+
+        webTestClient.post().uri("/reactive/v6/c").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("post-c");
+    }
+
+    @Test
+    public void testPathVariable() {
+        testEndpoint("/reactive/v2/b/aap", "baap");
+        testEndpoint("/reactive/v5/b/noot", "bnoot");
+    }
+
+    @Test
+    public void testVersionsOutsideOfRange() {
+        webTestClient.get().uri("/reactive/v0/a").exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/reactive/v11/a").exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/reactive/v1/b/aap").exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/reactive/vx/a").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testNoOverlaps() {
+        ReactiveApiVersionRequestMappingHandlerMapping versionHandlerMapping =
+                assertInstanceOf(ReactiveApiVersionRequestMappingHandlerMapping.class, handlerMapping);
+        assertEquals(4, versionHandlerMapping.getVersionedMappings().size());
+        assertTrue(VersionOverlapChecker.findOverlaps(versionHandlerMapping).isEmpty());
+    }
+
+    private void testEndpoint(String path, String response) {
+        webTestClient.get().uri(path).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(response);
+    }
+}
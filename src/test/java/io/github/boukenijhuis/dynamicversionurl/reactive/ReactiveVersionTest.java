@@ -0,0 +1,100 @@
+package io.github.boukenijhuis.dynamicversionurl.reactive;
+
+import io.github.boukenijhuis.dynamicversionurl.ReactiveApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionWindow;
+import io.github.boukenijhuis.dynamicversionurl.VersionedMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveVersionTest {
+
+    @Test
+    public void testLatestInExpandedMode() {
+        Throwable exception = assertThrows(Exception.class,
+                () -> createHandlerMapping(LatestController.class, false, VersionWindow.UNBOUNDED));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(exception).getMessage()
+                .endsWith("is LATEST, but no latest version is configured (version.latest)."));
+    }
+
+    @Test
+    public void testLatestVersion() {
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping =
+                createHandlerMapping(LatestController.class, false, new VersionWindow(0, 6));
+        assertEquals(Map.of("a4", "4-6"), getRanges(handlerMapping));
+        assertEquals(3, handlerMapping.getHandlerMethods().keySet().iterator().next().getPatternsCondition().getPatterns().size());
+    }
+
+    @Test
+    public void testSupportedVersions() {
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping =
+                createHandlerMapping(ReactiveController.class, false, new VersionWindow(4, 8));
+        // a1 only serves retired versions, so it is not registered
+        assertEquals(Map.of("a4", "4-8", "postC", "4-8", "b", "4-5"), getRanges(handlerMapping));
+
+        handlerMapping = createHandlerMapping(ReactiveController.class, true, new VersionWindow(4, 8));
+        assertEquals(Map.of("a4", "4-8", "postC", "4-8", "b", "4-5"), getRanges(handlerMapping));
+    }
+
+    @Test
+    public void testSupportedVersionsCannotChangeAfterDetection() {
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping =
+                createHandlerMapping(ReactiveController.class, false, VersionWindow.UNBOUNDED);
+        assertThrows(RuntimeException.class, () -> handlerMapping.setSupportedVersions(2, 8));
+    }
+
+    @Test
+    public void testLatestInCompactMode() {
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping =
+                createHandlerMapping(LatestController.class, true, VersionWindow.UNBOUNDED);
+        assertEquals(1, handlerMapping.getVersionedMappings().size());
+    }
+
+    // method name -> the versions that it serves
+    private static Map<String, String> getRanges(ReactiveApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<String, String> ranges = new HashMap<>();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            VersionedMapping versionedMapping = handlerMapping.getVersionedMappings().get(info);
+            ranges.put(handlerMethod.getMethod().getName(), versionedMapping.oldest() + "-" + versionedMapping.newest());
+        });
+        return ranges;
+    }
+
+    private static ReactiveApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?> handlerType, boolean compact,
+                                                                                       VersionWindow window) {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+
+        ReactiveApiVersionRequestMappingHandlerMapping handlerMapping = new ReactiveApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setCompact(compact);
+        handlerMapping.setSupportedVersions(window.minSupported(), window.latest());
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    // not a controller, otherwise every test application would contain this mapping
+    @RequestMapping("/reactive-latest")
+    static class LatestController {
+
+        @GetVersionMapping(path = "/a", versions = {4, VersionMapping.LATEST})
+        public Mono<String> a4() {
+            return Mono.just("a4");
+        }
+    }
+}
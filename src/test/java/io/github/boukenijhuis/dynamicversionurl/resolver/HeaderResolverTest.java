@@ -0,0 +1,53 @@
+package io.github.boukenijhuis.dynamicversionurl.resolver;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = ResolverController.class, properties = {"version.resolver=header", "version.metrics.enabled=true"})
+class HeaderResolverTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    @Test
+    public void testVersionInHeader() throws Exception {
+        testEndpoint("/resolver/a", "1", "a1");
+        testEndpoint("/resolver/a", "v3", "a1");
+        testEndpoint("/resolver/a", "4", "a4");
+        testEndpoint("/resolver/b/aap", "5", "baap");
+
+        mockMvc.perform(get("/resolver/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/a").header("X-API-Version", "10")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/a").header("X-API-Version", "x")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/v2/a").header("X-API-Version", "2")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testOnePatternPerMapping() {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = (ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping;
+        handlerMapping.getVersionedMappings().keySet().forEach(info -> assertEquals(1, info.getPatternValues().size()));
+    }
+
+    @Test
+    public void testVersionAttribute() throws Exception {
+        mockMvc.perform(get("/resolver/a").header("X-API-Version", "6"))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, 6));
+    }
+
+    private void testEndpoint(String path, String version, String expected) throws Exception {
+        mockMvc.perform(get(path).header("X-API-Version", version))
+                .andExpect(status().isOk())
+                .andExpect(content().string(expected));
+    }
+}
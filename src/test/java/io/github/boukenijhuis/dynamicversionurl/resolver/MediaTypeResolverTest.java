@@ -0,0 +1,34 @@
+package io.github.boukenijhuis.dynamicversionurl.resolver;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ResolverController.class, properties = "version.resolver=media-type")
+class MediaTypeResolverTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testVersionInMediaType() throws Exception {
+        testEndpoint("application/vnd.example.v2+json", "a1");
+        testEndpoint("application/vnd.example.v7", "a4");
+        testEndpoint("text/plain;version=3", "a1");
+        testEndpoint("text/html, application/vnd.example.v5+json;q=0.9", "a4");
+
+        mockMvc.perform(get("/resolver/a").header("Accept", "application/json")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/a").header("Accept", "application/vnd.example.v10+json")).andExpect(status().isNotFound());
+    }
+
+    private void testEndpoint(String accept, String expected) throws Exception {
+        mockMvc.perform(get("/resolver/a").header("Accept", accept))
+                .andExpect(status().isOk())
+                .andExpect(content().string(expected));
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl.resolver;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ResolverController.class, properties = "version.resolver=path-postfix")
+class PathPostfixResolverTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testVersionAfterPath() throws Exception {
+        testEndpoint("/resolver/a/v1", "a1");
+        testEndpoint("/resolver/a/v3", "a1");
+        testEndpoint("/resolver/a/v4", "a4");
+        testEndpoint("/resolver/b/aap/v5", "baap");
+
+        mockMvc.perform(get("/resolver/v2/a")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/a/v10")).andExpect(status().isNotFound());
+    }
+
+    private void testEndpoint(String path, String expected) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isOk()).andExpect(content().string(expected));
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.boukenijhuis.dynamicversionurl.resolver;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ResolverController.class, properties = {"version.resolver=query-parameter", "version.query-parameter=api-version"})
+class QueryParameterResolverTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testVersionInQueryParameter() throws Exception {
+        testEndpoint("/resolver/a?api-version=2", "a1");
+        testEndpoint("/resolver/a?api-version=9", "a4");
+        testEndpoint("/resolver/b/aap?api-version=v2", "baap");
+
+        mockMvc.perform(get("/resolver/a?version=2")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/resolver/b/aap?api-version=1")).andExpect(status().isNotFound());
+    }
+
+    private void testEndpoint(String path, String expected) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isOk()).andExpect(content().string(expected));
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.boukenijhuis.dynamicversionurl.resolver;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/resolver")
+public class ResolverController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, 9})
+    public String a4() {
+        return "a4";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.boukenijhuis.dynamicversionurl.responsecache;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheTtlTest {
+
+    @Test
+    public void testCacheTtlOnGetMapping() {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(GetCacheTtl.class);
+        assertEquals(60, handlerMapping.getVersionedMappings().values().iterator().next().cacheTtl());
+    }
+
+    @Test
+    public void testCacheTtlWithoutGetIsRejected() {
+        Throwable exception = assertThrows(Exception.class, () -> createHandlerMapping(PostCacheTtl.class));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(exception).getMessage()
+                .startsWith("The cache ttl only applies to GET requests, but was 60 on "));
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?> handlerType) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    // not controllers, otherwise every test application would contain these mappings
+    @RequestMapping("/ttl")
+    static class GetCacheTtl {
+
+        @GetMapping("/get")
+        @VersionMapping(value = {1, 2}, cacheTtl = 60)
+        public String get() {
+            return "get";
+        }
+    }
+
+    @RequestMapping("/ttl")
+    static class PostCacheTtl {
+
+        @PostMapping("/post")
+        @VersionMapping(value = {1, 2}, cacheTtl = 60)
+        public String post() {
+            return "post";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.boukenijhuis.dynamicversionurl.responsecache;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RestController
+@RequestMapping("/frozen")
+public class ResponseCacheController {
+
+    static final AtomicInteger invocations = new AtomicInteger();
+
+    static final AtomicInteger slowInvocations = new AtomicInteger();
+
+    @GetVersionMapping(path = "/a", versions = {1, 2}, cacheTtl = 60)
+    public String a1(@RequestParam(name = "q", required = false) String q) {
+        return "a1-" + invocations.incrementAndGet();
+    }
+
+    @GetVersionMapping(path = "/a", versions = {3, 3}, cacheTtl = 60)
+    public String a3() {
+        return "a3-" + invocations.incrementAndGet();
+    }
+
+    @GetVersionMapping(path = "/b", versions = {1, 2})
+    public String b() {
+        return "b-" + invocations.incrementAndGet();
+    }
+
+    @GetVersionMapping(path = "/user", versions = {1, 2}, cacheTtl = 60)
+    public String user(HttpSession session) {
+        return "user-" + session.getId();
+    }
+
+    @GetVersionMapping(path = "/private", versions = {1, 2}, cacheTtl = 60)
+    public ResponseEntity<String> privateResponse() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate())
+                .body("private-" + invocations.incrementAndGet());
+    }
+
+    @GetVersionMapping(path = "/vary", versions = {1, 2}, cacheTtl = 60)
+    public ResponseEntity<String> vary() {
+        return ResponseEntity.ok().varyBy("X-Tenant").body("vary-" + invocations.incrementAndGet());
+    }
+
+    @GetVersionMapping(path = "/slow", versions = {1, 2}, cacheTtl = 60)
+    public String slow() throws InterruptedException {
+        Thread.sleep(300);
+        return "slow-" + slowInvocations.incrementAndGet();
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.boukenijhuis.dynamicversionurl.responsecache;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = ResponseCacheController.class, properties = "version.response-cache.enabled=true")
+class ResponseCacheControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testOlderVersionsAreCached() throws Exception {
+        String first = getContent("/frozen/v1/a");
+        assertEquals(first, getContent("/frozen/v1/a"));
+
+        // every version and query string is cached separately
+        assertNotEquals(first, getContent("/frozen/v2/a"));
+        assertNotEquals(first, getContent("/frozen/v1/a?q=1"));
+
+        // the content type is cached as well
+        mockMvc.perform(get("/frozen/v1/a"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andExpect(content().string(first));
+    }
+
+    @Test
+    public void testCurrentVersionIsNotCached() throws Exception {
+        assertNotEquals(getContent("/frozen/v3/a"), getContent("/frozen/v3/a"));
+    }
+
+    @Test
+    public void testMappingsWithoutCacheTtlAreNotCached() throws Exception {
+        assertNotEquals(getContent("/frozen/v1/b"), getContent("/frozen/v1/b"));
+    }
+
+    @Test
+    public void testUsersAreNotShared() throws Exception {
+        String first = mockMvc.perform(get("/frozen/v1/a?user").header(HttpHeaders.AUTHORIZATION, "Bearer aap"))
+                .andReturn().getResponse().getContentAsString();
+
+        // the digest of the same user matches, the digest of another user does not
+        mockMvc.perform(get("/frozen/v1/a?user").header(HttpHeaders.AUTHORIZATION, "Bearer aap"))
+                .andExpect(content().string(first));
+        mockMvc.perform(get("/frozen/v1/a?user").header(HttpHeaders.AUTHORIZATION, "Bearer noot"))
+                .andExpect(content().string(not(first)));
+    }
+
+    @Test
+    public void testSessionsAreNotShared() throws Exception {
+        MockHttpSession aap = new MockHttpSession(null, "aap");
+        MockHttpSession noot = new MockHttpSession(null, "noot");
+
+        mockMvc.perform(get("/frozen/v1/user").session(aap)).andExpect(content().string("user-aap"));
+        mockMvc.perform(get("/frozen/v1/user").session(noot)).andExpect(content().string("user-noot"));
+
+        // a cookie is not part of the key either
+        String first = getContent("/frozen/v1/a", new Cookie("user", "aap"));
+        assertNotEquals(first, getContent("/frozen/v1/a", new Cookie("user", "noot")));
+    }
+
+    @Test
+    public void testPrivateResponsesAreNotCached() throws Exception {
+        assertNotEquals(getContent("/frozen/v1/private"), getContent("/frozen/v1/private"));
+    }
+
+    @Test
+    public void testResponsesThatVaryOnOtherHeadersAreNotCached() throws Exception {
+        assertNotEquals(getContent("/frozen/v1/vary"), getContent("/frozen/v1/vary"));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        int requests = 8;
+        int invocations = ResponseCacheController.slowInvocations.get();
+        ExecutorService executorService = Executors.newFixedThreadPool(requests);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(requests);
+            List<Future<String>> responses = executorService.invokeAll(Collections.nCopies(requests, () -> {
+                barrier.await();
+                return getContent("/frozen/v2/slow");
+            }));
+
+            Set<String> contents = ConcurrentHashMap.newKeySet();
+            for (Future<String> response : responses) {
+                contents.add(response.get());
+            }
+            assertEquals(Set.of("slow-" + (invocations + 1)), contents);
+            assertEquals(invocations + 1, ResponseCacheController.slowInvocations.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private String getContent(String url, Cookie... cookies) throws Exception {
+        MockHttpServletRequestBuilder request = get(url);
+        if (cookies.length > 0) {
+            request.cookie(cookies);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
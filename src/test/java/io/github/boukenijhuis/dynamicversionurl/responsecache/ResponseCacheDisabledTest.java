@@ -0,0 +1,35 @@
+package io.github.boukenijhuis.dynamicversionurl.responsecache;
+
+import io.github.boukenijhuis.dynamicversionurl.VersionResponseCacheFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ResponseCacheController.class)
+class ResponseCacheDisabledTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectProvider<VersionResponseCacheFilter> responseCacheFilter;
+
+    @Test
+    public void testResponseCacheIsDisabledByDefault() throws Exception {
+        assertNull(responseCacheFilter.getIfAvailable());
+        assertNotEquals(getContent("/frozen/v1/a"), getContent("/frozen/v1/a"));
+    }
+
+    private String getContent(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.boukenijhuis.dynamicversionurl.responsecache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ResponseCacheController.class,
+        properties = {"version.response-cache.enabled=true", "version.response-cache.wait-timeout-millis=50"})
+class ResponseCacheWaitTimeoutTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testWaitingRequestInvokesTheHandlerAfterTheTimeout() throws Exception {
+        int invocations = ResponseCacheController.slowInvocations.get();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            List<Future<String>> responses = executorService.invokeAll(List.of(() -> {
+                barrier.await();
+                return getContent("/frozen/v1/slow");
+            }, () -> {
+                barrier.await();
+                // the other request invokes the slow handler first
+                Thread.sleep(100);
+                return getContent("/frozen/v1/slow");
+            }));
+
+            // the second request did not wait for the response of the first
+            assertNotEquals(responses.get(0).get(), responses.get(1).get());
+            assertEquals(invocations + 2, ResponseCacheController.slowInvocations.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private String getContent(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
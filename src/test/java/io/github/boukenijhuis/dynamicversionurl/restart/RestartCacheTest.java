@@ -0,0 +1,184 @@
+package io.github.boukenijhuis.dynamicversionurl.restart;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestartCacheTest {
+
+    private static final String CLASS_NAME = "example.RestartController";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testUnchangedClassesAreNotProcessedAgain() {
+        ApiVersionRequestMappingHandlerMapping first = createHandlerMapping(Orders.class);
+        ApiVersionRequestMappingHandlerMapping second = createHandlerMapping(Orders.class);
+
+        assertEquals(Set.of(Orders.class), first.getReprocessedHandlerTypes());
+        assertEquals(Set.of(), second.getReprocessedHandlerTypes());
+        assertEquals(getPatterns(first), getPatterns(second));
+
+        // the parsed patterns are reused as well
+        PathPattern firstPattern = getPathPatterns(first).get("/orders/v3/{id}");
+        PathPattern secondPattern = getPathPatterns(second).get("/orders/v3/{id}");
+        assertSame(firstPattern, secondPattern);
+    }
+
+    @Test
+    public void testChangedClassesAreProcessedAgain() throws Exception {
+        Class<?> original = compile("original", "versions = {1, 2}");
+        Class<?> restarted = compile("restarted", "versions = {1, 2}");
+        Class<?> changed = compile("changed", "versions = {1, 3}");
+
+        assertEquals(Set.of(original), createHandlerMapping(original).getReprocessedHandlerTypes());
+        assertEquals(Set.of(), createHandlerMapping(restarted).getReprocessedHandlerTypes());
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(changed);
+        assertEquals(Set.of(changed), handlerMapping.getReprocessedHandlerTypes());
+        assertEquals(Set.of("/restart/v1/a", "/restart/v2/a", "/restart/v3/a"), getPatterns(handlerMapping));
+    }
+
+    @Test
+    public void testOverlapsWithUnchangedClassesAreReported() {
+        ApiVersionRequestMappingHandlerMapping first = createHandlerMapping(Invoices.class);
+        assertEquals(List.of(), checkOverlaps(first));
+
+        // the new class overlaps with the unchanged class, which passed the previous check
+        ApiVersionRequestMappingHandlerMapping second = createHandlerMapping(Invoices.class, OtherInvoices.class);
+        assertEquals(Set.of(OtherInvoices.class), second.getReprocessedHandlerTypes());
+        assertEquals(List.of("Ambiguous version mapping found with the following URL: /invoices/v2/list "
+                + "(Invoices#invoices and OtherInvoices#otherInvoices)"), checkOverlaps(second));
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?>... handlerTypes) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        for (Class<?> handlerType : handlerTypes) {
+            applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+        }
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return Arrays.asList(handlerTypes).contains(beanType);
+            }
+        };
+        handlerMapping.setRestartCacheEnabled(true);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        applicationContext.getBeanFactory().registerSingleton("handlerMapping", handlerMapping);
+        return handlerMapping;
+    }
+
+    private static List<String> checkOverlaps(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        StaticWebApplicationContext applicationContext = (StaticWebApplicationContext) handlerMapping.getApplicationContext();
+        applicationContext.refresh();
+        try {
+            new VersionOverlapChecker().onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+            return List.of();
+        } catch (RuntimeException e) {
+            return List.of(NestedExceptionUtils.getMostSpecificCause(e).getMessage().split(System.lineSeparator()));
+        }
+    }
+
+    private static Set<String> getPatterns(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        return new TreeSet<>(getPathPatterns(handlerMapping).keySet());
+    }
+
+    private static Map<String, PathPattern> getPathPatterns(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<String, PathPattern> patterns = new HashMap<>();
+        for (RequestMappingInfo info : handlerMapping.getHandlerMethods().keySet()) {
+            info.getPathPatternsCondition().getPatterns().forEach(pattern -> patterns.put(pattern.getPatternString(), pattern));
+        }
+        return patterns;
+    }
+
+    // compiles the controller in its own class loader, like the restart class loader of devtools
+    private Class<?> compile(String name, String versions) throws Exception {
+        Path sourceDirectory = Files.createDirectories(directory.resolve(name).resolve("example"));
+        Files.writeString(sourceDirectory.resolve("RestartController.java"), """
+                package example;
+
+                import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+                import org.springframework.web.bind.annotation.RequestMapping;
+
+                @RequestMapping("/restart")
+                public class RestartController {
+
+                    @GetVersionMapping(path = "/a", %s)
+                    public String a() {
+                        return "a";
+                    }
+                }
+                """.formatted(versions));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-classpath", getClasspath(), "-proc:none",
+                sourceDirectory.resolve("RestartController.java").toString());
+        assertEquals(0, result);
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.resolve(name).toUri().toURL()},
+                getClass().getClassLoader());
+        return classLoader.loadClass(CLASS_NAME);
+    }
+
+    // surefire hides the classpath in a manifest, so use the locations of the classes that the sources need
+    private static String getClasspath() throws Exception {
+        List<String> locations = new ArrayList<>();
+        for (Class<?> clazz : Stream.of(VersionMapping.class, RequestMapping.class, AliasFor.class).toList()) {
+            locations.add(Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        return String.join(File.pathSeparator, locations);
+    }
+
+    // not controllers, otherwise every test application would contain these mappings
+    @RequestMapping("/orders")
+    static class Orders {
+
+        @GetVersionMapping(path = "/{id}", versions = {1, 3})
+        public String order() {
+            return "order";
+        }
+    }
+
+    @RequestMapping("/invoices")
+    static class Invoices {
+
+        @GetVersionMapping(path = "/list", versions = {1, 2})
+        public String invoices() {
+            return "invoices";
+        }
+    }
+
+    @RequestMapping("/invoices")
+    static class OtherInvoices {
+
+        @GetVersionMapping(path = "/list", versions = {2, 3})
+        public String otherInvoices() {
+            return "other-invoices";
+        }
+    }
+}
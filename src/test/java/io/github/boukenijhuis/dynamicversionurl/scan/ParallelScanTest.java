@@ -0,0 +1,93 @@
+package io.github.boukenijhuis.dynamicversionurl.scan;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.lazy.LazyController;
+import io.github.boukenijhuis.dynamicversionurl.placement.PlacementController;
+import io.github.boukenijhuis.dynamicversionurl.resolver.ResolverController;
+import io.github.boukenijhuis.dynamicversionurl.version.GetVersionController;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelScanTest {
+
+    private static final Class<?>[] CONTROLLERS = {GetVersionController.class, LazyController.class,
+            PlacementController.class, ResolverController.class};
+
+    @Test
+    public void testSameMappingsAsSerialRegistration() {
+        ApiVersionRequestMappingHandlerMapping serial = createHandlerMapping(0, false, CONTROLLERS);
+        ApiVersionRequestMappingHandlerMapping parallel = createHandlerMapping(4, false, CONTROLLERS);
+
+        assertEquals(getPatterns(serial), getPatterns(parallel));
+        assertEquals(serial.getVersionedMappings().size(), parallel.getVersionedMappings().size());
+        assertTrue(parallel.getScanTime().toNanos() > 0);
+        assertEquals(0, serial.getScanTime().toNanos());
+    }
+
+    @Test
+    public void testSameMappingsAsSerialRegistrationInLazyMode() {
+        assertEquals(getPatterns(createHandlerMapping(0, true, CONTROLLERS)),
+                getPatterns(createHandlerMapping(4, true, CONTROLLERS)));
+    }
+
+    @Test
+    public void testSameErrorAsSerialRegistration() {
+        Throwable serial = assertThrows(Exception.class, () -> createHandlerMapping(0, false, InvalidVersions.class));
+        Throwable parallel = assertThrows(Exception.class, () -> createHandlerMapping(4, false, InvalidVersions.class));
+
+        assertEquals(NestedExceptionUtils.getMostSpecificCause(serial).getMessage(),
+                NestedExceptionUtils.getMostSpecificCause(parallel).getMessage());
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(int scanParallelism, boolean lazy,
+                                                                              Class<?>... handlerTypes) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        for (Class<?> handlerType : handlerTypes) {
+            applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+        }
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setScanParallelism(scanParallelism);
+        handlerMapping.setLazy(lazy);
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    // handler method -> registered patterns
+    private static Map<String, String> getPatterns(ApiVersionRequestMappingHandlerMapping handlerMapping) {
+        Map<String, String> patterns = new TreeMap<>();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) ->
+                patterns.merge(handlerMethod.toString(), info.getPatternValues().toString(), (a, b) -> a + b));
+        return patterns;
+    }
+
+    // not a controller, otherwise every test application would contain this invalid mapping
+    @RequestMapping("/invalid")
+    static class InvalidVersions {
+
+        @GetVersionMapping(path = "/a", versions = {1, 2})
+        public String a() {
+            return "a";
+        }
+
+        @GetVersionMapping(path = "/b", versions = {1, 2, 3})
+        public String b() {
+            return "b";
+        }
+    }
+}
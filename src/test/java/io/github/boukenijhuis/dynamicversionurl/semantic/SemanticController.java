@@ -0,0 +1,32 @@
+package io.github.boukenijhuis.dynamicversionurl.semantic;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/semantic")
+public class SemanticController {
+
+    @GetVersionMapping(path = "/orders", semanticVersions = {"2.0", "2.7"})
+    public String orders20() {
+        return "orders2.0";
+    }
+
+    @GetVersionMapping(path = "/orders", semanticVersions = {"2.8", "3.1"})
+    public String orders28() {
+        return "orders2.8";
+    }
+
+    @PostVersionMapping(path = "/orders", semanticVersions = "2.3")
+    public String postOrders23() {
+        return "post-orders2.3";
+    }
+
+    @GetVersionMapping(path = "/orders/{id}", semanticVersions = {"1.0", "1.5"})
+    public String order(@PathVariable("id") String id) {
+        return "order-" + id;
+    }
+}
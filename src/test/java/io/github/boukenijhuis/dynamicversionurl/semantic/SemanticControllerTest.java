@@ -0,0 +1,71 @@
+package io.github.boukenijhuis.dynamicversionurl.semantic;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.SemanticVersion;
+import io.github.boukenijhuis.dynamicversionurl.VersionedMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = SemanticController.class)
+class SemanticControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testRanges() throws Exception {
+        mockMvc.perform(get("/semantic/v2.0/orders")).andExpect(status().isOk()).andExpect(content().string("orders2.0"));
+        mockMvc.perform(get("/semantic/v2.7/orders")).andExpect(status().isOk()).andExpect(content().string("orders2.0"));
+        // the minor versions are compared as numbers, so 2.10 is newer than 2.7
+        mockMvc.perform(get("/semantic/v2.10/orders")).andExpect(status().isOk()).andExpect(content().string("orders2.8"));
+        mockMvc.perform(get("/semantic/v3.1/orders")).andExpect(status().isOk()).andExpect(content().string("orders2.8"));
+        mockMvc.perform(get("/semantic/v1.5/orders/7")).andExpect(status().isOk()).andExpect(content().string("order-7"));
+        mockMvc.perform(post("/semantic/v2.3/orders")).andExpect(status().isOk()).andExpect(content().string("post-orders2.3"));
+    }
+
+    @Test
+    public void testVersionsOutsideTheRanges() throws Exception {
+        mockMvc.perform(get("/semantic/v3.2/orders")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/semantic/v1.9/orders")).andExpect(status().isNotFound());
+        mockMvc.perform(post("/semantic/v2.4/orders")).andExpect(status().isNotFound());
+        // a major.minor version is required
+        mockMvc.perform(get("/semantic/v2/orders")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/semantic/v2./orders")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testVersionAttributes() throws Exception {
+        mockMvc.perform(get("/semantic/v2.5/orders"))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.SEMANTIC_VERSION_ATTRIBUTE, SemanticVersion.pack(2, 5)))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, 2));
+    }
+
+    @Test
+    public void testOnePatternPerPath() {
+        // method name -> the major versions that it serves
+        Map<String, String> ranges = new TreeMap<>();
+        Map<?, VersionedMapping> versionedMappings = ((ApiVersionRequestMappingHandlerMapping) handlerMapping).getVersionedMappings();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            VersionedMapping versionedMapping = versionedMappings.get(info);
+            if (versionedMapping != null && handlerMethod.getBeanType() == SemanticController.class) {
+                assertEquals(1, info.getPatternValues().size());
+                ranges.put(handlerMethod.getMethod().getName(), versionedMapping.oldest() + "-" + versionedMapping.newest());
+            }
+        });
+        assertEquals(Map.of("orders20", "2-2", "orders28", "2-3", "postOrders23", "2-2", "order", "1-1"), ranges);
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.boukenijhuis.dynamicversionurl.semantic;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.SemanticVersion;
+import io.github.boukenijhuis.dynamicversionurl.VersionOverlapChecker;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticVersionTest {
+
+    @Test
+    public void testPackedVersions() {
+        long version = SemanticVersion.parse("2.10");
+        assertEquals(2, SemanticVersion.major(version));
+        assertEquals(10, SemanticVersion.minor(version));
+        assertEquals("2.10", SemanticVersion.format(version));
+
+        // the packed versions are ordered like the versions
+        assertTrue(SemanticVersion.parse("2.9") < SemanticVersion.parse("2.10"));
+        assertTrue(SemanticVersion.parse("2.10") < SemanticVersion.parse("3.0"));
+
+        assertThrows(RuntimeException.class, () -> SemanticVersion.parse("2"));
+        assertThrows(RuntimeException.class, () -> SemanticVersion.parse("2.x"));
+        assertThrows(RuntimeException.class, () -> SemanticVersion.parse("2.3.1"));
+    }
+
+    @Test
+    public void testVersionWindow() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(SemanticController.class);
+        handlerMapping.setSupportedVersions(3, 3);
+
+        assertEquals("orders28", getHandlerMethodName(handlerMapping, "/semantic/v3.0/orders"));
+        assertNull(handlerMapping.getHandler(createRequest("/semantic/v2.9/orders")));
+        assertNull(handlerMapping.getHandler(createRequest("/semantic/v2.3/orders")));
+    }
+
+    @Test
+    public void testOverlappingRanges() {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(OverlappingSemanticVersions.class);
+        assertEquals(List.of("Ambiguous version mapping found with the following URL: /overlapping/v2.5/orders "
+                        + "(OverlappingSemanticVersions#orders20 and OverlappingSemanticVersions#orders25)"),
+                VersionOverlapChecker.findOverlaps(handlerMapping));
+    }
+
+    @Test
+    public void testInvalidRange() {
+        Throwable exception = assertThrows(Exception.class, () -> createHandlerMapping(InvalidSemanticVersions.class));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(exception).getMessage()
+                .startsWith("Invalid semantic version range [2.7, 2.0]"));
+    }
+
+    private static String getHandlerMethodName(ApiVersionRequestMappingHandlerMapping handlerMapping, String path) throws Exception {
+        HandlerExecutionChain chain = handlerMapping.getHandler(createRequest(path));
+        assertNotNull(chain);
+        return ((HandlerMethod) chain.getHandler()).getMethod().getName();
+    }
+
+    private static MockHttpServletRequest createRequest(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        ServletRequestPathUtils.parseAndCache(request);
+        return request;
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?> handlerType) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    // not controllers, otherwise every test application would contain these invalid mappings
+    @RequestMapping("/overlapping")
+    static class OverlappingSemanticVersions {
+
+        @GetVersionMapping(path = "/orders", semanticVersions = {"2.0", "2.7"})
+        public String orders20() {
+            return "orders2.0";
+        }
+
+        @GetVersionMapping(path = "/orders", semanticVersions = {"2.5", "3.0"})
+        public String orders25() {
+            return "orders2.5";
+        }
+
+        // the same major version, but no overlap
+        @GetVersionMapping(path = "/orders", semanticVersions = {"3.1", "3.4"})
+        public String orders31() {
+            return "orders3.1";
+        }
+    }
+
+    @RequestMapping("/invalid")
+    static class InvalidSemanticVersions {
+
+        @GetVersionMapping(path = "/orders", semanticVersions = {"2.7", "2.0"})
+        public String orders() {
+            return "orders";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.boukenijhuis.dynamicversionurl.shadow;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/shadow")
+public class ShadowController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 2})
+    public String a1() {
+        return "a";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {3, 4})
+    public String a3() {
+        return "a";
+    }
+
+    @GetVersionMapping(path = "/b", versions = {1, 2})
+    public String b1() {
+        return "b1";
+    }
+
+    @GetVersionMapping(path = "/b", versions = {3, 4})
+    public String b3() {
+        return "b3";
+    }
+
+    @GetVersionMapping(path = "/c/{id}", versions = {1, 2})
+    public String c1(@PathVariable("id") int id) {
+        return "c" + id;
+    }
+
+    @GetVersionMapping(path = "/c/{id}", versions = {3, 4})
+    public String c3(@PathVariable("id") int id) {
+        return "c" + id;
+    }
+
+    @GetVersionMapping(path = "/d", versions = {1, 2})
+    public String d1() {
+        return "d1";
+    }
+
+    @GetVersionMapping(path = "/d", versions = {3, 4})
+    public String d3(HttpServletResponse response) {
+        response.setHeader("X-Version", "3");
+        return "d3";
+    }
+
+    @GetVersionMapping(path = "/e", versions = {1, 2})
+    public String e1(@RequestBody(required = false) String body) {
+        return "e1";
+    }
+
+    @GetVersionMapping(path = "/e", versions = {3, 4})
+    public String e3(@RequestBody(required = false) String body) {
+        return "e3";
+    }
+
+    @GetVersionMapping(path = "/f", versions = {1, 2})
+    public String f1() {
+        return "f1";
+    }
+
+    @GetVersionMapping(path = "/f", versions = {3, 4})
+    public String f3(HttpEntity<String> entity) {
+        return "f3";
+    }
+
+    @GetVersionMapping(path = "/g", versions = {1, 2})
+    public String g1(@RequestParam("q") String q, @RequestHeader("X-Name") String name) {
+        return q + name;
+    }
+
+    @GetVersionMapping(path = "/g", versions = {3, 4})
+    public String g3(@RequestParam("q") String q, @RequestHeader("X-Name") String name) {
+        return q + name;
+    }
+}
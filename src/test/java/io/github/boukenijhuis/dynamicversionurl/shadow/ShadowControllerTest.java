@@ -0,0 +1,99 @@
+package io.github.boukenijhuis.dynamicversionurl.shadow;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.LookupCacheStatistics;
+import io.github.boukenijhuis.dynamicversionurl.ShadowRequestMappingHandlerAdapter;
+import io.github.boukenijhuis.dynamicversionurl.ShadowStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ShadowController.class, properties = {"version.shadow.sample-rate=1", "version.cache.size=100"})
+class ShadowControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerAdapter handlerAdapter;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testShadowDispatch() throws Exception {
+        mockMvc.perform(get("/shadow/v2/a")).andExpect(status().isOk()).andExpect(content().string("a"));
+        mockMvc.perform(get("/shadow/v2/b")).andExpect(status().isOk()).andExpect(content().string("b1"));
+        mockMvc.perform(get("/shadow/v2/c/5")).andExpect(status().isOk()).andExpect(content().string("c5"));
+        // the next version has the same handler
+        mockMvc.perform(get("/shadow/v1/a")).andExpect(status().isOk()).andExpect(content().string("a"));
+        // the shadow handler would write to the response
+        mockMvc.perform(get("/shadow/v2/d")).andExpect(status().isOk()).andExpect(header().doesNotExist("X-Version"));
+        // the shadow handlers would read the request body
+        mockMvc.perform(get("/shadow/v2/e").content("body")).andExpect(status().isOk()).andExpect(content().string("e1"));
+        mockMvc.perform(get("/shadow/v2/f").content("body")).andExpect(status().isOk()).andExpect(content().string("f1"));
+        // there is no next version
+        mockMvc.perform(get("/shadow/v4/b")).andExpect(status().isOk()).andExpect(content().string("b3"));
+
+        // the pair of testDetachedRequest is left out
+        List<ShadowStatistics> statistics = awaitSamples(List.of("ShadowController#a1", "ShadowController#b1", "ShadowController#c1")).stream()
+                .filter(pair -> !pair.handler().equals("ShadowController#g1"))
+                .toList();
+        assertEquals(List.of("ShadowController#a1 -> ShadowController#a3", "ShadowController#b1 -> ShadowController#b3",
+                        "ShadowController#c1 -> ShadowController#c3"),
+                statistics.stream().map(pair -> pair.handler() + " -> " + pair.shadowHandler()).toList());
+        assertEquals(List.of(1L, 0L, 1L), statistics.stream().map(ShadowStatistics::equal).toList());
+        assertEquals(List.of(0L, 1L, 0L), statistics.stream().map(ShadowStatistics::different).toList());
+        assertTrue(statistics.stream().allMatch(pair -> pair.failed() == 0 && pair.dropped() == 0));
+    }
+
+    @Test
+    public void testDetachedRequest() throws Exception {
+        LookupCacheStatistics before = ((ApiVersionRequestMappingHandlerMapping) handlerMapping).getLookupCacheStatistics();
+        mockMvc.perform(get("/shadow/v2/g").param("q", "x").header("X-Name", "y"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("xy"));
+
+        // the parameters and headers are copied for the shadow handler
+        ShadowStatistics pair = awaitSamples(List.of("ShadowController#g1")).stream()
+                .filter(statistics -> statistics.handler().equals("ShadowController#g1"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, pair.equal());
+        assertEquals(0, pair.failed());
+
+        // the handler of the next version is not looked up in (or added to) the lookup cache
+        LookupCacheStatistics after = ((ApiVersionRequestMappingHandlerMapping) handlerMapping).getLookupCacheStatistics();
+        assertEquals(1, after.misses() - before.misses());
+        assertEquals(1, after.size() - before.size());
+    }
+
+    @Test
+    public void testInvalidSampleRate() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> new ShadowRequestMappingHandlerAdapter().setSampleRate(1.5));
+        assertEquals("The shadow sample rate should be between 0 and 1, but was 1.5.", exception.getMessage());
+    }
+
+    // the shadow handlers run in the background
+    private List<ShadowStatistics> awaitSamples(List<String> handlers) throws InterruptedException {
+        ShadowRequestMappingHandlerAdapter adapter = (ShadowRequestMappingHandlerAdapter) handlerAdapter;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline && !handlers.stream().allMatch(handler -> adapter.getShadowStatistics().stream()
+                .anyMatch(pair -> pair.handler().equals(handler) && pair.samples() + pair.failed() > 0))) {
+            Thread.sleep(10);
+        }
+        return adapter.getShadowStatistics();
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.boukenijhuis.dynamicversionurl.sparse;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.PostVersionMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sparse")
+public class SparseController {
+
+    @GetVersionMapping(path = "/b", since = 1)
+    public String b1() {
+        return "b1";
+    }
+
+    @GetVersionMapping(path = "/b", since = 4)
+    public String b4() {
+        return "b4";
+    }
+
+    @GetVersionMapping(path = "/b", since = 7)
+    public String b7() {
+        return "b7";
+    }
+
+    @PostVersionMapping(path = "/b", since = 2)
+    public String postB2() {
+        return "post-b2";
+    }
+
+    @GetVersionMapping(path = "/items/{id}", since = 3)
+    public String item3(@PathVariable("id") String id) {
+        return "item3-" + id;
+    }
+}
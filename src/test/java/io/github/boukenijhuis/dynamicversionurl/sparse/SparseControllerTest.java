@@ -0,0 +1,72 @@
+package io.github.boukenijhuis.dynamicversionurl.sparse;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionedMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = SparseController.class, properties = "version.latest=9")
+class SparseControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testHighestSinceVersion() throws Exception {
+        mockMvc.perform(get("/sparse/v1/b")).andExpect(status().isOk()).andExpect(content().string("b1"));
+        mockMvc.perform(get("/sparse/v3/b")).andExpect(status().isOk()).andExpect(content().string("b1"));
+        mockMvc.perform(get("/sparse/v4/b")).andExpect(status().isOk()).andExpect(content().string("b4"));
+        mockMvc.perform(get("/sparse/v6/b")).andExpect(status().isOk()).andExpect(content().string("b4"));
+        mockMvc.perform(get("/sparse/v9/b")).andExpect(status().isOk()).andExpect(content().string("b7"));
+        mockMvc.perform(get("/sparse/v6/items/5")).andExpect(status().isOk()).andExpect(content().string("item3-5"));
+    }
+
+    @Test
+    public void testVersionsOutsideTheEndpoint() throws Exception {
+        // newer than the latest version
+        mockMvc.perform(get("/sparse/v10/b")).andExpect(status().isNotFound());
+        // older than the first since version
+        mockMvc.perform(get("/sparse/v2/items/5")).andExpect(status().isNotFound());
+        mockMvc.perform(post("/sparse/v1/b")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testRequestMethodsAreSeparateEndpoints() throws Exception {
+        mockMvc.perform(post("/sparse/v2/b")).andExpect(status().isOk()).andExpect(content().string("post-b2"));
+        mockMvc.perform(post("/sparse/v8/b")).andExpect(status().isOk()).andExpect(content().string("post-b2"));
+    }
+
+    @Test
+    public void testServedVersions() throws Exception {
+        mockMvc.perform(get("/sparse/v5/b"))
+                .andExpect(request().attribute(ApiVersionRequestMappingHandlerMapping.VERSION_ATTRIBUTE, 5));
+
+        // method name -> the versions that it serves, one pattern per path
+        Map<String, String> ranges = new TreeMap<>();
+        Map<?, VersionedMapping> versionedMappings = ((ApiVersionRequestMappingHandlerMapping) handlerMapping).getVersionedMappings();
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            VersionedMapping versionedMapping = versionedMappings.get(info);
+            if (versionedMapping != null) {
+                assertEquals(1, info.getPatternValues().size());
+                ranges.put(handlerMethod.getMethod().getName(), versionedMapping.oldest() + "-" + versionedMapping.newest());
+            }
+        });
+        assertEquals(Map.of("b1", "1-3", "b4", "4-6", "b7", "7-" + VersionMapping.LATEST,
+                "postB2", "2-" + VersionMapping.LATEST, "item3", "3-" + VersionMapping.LATEST), ranges);
+    }
+}
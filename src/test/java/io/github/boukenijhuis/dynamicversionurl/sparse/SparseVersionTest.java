@@ -0,0 +1,109 @@
+package io.github.boukenijhuis.dynamicversionurl.sparse;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.SinceVersionRequestCondition;
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseVersionTest {
+
+    @Test
+    public void testWithoutLatestVersion() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(SparseController.class);
+
+        // the newest since version is the current version
+        assertEquals(7, handlerMapping.getCurrentVersion());
+        assertEquals("b7", getHandlerMethodName(handlerMapping, "/sparse/v7/b"));
+        assertNull(handlerMapping.getHandler(createRequest("/sparse/v8/b")));
+    }
+
+    @Test
+    public void testChangedLatestVersion() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(SparseController.class);
+        handlerMapping.setSupportedVersions(2, 12);
+
+        assertEquals("b7", getHandlerMethodName(handlerMapping, "/sparse/v12/b"));
+        assertNull(handlerMapping.getHandler(createRequest("/sparse/v1/b")));
+        assertNull(handlerMapping.getHandler(createRequest("/sparse/v13/b")));
+    }
+
+    @Test
+    public void testMinSupportedVersion() throws Exception {
+        ApiVersionRequestMappingHandlerMapping handlerMapping = createHandlerMapping(SparseController.class);
+        handlerMapping.setSupportedVersions(3, 9);
+
+        // the since version 1 mapping only serves the versions from 3
+        assertNull(handlerMapping.getHandler(createRequest("/sparse/v1/b")));
+        assertNull(handlerMapping.getHandler(createRequest("/sparse/v2/b")));
+        assertEquals("b1", getHandlerMethodName(handlerMapping, "/sparse/v3/b"));
+        assertEquals("b4", getHandlerMethodName(handlerMapping, "/sparse/v4/b"));
+
+        // the condition itself does not match the retired versions either
+        SinceVersionRequestCondition condition = handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(entry -> entry.getValue().getMethod().getName().equals("b1"))
+                .map(entry -> (SinceVersionRequestCondition) entry.getKey().getCustomCondition())
+                .findFirst()
+                .orElseThrow();
+        assertNull(condition.getMatchingCondition(createRequest("/sparse/v2/b")));
+        assertNotNull(condition.getMatchingCondition(createRequest("/sparse/v3/b")));
+    }
+
+    @Test
+    public void testDuplicateSinceVersion() {
+        Throwable exception = assertThrows(Exception.class, () -> createHandlerMapping(DuplicateSince.class));
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(exception).getMessage()
+                .startsWith("The since version 2 is declared more than once"));
+    }
+
+    private static String getHandlerMethodName(ApiVersionRequestMappingHandlerMapping handlerMapping, String path) throws Exception {
+        HandlerExecutionChain chain = handlerMapping.getHandler(createRequest(path));
+        assertNotNull(chain);
+        return ((HandlerMethod) chain.getHandler()).getMethod().getName();
+    }
+
+    private static MockHttpServletRequest createRequest(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        ServletRequestPathUtils.parseAndCache(request);
+        return request;
+    }
+
+    private static ApiVersionRequestMappingHandlerMapping createHandlerMapping(Class<?> handlerType) {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton(handlerType.getSimpleName(), handlerType);
+
+        ApiVersionRequestMappingHandlerMapping handlerMapping = new ApiVersionRequestMappingHandlerMapping("v") {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return AnnotatedElementUtils.hasAnnotation(beanType, RequestMapping.class);
+            }
+        };
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        return handlerMapping;
+    }
+
+    // not a controller, otherwise every test application would contain this invalid mapping
+    @RequestMapping("/duplicate")
+    static class DuplicateSince {
+
+        @GetVersionMapping(path = "/b", since = 2)
+        public String b2() {
+            return "b2";
+        }
+
+        @GetVersionMapping(path = "/b", since = 2)
+        public String otherB2() {
+            return "other-b2";
+        }
+    }
+}
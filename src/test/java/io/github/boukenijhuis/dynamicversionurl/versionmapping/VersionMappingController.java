@@ -12,4 +12,22 @@ public class VersionMappingController {
     public String a2() {
         return "a2";
     }
+
+    @GetMapping(value = "/version_mapping_since")
+    @VersionMapping(since = 2)
+    public String since2() {
+        return "since2";
+    }
+
+    @GetMapping(value = "/version_mapping_semantic")
+    @VersionMapping(semanticVersions = {"2.0", "2.7"})
+    public String semantic20() {
+        return "semantic2.0";
+    }
+
+    @GetMapping(value = "/version_mapping_limited")
+    @VersionMapping(value = 2, maxConcurrent = 1)
+    public String limited2() {
+        return "limited2";
+    }
 }
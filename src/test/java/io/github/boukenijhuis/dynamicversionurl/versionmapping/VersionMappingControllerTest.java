@@ -1,10 +1,16 @@
 package io.github.boukenijhuis.dynamicversionurl.versionmapping;
 
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.BulkheadStatistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -15,6 +21,9 @@ class VersionMappingControllerTest {
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    RequestMappingHandlerMapping handlerMapping;
+
     @Test
     public void testEndpointWithVersionMappingAnnotation() throws Exception {
         mockMvc.perform(get("/v1/version_mapping"))
@@ -27,4 +36,24 @@ class VersionMappingControllerTest {
         mockMvc.perform(get("/v3/version_mapping"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void testSince() throws Exception {
+        mockMvc.perform(get("/v1/version_mapping_since")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/v2/version_mapping_since")).andExpect(status().isOk()).andExpect(content().string("since2"));
+    }
+
+    @Test
+    public void testSemanticVersions() throws Exception {
+        mockMvc.perform(get("/v2.3/version_mapping_semantic")).andExpect(status().isOk()).andExpect(content().string("semantic2.0"));
+        mockMvc.perform(get("/v2.8/version_mapping_semantic")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testMaxConcurrent() throws Exception {
+        mockMvc.perform(get("/v2/version_mapping_limited")).andExpect(status().isOk()).andExpect(content().string("limited2"));
+
+        assertEquals(List.of(new BulkheadStatistics("VersionMappingController#limited2", 1, 0, 1, 1, 0)),
+                ((ApiVersionRequestMappingHandlerMapping) handlerMapping).getBulkheadStatistics());
+    }
 }
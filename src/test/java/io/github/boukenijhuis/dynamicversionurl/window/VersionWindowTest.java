@@ -0,0 +1,165 @@
+package io.github.boukenijhuis.dynamicversionurl.window;
+
+import io.github.boukenijhuis.dynamicversionurl.ApiVersionRequestMappingHandlerMapping;
+import io.github.boukenijhuis.dynamicversionurl.VersionWindow;
+import io.github.boukenijhuis.dynamicversionurl.VersionedMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = WindowController.class, properties = {"version.min-supported=1", "version.latest=6"})
+@ActiveProfiles("window")
+class VersionWindowTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+    ApiVersionRequestMappingHandlerMapping handlerMapping;
+
+    @BeforeEach
+    public void setUp() {
+        handlerMapping = (ApiVersionRequestMappingHandlerMapping) requestMappingHandlerMapping;
+    }
+
+    @AfterEach
+    public void restoreWindow() {
+        handlerMapping.setSupportedVersions(1, 6);
+    }
+
+    @Test
+    public void testLatestVersion() throws Exception {
+        testEndpoint("/window/v1/a", "a1");
+        testEndpoint("/window/v6/a", "a4");
+        mockMvc.perform(get("/window/v7/a")).andExpect(status().isNotFound());
+        assertEquals(3, getPatternCount("a4"));
+    }
+
+    @Test
+    public void testChangeWindow() throws Exception {
+        handlerMapping.setSupportedVersions(2, 8);
+
+        mockMvc.perform(get("/window/v1/a")).andExpect(status().isNotFound());
+        testEndpoint("/window/v2/a", "a1");
+        testEndpoint("/window/v8/a", "a4");
+        mockMvc.perform(get("/window/v9/a")).andExpect(status().isNotFound());
+
+        // only the supported versions are registered
+        assertEquals(2, getPatternCount("a1"));
+        assertEquals(5, getPatternCount("a4"));
+    }
+
+    @Test
+    public void testVersionedMappingFollowsWindow() throws Exception {
+        handlerMapping.setSupportedVersions(2, 8);
+        handlerMapping.setSupportedVersions(1, 7);
+
+        // the request is served with the versions of the current window, not with those of a replaced mapping
+        VersionedMapping versionedMapping = (VersionedMapping) mockMvc.perform(get("/window/v7/a"))
+                .andReturn().getRequest().getAttribute(ApiVersionRequestMappingHandlerMapping.VERSIONED_MAPPING_ATTRIBUTE);
+        assertNotNull(versionedMapping);
+        assertEquals(7, versionedMapping.newest());
+    }
+
+    @Test
+    public void testRetireAllVersions() throws Exception {
+        handlerMapping.setSupportedVersions(6, 8);
+        mockMvc.perform(get("/window/v5/b/aap")).andExpect(status().isNotFound());
+        assertEquals(0, getPatternCount("b"));
+
+        handlerMapping.setSupportedVersions(1, 6);
+        testEndpoint("/window/v5/b/aap", "baap");
+        assertEquals(4, getPatternCount("b"));
+    }
+
+    @Test
+    public void testRequestsAreServedDuringChange() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> failures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            failures.add(executor.submit(() -> {
+                int count = 0;
+                while (running.get()) {
+                    int status = mockMvc.perform(get("/window/v3/a")).andReturn().getResponse().getStatus();
+                    if (status != 200) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+
+        // version 3 is supported by every window
+        for (int i = 0; i < 50; i++) {
+            handlerMapping.setSupportedVersions(i % 2 == 0 ? 2 : 1, i % 2 == 0 ? 7 : 6);
+        }
+        running.set(false);
+        executor.shutdown();
+
+        for (Future<Integer> failure : failures) {
+            assertEquals(0, failure.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testInvalidWindowChangesNothing() throws Exception {
+        // a4 needs a latest version, while a1 could be updated
+        assertThrows(IllegalArgumentException.class, () -> handlerMapping.setSupportedVersions(2, VersionMapping.LATEST));
+
+        assertEquals(new VersionWindow(1, 6), handlerMapping.getVersionWindow());
+        testEndpoint("/window/v1/a", "a1");
+        testEndpoint("/window/v6/a", "a4");
+        assertEquals(3, getPatternCount("a1"));
+        assertEquals(3, getPatternCount("a4"));
+    }
+
+    @Test
+    public void testLatestNeedsLatestVersionInExpandedMode() {
+        StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+        applicationContext.registerSingleton("window", WindowController.class);
+
+        ApiVersionRequestMappingHandlerMapping unboundedHandlerMapping = new ApiVersionRequestMappingHandlerMapping("v");
+        unboundedHandlerMapping.setApplicationContext(applicationContext);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, unboundedHandlerMapping::afterPropertiesSet);
+        // the exception is wrapped by Spring
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(exception).getMessage().contains("no latest version is configured"));
+    }
+
+    private int getPatternCount(String method) {
+        int count = 0;
+        for (RequestMappingInfo info : handlerMapping.getHandlerMethods().keySet()) {
+            VersionedMapping versionedMapping = handlerMapping.getVersionedMappings().get(info);
+            if (versionedMapping != null && handlerMapping.getHandlerMethods().get(info).getMethod().getName().equals(method)) {
+                count += info.getPatternValues().size();
+            }
+        }
+        return count;
+    }
+
+    private void testEndpoint(String path, String expected) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isOk()).andExpect(content().string(expected));
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.boukenijhuis.dynamicversionurl.window;
+
+import io.github.boukenijhuis.dynamicversionurl.annotation.GetVersionMapping;
+import io.github.boukenijhuis.dynamicversionurl.annotation.VersionMapping;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// only scanned in the window tests, otherwise every test application would need a latest version
+@Profile("window")
+@RestController
+@RequestMapping("/window")
+public class WindowController {
+
+    @GetVersionMapping(path = "/a", versions = {1, 3})
+    public String a1() {
+        return "a1";
+    }
+
+    @GetVersionMapping(path = "/a", versions = {4, VersionMapping.LATEST})
+    public String a4() {
+        return "a4";
+    }
+
+    @GetVersionMapping(path = "/b/{id}", versions = {2, 5})
+    public String b(@PathVariable("id") String id) {
+        return "b" + id;
+    }
+}